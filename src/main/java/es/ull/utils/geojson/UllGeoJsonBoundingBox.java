@@ -0,0 +1,247 @@
+package es.ull.utils.geojson;
+
+import java.util.Objects;
+
+/**
+ * Immutable bounding box of a GeoJSON object, in longitude and latitude. Boxes crossing the antimeridian are not
+ * supported, so the minimum longitude is never greater than the maximum longitude. The box of an object without
+ * positions is {@link #EMPTY}, which does not intersect any box.
+ */
+public class UllGeoJsonBoundingBox {
+
+    public static final String ERROR_BOUNDS_NOT_VALID = "The minimum bounds must not be greater than the maximum bounds";
+    public static final String ERROR_GEOMETRY_UNDEFINED = "The geometry is not defined";
+    /**
+     * Box of the objects without positions.
+     */
+    public static final UllGeoJsonBoundingBox EMPTY = new UllGeoJsonBoundingBox(Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, true);
+    private final double minLongitude;
+    private final double minLatitude;
+    private final double maxLongitude;
+    private final double maxLatitude;
+
+    /**
+     * Constructor for a bounding box.
+     * 
+     * @param minLongitude the minimum longitude
+     * @param minLatitude  the minimum latitude
+     * @param maxLongitude the maximum longitude
+     * @param maxLatitude  the maximum latitude
+     * @throws IllegalArgumentException if a minimum bound is greater than its maximum bound or any bound is NaN
+     */
+    public UllGeoJsonBoundingBox(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+        if (!(minLongitude <= maxLongitude) || !(minLatitude <= maxLatitude)) {
+            throw new IllegalArgumentException(ERROR_BOUNDS_NOT_VALID);
+        }
+        this.minLongitude = minLongitude;
+        this.minLatitude = minLatitude;
+        this.maxLongitude = maxLongitude;
+        this.maxLatitude = maxLatitude;
+    }
+
+    /**
+     * Constructor for a bounding box without validation, used for the empty box.
+     * 
+     * @param minLongitude the minimum longitude
+     * @param minLatitude  the minimum latitude
+     * @param maxLongitude the maximum longitude
+     * @param maxLatitude  the maximum latitude
+     * @param unchecked    marker of the unchecked constructor
+     */
+    private UllGeoJsonBoundingBox(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude, boolean unchecked) {
+        this.minLongitude = minLongitude;
+        this.minLatitude = minLatitude;
+        this.maxLongitude = maxLongitude;
+        this.maxLatitude = maxLatitude;
+    }
+
+    /**
+     * Returns the bounding box of a geometry, Feature or FeatureCollection, which is cached by the object.
+     * 
+     * @param geometry the GeoJSON object
+     * @return the bounding box, or {@link #EMPTY} if the object has no positions
+     * @throws IllegalArgumentException if the object is null
+     */
+    public static UllGeoJsonBoundingBox of(UllGeoJsonGeometry geometry) {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        return geometry.getBoundingBox();
+    }
+
+    /**
+     * Computes the bounding box of a sequence of positions.
+     * 
+     * @param positions the positions
+     * @return the bounding box, or {@link #EMPTY} if there are no positions
+     */
+    public static UllGeoJsonBoundingBox of(UllGeoJsonPackedPositions positions) {
+        if (positions.isEmpty()) {
+            return EMPTY;
+        }
+        double minLongitude = Double.POSITIVE_INFINITY;
+        double minLatitude = Double.POSITIVE_INFINITY;
+        double maxLongitude = Double.NEGATIVE_INFINITY;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < positions.size(); i++) {
+            final double longitude = positions.getLongitude(i);
+            final double latitude = positions.getLatitude(i);
+            minLongitude = Math.min(minLongitude, longitude);
+            minLatitude = Math.min(minLatitude, latitude);
+            maxLongitude = Math.max(maxLongitude, longitude);
+            maxLatitude = Math.max(maxLatitude, latitude);
+        }
+        return new UllGeoJsonBoundingBox(minLongitude, minLatitude, maxLongitude, maxLatitude);
+    }
+
+    /**
+     * Returns the minimum longitude of the box.
+     * 
+     * @return the minimum longitude
+     */
+    public double getMinLongitude() {
+        return this.minLongitude;
+    }
+
+    /**
+     * Returns the minimum latitude of the box.
+     * 
+     * @return the minimum latitude
+     */
+    public double getMinLatitude() {
+        return this.minLatitude;
+    }
+
+    /**
+     * Returns the maximum longitude of the box.
+     * 
+     * @return the maximum longitude
+     */
+    public double getMaxLongitude() {
+        return this.maxLongitude;
+    }
+
+    /**
+     * Returns the maximum latitude of the box.
+     * 
+     * @return the maximum latitude
+     */
+    public double getMaxLatitude() {
+        return this.maxLatitude;
+    }
+
+    /**
+     * Checks if the box is the box of an object without positions.
+     * 
+     * @return true if the box is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return this.minLongitude > this.maxLongitude;
+    }
+
+    /**
+     * Checks if the box intersects another box, including the case where they only share their boundary.
+     * 
+     * @param other the other box
+     * @return true if the boxes intersect, false otherwise
+     */
+    public boolean intersects(UllGeoJsonBoundingBox other) {
+        return this.intersects(other.minLongitude, other.minLatitude, other.maxLongitude, other.maxLatitude);
+    }
+
+    /**
+     * Checks if the box intersects a window, including the case where they only share their boundary.
+     * 
+     * @param minLongitude the minimum longitude of the window
+     * @param minLatitude  the minimum latitude of the window
+     * @param maxLongitude the maximum longitude of the window
+     * @param maxLatitude  the maximum latitude of the window
+     * @return true if the box intersects the window, false otherwise
+     */
+    public boolean intersects(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+        return this.minLongitude <= maxLongitude && minLongitude <= this.maxLongitude
+                && this.minLatitude <= maxLatitude && minLatitude <= this.maxLatitude;
+    }
+
+    /**
+     * Checks if the box contains a point, including its boundary.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @return true if the box contains the point, false otherwise
+     */
+    public boolean contains(double longitude, double latitude) {
+        return this.minLongitude <= longitude && longitude <= this.maxLongitude
+                && this.minLatitude <= latitude && latitude <= this.maxLatitude;
+    }
+
+    /**
+     * Checks if the box contains another box.
+     * 
+     * @param other the other box
+     * @return true if the other box is inside this box, false otherwise
+     */
+    public boolean contains(UllGeoJsonBoundingBox other) {
+        return other.isEmpty() || (this.minLongitude <= other.minLongitude && other.maxLongitude <= this.maxLongitude
+                && this.minLatitude <= other.minLatitude && other.maxLatitude <= this.maxLatitude);
+    }
+
+    /**
+     * Returns the smallest box that contains this box and another box.
+     * 
+     * @param other the other box
+     * @return the union of both boxes
+     */
+    public UllGeoJsonBoundingBox union(UllGeoJsonBoundingBox other) {
+        if (other.isEmpty() || this.contains(other)) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return other;
+        }
+        return new UllGeoJsonBoundingBox(Math.min(this.minLongitude, other.minLongitude), Math.min(this.minLatitude, other.minLatitude),
+                Math.max(this.maxLongitude, other.maxLongitude), Math.max(this.maxLatitude, other.maxLatitude));
+    }
+
+    /**
+     * Checks if two bounding boxes are equal.
+     * 
+     * @param otherObject the object to compare with
+     * @return true if the boxes have the same bounds, false otherwise
+     */
+    @Override
+    public boolean equals(Object otherObject) {
+        if (this == otherObject) {
+            return true;
+        }
+        if (!(otherObject instanceof UllGeoJsonBoundingBox)) {
+            return false;
+        }
+        final UllGeoJsonBoundingBox other = (UllGeoJsonBoundingBox) otherObject;
+        return Double.compare(this.minLongitude, other.minLongitude) == 0
+                && Double.compare(this.minLatitude, other.minLatitude) == 0
+                && Double.compare(this.maxLongitude, other.maxLongitude) == 0
+                && Double.compare(this.maxLatitude, other.maxLatitude) == 0;
+    }
+
+    /**
+     * Returns the hash code of the bounding box.
+     * 
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.minLongitude, this.minLatitude, this.maxLongitude, this.maxLatitude);
+    }
+
+    /**
+     * Returns the bounds as a GeoJSON bbox array.
+     * 
+     * @return the string representation of the bounding box
+     */
+    @Override
+    public String toString() {
+        return "[" + this.minLongitude + "," + this.minLatitude + "," + this.maxLongitude + "," + this.maxLatitude + "]";
+    }
+}
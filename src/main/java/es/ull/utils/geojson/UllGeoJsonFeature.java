@@ -9,6 +9,9 @@ import org.json.JSONObject;
 
 import es.ull.utils.geojson.definition.UllGeoJsonType;
 import es.ull.utils.geojson.input.UllGeoJsonFields;
+import es.ull.utils.geojson.input.UllGeoJsonReader;
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
+import es.ull.utils.geojson.utils.UllGeoJsonUtils;
 
 /**
  * Class representing a GeoJSON Feature.
@@ -19,11 +22,17 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
     public static final String ERROR_PROPERTY_KEY_UNDEFINED = "Property key is undefined";
     public static final String ERROR_PROPERTY_VALUE_UNDEFINED = "Property value is undefined";
     /**
-     * Geometry of the feature. It is a required attribute.
+     * Geometry of the feature. It is a required attribute, and it is null only while the encoded geometry has not been
+     * decoded.
      */
-    private UllGeoJsonGeometry geometry;
+    private volatile UllGeoJsonGeometry geometry;
     /**
-     * Properties of the feature. It is a required attribute.
+     * UTF-8 GeoJSON of the geometry, kept until the geometry is first requested, or null if it is decoded.
+     */
+    private byte[] encodedGeometry;
+    /**
+     * Properties of the feature. It is a required attribute, and it is either a map owned by the feature or a view onto
+     * the columns of a {@link UllGeoJsonPropertyStore}, which is copied before the first modification.
      */
     private Map<String, Object> properties;
     /**
@@ -42,6 +51,34 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
         this.properties = new HashMap<>();
     }
 
+    /**
+     * Constructor for creating a GeoJSON Feature whose geometry is decoded on the first call to
+     * {@link #getGeometry()}.
+     * 
+     * @param encodedGeometry the UTF-8 GeoJSON of the geometry
+     * @param properties      the properties of the feature
+     */
+    private UllGeoJsonFeature(byte[] encodedGeometry, Map<String, Object> properties) {
+        this.encodedGeometry = encodedGeometry;
+        this.properties = properties;
+    }
+
+    /**
+     * Creates a GeoJSON Feature from the UTF-8 GeoJSON of its geometry, which is kept as is and decoded on the first
+     * call to {@link #getGeometry()}. Features that are discarded before their geometry is requested never pay for
+     * decoding it. The array is not copied and must not be modified.
+     * 
+     * @param encodedGeometry the UTF-8 GeoJSON of the geometry. It cannot be null.
+     * @return the feature, without properties.
+     * @throws IllegalArgumentException if the encoded geometry is null.
+     */
+    public static UllGeoJsonFeature ofEncodedGeometry(byte[] encodedGeometry) {
+        if (encodedGeometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        return new UllGeoJsonFeature(encodedGeometry, new HashMap<>());
+    }
+
     /**
      * Validates the geometry of the feature.
      * 
@@ -79,14 +116,63 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
     }
 
     /**
-     * Sets the geometry of the feature.
+     * Returns the geometry of the feature. An encoded geometry is decoded on the first call.
      * 
      * @return the geometry of the feature.
+     * @throws IllegalArgumentException if the encoded geometry is not a valid GeoJSON geometry.
      */
     public UllGeoJsonGeometry getGeometry() {
+        final UllGeoJsonGeometry decoded = this.geometry;
+        return decoded != null ? decoded : this.decodeGeometry();
+    }
+
+    /**
+     * Decodes the encoded geometry once, even if several threads request it at the same time.
+     * 
+     * @return the geometry of the feature.
+     * @throws IllegalArgumentException if the encoded geometry is not a valid GeoJSON geometry.
+     */
+    private synchronized UllGeoJsonGeometry decodeGeometry() {
+        if (this.geometry == null) {
+            final UllGeoJsonGeometry decoded = UllGeoJsonReader.read(this.encodedGeometry);
+            if (decoded instanceof UllGeoJsonFeature || decoded instanceof UllGeoJsonFeatureCollection) {
+                throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_TYPE_NOT_VALID);
+            }
+            this.geometry = decoded;
+            this.encodedGeometry = null;
+        }
         return this.geometry;
     }
 
+    /**
+     * Checks if the geometry of the feature has been decoded. It is false only for features created from an encoded
+     * geometry that has not been requested yet.
+     * 
+     * @return true if the geometry is decoded, false otherwise.
+     */
+    public boolean isGeometryDecoded() {
+        return this.geometry != null;
+    }
+
+    /**
+     * Returns a new feature with another geometry and the same ID and properties. The property values are shared, not
+     * copied.
+     * 
+     * @param geometry the geometry of the new feature. It cannot be null.
+     * @return the new feature.
+     * @throws IllegalArgumentException if the geometry is null.
+     */
+    public UllGeoJsonFeature withGeometry(UllGeoJsonGeometry geometry) {
+        final UllGeoJsonFeature feature = new UllGeoJsonFeature(geometry);
+        if (this.hasColumnarProperties()) {
+            feature.properties = this.properties;
+        } else {
+            feature.properties.putAll(this.properties);
+        }
+        feature.id = this.id;
+        return feature;
+    }
+
     public Optional<String> getId() {
         return Optional.ofNullable(this.id);
     }
@@ -96,11 +182,13 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
      * 
      * @param key   the key of the property. It cannot be null.
      * @param value the value of the property. It cannot be null.
+     * @throws IllegalStateException if the feature is frozen
      */
     public void addProperty(String key, Object value) {
+        this.checkNotFrozen();
         this.validateKey(key);
         this.validateValue(value);
-        this.properties.put(key, value);
+        this.ownProperties().put(key, value);
     }
 
     /**
@@ -137,9 +225,42 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
      * Removes a property from the feature.
      * 
      * @param key the key of the property to remove. It cannot be null.
+     * @throws IllegalStateException if the feature is frozen
      */
     public void removeProperty(String key) {
-        this.properties.remove(key);
+        this.checkNotFrozen();
+        this.ownProperties().remove(key);
+    }
+
+    /**
+     * Checks if the properties of the feature are served by the columns of a {@link UllGeoJsonPropertyStore}.
+     * 
+     * @return true if the properties are a view onto the columns of a store, false otherwise.
+     */
+    public boolean hasColumnarProperties() {
+        return this.properties instanceof UllGeoJsonPropertyView;
+    }
+
+    /**
+     * Replaces the properties of the feature with a view onto the columns of a store that holds the same properties.
+     * 
+     * @param view the view of the properties.
+     */
+    void useColumnarProperties(UllGeoJsonPropertyView view) {
+        this.properties = view;
+    }
+
+    /**
+     * Returns the properties owned by the feature, copying the view of the columns of a store if needed, so they can be
+     * modified.
+     * 
+     * @return the properties owned by the feature.
+     */
+    private Map<String, Object> ownProperties() {
+        if (this.hasColumnarProperties()) {
+            this.properties = new HashMap<>(this.properties);
+        }
+        return this.properties;
     }
 
     /**
@@ -160,6 +281,52 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
         return this.properties.size();
     }
 
+    /**
+     * Switches the positions of the feature to fixed-point storage.
+     * 
+     * @throws IllegalStateException if the feature is frozen
+     * @see UllGeoJsonGeometry#useFixedPoint()
+     */
+    @Override
+    public void useFixedPoint() {
+        this.checkNotFrozen();
+        this.getGeometry().useFixedPoint();
+        this.invalidateBoundingBox();
+    }
+
+    /**
+     * Freezes the feature and its geometry. A geometry that is still encoded is decoded first.
+     * 
+     * @see UllGeoJsonGeometry#freeze()
+     */
+    @Override
+    public void freeze() {
+        this.getGeometry().freeze();
+        super.freeze();
+    }
+
+    /**
+     * Computes the bounding box of the feature, which is the one of its geometry.
+     * 
+     * @return the bounding box
+     */
+    @Override
+    protected UllGeoJsonBoundingBox computeBoundingBox() {
+        return this.getGeometry().getBoundingBox();
+    }
+
+    /**
+     * Returns the number of modifications of the feature and of its geometry. A geometry that is still encoded has not
+     * been modified, so it is not decoded.
+     * 
+     * @return the modification count
+     */
+    @Override
+    protected long getModificationCount() {
+        final UllGeoJsonGeometry geometry = this.geometry;
+        return super.getModificationCount() + (geometry == null ? 0 : geometry.getModificationCount());
+    }
+
     /**
      * Converts the feature to a JSON object.
      * 
@@ -169,7 +336,7 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
         json.put(UllGeoJsonFields.TYPE, UllGeoJsonType.FEATURE.toString());
-        json.put(UllGeoJsonFields.GEOMETRY, this.geometry.toJson());
+        json.put(UllGeoJsonFields.GEOMETRY, this.getGeometry().toJson());
         json.put(UllGeoJsonFields.PROPERTIES, new JSONObject(properties));
         if (this.hasId()) {
             json.put(UllGeoJsonFields.ID, this.id);
@@ -177,11 +344,23 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
         return json;
     }
 
+    /**
+     * Creates a feature from a JSON string.
+     * 
+     * @param string the JSON string representation of the feature.
+     * @return the feature created from the JSON string.
+     * @throws IllegalArgumentException if the JSON string is not valid or does not represent a feature.
+     */
+    public static UllGeoJsonFeature from(String string) {
+        return UllGeoJsonReader.read(string, UllGeoJsonFeature.class);
+    }
+
     public boolean hasId() {
         return this.id != null && !this.id.isEmpty();
     }
 
     public void setId(String id) {
+        this.checkNotFrozen();
         if (id == null || id.isEmpty()) {
             throw new IllegalArgumentException("ID cannot be null or empty");
         }
@@ -203,17 +382,17 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
             return false;
         }
         final UllGeoJsonFeature other = (UllGeoJsonFeature) otherObject;
-        return this.geometry.equals(other.geometry) && this.properties.equals(other.properties);
+        return this.getGeometry().equals(other.getGeometry()) && this.properties.equals(other.properties);
     }
 
     /**
-     * Returns the hash code of the feature.
+     * Computes the hash code of the feature.
      * 
      * @return the hash code of the feature.
      */
     @Override
-    public int hashCode() {
-        return 31 * geometry.hashCode() + properties.hashCode();
+    protected int computeHashCode() {
+        return 31 * this.getGeometry().hashCode() + properties.hashCode();
     }
 
     /**
@@ -221,6 +400,6 @@ public class UllGeoJsonFeature extends UllGeoJsonGeometry {
      */
     @Override
     public String toString() {
-        return toJson().toString();
+        return UllGeoJsonWriter.toString(this);
     }
 }
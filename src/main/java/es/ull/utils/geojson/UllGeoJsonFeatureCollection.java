@@ -1,9 +1,25 @@
 package es.ull.utils.geojson;
 
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import es.ull.utils.geojson.definition.UllGeoJsonType;
 import es.ull.utils.geojson.input.UllGeoJsonFields;
+import es.ull.utils.geojson.input.UllGeoJsonReader;
+import es.ull.utils.geojson.operation.UllGeoJsonCoordinateTransform;
+import es.ull.utils.geojson.operation.UllGeoJsonSimplifier;
+import es.ull.utils.geojson.operation.UllGeoJsonTransformer;
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
 
 /**
  * Class representing a GeoJSON FeatureCollection.
@@ -19,6 +35,14 @@ public class UllGeoJsonFeatureCollection extends UllGeoJsonGeometry {
      * Error message for empty features.
      */
     public static final String ERROR_FEATURES_EMPTY = "Features are empty";
+    /**
+     * Error message for an undefined operation of the bulk operators.
+     */
+    public static final String ERROR_OPERATION_UNDEFINED = "Operation is undefined";
+    /**
+     * Minimum number of features of a collection to apply the bulk operators in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 10;
     /**
      * Features of the feature collection. It is a required attribute.
      */
@@ -62,10 +86,259 @@ public class UllGeoJsonFeatureCollection extends UllGeoJsonGeometry {
      * Sets the features of the feature collection.
      * 
      * @param features the features of the feature collection. It cannot be null or empty.
+     * @throws IllegalStateException if the feature collection is frozen
      */
     public void setFeatures(UllGeoJsonFeature[] features) {
+        this.checkNotFrozen();
         this.validateFeatures(features);
         this.features = features;
+        this.invalidateBoundingBox();
+    }
+
+    /**
+     * Returns the number of features of the feature collection.
+     * 
+     * @return the number of features.
+     */
+    public int size() {
+        return this.features.length;
+    }
+
+    /**
+     * Returns a spliterator over the features. It is SIZED and SUBSIZED, and splits the array in halves, so parallel
+     * streams are balanced.
+     * 
+     * @return the spliterator over the features.
+     */
+    public Spliterator<UllGeoJsonFeature> spliterator() {
+        return Spliterators.spliterator(this.features, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns a sequential stream of the features.
+     * 
+     * @return the stream of the features.
+     */
+    public Stream<UllGeoJsonFeature> stream() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream of the features.
+     * 
+     * @return the parallel stream of the features.
+     */
+    public Stream<UllGeoJsonFeature> parallelStream() {
+        return StreamSupport.stream(this.spliterator(), true);
+    }
+
+    /**
+     * Returns a new feature collection with the result of applying an operation to every feature. The operation is
+     * applied in parallel for large collections and the results are stored straight into the array of the new
+     * collection, in the same order.
+     * 
+     * @param mapper the operation to apply to every feature. It must not return null.
+     * @return the new feature collection.
+     * @throws IllegalArgumentException if the operation is null.
+     */
+    public UllGeoJsonFeatureCollection map(UnaryOperator<UllGeoJsonFeature> mapper) {
+        this.validateOperation(mapper);
+        final UllGeoJsonFeature[] mapped = new UllGeoJsonFeature[this.features.length];
+        this.indexes().forEach(i -> mapped[i] = Objects.requireNonNull(mapper.apply(this.features[i])));
+        return new UllGeoJsonFeatureCollection(mapped);
+    }
+
+    /**
+     * Returns a new feature collection with the result of applying an operation to the geometry of every feature. The
+     * features keep their ID and properties.
+     * 
+     * @param mapper the operation to apply to every geometry. It must not return null.
+     * @return the new feature collection.
+     * @throws IllegalArgumentException if the operation is null.
+     */
+    public UllGeoJsonFeatureCollection mapGeometries(UnaryOperator<UllGeoJsonGeometry> mapper) {
+        this.validateOperation(mapper);
+        return this.map(feature -> feature.withGeometry(mapper.apply(feature.getGeometry())));
+    }
+
+    /**
+     * Returns a new feature collection with the features that satisfy a predicate, in the same order. The predicate is
+     * evaluated in parallel for large collections.
+     * 
+     * @param predicate the predicate.
+     * @return the new feature collection, or an empty optional if no feature satisfies the predicate.
+     * @throws IllegalArgumentException if the predicate is null.
+     */
+    public Optional<UllGeoJsonFeatureCollection> filter(Predicate<UllGeoJsonFeature> predicate) {
+        this.validateOperation(predicate);
+        final boolean[] selected = new boolean[this.features.length];
+        this.indexes().forEach(i -> selected[i] = predicate.test(this.features[i]));
+        int count = 0;
+        for (boolean isSelected : selected) {
+            if (isSelected) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return Optional.empty();
+        }
+        final UllGeoJsonFeature[] filtered = new UllGeoJsonFeature[count];
+        int next = 0;
+        for (int i = 0; i < this.features.length; i++) {
+            if (selected[i]) {
+                filtered[next++] = this.features[i];
+            }
+        }
+        return Optional.of(new UllGeoJsonFeatureCollection(filtered));
+    }
+
+    /**
+     * Returns a new feature collection with the features that have a property with the given value.
+     * 
+     * @param key   the key of the property. It cannot be null.
+     * @param value the value of the property. It cannot be null.
+     * @return the new feature collection, or an empty optional if no feature has the property with that value.
+     * @throws IllegalArgumentException if the key or the value is null.
+     */
+    public Optional<UllGeoJsonFeatureCollection> filter(String key, Object value) {
+        if (key == null) {
+            throw new IllegalArgumentException(UllGeoJsonFeature.ERROR_PROPERTY_KEY_UNDEFINED);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException(UllGeoJsonFeature.ERROR_PROPERTY_VALUE_UNDEFINED);
+        }
+        return this.filter(feature -> value.equals(feature.getProperty(key)));
+    }
+
+    /**
+     * Returns a new feature collection with the coordinates of every feature transformed, in parallel for large
+     * collections.
+     * 
+     * @param transform the transform of the coordinates.
+     * @return the new feature collection.
+     * @throws IllegalArgumentException if the transform is null or a transformed coordinate is not valid.
+     */
+    public UllGeoJsonFeatureCollection reproject(UllGeoJsonCoordinateTransform transform) {
+        this.validateOperation(transform);
+        return this.mapGeometries(geometry -> UllGeoJsonTransformer.transform(geometry, transform));
+    }
+
+    /**
+     * Returns a new feature collection with the geometry of every feature simplified, in parallel for large
+     * collections.
+     * 
+     * @param simplifier the simplifier.
+     * @return the new feature collection.
+     * @throws IllegalArgumentException if the simplifier is null.
+     */
+    public UllGeoJsonFeatureCollection simplify(UllGeoJsonSimplifier simplifier) {
+        this.validateOperation(simplifier);
+        return this.mapGeometries(simplifier::simplify);
+    }
+
+    /**
+     * Validates an operation of the bulk operators.
+     * 
+     * @param operation the operation. It cannot be null.
+     * @throws IllegalArgumentException if the operation is null.
+     */
+    private void validateOperation(Object operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException(ERROR_OPERATION_UNDEFINED);
+        }
+    }
+
+    /**
+     * Returns the indexes of the features, as a parallel stream for large collections.
+     * 
+     * @return the stream of indexes.
+     */
+    private IntStream indexes() {
+        final IntStream indexes = IntStream.range(0, this.features.length);
+        return this.features.length >= PARALLEL_THRESHOLD ? indexes.parallel() : indexes;
+    }
+
+    /**
+     * Creates a feature collection from a JSON string.
+     * 
+     * @param string the JSON string representation of the feature collection.
+     * @return the feature collection created from the JSON string.
+     * @throws IllegalArgumentException if the JSON string is not valid or does not represent a feature collection.
+     */
+    public static UllGeoJsonFeatureCollection from(String string) {
+        return UllGeoJsonReader.read(string, UllGeoJsonFeatureCollection.class);
+    }
+
+    /**
+     * Switches the positions of the feature collection to fixed-point storage.
+     * 
+     * @throws IllegalStateException if the feature collection is frozen
+     * @see UllGeoJsonGeometry#useFixedPoint()
+     */
+    @Override
+    public void useFixedPoint() {
+        this.checkNotFrozen();
+        for (UllGeoJsonFeature feature : this.features) {
+            feature.useFixedPoint();
+        }
+        this.invalidateBoundingBox();
+    }
+
+    /**
+     * Freezes the feature collection and its features.
+     * 
+     * @see UllGeoJsonGeometry#freeze()
+     */
+    @Override
+    public void freeze() {
+        for (UllGeoJsonFeature feature : this.features) {
+            feature.freeze();
+        }
+        super.freeze();
+    }
+
+    /**
+     * Moves the properties of the features to a columnar store shared by all of them: the keys are kept once and the
+     * values in typed columns, so the per-feature maps of properties can be reclaimed. The properties of every feature
+     * are then served as a read-only view onto its row of the store, and a feature gets its own copy of them again when
+     * they are modified.
+     * 
+     * @return the columnar store of the properties, with one row per feature in the same order.
+     * @throws IllegalStateException if the feature collection or any of its features is frozen
+     */
+    public UllGeoJsonPropertyStore useColumnarProperties() {
+        this.checkNotFrozen();
+        final UllGeoJsonPropertyStore store = new UllGeoJsonPropertyStore(this.features);
+        store.bind(this.features);
+        return store;
+    }
+
+    /**
+     * Computes the bounding box of the feature collection.
+     * 
+     * @return the bounding box
+     */
+    @Override
+    protected UllGeoJsonBoundingBox computeBoundingBox() {
+        UllGeoJsonBoundingBox box = UllGeoJsonBoundingBox.EMPTY;
+        for (UllGeoJsonFeature feature : this.features) {
+            box = box.union(feature.getBoundingBox());
+        }
+        return box;
+    }
+
+    /**
+     * Returns the number of modifications of the feature collection and of the objects it contains.
+     * 
+     * @return the modification count
+     */
+    @Override
+    protected long getModificationCount() {
+        long modifications = super.getModificationCount();
+        for (UllGeoJsonFeature feature : this.features) {
+            modifications += feature.getModificationCount();
+        }
+        return modifications;
     }
 
     /**
@@ -76,8 +349,11 @@ public class UllGeoJsonFeatureCollection extends UllGeoJsonGeometry {
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
         json.put(UllGeoJsonFields.TYPE, UllGeoJsonType.FEATURE_COLLECTION.toString());
-        json.put(UllGeoJsonFields.FEATURES, new JSONObject());
-        json.put(UllGeoJsonFields.PROPERTIES, new JSONObject());
+        final JSONArray features = new JSONArray();
+        for (UllGeoJsonFeature feature : this.features) {
+            features.put(feature.toJson());
+        }
+        json.put(UllGeoJsonFields.FEATURES, features);
         return json;
     }
 
@@ -108,12 +384,12 @@ public class UllGeoJsonFeatureCollection extends UllGeoJsonGeometry {
     }
 
     /**
-     * Returns the hash code of the feature collection.
+     * Computes the hash code of the feature collection.
      * 
      * @return the hash code of the feature collection.
      */
     @Override
-    public int hashCode() {
+    protected int computeHashCode() {
         int result = 17;
         for (UllGeoJsonFeature feature : features) {
             result = 31 * result + (feature != null ? feature.hashCode() : 0);
@@ -128,6 +404,6 @@ public class UllGeoJsonFeatureCollection extends UllGeoJsonGeometry {
      */
     @Override
     public String toString() {
-        return this.toJson().toString();
+        return UllGeoJsonWriter.toString(this);
     }
 }
@@ -1,12 +1,300 @@
 package es.ull.utils.geojson;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.json.JSONObject;
 
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
+
 /**
  * Abstract class that represents a geometry in GeoJson format.
  * 
+ * Every object caches its bounding box the first time it is requested, together with the modification count of its
+ * contents, see {@link #getModificationCount()}, and the value of a modification epoch shared by all the objects. The
+ * mutators of an object discard its cached box, increase its count and advance the epoch, and containers add the counts
+ * of the objects they contain, so a box cached by a container is recomputed when a child obtained from it is modified
+ * directly. While the epoch does not change, a cached box is returned without looking at the contents; after a
+ * modification anywhere, the first request of the box of a container adds the counts of its contents once to check
+ * it, and stamps it again with the current epoch. Recomputing the box of a container only joins the cached boxes of
+ * its children.
+ * 
+ * An object can be frozen with {@link #freeze()}, which freezes the objects it contains as well. A frozen object
+ * rejects its mutators with an {@link IllegalStateException}, and computes its hash code and its GeoJSON encoding only
+ * once: the cached encoding is returned by {@link UllGeoJsonWriter#toString(UllGeoJsonGeometry)} and
+ * {@link UllGeoJsonWriter#toBytes(UllGeoJsonGeometry)}, and copied as is by the writer.
  */
 public abstract class UllGeoJsonGeometry {
 
+    public static final String ERROR_BOUNDING_BOX_UNDEFINED = "The bounding box is not defined";
+    public static final String ERROR_FROZEN = "The object is frozen and cannot be modified";
+    /**
+     * Modification epoch shared by all the objects, advanced by every modification.
+     */
+    private static final AtomicLong EPOCH = new AtomicLong();
+    /**
+     * Cached or declared bounding box, or null if it has not been computed since the last modification.
+     */
+    private UllCachedBoundingBox boundingBox;
+    /**
+     * Number of modifications of the object itself, without the objects it contains.
+     */
+    private long modifications;
+    /**
+     * Whether the object is frozen.
+     */
+    private volatile boolean frozen;
+    /**
+     * Cached hash code of the frozen object, or 0 if it has not been computed.
+     */
+    private int hash;
+    /**
+     * Whether the cached hash code of the frozen object has been computed and is 0.
+     */
+    private boolean hashIsZero;
+    /**
+     * Cached GeoJSON encoding of the frozen object, or null if it has not been computed.
+     */
+    private volatile SerializableString serializedForm;
+
     public abstract JSONObject toJson();
+
+    /**
+     * Computes the bounding box of the object from its positions.
+     * 
+     * @return the bounding box, or {@link UllGeoJsonBoundingBox#EMPTY} if the object has no positions
+     */
+    protected abstract UllGeoJsonBoundingBox computeBoundingBox();
+
+    /**
+     * Returns the number of modifications of the object and of the objects it contains. Containers add the counts of
+     * their children to their own, so the count of a container increases whenever one of its descendants is modified.
+     * 
+     * @return the modification count
+     */
+    protected long getModificationCount() {
+        return this.modifications;
+    }
+
+    /**
+     * Returns the bounding box of the object, computing it only if it is not cached or the object or its contents have
+     * been modified since it was cached. The box of a frozen object is never checked again.
+     * 
+     * @return the bounding box, or {@link UllGeoJsonBoundingBox#EMPTY} if the object has no positions
+     */
+    public UllGeoJsonBoundingBox getBoundingBox() {
+        final UllCachedBoundingBox cached = this.getCachedBoundingBox();
+        if (cached != null) {
+            return cached.box;
+        }
+        final long epoch = EPOCH.get();
+        final long modifications = this.getModificationCount();
+        final UllGeoJsonBoundingBox box = this.computeBoundingBox();
+        this.boundingBox = new UllCachedBoundingBox(box, modifications, epoch, false);
+        return box;
+    }
+
+    /**
+     * Returns the cached or declared bounding box if it is still up to date. The modification count is only checked if
+     * the epoch has changed since the box was cached or last checked.
+     * 
+     * @return the cached bounding box, or null if there is none or it is out of date
+     */
+    private UllCachedBoundingBox getCachedBoundingBox() {
+        final UllCachedBoundingBox cached = this.boundingBox;
+        if (cached == null || this.frozen) {
+            return cached;
+        }
+        final long epoch = EPOCH.get();
+        if (cached.epoch == epoch) {
+            return cached;
+        }
+        if (cached.modifications != this.getModificationCount()) {
+            return null;
+        }
+        final UllCachedBoundingBox checked = new UllCachedBoundingBox(cached.box, cached.modifications, epoch,
+                cached.declared);
+        this.boundingBox = checked;
+        return checked;
+    }
+
+    /**
+     * Sets the bounding box of the object, as declared by the bbox member of a GeoJSON document. The box is trusted and
+     * not checked against the positions; it is kept until the object is modified. Declaring a box counts as a
+     * modification, so the boxes cached by the containers of the object are checked again.
+     * 
+     * @param boundingBox the declared bounding box
+     * @throws IllegalArgumentException if the bounding box is null
+     * @throws IllegalStateException    if the object is frozen
+     */
+    public void setBoundingBox(UllGeoJsonBoundingBox boundingBox) {
+        this.checkNotFrozen();
+        if (boundingBox == null) {
+            throw new IllegalArgumentException(ERROR_BOUNDING_BOX_UNDEFINED);
+        }
+        this.modifications++;
+        final long epoch = EPOCH.incrementAndGet();
+        this.boundingBox = new UllCachedBoundingBox(boundingBox, this.getModificationCount(), epoch, true);
+    }
+
+    /**
+     * Checks if the bounding box was declared explicitly and the object has not been modified since.
+     * 
+     * @return true if the bounding box was declared, false if it is computed
+     */
+    public boolean hasDeclaredBoundingBox() {
+        final UllCachedBoundingBox cached = this.getCachedBoundingBox();
+        return cached != null && cached.declared;
+    }
+
+    /**
+     * Switches the positions of the object, and of the objects it contains, to the fixed-point storage of
+     * {@link UllGeoJsonPackedPositions#toFixedPoint()}, which rounds longitudes and latitudes to 1e-7 degrees. It is
+     * meant for large read-only layers; objects without packed positions, such as points, are left unchanged.
+     * 
+     * @throws IllegalStateException if the object is frozen
+     */
+    public void useFixedPoint() {
+        this.checkNotFrozen();
+    }
+
+    /**
+     * Discards the cached or declared bounding box, so that it is computed again on the next request, and increases the
+     * modification count and the epoch. It is called by every mutator that changes the positions of the object.
+     * 
+     * @throws IllegalStateException if the object is frozen
+     */
+    public void invalidateBoundingBox() {
+        this.checkNotFrozen();
+        this.modifications++;
+        EPOCH.incrementAndGet();
+        this.boundingBox = null;
+    }
+
+    /**
+     * Freezes the object and the objects it contains, so that they cannot be modified anymore and their hash codes and
+     * GeoJSON encodings are cached. Freezing is irreversible; a modifiable copy can be obtained by reading the encoding
+     * again.
+     * 
+     * The lists, arrays and property values given to the constructors, and the array returned by
+     * {@link UllGeoJsonFeatureCollection#getFeatures()}, are not copied and must not be modified once the object is
+     * frozen.
+     */
+    public void freeze() {
+        this.boundingBox = this.getCachedBoundingBox();
+        this.frozen = true;
+    }
+
+    /**
+     * Checks if the object is frozen.
+     * 
+     * @return true if the object is frozen, false otherwise
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * Checks that the object can be modified. It is called by every mutator before modifying the object.
+     * 
+     * @throws IllegalStateException if the object is frozen
+     */
+    protected void checkNotFrozen() {
+        if (this.frozen) {
+            throw new IllegalStateException(ERROR_FROZEN);
+        }
+    }
+
+    /**
+     * Computes the hash code of the object from its contents. By default, it is the identity hash code.
+     * 
+     * @return the hash code
+     */
+    protected int computeHashCode() {
+        return System.identityHashCode(this);
+    }
+
+    /**
+     * Returns the hash code of the object. It is computed on every call, unless the object is frozen, in which case it
+     * is computed only once.
+     * 
+     * @return the hash code of the object
+     */
+    @Override
+    public int hashCode() {
+        if (!this.frozen) {
+            return this.computeHashCode();
+        }
+        int hash = this.hash;
+        if (hash == 0 && !this.hashIsZero) {
+            hash = this.computeHashCode();
+            if (hash == 0) {
+                this.hashIsZero = true;
+            } else {
+                this.hash = hash;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the compact GeoJSON encoding of the frozen object, without the bbox members that are not declared. It is
+     * computed on the first call and kept both as a string and as UTF-8 bytes.
+     * 
+     * @return the encoding, or null if the object is not frozen
+     */
+    public SerializableString getSerializedForm() {
+        if (!this.frozen) {
+            return null;
+        }
+        SerializableString serializedForm = this.serializedForm;
+        if (serializedForm == null) {
+            serializedForm = new SerializedString(new String(UllGeoJsonWriter.serialize(this), StandardCharsets.UTF_8));
+            this.serializedForm = serializedForm;
+        }
+        return serializedForm;
+    }
+
+    /**
+     * Bounding box cached with the modification count of the object when it was computed or declared, and the epoch
+     * when it was cached or last checked. It is immutable, so it can be published to other threads without
+     * synchronization.
+     */
+    private static final class UllCachedBoundingBox {
+
+        /**
+         * The bounding box.
+         */
+        private final UllGeoJsonBoundingBox box;
+        /**
+         * Modification count of the object when the box was cached.
+         */
+        private final long modifications;
+        /**
+         * Epoch when the box was cached or last checked.
+         */
+        private final long epoch;
+        /**
+         * Whether the box was declared instead of computed.
+         */
+        private final boolean declared;
+
+        /**
+         * Constructor for a cached bounding box.
+         * 
+         * @param box           the bounding box
+         * @param modifications the modification count of the object when the box was cached
+         * @param epoch         the epoch when the box was cached or last checked
+         * @param declared      whether the box was declared instead of computed
+         */
+        private UllCachedBoundingBox(UllGeoJsonBoundingBox box, long modifications, long epoch, boolean declared) {
+            this.box = box;
+            this.modifications = modifications;
+            this.epoch = epoch;
+            this.declared = declared;
+        }
+    }
 }
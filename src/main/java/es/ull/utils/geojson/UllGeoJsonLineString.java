@@ -1,7 +1,5 @@
 package es.ull.utils.geojson;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.json.JSONArray;
@@ -9,6 +7,8 @@ import org.json.JSONObject;
 
 import es.ull.utils.geojson.definition.UllGeoJsonGeometryType;
 import es.ull.utils.geojson.input.UllGeoJsonFields;
+import es.ull.utils.geojson.input.UllGeoJsonReader;
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
 import es.ull.utils.geojson.utils.UllGeoJsonUtils;
 import es.ull.utils.json.UllJson;
 
@@ -21,15 +21,15 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
     public static final String ERROR_COORDINATES_ELEMENTS_WRONG_FORMAT = "Coordinates must be an array of points";
     public static final String ERROR_MINIMUM_POSITIONS = "The LineString must have at least two positions";
     /**
-     * List of positions that form the LineString.
+     * Positions that form the LineString, packed in a single array of coordinates.
      */
-    private List<UllGeoJsonPosition> positions;
+    private UllGeoJsonPackedPositions positions;
 
     /**
      * Constructor for a LineString with an empty list of positions
      */
     public UllGeoJsonLineString() {
-        this.positions = new ArrayList<>();
+        this.positions = new UllGeoJsonPackedPositions();
     }
 
     /**
@@ -39,6 +39,18 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
      */
     public UllGeoJsonLineString(List<UllGeoJsonPosition> positions) {
         this.validate(positions);
+        this.positions = new UllGeoJsonPackedPositions(positions);
+    }
+
+    /**
+     * Constructor for a LineString with packed positions. The positions are not copied until the LineString is
+     * modified.
+     * 
+     * @param positions the packed positions that form the LineString
+     */
+    public UllGeoJsonLineString(UllGeoJsonPackedPositions positions) {
+        this.validate(positions);
+        positions.markShared();
         this.positions = positions;
     }
 
@@ -49,10 +61,7 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
      * @throws IllegalArgumentException if the lineString is null
      */
     public UllGeoJsonLineString(UllGeoJsonLineString lineString) {
-        this.positions = new ArrayList<>();
-        for (UllGeoJsonPosition position : lineString.getPositions()) {
-            this.positions.add(position);
-        }
+        this(lineString.getPackedPositions());
     }
 
     /**
@@ -69,13 +78,33 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
         }
     }
 
+    /**
+     * Validate the constraints specific to LineString
+     * 
+     * @param positions the packed positions that form the LineString
+     */
+    private void validate(UllGeoJsonPackedPositions positions) {
+        if (positions == null) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_NOT_DEFINED);
+        }
+        if (positions.size() < 2) {
+            throw new IllegalArgumentException(ERROR_MINIMUM_POSITIONS);
+        }
+    }
+
     /**
      * It adds a position to the LineString
      * 
      * @param position the position to add
+     * @throws IllegalStateException if the LineString is frozen
      */
     public void addPosition(UllGeoJsonPosition position) {
+        this.checkNotFrozen();
+        if (this.positions.isShared()) {
+            this.positions = new UllGeoJsonPackedPositions(this.positions);
+        }
         this.positions.add(position);
+        this.invalidateBoundingBox();
     }
 
     /**
@@ -100,22 +129,32 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
     }
 
     /**
-     * Method to get the hash code of the LineString
+     * Computes the hash code of the LineString
      * 
      * @return the hash code of the LineString
      */
     @Override
-    public int hashCode() {
+    protected int computeHashCode() {
         return this.positions.hashCode();
     }
 
     /**
-     * Method to get the list of positions that form the LineString
+     * Method to get the list of positions that form the LineString. The list is an unmodifiable view that creates the
+     * positions when they are accessed.
      * 
      * @return the list of positions
      */
     public List<UllGeoJsonPosition> getPositions() {
-        return Collections.unmodifiableList(this.positions);
+        return new UllGeoJsonPositionList(() -> this.positions);
+    }
+
+    /**
+     * Method to get the packed positions that form the LineString, without creating position objects
+     * 
+     * @return the packed positions
+     */
+    public UllGeoJsonPackedPositions getPackedPositions() {
+        return this.positions;
     }
 
     /**
@@ -144,7 +183,7 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
      * @return the LineString obtained from the JSON object
      * @throws IllegalArgumentException if the JSON object is not a valid LineString
      */
-    protected static List<UllGeoJsonPosition> extractPositions(JSONObject json) {
+    protected static UllGeoJsonPackedPositions extractPositions(JSONObject json) {
         if (!json.has(UllGeoJsonFields.COORDINATES)) {
             throw new IllegalArgumentException(ERROR_COORDINATES_NOT_DEFINED);
         }
@@ -162,15 +201,15 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
      * It obtains a list of positions from a JSON array.
      * 
      * @param coordinates the JSON array to obtain the positions from
-     * @return the list of positions obtained from the JSON array
+     * @return the packed positions obtained from the JSON array
      * @throws IllegalArgumentException if the JSON array is not valid
      * @throws IllegalArgumentException if the JSON array does not have at least two positions
      */
-    protected static List<UllGeoJsonPosition> extractPositions(JSONArray coordinates) {
+    protected static UllGeoJsonPackedPositions extractPositions(JSONArray coordinates) {
         if (coordinates.length() < 2) {
             throw new IllegalArgumentException(ERROR_MINIMUM_POSITIONS);
         }
-        final List<UllGeoJsonPosition> positions = new ArrayList<>();
+        final UllGeoJsonPackedPositions positions = new UllGeoJsonPackedPositions(coordinates.length());
         for (int index = 0; index < coordinates.length(); index++) {
             final UllGeoJsonPosition position = UllGeoJsonPosition.from(coordinates.getJSONArray(index));
             positions.add(position);
@@ -187,7 +226,7 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
      */
     public static UllGeoJsonLineString from(JSONObject json) {
         UllGeoJsonUtils.validateType(json, UllGeoJsonGeometryType.LINE_STRING);
-        final List<UllGeoJsonPosition> positions = UllGeoJsonLineString.extractPositions(json);
+        final UllGeoJsonPackedPositions positions = UllGeoJsonLineString.extractPositions(json);
         return new UllGeoJsonLineString(positions);
     }
 
@@ -197,8 +236,32 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
      * @param string the string to obtain the LineString from
      */
     public static UllGeoJsonLineString from(String string) {
-        final JSONObject json = new JSONObject(string);
-        return UllGeoJsonLineString.from(json);
+        return UllGeoJsonReader.read(string, UllGeoJsonLineString.class);
+    }
+
+    /**
+     * Switches the positions of the LineString to fixed-point storage.
+     * 
+     * @throws IllegalStateException if the LineString is frozen
+     * @see UllGeoJsonGeometry#useFixedPoint()
+     */
+    @Override
+    public void useFixedPoint() {
+        this.checkNotFrozen();
+        if (!this.positions.isFixedPoint()) {
+            this.positions = this.positions.toFixedPoint();
+            this.invalidateBoundingBox();
+        }
+    }
+
+    /**
+     * Computes the bounding box of the LineString.
+     * 
+     * @return the bounding box
+     */
+    @Override
+    protected UllGeoJsonBoundingBox computeBoundingBox() {
+        return UllGeoJsonBoundingBox.of(this.positions);
     }
 
     /**
@@ -210,7 +273,7 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
     public JSONObject toJson() {
         final JSONObject json = new JSONObject();
         json.put(UllGeoJsonFields.TYPE, UllGeoJsonGeometryType.LINE_STRING.toString());
-        json.put(UllGeoJsonFields.COORDINATES, UllGeoJsonUtils.toJson(this.getPositions()));
+        json.put(UllGeoJsonFields.COORDINATES, UllGeoJsonUtils.toJson(this.positions));
         return json;
     }
 
@@ -221,6 +284,6 @@ public class UllGeoJsonLineString extends UllGeoJsonGeometry {
      */
     @Override
     public String toString() {
-        return this.toJson().toString();
+        return UllGeoJsonWriter.toString(this);
     }
 }
@@ -6,6 +6,7 @@ import java.util.List;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
 import es.ull.utils.lang.UllInteger;
 
 public class UllGeoJsonLinearRing extends UllGeoJsonLineString {
@@ -26,6 +27,18 @@ public class UllGeoJsonLinearRing extends UllGeoJsonLineString {
         validateLinearRing();
     }
 
+    /**
+     * Constructor for a LinearRing with packed positions. The positions are not copied until the LinearRing is
+     * modified.
+     * 
+     * @param positions the packed positions that form the LinearRing
+     * @throws IllegalArgumentException if the constraints are not met
+     */
+    public UllGeoJsonLinearRing(UllGeoJsonPackedPositions positions) throws IllegalArgumentException {
+        super(positions);
+        validateLinearRing();
+    }
+
     /**
      * Constructor for a LinearRing with another LinearRing
      * 
@@ -47,9 +60,10 @@ public class UllGeoJsonLinearRing extends UllGeoJsonLineString {
         if (coordinates < MINIMUM_NUMBER_OF_POSITIONS) {
             throw new IllegalArgumentException(ERROR_MINIMUM_POSITIONS);
         }
-        final UllGeoJsonPosition firstPosition = super.getPosition(0);
-        final UllGeoJsonPosition lastPosition = super.getPosition(coordinates - 1);
-        if (!firstPosition.equals(lastPosition)) {
+        final UllGeoJsonPackedPositions positions = super.getPackedPositions();
+        if (positions.getLongitude(0) != positions.getLongitude(coordinates - 1)
+                || positions.getLatitude(0) != positions.getLatitude(coordinates - 1)
+                || positions.getAltitude(0) != positions.getAltitude(coordinates - 1)) {
             throw new IllegalArgumentException(ERROR_FIRST_LAST_NOT_IDENTICAL);
         }
     }
@@ -62,7 +76,7 @@ public class UllGeoJsonLinearRing extends UllGeoJsonLineString {
      * @throws IllegalArgumentException if the JSON object is not valid
      */
     public static UllGeoJsonLinearRing from(JSONObject json) {
-        final List<UllGeoJsonPosition> positions = UllGeoJsonLineString.extractPositions(json);
+        final UllGeoJsonPackedPositions positions = UllGeoJsonLineString.extractPositions(json);
         return new UllGeoJsonLinearRing(positions);
     }
 
@@ -93,13 +107,10 @@ public class UllGeoJsonLinearRing extends UllGeoJsonLineString {
         if (coordinates.length() < MINIMUM_NUMBER_OF_POSITIONS) {
             throw new IllegalArgumentException(ERROR_MINIMUM_POSITIONS);
         }
-        List<UllGeoJsonPosition> positions = new ArrayList<>();
+        final UllGeoJsonPackedPositions positions = new UllGeoJsonPackedPositions(coordinates.length());
         for (int i = 0; i < coordinates.length(); i++) {
             positions.add(UllGeoJsonPosition.from(coordinates.getJSONArray(i)));
         }
-        if (!positions.get(0).equals(positions.get(positions.size() - 1))) {
-            throw new IllegalArgumentException(ERROR_FIRST_LAST_NOT_IDENTICAL);
-        }
         return new UllGeoJsonLinearRing(positions);
     }
 
@@ -138,11 +149,10 @@ public class UllGeoJsonLinearRing extends UllGeoJsonLineString {
      */
     private double calculateArea() {
         double area = 0.0;
-        List<UllGeoJsonPosition> coordinates = this.getPositions();
+        final UllGeoJsonPackedPositions coordinates = this.getPackedPositions();
         for (int i = 0; i < coordinates.size() - 1; i++) {
-            UllGeoJsonPosition p1 = coordinates.get(i);
-            UllGeoJsonPosition p2 = coordinates.get(i + 1);
-            area += (p2.getLongitude() - p1.getLongitude()) * (p2.getLatitude() + p1.getLatitude());
+            area += (coordinates.getLongitude(i + 1) - coordinates.getLongitude(i))
+                    * (coordinates.getLatitude(i + 1) + coordinates.getLatitude(i));
         }
         return area / 2.0;
     }
@@ -168,6 +178,6 @@ public class UllGeoJsonLinearRing extends UllGeoJsonLineString {
      */
     @Override
     public String toString() {
-        return this.toJson().toString();
+        return UllGeoJsonWriter.toString(this);
     }
 }
@@ -2,6 +2,8 @@ package es.ull.utils.geojson;
 
 import es.ull.utils.geojson.definition.UllGeoJsonGeometryType;
 import es.ull.utils.geojson.input.UllGeoJsonFields;
+import es.ull.utils.geojson.input.UllGeoJsonReader;
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
 import es.ull.utils.geojson.utils.UllGeoJsonUtils;
 import es.ull.utils.json.UllJson;
 
@@ -48,7 +50,7 @@ public class UllGeoJsonMultiLineString extends UllGeoJsonGeometry {
     public UllGeoJsonMultiLineString(UllGeoJsonMultiLineString multiLineString) {
         this.lineStrings = new ArrayList<>();
         for (UllGeoJsonLineString lineString : multiLineString.getLineStrings()) {
-            this.lineStrings.add(lineString);
+            this.lineStrings.add(new UllGeoJsonLineString(lineString));
         }
     }
 
@@ -67,9 +69,12 @@ public class UllGeoJsonMultiLineString extends UllGeoJsonGeometry {
      * Method to add a LineString to the MultiLineString
      * 
      * @param lineString the LineString to add
+     * @throws IllegalStateException if the MultiLineString is frozen
      */
     public void addLineString(UllGeoJsonLineString lineString) {
+        this.checkNotFrozen();
         this.lineStrings.add(lineString);
+        this.invalidateBoundingBox();
     }
 
     /**
@@ -108,13 +113,80 @@ public class UllGeoJsonMultiLineString extends UllGeoJsonGeometry {
         final List<UllGeoJsonLineString> lineStrings = new ArrayList<>();
         for (int i = 0; i < coordinates.length(); i++) {
             final JSONArray coordinate = coordinates.getJSONArray(i);
-            final List<UllGeoJsonPosition> positions = UllGeoJsonLineString.extractPositions(coordinate);
+            final UllGeoJsonPackedPositions positions = UllGeoJsonLineString.extractPositions(coordinate);
             final UllGeoJsonLineString lineString = new UllGeoJsonLineString(positions);
             lineStrings.add(lineString);
         }
         return new UllGeoJsonMultiLineString(lineStrings);
     }
 
+    /**
+     * It obtains a MultiLineString from a string.
+     * 
+     * @param string the string to obtain the MultiLineString from
+     * @return the MultiLineString obtained from the string
+     * @throws IllegalArgumentException if the string is not valid
+     */
+    public static UllGeoJsonMultiLineString from(String string) {
+        return UllGeoJsonReader.read(string, UllGeoJsonMultiLineString.class);
+    }
+
+    /**
+     * Switches the positions of the MultiLineString to fixed-point storage.
+     * 
+     * @throws IllegalStateException if the MultiLineString is frozen
+     * @see UllGeoJsonGeometry#useFixedPoint()
+     */
+    @Override
+    public void useFixedPoint() {
+        this.checkNotFrozen();
+        for (UllGeoJsonLineString lineString : this.lineStrings) {
+            lineString.useFixedPoint();
+        }
+        this.invalidateBoundingBox();
+    }
+
+    /**
+     * Freezes the MultiLineString and its LineStrings.
+     * 
+     * @see UllGeoJsonGeometry#freeze()
+     */
+    @Override
+    public void freeze() {
+        for (UllGeoJsonLineString lineString : this.lineStrings) {
+            lineString.freeze();
+        }
+        super.freeze();
+    }
+
+    /**
+     * Computes the bounding box of the MultiLineString.
+     * 
+     * @return the bounding box
+     */
+    @Override
+    protected UllGeoJsonBoundingBox computeBoundingBox() {
+        UllGeoJsonBoundingBox box = UllGeoJsonBoundingBox.EMPTY;
+        for (UllGeoJsonLineString lineString : this.lineStrings) {
+            box = box.union(lineString.getBoundingBox());
+        }
+        return box;
+    }
+
+    /**
+     * Returns the number of modifications of the MultiLineString and of the objects it contains.
+     * 
+     * @return the modification count
+     */
+    @Override
+    protected long getModificationCount() {
+        long modifications = super.getModificationCount();
+        for (UllGeoJsonLineString lineString : this.lineStrings) {
+            modifications += lineString.getModificationCount();
+        }
+        return modifications;
+    }
+
     /**
      * Method to obtain a JSON representation of the MultiLineString
      * 
@@ -143,6 +215,6 @@ public class UllGeoJsonMultiLineString extends UllGeoJsonGeometry {
      */
     @Override
     public String toString() {
-        return this.toJson().toString();
+        return UllGeoJsonWriter.toString(this);
     }
 }
@@ -1,7 +1,5 @@
 package es.ull.utils.geojson;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.json.JSONArray;
@@ -9,6 +7,8 @@ import org.json.JSONObject;
 
 import es.ull.utils.geojson.definition.UllGeoJsonGeometryType;
 import es.ull.utils.geojson.input.UllGeoJsonFields;
+import es.ull.utils.geojson.input.UllGeoJsonReader;
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
 import es.ull.utils.geojson.utils.UllGeoJsonUtils;
 import es.ull.utils.json.UllJson;
 
@@ -24,9 +24,9 @@ public class UllGeoJsonMultiPoint extends UllGeoJsonGeometry {
     public static final String ERROR_POSITIONS_NOT_DEFINED = "The coordinates of the MultiPoint are required";
     public static final String ERROR_COORDINATES_WRONG_POSITIONS = "The coordinates of the MultiPoint must be an array of arrays";
     /**
-     * List of positions that form the MultiPoint
+     * Positions that form the MultiPoint, packed in a single array of coordinates
      */
-    private List<UllGeoJsonPosition> positions;
+    private UllGeoJsonPackedPositions positions;
 
     /**
      * Constructor for a MultiPoint with an empty list of positions
@@ -34,7 +34,7 @@ public class UllGeoJsonMultiPoint extends UllGeoJsonGeometry {
      * @param positions the list of positions that form the MultiPoint
      */
     public UllGeoJsonMultiPoint() {
-        this.positions = new ArrayList<>();
+        this.positions = new UllGeoJsonPackedPositions();
     }
 
     /**
@@ -44,6 +44,18 @@ public class UllGeoJsonMultiPoint extends UllGeoJsonGeometry {
      */
     public UllGeoJsonMultiPoint(List<UllGeoJsonPosition> positions) {
         this.validate(positions);
+        this.positions = new UllGeoJsonPackedPositions(positions);
+    }
+
+    /**
+     * Constructor for a MultiPoint with packed positions. The positions are not copied until the MultiPoint is
+     * modified.
+     * 
+     * @param positions the packed positions that form the MultiPoint
+     */
+    public UllGeoJsonMultiPoint(UllGeoJsonPackedPositions positions) {
+        this.validate(positions);
+        positions.markShared();
         this.positions = positions;
     }
 
@@ -54,10 +66,7 @@ public class UllGeoJsonMultiPoint extends UllGeoJsonGeometry {
      * @throws IllegalArgumentException if the other MultiPoint is null
      */
     public UllGeoJsonMultiPoint(UllGeoJsonMultiPoint other) {
-        this.positions = new ArrayList<>();
-        for (UllGeoJsonPosition position : other.getPositions()) {
-            this.positions.add(position);
-        }
+        this(other.getPackedPositions());
     }
 
     /**
@@ -71,22 +80,49 @@ public class UllGeoJsonMultiPoint extends UllGeoJsonGeometry {
         }
     }
 
+    /**
+     * Validate the constraints specific to MultiPoint
+     * 
+     * @param positions the packed positions that form the MultiPoint
+     */
+    private void validate(UllGeoJsonPackedPositions positions) {
+        if (positions == null) {
+            throw new IllegalArgumentException(ERROR_POSITIONS_NOT_DEFINED);
+        }
+    }
+
     /**
      * Method to add a position to the MultiPoint
      * 
      * @param position the position to add
+     * @throws IllegalStateException if the MultiPoint is frozen
      */
     public void addPoint(UllGeoJsonPosition position) {
+        this.checkNotFrozen();
+        if (this.positions.isShared()) {
+            this.positions = new UllGeoJsonPackedPositions(this.positions);
+        }
         this.positions.add(position);
+        this.invalidateBoundingBox();
     }
 
     /**
-     * Method to get the list of positions that form the MultiPoint
+     * Method to get the list of positions that form the MultiPoint. The list is an unmodifiable view that creates the
+     * positions when they are accessed.
      * 
      * @return the list of positions
      */
     public List<UllGeoJsonPosition> getPositions() {
-        return Collections.unmodifiableList(positions);
+        return new UllGeoJsonPositionList(() -> this.positions);
+    }
+
+    /**
+     * Method to get the packed positions that form the MultiPoint, without creating position objects
+     * 
+     * @return the packed positions
+     */
+    public UllGeoJsonPackedPositions getPackedPositions() {
+        return this.positions;
     }
 
     /**
@@ -119,7 +155,7 @@ public class UllGeoJsonMultiPoint extends UllGeoJsonGeometry {
         if (!UllJson.canAllBeParsedToArray(coordinates)) {
             throw new IllegalArgumentException(ERROR_COORDINATES_WRONG_POSITIONS);
         }
-        final List<UllGeoJsonPosition> positions = new ArrayList<>();
+        final UllGeoJsonPackedPositions positions = new UllGeoJsonPackedPositions(coordinates.length());
         for (int i = 0; i < coordinates.length(); i++) {
             final JSONArray coordinate = coordinates.getJSONArray(i);
             final UllGeoJsonPosition position = UllGeoJsonPosition.from(coordinate);
@@ -136,8 +172,32 @@ public class UllGeoJsonMultiPoint extends UllGeoJsonGeometry {
      * @throws IllegalArgumentException if the string is not valid
      */
     public static UllGeoJsonMultiPoint from(String string) {
-        final JSONObject json = new JSONObject(string);
-        return UllGeoJsonMultiPoint.from(json);
+        return UllGeoJsonReader.read(string, UllGeoJsonMultiPoint.class);
+    }
+
+    /**
+     * Switches the positions of the MultiPoint to fixed-point storage.
+     * 
+     * @throws IllegalStateException if the MultiPoint is frozen
+     * @see UllGeoJsonGeometry#useFixedPoint()
+     */
+    @Override
+    public void useFixedPoint() {
+        this.checkNotFrozen();
+        if (!this.positions.isFixedPoint()) {
+            this.positions = this.positions.toFixedPoint();
+            this.invalidateBoundingBox();
+        }
+    }
+
+    /**
+     * Computes the bounding box of the MultiPoint.
+     * 
+     * @return the bounding box
+     */
+    @Override
+    protected UllGeoJsonBoundingBox computeBoundingBox() {
+        return UllGeoJsonBoundingBox.of(this.positions);
     }
 
     /**
@@ -149,7 +209,7 @@ public class UllGeoJsonMultiPoint extends UllGeoJsonGeometry {
     public JSONObject toJson() {
         final JSONObject json = new JSONObject();
         json.put(UllGeoJsonFields.TYPE, UllGeoJsonGeometryType.MULTI_POINT.toString());
-        json.put(UllGeoJsonFields.COORDINATES, UllGeoJsonUtils.toJson(this.getPositions()));
+        json.put(UllGeoJsonFields.COORDINATES, UllGeoJsonUtils.toJson(this.positions));
         return json;
     }
 
@@ -160,6 +220,6 @@ public class UllGeoJsonMultiPoint extends UllGeoJsonGeometry {
      */
     @Override
     public String toString() {
-        return this.toJson().toString();
+        return UllGeoJsonWriter.toString(this);
     }
 }
@@ -8,6 +8,9 @@ import org.json.JSONObject;
 
 import es.ull.utils.geojson.definition.UllGeoJsonGeometryType;
 import es.ull.utils.geojson.input.UllGeoJsonFields;
+import es.ull.utils.geojson.input.UllGeoJsonReader;
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
+import es.ull.utils.geojson.utils.UllGeoJsonUtils;
 import es.ull.utils.lang.UllInteger;
 
 /**
@@ -16,8 +19,11 @@ import es.ull.utils.lang.UllInteger;
  */
 public class UllGeoJsonMultiPolygon extends UllGeoJsonGeometry {
 
-    private static final String ERROR_POLYGONS_NOT_DEFINED = "The polygons must not be null";
-    private static final String ERROR_POLYGONS_EMPTY = "The polygons cannot be empty";
+    public static final String ERROR_POLYGONS_NOT_DEFINED = "The polygons must not be null";
+    public static final String ERROR_POLYGONS_EMPTY = "The polygons cannot be empty";
+    public static final String ERROR_COORDINATES_NOT_DEFINED = "The coordinates of the MultiPolygon are required";
+    public static final String ERROR_COORDINATES_WRONG_FORMAT = "Coordinates must be an array";
+    public static final String ERROR_COORDINATES_WRONG_POLYGONS = "The coordinates of the MultiPolygon must be an array of polygons";
     /**
      * List of polygons that form the MultiPolygon
      */
@@ -25,7 +31,7 @@ public class UllGeoJsonMultiPolygon extends UllGeoJsonGeometry {
 
     /**
      * Constructor for a MultiPolygon with an empty list of polygons
-     *
+     * 
      * @param polygons the list of polygons that form the MultiPolygon
      */
     public UllGeoJsonMultiPolygon(List<UllGeoJsonPolygon> polygons) {
@@ -76,6 +82,16 @@ public class UllGeoJsonMultiPolygon extends UllGeoJsonGeometry {
         return this.polygons.equals(otherMultiPolygon.getPolygons());
     }
 
+    /**
+     * Computes the hash code of the MultiPolygon
+     * 
+     * @return the hash code of the MultiPolygon
+     */
+    @Override
+    protected int computeHashCode() {
+        return this.polygons.hashCode();
+    }
+
     /**
      * Method to get the list of polygons that form the MultiPolygon
      * 
@@ -107,8 +123,75 @@ public class UllGeoJsonMultiPolygon extends UllGeoJsonGeometry {
         return new UllGeoJsonMultiPolygon(polygons);
     }
 
+    /**
+     * Method to create a MultiPolygon from a JSON string
+     * 
+     * @param text the JSON string representation of the MultiPolygon
+     * @return the MultiPolygon created from the JSON string
+     * @throws IllegalArgumentException if the JSON string is not valid or does not represent a MultiPolygon
+     */
     public static UllGeoJsonMultiPolygon from(String text) {
-        return null;
+        return UllGeoJsonReader.read(text, UllGeoJsonMultiPolygon.class);
+    }
+
+    /**
+     * Switches the positions of the MultiPolygon to fixed-point storage.
+     * 
+     * @throws IllegalStateException if the MultiPolygon is frozen
+     * @see UllGeoJsonGeometry#useFixedPoint()
+     */
+    @Override
+    public void useFixedPoint() {
+        this.checkNotFrozen();
+        for (UllGeoJsonPolygon polygon : this.polygons) {
+            polygon.useFixedPoint();
+        }
+        this.invalidateBoundingBox();
+    }
+
+    /**
+     * Freezes the MultiPolygon and its polygons. The list of polygons becomes unmodifiable.
+     * 
+     * @see UllGeoJsonGeometry#freeze()
+     */
+    @Override
+    public void freeze() {
+        if (this.isFrozen()) {
+            return;
+        }
+        this.polygons = List.copyOf(this.polygons);
+        for (UllGeoJsonPolygon polygon : this.polygons) {
+            polygon.freeze();
+        }
+        super.freeze();
+    }
+
+    /**
+     * Computes the bounding box of the MultiPolygon.
+     * 
+     * @return the bounding box
+     */
+    @Override
+    protected UllGeoJsonBoundingBox computeBoundingBox() {
+        UllGeoJsonBoundingBox box = UllGeoJsonBoundingBox.EMPTY;
+        for (UllGeoJsonPolygon polygon : this.polygons) {
+            box = box.union(polygon.getBoundingBox());
+        }
+        return box;
+    }
+
+    /**
+     * Returns the number of modifications of the MultiPolygon and of the objects it contains.
+     * 
+     * @return the modification count
+     */
+    @Override
+    protected long getModificationCount() {
+        long modifications = super.getModificationCount();
+        for (UllGeoJsonPolygon polygon : this.polygons) {
+            modifications += polygon.getModificationCount();
+        }
+        return modifications;
     }
 
     /**
@@ -119,24 +202,13 @@ public class UllGeoJsonMultiPolygon extends UllGeoJsonGeometry {
     @Override
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
-        json.put(UllGeoJsonFields.TYPE, UllGeoJsonGeometryType.MULTI_POLYGON);
+        json.put(UllGeoJsonFields.TYPE, UllGeoJsonGeometryType.MULTI_POLYGON.toString());
         JSONArray coordinates = new JSONArray();
         for (UllGeoJsonPolygon polygon : this.polygons) {
             JSONArray polygonCoordinates = new JSONArray();
-            UllGeoJsonLinearRing exteriorRing = polygon.getExteriorRing();
-            JSONArray exterior = new JSONArray();
-            for (UllGeoJsonPosition position : exteriorRing.getPositions()) {
-                List<Double> coord = List.of(position.getLongitude(), position.getLatitude());
-                exterior.put(coord);
-            }
-            polygonCoordinates.put(exterior);
+            polygonCoordinates.put(UllGeoJsonUtils.toJson(polygon.getExteriorRing().getPackedPositions()));
             for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
-                JSONArray interior = new JSONArray();
-                for (UllGeoJsonPosition position : ring.getPositions()) {
-                    List<Double> coord = List.of(position.getLongitude(), position.getLatitude());
-                    interior.put(coord);
-                }
-                polygonCoordinates.put(interior);
+                polygonCoordinates.put(UllGeoJsonUtils.toJson(ring.getPackedPositions()));
             }
             coordinates.put(polygonCoordinates);
         }
@@ -151,15 +223,6 @@ public class UllGeoJsonMultiPolygon extends UllGeoJsonGeometry {
      */
     @Override
     public String toString() {
-        String representation = "UllGeoJsonMultiPolygon={";
-        for (int i = 0; i < this.polygons.size(); i++) {
-            UllGeoJsonPolygon polygon = this.polygons.get(i);
-            representation += polygon.toString();
-            if (i != this.polygons.size() - 1) {
-                representation += ",";
-            }
-        }
-        representation += "}";
-        return representation;
+        return UllGeoJsonWriter.toString(this);
     }
 }
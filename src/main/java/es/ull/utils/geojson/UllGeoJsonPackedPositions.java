@@ -0,0 +1,505 @@
+package es.ull.utils.geojson;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact sequence of positions stored in a single interleaved {@code double[]}. Each position takes two slots
+ * (longitude, latitude) or three slots (longitude, latitude, altitude) when any position of the sequence has altitude,
+ * which keeps the memory per vertex between 16 and 24 bytes instead of one {@link UllGeoJsonPosition} object each.
+ * 
+ * The public API is read-only. Only the geometries of this package append positions, and they copy the sequence before
+ * modifying it once it has been shared.
+ * 
+ * A sequence can also be stored in fixed point, see {@link #toFixedPoint()}: longitudes and latitudes are kept as
+ * {@code int} values in units of 1e-7 degrees, which halves the memory of 2D sequences and makes the comparison of two
+ * fixed-point sequences exact and cheap. The accessors still return degrees. Appending a position to a fixed-point
+ * sequence switches it back to floating point.
+ */
+public class UllGeoJsonPackedPositions {
+
+    public static final String ERROR_COORDINATES_NOT_DEFINED = "The coordinates are not defined";
+    public static final String ERROR_DIMENSIONS = "The dimensions must be 2 or 3";
+    public static final String ERROR_COORDINATES_LENGTH = "The number of coordinates must be a multiple of the dimensions";
+    public static final String ERROR_POSITIONS_NOT_DEFINED = "The positions are not defined";
+    public static final int DIMENSIONS_2D = 2;
+    public static final int DIMENSIONS_3D = 3;
+    /**
+     * Number of fixed-point units per degree.
+     */
+    public static final double FIXED_POINT_SCALE = 1e7;
+    private static final int DEFAULT_CAPACITY = 8;
+    /**
+     * Interleaved coordinates of the positions. In fixed point, only the altitudes, one per position, or null in 2D.
+     */
+    private double[] coordinates;
+    /**
+     * Interleaved longitudes and latitudes in fixed point, or null if the sequence is stored in floating point.
+     */
+    private int[] fixedPoint;
+    /**
+     * Number of slots used by each position (2 or 3).
+     */
+    private int dimensions;
+    /**
+     * Number of positions stored.
+     */
+    private int size;
+    /**
+     * Whether the sequence is referenced from outside its owner geometry, so it must be copied before being modified.
+     */
+    private boolean shared;
+
+    /**
+     * Constructor for an empty sequence of positions.
+     */
+    public UllGeoJsonPackedPositions() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for an empty sequence of positions with an initial capacity.
+     * 
+     * @param capacity the number of positions that can be stored before growing
+     */
+    public UllGeoJsonPackedPositions(int capacity) {
+        this.coordinates = new double[Math.max(capacity, 1) * DIMENSIONS_2D];
+        this.dimensions = DIMENSIONS_2D;
+        this.size = 0;
+    }
+
+    /**
+     * Constructor for a sequence with the given positions.
+     * 
+     * @param positions the positions to store
+     * @throws IllegalArgumentException if the list or any of its positions is null
+     */
+    public UllGeoJsonPackedPositions(List<UllGeoJsonPosition> positions) {
+        if (positions == null) {
+            throw new IllegalArgumentException(ERROR_POSITIONS_NOT_DEFINED);
+        }
+        this.dimensions = DIMENSIONS_2D;
+        for (UllGeoJsonPosition position : positions) {
+            if (position == null) {
+                throw new IllegalArgumentException(ERROR_POSITIONS_NOT_DEFINED);
+            }
+            if (position.hasAltitude()) {
+                this.dimensions = DIMENSIONS_3D;
+            }
+        }
+        this.coordinates = new double[Math.max(positions.size(), 1) * this.dimensions];
+        this.size = 0;
+        for (UllGeoJsonPosition position : positions) {
+            this.add(position);
+        }
+    }
+
+    /**
+     * Copy constructor. The copy is trimmed to the number of positions of the original sequence.
+     * 
+     * @param other the sequence to copy
+     */
+    public UllGeoJsonPackedPositions(UllGeoJsonPackedPositions other) {
+        this.dimensions = other.dimensions;
+        this.size = other.size;
+        if (other.fixedPoint != null) {
+            this.fixedPoint = Arrays.copyOf(other.fixedPoint, other.size * DIMENSIONS_2D);
+            this.coordinates = other.coordinates == null ? null : Arrays.copyOf(other.coordinates, other.size);
+        } else {
+            this.coordinates = Arrays.copyOf(other.coordinates, Math.max(other.size, 1) * other.dimensions);
+        }
+    }
+
+    /**
+     * Constructor for a sequence from a copy of interleaved coordinates.
+     * 
+     * @param coordinates the interleaved coordinates
+     * @param dimensions  the number of coordinates per position (2 or 3)
+     * @throws IllegalArgumentException if the coordinates are not valid
+     */
+    public UllGeoJsonPackedPositions(double[] coordinates, int dimensions) {
+        this(UllGeoJsonPackedPositions.wrap(coordinates, dimensions));
+    }
+
+    /**
+     * Creates a sequence that uses the given interleaved coordinates directly, without copying them. The array must not
+     * be modified afterwards.
+     * 
+     * @param coordinates the interleaved coordinates. In three dimensions, a missing altitude is stored as the value
+     *                    returned by {@link UllGeoJsonPosition#getAltitude()} for a position without altitude.
+     * @param dimensions  the number of coordinates per position (2 or 3)
+     * @return the sequence backed by the array
+     * @throws IllegalArgumentException if the coordinates are not valid
+     */
+    public static UllGeoJsonPackedPositions wrap(double[] coordinates, int dimensions) {
+        if (coordinates == null) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_NOT_DEFINED);
+        }
+        if (dimensions != DIMENSIONS_2D && dimensions != DIMENSIONS_3D) {
+            throw new IllegalArgumentException(ERROR_DIMENSIONS);
+        }
+        if (coordinates.length % dimensions != 0) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_LENGTH);
+        }
+        for (int offset = 0; offset < coordinates.length; offset += dimensions) {
+            UllGeoJsonPosition.validateLongitude(coordinates[offset]);
+            UllGeoJsonPosition.validateLatitude(coordinates[offset + 1]);
+            if (dimensions == DIMENSIONS_3D && coordinates[offset + 2] != UllGeoJsonPosition.ALTITUDE_NOT_DEFINED) {
+                UllGeoJsonPosition.validateAltitude(coordinates[offset + 2]);
+            }
+        }
+        final UllGeoJsonPackedPositions positions = new UllGeoJsonPackedPositions(0);
+        positions.coordinates = coordinates;
+        positions.dimensions = dimensions;
+        positions.size = coordinates.length / dimensions;
+        positions.shared = true;
+        return positions;
+    }
+
+    /**
+     * Returns a copy of the sequence stored in fixed point, with longitudes and latitudes rounded to the nearest
+     * 1e-7 degrees. Altitudes are kept in floating point.
+     * 
+     * @return the fixed-point sequence, or this sequence if it is already stored in fixed point
+     */
+    public UllGeoJsonPackedPositions toFixedPoint() {
+        if (this.fixedPoint != null) {
+            return this;
+        }
+        final UllGeoJsonPackedPositions positions = new UllGeoJsonPackedPositions(0);
+        positions.dimensions = this.dimensions;
+        positions.size = this.size;
+        positions.fixedPoint = new int[this.size * DIMENSIONS_2D];
+        positions.coordinates = this.dimensions == DIMENSIONS_3D ? new double[this.size] : null;
+        for (int index = 0; index < this.size; index++) {
+            final int offset = index * this.dimensions;
+            positions.fixedPoint[index * DIMENSIONS_2D] = (int) Math.round(this.coordinates[offset] * FIXED_POINT_SCALE);
+            positions.fixedPoint[index * DIMENSIONS_2D + 1] = (int) Math.round(this.coordinates[offset + 1] * FIXED_POINT_SCALE);
+            if (this.dimensions == DIMENSIONS_3D) {
+                positions.coordinates[index] = this.coordinates[offset + 2];
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Checks if the sequence is stored in fixed point.
+     * 
+     * @return true if longitudes and latitudes are stored in units of 1e-7 degrees, false otherwise
+     */
+    public boolean isFixedPoint() {
+        return this.fixedPoint != null;
+    }
+
+    /**
+     * Switches a fixed-point sequence back to interleaved floating-point coordinates, so that positions can be
+     * appended.
+     */
+    private void toFloatingPoint() {
+        this.coordinates = this.toArray();
+        this.fixedPoint = null;
+    }
+
+    /**
+     * Appends a position to the sequence.
+     * 
+     * @param position the position to append
+     */
+    void add(UllGeoJsonPosition position) {
+        if (position == null) {
+            throw new IllegalArgumentException(ERROR_POSITIONS_NOT_DEFINED);
+        }
+        if (position.hasAltitude()) {
+            this.add(position.getLongitude(), position.getLatitude(), position.getAltitude());
+        } else {
+            this.add(position.getLongitude(), position.getLatitude());
+        }
+    }
+
+    /**
+     * Appends a position without altitude to the sequence. The coordinates must have been validated.
+     * 
+     * @param longitude the longitude of the position
+     * @param latitude  the latitude of the position
+     */
+    void add(double longitude, double latitude) {
+        if (this.fixedPoint != null) {
+            this.toFloatingPoint();
+        }
+        this.ensureCapacity(this.size + 1);
+        final int offset = this.size * this.dimensions;
+        this.coordinates[offset] = longitude;
+        this.coordinates[offset + 1] = latitude;
+        if (this.dimensions == DIMENSIONS_3D) {
+            this.coordinates[offset + 2] = UllGeoJsonPosition.ALTITUDE_NOT_DEFINED;
+        }
+        this.size++;
+    }
+
+    /**
+     * Appends a position with altitude to the sequence. The coordinates must have been validated.
+     * 
+     * @param longitude the longitude of the position
+     * @param latitude  the latitude of the position
+     * @param altitude  the altitude of the position
+     */
+    void add(double longitude, double latitude, double altitude) {
+        if (this.fixedPoint != null) {
+            this.toFloatingPoint();
+        }
+        if (this.dimensions == DIMENSIONS_2D) {
+            this.expandToThreeDimensions();
+        }
+        this.ensureCapacity(this.size + 1);
+        final int offset = this.size * DIMENSIONS_3D;
+        this.coordinates[offset] = longitude;
+        this.coordinates[offset + 1] = latitude;
+        this.coordinates[offset + 2] = altitude;
+        this.size++;
+    }
+
+    /**
+     * Grows the backing array so that it can hold the given number of positions.
+     * 
+     * @param capacity the number of positions to hold
+     */
+    private void ensureCapacity(int capacity) {
+        final int required = capacity * this.dimensions;
+        if (required > this.coordinates.length) {
+            final int grown = this.coordinates.length + (this.coordinates.length >> 1);
+            this.coordinates = Arrays.copyOf(this.coordinates, Math.max(required, grown));
+        }
+    }
+
+    /**
+     * Switches the layout from two to three slots per position, storing no altitude for the existing positions.
+     */
+    private void expandToThreeDimensions() {
+        final double[] expanded = new double[Math.max(this.size + 1, DEFAULT_CAPACITY) * DIMENSIONS_3D];
+        for (int index = 0; index < this.size; index++) {
+            expanded[index * DIMENSIONS_3D] = this.coordinates[index * DIMENSIONS_2D];
+            expanded[index * DIMENSIONS_3D + 1] = this.coordinates[index * DIMENSIONS_2D + 1];
+            expanded[index * DIMENSIONS_3D + 2] = UllGeoJsonPosition.ALTITUDE_NOT_DEFINED;
+        }
+        this.coordinates = expanded;
+        this.dimensions = DIMENSIONS_3D;
+    }
+
+    /**
+     * Marks the sequence as referenced from outside its owner.
+     */
+    void markShared() {
+        this.shared = true;
+    }
+
+    /**
+     * Checks if the sequence is referenced from outside its owner.
+     * 
+     * @return true if the sequence must be copied before being modified, false otherwise
+     */
+    boolean isShared() {
+        return this.shared;
+    }
+
+    /**
+     * Returns the number of positions.
+     * 
+     * @return the number of positions
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if the sequence has no positions.
+     * 
+     * @return true if the sequence is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the number of coordinates stored per position.
+     * 
+     * @return 2 if no position has altitude, 3 otherwise
+     */
+    public int getDimensions() {
+        return this.dimensions;
+    }
+
+    /**
+     * Returns the longitude of a position.
+     * 
+     * @param index the index of the position
+     * @return the longitude of the position
+     */
+    public double getLongitude(int index) {
+        Objects.checkIndex(index, this.size);
+        if (this.fixedPoint != null) {
+            return this.fixedPoint[index * DIMENSIONS_2D] / FIXED_POINT_SCALE;
+        }
+        return this.coordinates[index * this.dimensions];
+    }
+
+    /**
+     * Returns the latitude of a position.
+     * 
+     * @param index the index of the position
+     * @return the latitude of the position
+     */
+    public double getLatitude(int index) {
+        Objects.checkIndex(index, this.size);
+        if (this.fixedPoint != null) {
+            return this.fixedPoint[index * DIMENSIONS_2D + 1] / FIXED_POINT_SCALE;
+        }
+        return this.coordinates[index * this.dimensions + 1];
+    }
+
+    /**
+     * Returns the altitude of a position, with the same convention as {@link UllGeoJsonPosition#getAltitude()} when
+     * the position has no altitude.
+     * 
+     * @param index the index of the position
+     * @return the altitude of the position
+     */
+    public double getAltitude(int index) {
+        Objects.checkIndex(index, this.size);
+        if (this.dimensions == DIMENSIONS_2D) {
+            return UllGeoJsonPosition.ALTITUDE_NOT_DEFINED;
+        }
+        if (this.fixedPoint != null) {
+            return this.coordinates[index];
+        }
+        return this.coordinates[index * this.dimensions + 2];
+    }
+
+    /**
+     * Checks if a position has altitude.
+     * 
+     * @param index the index of the position
+     * @return true if the position has altitude, false otherwise
+     */
+    public boolean hasAltitude(int index) {
+        return this.getAltitude(index) != UllGeoJsonPosition.ALTITUDE_NOT_DEFINED;
+    }
+
+    /**
+     * Returns a position of the sequence. A new position object is created on every call.
+     * 
+     * @param index the index of the position
+     * @return the position
+     */
+    public UllGeoJsonPosition get(int index) {
+        final double longitude = this.getLongitude(index);
+        final double latitude = this.getLatitude(index);
+        if (this.hasAltitude(index)) {
+            return new UllGeoJsonPosition(longitude, latitude, this.getAltitude(index));
+        }
+        return new UllGeoJsonPosition(longitude, latitude);
+    }
+
+    /**
+     * Returns a copy of the interleaved coordinates, with {@link #getDimensions()} values per position.
+     * 
+     * @return the interleaved coordinates
+     */
+    public double[] toArray() {
+        if (this.fixedPoint != null) {
+            final double[] array = new double[this.size * this.dimensions];
+            for (int index = 0; index < this.size; index++) {
+                final int offset = index * this.dimensions;
+                array[offset] = this.fixedPoint[index * DIMENSIONS_2D] / FIXED_POINT_SCALE;
+                array[offset + 1] = this.fixedPoint[index * DIMENSIONS_2D + 1] / FIXED_POINT_SCALE;
+                if (this.dimensions == DIMENSIONS_3D) {
+                    array[offset + 2] = this.coordinates[index];
+                }
+            }
+            return array;
+        }
+        return Arrays.copyOf(this.coordinates, this.size * this.dimensions);
+    }
+
+    /**
+     * Checks if the sequence is equal to another object. Two sequences are equal when they have the same positions in
+     * the same order, regardless of their layout.
+     * 
+     * @param otherObject the object to compare
+     * @return true if the sequences are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object otherObject) {
+        if (this == otherObject) {
+            return true;
+        }
+        if (!(otherObject instanceof UllGeoJsonPackedPositions)) {
+            return false;
+        }
+        final UllGeoJsonPackedPositions otherPositions = (UllGeoJsonPackedPositions) otherObject;
+        if (this.size != otherPositions.size) {
+            return false;
+        }
+        if (this.fixedPoint != null && otherPositions.fixedPoint != null) {
+            return Arrays.equals(this.fixedPoint, 0, this.size * DIMENSIONS_2D, otherPositions.fixedPoint, 0,
+                    this.size * DIMENSIONS_2D) && this.equalAltitudes(otherPositions);
+        }
+        for (int index = 0; index < this.size; index++) {
+            if (this.getLongitude(index) != otherPositions.getLongitude(index)
+                    || this.getLatitude(index) != otherPositions.getLatitude(index)
+                    || this.getAltitude(index) != otherPositions.getAltitude(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the altitudes of two fixed-point sequences of the same size are equal.
+     * 
+     * @param other the other sequence
+     * @return true if the altitudes are equal, false otherwise
+     */
+    private boolean equalAltitudes(UllGeoJsonPackedPositions other) {
+        if (this.dimensions == DIMENSIONS_2D && other.dimensions == DIMENSIONS_2D) {
+            return true;
+        }
+        for (int index = 0; index < this.size; index++) {
+            if (this.getAltitude(index) != other.getAltitude(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code of the sequence. It is the same as the hash code of the list of its positions.
+     * 
+     * @return the hash code of the sequence
+     */
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int index = 0; index < this.size; index++) {
+            result = 31 * result + UllGeoJsonPosition.hashCode(this.getLongitude(index), this.getLatitude(index));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a string representation of the sequence.
+     * 
+     * @return the string representation of the sequence
+     */
+    @Override
+    public String toString() {
+        final StringBuilder representation = new StringBuilder("[");
+        for (int index = 0; index < this.size; index++) {
+            if (index > 0) {
+                representation.append(",");
+            }
+            representation.append(this.get(index));
+        }
+        return representation.append("]").toString();
+    }
+}
@@ -3,6 +3,8 @@ package es.ull.utils.geojson;
 import com.fasterxml.jackson.databind.JsonNode;
 import es.ull.utils.geojson.definition.UllGeoJsonGeometryType;
 import es.ull.utils.geojson.input.UllGeoJsonFields;
+import es.ull.utils.geojson.input.UllGeoJsonReader;
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
 import es.ull.utils.geojson.utils.UllGeoJsonUtils;
 import es.ull.utils.jackson.UllJackson;
 import es.ull.utils.json.UllJson;
@@ -98,12 +100,12 @@ public class UllGeoJsonPoint extends UllGeoJsonGeometry {
     }
 
     /**
-     * Method to obtain the hash code of the point.
+     * Computes the hash code of the point.
      * 
      * @return the hash code of the point
      */
     @Override
-    public int hashCode() {
+    protected int computeHashCode() {
         return this.position.hashCode();
     }
 
@@ -163,8 +165,18 @@ public class UllGeoJsonPoint extends UllGeoJsonGeometry {
      * @return the point obtained from the string
      */
     public static UllGeoJsonPoint from(String string) {
-        final JSONObject json = new JSONObject(string);
-        return UllGeoJsonPoint.from(json);
+        return UllGeoJsonReader.read(string, UllGeoJsonPoint.class);
+    }
+
+    /**
+     * Computes the bounding box of the point.
+     * 
+     * @return the bounding box
+     */
+    @Override
+    protected UllGeoJsonBoundingBox computeBoundingBox() {
+        final UllGeoJsonPosition position = this.getPosition();
+        return new UllGeoJsonBoundingBox(position.getLongitude(), position.getLatitude(), position.getLongitude(), position.getLatitude());
     }
 
     /**
@@ -187,6 +199,6 @@ public class UllGeoJsonPoint extends UllGeoJsonGeometry {
      */
     @Override
     public String toString() {
-        return this.toJson().toString();
+        return UllGeoJsonWriter.toString(this);
     }
 }
@@ -2,6 +2,8 @@ package es.ull.utils.geojson;
 
 import es.ull.utils.geojson.definition.UllGeoJsonGeometryType;
 import es.ull.utils.geojson.input.UllGeoJsonFields;
+import es.ull.utils.geojson.input.UllGeoJsonReader;
+import es.ull.utils.geojson.output.UllGeoJsonWriter;
 import es.ull.utils.geojson.utils.UllGeoJsonUtils;
 
 import java.util.ArrayList;
@@ -50,7 +52,10 @@ public class UllGeoJsonPolygon extends UllGeoJsonGeometry {
      */
     public UllGeoJsonPolygon(UllGeoJsonPolygon other) {
         this.exteriorRing = new UllGeoJsonLinearRing(other.exteriorRing);
-        this.interiorRings = new ArrayList<>(other.interiorRings);
+        this.interiorRings = new ArrayList<>(other.interiorRings.size());
+        for (UllGeoJsonLinearRing ring : other.interiorRings) {
+            this.interiorRings.add(new UllGeoJsonLinearRing(ring));
+        }
     }
 
     /**
@@ -97,12 +102,12 @@ public class UllGeoJsonPolygon extends UllGeoJsonGeometry {
     }
 
     /**
-     * It generates the hash code of the polygon
+     * Computes the hash code of the polygon
      * 
      * @return the hash code of the polygon
      */
     @Override
-    public int hashCode() {
+    protected int computeHashCode() {
         int result = this.exteriorRing.hashCode();
         for (UllGeoJsonLinearRing ring : this.interiorRings) {
             result = 31 * result + ring.hashCode();
@@ -114,10 +119,13 @@ public class UllGeoJsonPolygon extends UllGeoJsonGeometry {
      * It adds an interior ring to the polygon
      * 
      * @param ring the interior ring to add
+     * @throws IllegalStateException if the polygon is frozen
      */
     public void addInteriorRing(UllGeoJsonLinearRing ring) {
+        this.checkNotFrozen();
         this.validate(ring);
         this.interiorRings.add(ring);
+        this.invalidateBoundingBox();
     }
 
     /**
@@ -180,8 +188,7 @@ public class UllGeoJsonPolygon extends UllGeoJsonGeometry {
      * @throws IllegalArgumentException if the JSON string is not valid or does not represent a Polygon
      */
     public static UllGeoJsonPolygon from(String string) {
-        final JSONObject json = new JSONObject(string);
-        return UllGeoJsonPolygon.from(json);
+        return UllGeoJsonReader.read(string, UllGeoJsonPolygon.class);
     }
 
     /**
@@ -207,6 +214,60 @@ public class UllGeoJsonPolygon extends UllGeoJsonGeometry {
         return new UllGeoJsonPolygon(ring);
     }
 
+    /**
+     * Switches the positions of the polygon to fixed-point storage.
+     * 
+     * @throws IllegalStateException if the polygon is frozen
+     * @see UllGeoJsonGeometry#useFixedPoint()
+     */
+    @Override
+    public void useFixedPoint() {
+        this.checkNotFrozen();
+        this.exteriorRing.useFixedPoint();
+        for (UllGeoJsonLinearRing ring : this.interiorRings) {
+            ring.useFixedPoint();
+        }
+        this.invalidateBoundingBox();
+    }
+
+    /**
+     * Freezes the polygon and its rings.
+     * 
+     * @see UllGeoJsonGeometry#freeze()
+     */
+    @Override
+    public void freeze() {
+        this.exteriorRing.freeze();
+        for (UllGeoJsonLinearRing ring : this.interiorRings) {
+            ring.freeze();
+        }
+        super.freeze();
+    }
+
+    /**
+     * Computes the bounding box of the polygon, which is the one of its exterior ring.
+     * 
+     * @return the bounding box
+     */
+    @Override
+    protected UllGeoJsonBoundingBox computeBoundingBox() {
+        return this.exteriorRing.getBoundingBox();
+    }
+
+    /**
+     * Returns the number of modifications of the polygon and of the objects it contains.
+     * 
+     * @return the modification count
+     */
+    @Override
+    protected long getModificationCount() {
+        long modifications = super.getModificationCount() + this.exteriorRing.getModificationCount();
+        for (UllGeoJsonLinearRing ring : this.interiorRings) {
+            modifications += ring.getModificationCount();
+        }
+        return modifications;
+    }
+
     /**
      * Method to obtain a JSON representation of the Polygon
      * 
@@ -232,6 +293,6 @@ public class UllGeoJsonPolygon extends UllGeoJsonGeometry {
      */
     @Override
     public String toString() {
-        return this.toJson().toString();
+        return UllGeoJsonWriter.toString(this);
     }
 }
\ No newline at end of file
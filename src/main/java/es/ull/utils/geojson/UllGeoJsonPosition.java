@@ -2,6 +2,8 @@ package es.ull.utils.geojson;
 
 import org.json.JSONArray;
 
+import es.ull.utils.geolocation.UllGeoCell;
+import es.ull.utils.geolocation.UllHaversine;
 import es.ull.utils.json.UllJson;
 import es.ull.utils.lang.UllBoolean;
 import es.ull.utils.lang.UllDouble;
@@ -12,10 +14,10 @@ import es.ull.utils.lang.UllDouble;
  */
 public class UllGeoJsonPosition {
 
-    private static final String ERROR_POSITION_MIN_COORDINATES = "Position must have at least 2 coordinates";
-    private static final String ERROR_POSITION_MAX_COORDINATES = "Position must have at most 3 coordinates";
-    private static final String ERROR_POSITION_COORDINATES_NOT_NUMERIC = "Position coordinates must be numeric values";
-    private static final String ERROR_JSON_UNDEFINED = "JSON is not defined";
+    public static final String ERROR_POSITION_MIN_COORDINATES = "Position must have at least 2 coordinates";
+    public static final String ERROR_POSITION_MAX_COORDINATES = "Position must have at most 3 coordinates";
+    public static final String ERROR_POSITION_COORDINATES_NOT_NUMERIC = "Position coordinates must be numeric values";
+    public static final String ERROR_JSON_UNDEFINED = "JSON is not defined";
     // longitude
     public static final double LONGITUDE_MIN = -180.0;
     public static final double LONGITUDE_MAX = 180.0;
@@ -31,7 +33,7 @@ public class UllGeoJsonPosition {
     public static final String ERROR_LATITUDE_MAX = "Latitude must be lesser or equals to " + LATITUDE_MAX;
     public static final String ERROR_LATITUDE_WRONG_FORMAT = "Latitude must be a numeric value in [" + LATITUDE_MIN + "," + LATITUDE_MAX + "]";
     // altitude
-    private static final double ALTITUDE_NOT_DEFINED = -1.0;
+    public static final double ALTITUDE_NOT_DEFINED = -1.0;
     public static final double ALTITUDE_MIN = 0;
     public static final double ALTITUDE_MAX = Double.MAX_VALUE;
     public static final String ERROR_ALTITUDE_MIN = "Altitude must be equals or greater than " + ALTITUDE_MIN;
@@ -97,7 +99,7 @@ public class UllGeoJsonPosition {
      * 
      * @param longitude Longitude of the position.
      */
-    private static void validateLongitude(double longitude) {
+    static void validateLongitude(double longitude) {
         if (longitude < LONGITUDE_MIN) {
             throw new IllegalArgumentException(ERROR_LONGITUDE_MIN);
         }
@@ -111,7 +113,7 @@ public class UllGeoJsonPosition {
      * 
      * @param latitude Latitude of the position.
      */
-    private static void validateLatitude(double latitude) {
+    static void validateLatitude(double latitude) {
         if (latitude < LATITUDE_MIN) {
             throw new IllegalArgumentException(ERROR_LATITUDE_MIN);
         }
@@ -125,7 +127,7 @@ public class UllGeoJsonPosition {
      * 
      * @param altitude Altitude of the position.
      */
-    private static void validateAltitude(double altitude) {
+    static void validateAltitude(double altitude) {
         if (altitude < ALTITUDE_MIN) {
             throw new IllegalArgumentException(ERROR_ALTITUDE_MIN);
         }
@@ -182,7 +184,7 @@ public class UllGeoJsonPosition {
 
     /**
      * Returns true if the position has altitude, false otherwise.
-     *
+     * 
      * @return True if the position has altitude, false otherwise.
      */
     public boolean hasAltitude() {
@@ -208,6 +210,46 @@ public class UllGeoJsonPosition {
         return new UllGeoJsonPosition(this.longitude, this.latitude, altitude);
     }
 
+    /**
+     * Returns the great-circle distance to another position.
+     * 
+     * @param other The other position.
+     * @return The distance in meters.
+     */
+    public double distanceTo(UllGeoJsonPosition other) {
+        return UllHaversine.distance(this.longitude, this.latitude, other.longitude, other.latitude);
+    }
+
+    /**
+     * Returns the Morton code of the position at full resolution.
+     * 
+     * @return The 62-bit Morton code of the position.
+     */
+    public long toMortonCode() {
+        return UllGeoCell.encode(this.longitude, this.latitude);
+    }
+
+    /**
+     * Returns the geohash of the position.
+     * 
+     * @param precision The number of characters, between 1 and {@link UllGeoCell#MAX_PRECISION}.
+     * @return The geohash of the position.
+     */
+    public String toGeohash(int precision) {
+        return UllGeoCell.geohash(this.longitude, this.latitude, precision);
+    }
+
+    /**
+     * Returns the center of the cell of a geohash.
+     * 
+     * @param geohash The geohash.
+     * @return The position of the center of the cell.
+     */
+    public static UllGeoJsonPosition fromGeohash(String geohash) {
+        final double[] bounds = UllGeoCell.bounds(geohash);
+        return new UllGeoJsonPosition((bounds[0] + bounds[2]) / 2, (bounds[1] + bounds[3]) / 2);
+    }
+
     /**
      * Hash code of the position.
      * 
@@ -215,12 +257,24 @@ public class UllGeoJsonPosition {
      */
     @Override
     public int hashCode() {
+        return UllGeoJsonPosition.hashCode(this.longitude, this.latitude);
+    }
+
+    /**
+     * Hash code of a position given by its coordinates, so that packed positions can be hashed without creating
+     * position objects.
+     * 
+     * @param longitude Longitude of the position.
+     * @param latitude  Latitude of the position.
+     * @return The hash code of the position.
+     */
+    static int hashCode(double longitude, double latitude) {
         final int prime = 31;
         int result = 1;
         long temp;
-        temp = Double.doubleToLongBits(this.latitude);
+        temp = Double.doubleToLongBits(latitude);
         result = prime * result + (int) (temp ^ (temp >>> 32));
-        temp = Double.doubleToLongBits(this.longitude);
+        temp = Double.doubleToLongBits(longitude);
         result = prime * result + (int) (temp ^ (temp >>> 32));
         return result;
     }
@@ -255,11 +309,10 @@ public class UllGeoJsonPosition {
         }
         final double longitude = json.getDouble(0);
         final double latitude = json.getDouble(1);
-        final UllGeoJsonPosition position = new UllGeoJsonPosition(longitude, latitude);
         if (json.length() == 3) {
-            position.setAltitude(json.getDouble(2));
+            return new UllGeoJsonPosition(longitude, latitude, json.getDouble(2));
         }
-        return position;
+        return new UllGeoJsonPosition(longitude, latitude);
     }
 
     /**
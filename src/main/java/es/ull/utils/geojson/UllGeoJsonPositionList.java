@@ -0,0 +1,47 @@
+package es.ull.utils.geojson;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+
+/**
+ * Unmodifiable list view over the packed positions of a geometry. Positions are created lazily when they are accessed,
+ * and the view always reflects the current positions of the geometry.
+ */
+class UllGeoJsonPositionList extends AbstractList<UllGeoJsonPosition> implements RandomAccess {
+
+    /**
+     * Supplier of the current packed positions of the geometry.
+     */
+    private final Supplier<UllGeoJsonPackedPositions> positions;
+
+    /**
+     * Constructor for a view over the packed positions of a geometry.
+     * 
+     * @param positions the supplier of the current packed positions
+     */
+    UllGeoJsonPositionList(Supplier<UllGeoJsonPackedPositions> positions) {
+        this.positions = positions;
+    }
+
+    /**
+     * Returns the position at the given index.
+     * 
+     * @param index the index of the position
+     * @return the position
+     */
+    @Override
+    public UllGeoJsonPosition get(int index) {
+        return this.positions.get().get(index);
+    }
+
+    /**
+     * Returns the number of positions.
+     * 
+     * @return the number of positions
+     */
+    @Override
+    public int size() {
+        return this.positions.get().size();
+    }
+}
@@ -0,0 +1,680 @@
+package es.ull.utils.geojson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+/**
+ * Columnar store of the properties of a set of features that share their keys. The keys are kept once in a
+ * dictionary, and every key has a column with one row per feature: a primitive column if all its values are integers,
+ * longs, doubles or booleans, a primitive column with the class of every value if they mix integers, longs and doubles,
+ * a dictionary-encoded column if all of them are strings, and a column of objects otherwise. Every column has a bitmap of the rows that have the property and a bitmap of the rows whose value is the
+ * JSON null.
+ * 
+ * The store is immutable. The properties of every row are served as an unmodifiable map view that boxes the values on
+ * access, so the values returned are equal to the original ones and of the same class.
+ */
+public class UllGeoJsonPropertyStore {
+
+    public static final String ERROR_FEATURES_UNDEFINED = "Features are undefined";
+    public static final String ERROR_ROW_NOT_VALID = "Row is not valid";
+    /**
+     * Keys of the properties, in order of first appearance.
+     */
+    private final String[] keys;
+    /**
+     * Column of every key.
+     */
+    private final Map<String, UllColumn> columns;
+    /**
+     * Number of rows.
+     */
+    private final int size;
+
+    /**
+     * Constructor for a store with the properties of some features, one row per feature in the same order.
+     * 
+     * @param features the features
+     * @throws IllegalArgumentException if the features are null or contain null
+     */
+    public UllGeoJsonPropertyStore(UllGeoJsonFeature[] features) {
+        if (features == null) {
+            throw new IllegalArgumentException(ERROR_FEATURES_UNDEFINED);
+        }
+        final Map<String, Object[]> values = new LinkedHashMap<>();
+        for (int row = 0; row < features.length; row++) {
+            if (features[row] == null) {
+                throw new IllegalArgumentException(ERROR_FEATURES_UNDEFINED);
+            }
+            for (Map.Entry<String, Object> property : features[row].getProperties().entrySet()) {
+                values.computeIfAbsent(property.getKey(), key -> new Object[features.length])[row] = property.getValue();
+            }
+        }
+        this.size = features.length;
+        this.keys = values.keySet().toArray(new String[0]);
+        this.columns = new HashMap<>(2 * this.keys.length);
+        for (Map.Entry<String, Object[]> column : values.entrySet()) {
+            this.columns.put(column.getKey(), UllGeoJsonPropertyStore.column(column.getValue()));
+        }
+    }
+
+    /**
+     * Builds the most compact column for some values.
+     * 
+     * @param values the value of every row, null for the rows without the property
+     * @return the column
+     */
+    private static UllColumn column(Object[] values) {
+        Class<?> type = null;
+        boolean numbers = true;
+        for (Object value : values) {
+            if (value == null || value == JSONObject.NULL) {
+                continue;
+            }
+            numbers &= UllNumberColumn.isSupported(value);
+            if (type == null) {
+                type = value.getClass();
+            } else if (type != value.getClass()) {
+                if (!numbers) {
+                    return new UllObjectColumn(values);
+                }
+                type = Number.class;
+            }
+        }
+        if (type == Number.class) {
+            return new UllNumberColumn(values);
+        }
+        if (type == Integer.class) {
+            return new UllIntColumn(values);
+        }
+        if (type == Long.class) {
+            return new UllLongColumn(values);
+        }
+        if (type == Double.class) {
+            return new UllDoubleColumn(values);
+        }
+        if (type == Boolean.class) {
+            return new UllBooleanColumn(values);
+        }
+        if (type == String.class) {
+            return new UllStringColumn(values);
+        }
+        return new UllObjectColumn(values);
+    }
+
+    /**
+     * Returns the number of rows of the store.
+     * 
+     * @return the number of rows
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the keys of the properties, in order of first appearance.
+     * 
+     * @return the unmodifiable list of keys
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(this.keys));
+    }
+
+    /**
+     * Returns the class of the values of a property, which is the class of every value of a primitive or string
+     * column, {@link Number} for a column that mixes integers, longs and doubles, and {@link Object} for a column of
+     * other mixed values.
+     * 
+     * @param key the key of the property
+     * @return the class of the values, or null if no row has the property
+     */
+    public Class<?> getType(String key) {
+        final UllColumn column = this.columns.get(key);
+        return column == null ? null : column.type();
+    }
+
+    /**
+     * Returns the value of a property of a row.
+     * 
+     * @param row the row
+     * @param key the key of the property
+     * @return the value, or null if the row does not have the property
+     * @throws IllegalArgumentException if the row is not valid
+     */
+    public Object getProperty(int row, String key) {
+        this.validateRow(row);
+        return this.get(row, key);
+    }
+
+    /**
+     * Returns the properties of a row as an unmodifiable view onto the columns.
+     * 
+     * @param row the row
+     * @return the view of the properties of the row
+     * @throws IllegalArgumentException if the row is not valid
+     */
+    public Map<String, Object> getProperties(int row) {
+        this.validateRow(row);
+        return new UllGeoJsonPropertyView(this, row);
+    }
+
+    /**
+     * Replaces the properties of every feature with a view onto its row of the store. The features must be the ones
+     * the store was built from, in the same order. A feature whose properties are modified afterwards gets its own copy
+     * of them again.
+     * 
+     * @param features the features the store was built from
+     * @throws IllegalArgumentException if the number of features is not the number of rows
+     * @throws IllegalStateException    if a feature is frozen, in which case no feature is modified
+     */
+    void bind(UllGeoJsonFeature[] features) {
+        if (features.length != this.size) {
+            throw new IllegalArgumentException(ERROR_ROW_NOT_VALID);
+        }
+        for (UllGeoJsonFeature feature : features) {
+            if (feature.isFrozen()) {
+                throw new IllegalStateException(UllGeoJsonGeometry.ERROR_FROZEN);
+            }
+        }
+        for (int row = 0; row < features.length; row++) {
+            features[row].useColumnarProperties(new UllGeoJsonPropertyView(this, row));
+        }
+    }
+
+    /**
+     * Validates a row of the store.
+     * 
+     * @param row the row
+     * @throws IllegalArgumentException if the row is not valid
+     */
+    private void validateRow(int row) {
+        if (row < 0 || row >= this.size) {
+            throw new IllegalArgumentException(ERROR_ROW_NOT_VALID);
+        }
+    }
+
+    /**
+     * Returns the value of a property of a row, without validating the row.
+     * 
+     * @param row the row
+     * @param key the key of the property
+     * @return the value, or null if the row does not have the property
+     */
+    Object get(int row, String key) {
+        final UllColumn column = this.columns.get(key);
+        return column == null ? null : column.get(row);
+    }
+
+    /**
+     * Returns the keys of the properties that a row has, in order of first appearance.
+     * 
+     * @param row the row
+     * @return the keys
+     */
+    List<String> keys(int row) {
+        final List<String> present = new ArrayList<>(this.keys.length);
+        for (String key : this.keys) {
+            if (this.columns.get(key).has(row)) {
+                present.add(key);
+            }
+        }
+        return present;
+    }
+
+    /**
+     * Returns the number of properties that a row has, counted from the presence bitmaps of the columns.
+     * 
+     * @param row the row
+     * @return the number of properties
+     */
+    int count(int row) {
+        int count = 0;
+        for (UllColumn column : this.columns.values()) {
+            if (column.has(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if a row has no properties, stopping at the first column that the row has.
+     * 
+     * @param row the row
+     * @return true if the row has no properties, false otherwise
+     */
+    boolean isEmpty(int row) {
+        for (UllColumn column : this.columns.values()) {
+            if (column.has(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Column of the values of a property.
+     */
+    private abstract static class UllColumn {
+
+        /**
+         * Rows that have the property.
+         */
+        private final BitSet present = new BitSet();
+        /**
+         * Rows whose value is the JSON null.
+         */
+        private final BitSet nulls = new BitSet();
+
+        /**
+         * Constructor for a column, which fills its bitmaps.
+         * 
+         * @param values the value of every row, null for the rows without the property
+         */
+        UllColumn(Object[] values) {
+            for (int row = 0; row < values.length; row++) {
+                if (values[row] != null) {
+                    this.present.set(row);
+                }
+                if (values[row] == JSONObject.NULL) {
+                    this.nulls.set(row);
+                }
+            }
+        }
+
+        /**
+         * Checks if a row has the property.
+         * 
+         * @param row the row
+         * @return true if the row has the property, false otherwise
+         */
+        boolean has(int row) {
+            return this.present.get(row);
+        }
+
+        /**
+         * Checks if a row has a value other than the JSON null.
+         * 
+         * @param value the value of the row
+         * @return true if the value is stored in the column, false otherwise
+         */
+        static boolean isStored(Object value) {
+            return value != null && value != JSONObject.NULL;
+        }
+
+        /**
+         * Returns the value of a row.
+         * 
+         * @param row the row
+         * @return the value, or null if the row does not have the property
+         */
+        Object get(int row) {
+            if (!this.present.get(row)) {
+                return null;
+            }
+            return this.nulls.get(row) ? JSONObject.NULL : this.value(row);
+        }
+
+        /**
+         * Returns the stored value of a row that has a value other than the JSON null.
+         * 
+         * @param row the row
+         * @return the value
+         */
+        abstract Object value(int row);
+
+        /**
+         * Returns the class of the values of the column.
+         * 
+         * @return the class of the values
+         */
+        abstract Class<?> type();
+    }
+
+    /**
+     * Column of integer values.
+     */
+    private static final class UllIntColumn extends UllColumn {
+
+        private final int[] values;
+
+        /**
+         * Constructor for a column of integer values.
+         * 
+         * @param values the value of every row, null for the rows without the property
+         */
+        UllIntColumn(Object[] values) {
+            super(values);
+            this.values = new int[values.length];
+            for (int row = 0; row < values.length; row++) {
+                if (UllColumn.isStored(values[row])) {
+                    this.values[row] = (Integer) values[row];
+                }
+            }
+        }
+
+        /**
+         * Returns the stored value of a row.
+         * 
+         * @param row the row
+         * @return the value
+         */
+        @Override
+        Object value(int row) {
+            return this.values[row];
+        }
+
+        /**
+         * Returns the class of the values of the column.
+         * 
+         * @return the class of the values
+         */
+        @Override
+        Class<?> type() {
+            return Integer.class;
+        }
+    }
+
+    /**
+     * Column of long values.
+     */
+    private static final class UllLongColumn extends UllColumn {
+
+        private final long[] values;
+
+        /**
+         * Constructor for a column of long values.
+         * 
+         * @param values the value of every row, null for the rows without the property
+         */
+        UllLongColumn(Object[] values) {
+            super(values);
+            this.values = new long[values.length];
+            for (int row = 0; row < values.length; row++) {
+                if (UllColumn.isStored(values[row])) {
+                    this.values[row] = (Long) values[row];
+                }
+            }
+        }
+
+        /**
+         * Returns the stored value of a row.
+         * 
+         * @param row the row
+         * @return the value
+         */
+        @Override
+        Object value(int row) {
+            return this.values[row];
+        }
+
+        /**
+         * Returns the class of the values of the column.
+         * 
+         * @return the class of the values
+         */
+        @Override
+        Class<?> type() {
+            return Long.class;
+        }
+    }
+
+    /**
+     * Column of double values.
+     */
+    private static final class UllDoubleColumn extends UllColumn {
+
+        private final double[] values;
+
+        /**
+         * Constructor for a column of double values.
+         * 
+         * @param values the value of every row, null for the rows without the property
+         */
+        UllDoubleColumn(Object[] values) {
+            super(values);
+            this.values = new double[values.length];
+            for (int row = 0; row < values.length; row++) {
+                if (UllColumn.isStored(values[row])) {
+                    this.values[row] = (Double) values[row];
+                }
+            }
+        }
+
+        /**
+         * Returns the stored value of a row.
+         * 
+         * @param row the row
+         * @return the value
+         */
+        @Override
+        Object value(int row) {
+            return this.values[row];
+        }
+
+        /**
+         * Returns the class of the values of the column.
+         * 
+         * @return the class of the values
+         */
+        @Override
+        Class<?> type() {
+            return Double.class;
+        }
+    }
+
+    /**
+     * Column of numbers that mix integers, longs and doubles. Every value is stored in a long, the bits of the doubles
+     * included, together with a tag of its class, so the values returned are of their original class.
+     */
+    private static final class UllNumberColumn extends UllColumn {
+
+        private static final byte INTEGER = 0;
+        private static final byte LONG = 1;
+        private static final byte DOUBLE = 2;
+        private final long[] values;
+        private final byte[] classes;
+
+        /**
+         * Constructor for a column of mixed numbers.
+         * 
+         * @param values the value of every row, null for the rows without the property
+         */
+        UllNumberColumn(Object[] values) {
+            super(values);
+            this.values = new long[values.length];
+            this.classes = new byte[values.length];
+            for (int row = 0; row < values.length; row++) {
+                final Object value = values[row];
+                if (value instanceof Integer) {
+                    this.values[row] = (Integer) value;
+                    this.classes[row] = INTEGER;
+                } else if (value instanceof Long) {
+                    this.values[row] = (Long) value;
+                    this.classes[row] = LONG;
+                } else if (value instanceof Double) {
+                    this.values[row] = Double.doubleToRawLongBits((Double) value);
+                    this.classes[row] = DOUBLE;
+                }
+            }
+        }
+
+        /**
+         * Checks if a value can be stored in a column of mixed numbers.
+         * 
+         * @param value the value
+         * @return true if the value is an integer, a long or a double, false otherwise
+         */
+        static boolean isSupported(Object value) {
+            return value instanceof Integer || value instanceof Long || value instanceof Double;
+        }
+
+        /**
+         * Returns the stored value of a row, of its original class.
+         * 
+         * @param row the row
+         * @return the value
+         */
+        @Override
+        Object value(int row) {
+            final long value = this.values[row];
+            switch (this.classes[row]) {
+                case INTEGER:
+                    return (int) value;
+                case LONG:
+                    return value;
+                default:
+                    return Double.longBitsToDouble(value);
+            }
+        }
+
+        /**
+         * Returns the class of the values of the column.
+         * 
+         * @return the class of the values
+         */
+        @Override
+        Class<?> type() {
+            return Number.class;
+        }
+    }
+
+    /**
+     * Column of boolean values, stored as a bitmap.
+     */
+    private static final class UllBooleanColumn extends UllColumn {
+
+        private final BitSet values = new BitSet();
+
+        /**
+         * Constructor for a column of boolean values.
+         * 
+         * @param values the value of every row, null for the rows without the property
+         */
+        UllBooleanColumn(Object[] values) {
+            super(values);
+            for (int row = 0; row < values.length; row++) {
+                if (Boolean.TRUE.equals(values[row])) {
+                    this.values.set(row);
+                }
+            }
+        }
+
+        /**
+         * Returns the stored value of a row.
+         * 
+         * @param row the row
+         * @return the value
+         */
+        @Override
+        Object value(int row) {
+            return this.values.get(row);
+        }
+
+        /**
+         * Returns the class of the values of the column.
+         * 
+         * @return the class of the values
+         */
+        @Override
+        Class<?> type() {
+            return Boolean.class;
+        }
+    }
+
+    /**
+     * Column of string values, stored as codes into a dictionary of the distinct strings.
+     */
+    private static final class UllStringColumn extends UllColumn {
+
+        private final String[] dictionary;
+        private final int[] codes;
+
+        /**
+         * Constructor for a column of string values.
+         * 
+         * @param values the value of every row, null for the rows without the property
+         */
+        UllStringColumn(Object[] values) {
+            super(values);
+            final Map<String, Integer> codes = new HashMap<>();
+            this.codes = new int[values.length];
+            for (int row = 0; row < values.length; row++) {
+                if (UllColumn.isStored(values[row])) {
+                    this.codes[row] = codes.computeIfAbsent((String) values[row], value -> codes.size());
+                }
+            }
+            this.dictionary = new String[codes.size()];
+            for (Map.Entry<String, Integer> code : codes.entrySet()) {
+                this.dictionary[code.getValue()] = code.getKey();
+            }
+        }
+
+        /**
+         * Returns the stored value of a row.
+         * 
+         * @param row the row
+         * @return the value
+         */
+        @Override
+        Object value(int row) {
+            return this.dictionary[this.codes[row]];
+        }
+
+        /**
+         * Returns the class of the values of the column.
+         * 
+         * @return the class of the values
+         */
+        @Override
+        Class<?> type() {
+            return String.class;
+        }
+    }
+
+    /**
+     * Column of values of mixed classes, nested objects or arrays.
+     */
+    private static final class UllObjectColumn extends UllColumn {
+
+        private final Object[] values;
+
+        /**
+         * Constructor for a column of values of any class.
+         * 
+         * @param values the value of every row, null for the rows without the property
+         */
+        UllObjectColumn(Object[] values) {
+            super(values);
+            this.values = values;
+        }
+
+        /**
+         * Returns the stored value of a row.
+         * 
+         * @param row the row
+         * @return the value
+         */
+        @Override
+        Object value(int row) {
+            return this.values[row];
+        }
+
+        /**
+         * Returns the class of the values of the column.
+         * 
+         * @return the class of the values
+         */
+        @Override
+        Class<?> type() {
+            return Object.class;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package es.ull.utils.geojson;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unmodifiable map view over the properties of a row of a {@link UllGeoJsonPropertyStore}. The values are read from the
+ * columns when they are accessed.
+ */
+class UllGeoJsonPropertyView extends AbstractMap<String, Object> {
+
+    /**
+     * Store with the columns of the properties.
+     */
+    private final UllGeoJsonPropertyStore store;
+    /**
+     * Row of the properties in the store.
+     */
+    private final int row;
+
+    /**
+     * Constructor for a view over the properties of a row.
+     * 
+     * @param store the store with the columns of the properties
+     * @param row   the row of the properties
+     */
+    UllGeoJsonPropertyView(UllGeoJsonPropertyStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    /**
+     * Returns the value of a property.
+     * 
+     * @param key the key of the property
+     * @return the value, or null if the row does not have the property
+     */
+    @Override
+    public Object get(Object key) {
+        return key instanceof String ? this.store.get(this.row, (String) key) : null;
+    }
+
+    /**
+     * Checks if the row has a property.
+     * 
+     * @param key the key of the property
+     * @return true if the row has the property, false otherwise
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Returns the number of properties of the row, without building its set of entries.
+     * 
+     * @return the number of properties
+     */
+    @Override
+    public int size() {
+        return this.store.count(this.row);
+    }
+
+    /**
+     * Checks if the row has no properties, without building its set of entries.
+     * 
+     * @return true if the row has no properties, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return this.store.isEmpty(this.row);
+    }
+
+    /**
+     * Returns the properties of the row as a set of entries, read from the columns.
+     * 
+     * @return the set of entries
+     */
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        final List<String> keys = this.store.keys(this.row);
+        return new AbstractSet<>() {
+
+            /**
+             * Returns an iterator over the entries, whose values are read when the entry is reached.
+             * 
+             * @return the iterator
+             */
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return keys.stream().<Map.Entry<String, Object>>map(
+                        key -> new AbstractMap.SimpleImmutableEntry<>(key, UllGeoJsonPropertyView.this.get(key)))
+                        .iterator();
+            }
+
+            /**
+             * Returns the number of properties of the row.
+             * 
+             * @return the number of properties
+             */
+            @Override
+            public int size() {
+                return keys.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,456 @@
+package es.ull.utils.geojson.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import es.ull.utils.geojson.UllGeoJsonBoundingBox;
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+
+/**
+ * In-memory query layer over the features of a collection. It always has an index on the ID of the features, and hash
+ * indexes (equality), sorted indexes (numeric ranges) and a spatial index (bounding boxes) can be added on demand.
+ * {@link UllGeoJsonQuery} predicates are evaluated as bitmaps of the rows of the features: the indexed predicates of a
+ * conjunction are intersected first and the rest are only tested on the remaining candidates, so a selective indexed
+ * query costs roughly the size of its result instead of a scan of the collection.
+ * 
+ * The indexes reflect the features and properties at the time they are added. Indexes must not be added while the
+ * index is being queried, but queries can run from several threads.
+ */
+public class UllGeoJsonFeatureIndex {
+
+    public static final String ERROR_FEATURES_UNDEFINED = "The features are not defined";
+    public static final String ERROR_KEY_UNDEFINED = "The property key is not defined";
+    public static final String ERROR_QUERY_UNDEFINED = "The query is not defined";
+    /**
+     * Features, in the order of the collection. The position of a feature is its row.
+     */
+    private final UllGeoJsonFeature[] features;
+    /**
+     * Rows of every ID.
+     */
+    private final Map<Object, int[]> ids;
+    /**
+     * Hash index of every indexed property key: rows of every value.
+     */
+    private final Map<String, Map<Object, int[]>> hashIndexes = new HashMap<>();
+    /**
+     * Sorted index of every indexed property key.
+     */
+    private final Map<String, UllSortedIndex> sortedIndexes = new HashMap<>();
+    /**
+     * Tree over the bounding boxes of the distinct features, or null if there is no spatial index.
+     */
+    private UllGeoJsonRTree<UllGeoJsonFeature> tree;
+    /**
+     * Rows of every distinct feature, since the same feature can appear at several rows, used to translate the results
+     * of the tree, or null if there is no spatial index.
+     */
+    private Map<UllGeoJsonFeature, int[]> rows;
+
+    /**
+     * Constructor for an index over the features of a collection, with an index on their IDs.
+     * 
+     * @param featureCollection the feature collection
+     * @throws IllegalArgumentException if the collection is null
+     */
+    public UllGeoJsonFeatureIndex(UllGeoJsonFeatureCollection featureCollection) {
+        if (featureCollection == null) {
+            throw new IllegalArgumentException(ERROR_FEATURES_UNDEFINED);
+        }
+        this.features = featureCollection.getFeatures().clone();
+        this.ids = this.group(feature -> feature.getId().orElse(null));
+    }
+
+    /**
+     * Groups the rows of the features by a value extracted from every feature.
+     * 
+     * @param extractor the extractor of the value, which returns null for the features that are not indexed
+     * @return the ascending rows of every value
+     */
+    private Map<Object, int[]> group(Function<UllGeoJsonFeature, Object> extractor) {
+        final Map<Object, UllRows> groups = new HashMap<>();
+        for (int row = 0; row < this.features.length; row++) {
+            final Object value = extractor.apply(this.features[row]);
+            if (value != null) {
+                groups.computeIfAbsent(value, key -> new UllRows()).add(row);
+            }
+        }
+        final Map<Object, int[]> index = new HashMap<>(2 * groups.size());
+        groups.forEach((value, rows) -> index.put(value, rows.toArray()));
+        return index;
+    }
+
+    /**
+     * Adds a hash index on a property, which answers {@link UllGeoJsonQuery#equalTo(String, Object)} without scanning.
+     * 
+     * @param key the key of the property
+     * @throws IllegalArgumentException if the key is null
+     */
+    public void addHashIndex(String key) {
+        UllGeoJsonFeatureIndex.validateKey(key);
+        this.hashIndexes.put(key, this.group(feature -> feature.getProperty(key)));
+    }
+
+    /**
+     * Adds a sorted index on the numeric values of a property, which answers the range queries of
+     * {@link UllGeoJsonQuery} without scanning. Values that are not numbers are not indexed.
+     * 
+     * @param key the key of the property
+     * @throws IllegalArgumentException if the key is null
+     */
+    public void addSortedIndex(String key) {
+        UllGeoJsonFeatureIndex.validateKey(key);
+        this.sortedIndexes.put(key, new UllSortedIndex(this.features, key));
+    }
+
+    /**
+     * Adds a spatial index on the bounding boxes of the features, which answers
+     * {@link UllGeoJsonQuery#intersects(UllGeoJsonBoundingBox)} without scanning.
+     */
+    public void addSpatialIndex() {
+        final Map<UllGeoJsonFeature, UllRows> groups = new IdentityHashMap<>(2 * this.features.length);
+        for (int row = 0; row < this.features.length; row++) {
+            groups.computeIfAbsent(this.features[row], feature -> new UllRows()).add(row);
+        }
+        final Map<UllGeoJsonFeature, int[]> rows = new IdentityHashMap<>(2 * groups.size());
+        groups.forEach((feature, group) -> rows.put(feature, group.toArray()));
+        this.rows = rows;
+        this.tree = new UllGeoJsonRTree<>(rows.keySet());
+    }
+
+    /**
+     * Validates the key of an indexed property.
+     * 
+     * @param key the key of the property
+     * @throws IllegalArgumentException if the key is null
+     */
+    private static void validateKey(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException(ERROR_KEY_UNDEFINED);
+        }
+    }
+
+    /**
+     * Returns the number of indexed features.
+     * 
+     * @return the number of features
+     */
+    public int size() {
+        return this.features.length;
+    }
+
+    /**
+     * Finds the first feature with an ID.
+     * 
+     * @param id the ID
+     * @return the feature, or an empty optional if no feature has the ID
+     */
+    public Optional<UllGeoJsonFeature> findById(String id) {
+        final int[] found = this.ids.get(id);
+        return found == null ? Optional.empty() : Optional.of(this.features[found[0]]);
+    }
+
+    /**
+     * Returns the features that satisfy a query, in the order of the collection.
+     * 
+     * @param query the query
+     * @return the features
+     * @throws IllegalArgumentException if the query is null
+     */
+    public List<UllGeoJsonFeature> query(UllGeoJsonQuery query) {
+        final BitSet selected = this.select(query);
+        final List<UllGeoJsonFeature> found = new ArrayList<>(selected.cardinality());
+        for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+            found.add(this.features[row]);
+        }
+        return found;
+    }
+
+    /**
+     * Counts the features that satisfy a query.
+     * 
+     * @param query the query
+     * @return the number of features
+     * @throws IllegalArgumentException if the query is null
+     */
+    public int count(UllGeoJsonQuery query) {
+        return this.select(query).cardinality();
+    }
+
+    /**
+     * Returns a new feature collection with the features that satisfy a query, in the order of the collection.
+     * 
+     * @param query the query
+     * @return the new feature collection, or an empty optional if no feature satisfies the query
+     * @throws IllegalArgumentException if the query is null
+     */
+    public Optional<UllGeoJsonFeatureCollection> filter(UllGeoJsonQuery query) {
+        final List<UllGeoJsonFeature> found = this.query(query);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new UllGeoJsonFeatureCollection(found.toArray(new UllGeoJsonFeature[0])));
+    }
+
+    /**
+     * Evaluates a query as the bitmap of the rows of the features that satisfy it.
+     * 
+     * @param query the query
+     * @return the bitmap of rows
+     * @throws IllegalArgumentException if the query is null
+     */
+    private BitSet select(UllGeoJsonQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException(ERROR_QUERY_UNDEFINED);
+        }
+        return query.select(this);
+    }
+
+    /**
+     * Returns the feature of a row.
+     * 
+     * @param row the row
+     * @return the feature
+     */
+    UllGeoJsonFeature feature(int row) {
+        return this.features[row];
+    }
+
+    /**
+     * Returns the bitmap of all the rows.
+     * 
+     * @return the bitmap of all the rows
+     */
+    BitSet all() {
+        final BitSet all = new BitSet(this.features.length);
+        all.set(0, this.features.length);
+        return all;
+    }
+
+    /**
+     * Returns the bitmap of the rows whose feature satisfies a query, testing every feature.
+     * 
+     * @param query the query
+     * @return the bitmap of rows
+     */
+    BitSet scan(UllGeoJsonQuery query) {
+        final BitSet selected = new BitSet(this.features.length);
+        for (int row = 0; row < this.features.length; row++) {
+            if (query.test(this.features[row])) {
+                selected.set(row);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Checks if a property has a hash index.
+     * 
+     * @param key the key of the property
+     * @return true if the property has a hash index, false otherwise
+     */
+    boolean hasHashIndex(String key) {
+        return this.hashIndexes.containsKey(key);
+    }
+
+    /**
+     * Checks if a property has a sorted index.
+     * 
+     * @param key the key of the property
+     * @return true if the property has a sorted index, false otherwise
+     */
+    boolean hasSortedIndex(String key) {
+        return this.sortedIndexes.containsKey(key);
+    }
+
+    /**
+     * Checks if there is a spatial index.
+     * 
+     * @return true if there is a spatial index, false otherwise
+     */
+    boolean hasSpatialIndex() {
+        return this.tree != null;
+    }
+
+    /**
+     * Returns the bitmap of the rows whose feature has a property equal to a value, from its hash index.
+     * 
+     * @param key   the key of the property, which must have a hash index
+     * @param value the value
+     * @return the bitmap of rows
+     */
+    BitSet selectEqual(String key, Object value) {
+        return UllGeoJsonFeatureIndex.toBitSet(this.hashIndexes.get(key).get(value));
+    }
+
+    /**
+     * Returns the bitmap of the rows whose feature has an ID.
+     * 
+     * @param id the ID
+     * @return the bitmap of rows
+     */
+    BitSet selectId(String id) {
+        return UllGeoJsonFeatureIndex.toBitSet(this.ids.get(id));
+    }
+
+    /**
+     * Returns the bitmap of the rows whose feature has a numeric property in a range, from its sorted index.
+     * 
+     * @param key          the key of the property, which must have a sorted index
+     * @param min          the lower bound
+     * @param minInclusive whether the lower bound is included
+     * @param max          the upper bound
+     * @param maxInclusive whether the upper bound is included
+     * @return the bitmap of rows
+     */
+    BitSet selectRange(String key, double min, boolean minInclusive, double max, boolean maxInclusive) {
+        return this.sortedIndexes.get(key).select(min, minInclusive, max, maxInclusive);
+    }
+
+    /**
+     * Returns the bitmap of the rows whose feature has a bounding box that intersects a box, from the spatial index.
+     * 
+     * @param box the box
+     * @return the bitmap of rows
+     */
+    BitSet selectIntersecting(UllGeoJsonBoundingBox box) {
+        final BitSet selected = new BitSet();
+        this.tree.search(box.getMinLongitude(), box.getMinLatitude(), box.getMaxLongitude(), box.getMaxLatitude(),
+                feature -> {
+                    for (int row : this.rows.get(feature)) {
+                        selected.set(row);
+                    }
+                });
+        return selected;
+    }
+
+    /**
+     * Converts ascending rows to a bitmap.
+     * 
+     * @param rows the rows, or null for none
+     * @return the bitmap of rows
+     */
+    private static BitSet toBitSet(int[] rows) {
+        if (rows == null) {
+            return new BitSet();
+        }
+        final BitSet selected = new BitSet(rows[rows.length - 1] + 1);
+        for (int row : rows) {
+            selected.set(row);
+        }
+        return selected;
+    }
+
+    /**
+     * Growable list of rows.
+     */
+    private static final class UllRows {
+
+        private int[] rows = new int[4];
+        private int size;
+
+        /**
+         * Appends a row.
+         * 
+         * @param row the row
+         */
+        void add(int row) {
+            if (this.size == this.rows.length) {
+                this.rows = Arrays.copyOf(this.rows, 2 * this.size);
+            }
+            this.rows[this.size++] = row;
+        }
+
+        /**
+         * Returns the rows in an array of their exact size.
+         * 
+         * @return the rows
+         */
+        int[] toArray() {
+            return Arrays.copyOf(this.rows, this.size);
+        }
+    }
+
+    /**
+     * Sorted index of the numeric values of a property: the values in ascending order and the row of each of them.
+     */
+    private static final class UllSortedIndex {
+
+        private final double[] values;
+        private final int[] rows;
+
+        /**
+         * Constructor for the sorted index of a property.
+         * 
+         * @param features the features
+         * @param key      the key of the property
+         */
+        UllSortedIndex(UllGeoJsonFeature[] features, String key) {
+            final double[] numbers = new double[features.length];
+            final List<Integer> order = new ArrayList<>();
+            for (int row = 0; row < features.length; row++) {
+                final Object value = features[row].getProperty(key);
+                if (value instanceof Number && !Double.isNaN(((Number) value).doubleValue())) {
+                    numbers[row] = ((Number) value).doubleValue();
+                    order.add(row);
+                }
+            }
+            order.sort(Comparator.comparingDouble(row -> numbers[row]));
+            this.values = new double[order.size()];
+            this.rows = new int[order.size()];
+            for (int i = 0; i < this.rows.length; i++) {
+                this.rows[i] = order.get(i);
+                this.values[i] = numbers[this.rows[i]];
+            }
+        }
+
+        /**
+         * Returns the bitmap of the rows whose value is in a range.
+         * 
+         * @param min          the lower bound
+         * @param minInclusive whether the lower bound is included
+         * @param max          the upper bound
+         * @param maxInclusive whether the upper bound is included
+         * @return the bitmap of rows
+         */
+        BitSet select(double min, boolean minInclusive, double max, boolean maxInclusive) {
+            final int from = this.bound(min, !minInclusive);
+            final int to = this.bound(max, maxInclusive);
+            final BitSet selected = new BitSet();
+            for (int i = from; i < to; i++) {
+                selected.set(this.rows[i]);
+            }
+            return selected;
+        }
+
+        /**
+         * Returns the first position whose value is greater than or equal to a bound, or strictly greater.
+         * 
+         * @param bound  the bound
+         * @param strict whether the value must be strictly greater
+         * @return the position
+         */
+        private int bound(double bound, boolean strict) {
+            int low = 0;
+            int high = this.values.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (this.values[middle] < bound || (strict && this.values[middle] == bound)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package es.ull.utils.geojson.index;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import es.ull.utils.geojson.UllGeoJsonBoundingBox;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+
+/**
+ * Polygon or MultiPolygon prepared for repeated point-in-polygon tests. The edges of all the rings, holes included, are
+ * distributed into horizontal bands of equal height, so a test only checks the edges that cross the band of the point
+ * instead of all the vertices. An edge is stored once in every band it crosses, so the number of bands is reduced until
+ * the stored edges are at most {@value #MAXIMUM_DUPLICATION} times the edges of the rings, which bounds the memory of
+ * polygons with many tall edges, such as fans or long meridional edges. Containment follows the even-odd rule over all
+ * the rings, which handles the holes and the parts of a MultiPolygon in a single pass; points exactly on an edge may be
+ * reported either way.
+ * 
+ * Prepared polygons are immutable and can be shared between threads.
+ */
+public class UllGeoJsonPreparedPolygon {
+
+    public static final String ERROR_POLYGON_UNDEFINED = "The polygon is not defined";
+    public static final String ERROR_COORDINATES_UNDEFINED = "The coordinates are not defined";
+    public static final String ERROR_COORDINATES_LENGTH = "The longitudes and latitudes must have the same length";
+    /**
+     * Maximum number of bands of the grid.
+     */
+    private static final int MAXIMUM_BANDS = 1 << 16;
+    /**
+     * Maximum ratio between the edges stored in the bands and the edges of the rings.
+     */
+    private static final int MAXIMUM_DUPLICATION = 8;
+    /**
+     * Maximum number of edges stored in the bands, limited by the length of an array of four values per edge.
+     */
+    private static final long MAXIMUM_STORED_EDGES = (Integer.MAX_VALUE - 8) / 4;
+    /**
+     * Minimum number of points of a batch test to split it among several threads.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+    /**
+     * Bounding box of the exterior rings.
+     */
+    private final UllGeoJsonBoundingBox boundingBox;
+    private final double minLatitude;
+    private final double bandScale;
+    private final int bands;
+    /**
+     * Index of the first edge of every band in {@link #edges}, plus the end of the last band.
+     */
+    private final int[] bandStart;
+    /**
+     * Edges of every band, four values per edge: longitude and latitude of both ends.
+     */
+    private final double[] edges;
+
+    /**
+     * Constructor for a prepared polygon.
+     * 
+     * @param polygon the polygon to prepare
+     * @throws IllegalArgumentException if the polygon is null
+     */
+    public UllGeoJsonPreparedPolygon(UllGeoJsonPolygon polygon) {
+        this(UllGeoJsonPreparedPolygon.toArray(polygon));
+    }
+
+    /**
+     * Constructor for a prepared MultiPolygon.
+     * 
+     * @param multiPolygon the MultiPolygon to prepare
+     * @throws IllegalArgumentException if the MultiPolygon is null
+     */
+    public UllGeoJsonPreparedPolygon(UllGeoJsonMultiPolygon multiPolygon) {
+        this(UllGeoJsonPreparedPolygon.toArray(multiPolygon));
+    }
+
+    /**
+     * Constructor for a prepared set of polygons.
+     * 
+     * @param polygons the polygons to prepare
+     */
+    private UllGeoJsonPreparedPolygon(UllGeoJsonPolygon[] polygons) {
+        UllGeoJsonBoundingBox box = UllGeoJsonBoundingBox.EMPTY;
+        int edgeCount = 0;
+        for (UllGeoJsonPolygon polygon : polygons) {
+            final UllGeoJsonPackedPositions exterior = polygon.getExteriorRing().getPackedPositions();
+            box = box.union(UllGeoJsonBoundingBox.of(exterior));
+            edgeCount += exterior.size() - 1;
+            for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+                edgeCount += ring.getPackedPositions().size() - 1;
+            }
+        }
+        this.boundingBox = box;
+        this.minLatitude = box.getMinLatitude();
+        final double height = box.getMaxLatitude() - box.getMinLatitude();
+        final long budget = Math.min(Math.max(edgeCount, 1L) * MAXIMUM_DUPLICATION, MAXIMUM_STORED_EDGES);
+        int bands = height > 0 ? Math.max(1, Math.min(edgeCount, MAXIMUM_BANDS)) : 1;
+        while (bands > 1 && this.countStoredEdges(polygons, bands, bands / height) > budget) {
+            bands /= 2;
+        }
+        this.bands = bands;
+        this.bandScale = height > 0 ? bands / height : 0;
+        final int[] counts = new int[bands + 1];
+        this.forEachEdge(polygons, (x1, y1, x2, y2) -> {
+            counts[this.band(Math.min(y1, y2))]++;
+            counts[this.band(Math.max(y1, y2)) + 1]--;
+        });
+        int crossing = 0;
+        int start = 0;
+        for (int band = 0; band < bands; band++) {
+            crossing += counts[band];
+            counts[band] = start;
+            start += crossing;
+        }
+        counts[bands] = start;
+        this.bandStart = counts.clone();
+        this.edges = new double[4 * start];
+        this.forEachEdge(polygons, (x1, y1, x2, y2) -> {
+            for (int band = this.band(Math.min(y1, y2)); band <= this.band(Math.max(y1, y2)); band++) {
+                final int offset = 4 * counts[band]++;
+                this.edges[offset] = x1;
+                this.edges[offset + 1] = y1;
+                this.edges[offset + 2] = x2;
+                this.edges[offset + 3] = y2;
+            }
+        });
+    }
+
+    /**
+     * Returns the bounding box of the prepared polygon.
+     * 
+     * @return the bounding box
+     */
+    public UllGeoJsonBoundingBox getBoundingBox() {
+        return this.boundingBox;
+    }
+
+    /**
+     * Checks if the polygon contains a position.
+     * 
+     * @param position the position to test
+     * @return true if the position is inside the polygon and outside its holes, false otherwise
+     */
+    public boolean contains(UllGeoJsonPosition position) {
+        return this.contains(position.getLongitude(), position.getLatitude());
+    }
+
+    /**
+     * Checks if the polygon contains a point.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @return true if the point is inside the polygon and outside its holes, false otherwise
+     */
+    public boolean contains(double longitude, double latitude) {
+        if (!this.boundingBox.contains(longitude, latitude)) {
+            return false;
+        }
+        final int band = this.band(latitude);
+        final double[] bandEdges = this.edges;
+        boolean inside = false;
+        for (int offset = 4 * this.bandStart[band], end = 4 * this.bandStart[band + 1]; offset < end; offset += 4) {
+            final double y1 = bandEdges[offset + 1];
+            final double y2 = bandEdges[offset + 3];
+            if ((y1 > latitude) != (y2 > latitude)) {
+                final double x1 = bandEdges[offset];
+                final double x2 = bandEdges[offset + 2];
+                if (longitude < x1 + (latitude - y1) * (x2 - x1) / (y2 - y1)) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Tests a batch of points. Large batches are split among the threads of the common pool.
+     * 
+     * @param longitudes the longitudes of the points
+     * @param latitudes  the latitudes of the points
+     * @return the set of the indexes of the points inside the polygon
+     * @throws IllegalArgumentException if the arrays are null or have different lengths
+     */
+    public BitSet contains(double[] longitudes, double[] latitudes) {
+        if (longitudes == null || latitudes == null) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_UNDEFINED);
+        }
+        if (longitudes.length != latitudes.length) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_LENGTH);
+        }
+        final int count = longitudes.length;
+        final long[] words = new long[(count + Long.SIZE - 1) / Long.SIZE];
+        IntStream stream = IntStream.range(0, words.length);
+        if (count >= PARALLEL_THRESHOLD) {
+            stream = stream.parallel();
+        }
+        stream.forEach(word -> {
+            long bits = 0L;
+            final int start = word * Long.SIZE;
+            final int end = Math.min(start + Long.SIZE, count);
+            for (int i = start; i < end; i++) {
+                if (this.contains(longitudes[i], latitudes[i])) {
+                    bits |= 1L << (i - start);
+                }
+            }
+            words[word] = bits;
+        });
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Returns the band of a latitude, clamped to the bands of the grid.
+     * 
+     * @param latitude the latitude
+     * @return the index of the band
+     */
+    private int band(double latitude) {
+        return UllGeoJsonPreparedPolygon.band(latitude, this.minLatitude, this.bandScale, this.bands);
+    }
+
+    /**
+     * Returns the band of a latitude in a grid, clamped to the bands of the grid.
+     * 
+     * @param latitude    the latitude
+     * @param minLatitude the latitude of the bottom of the grid
+     * @param scale       the number of bands per degree
+     * @param bands       the number of bands
+     * @return the index of the band
+     */
+    private static int band(double latitude, double minLatitude, double scale, int bands) {
+        final int band = (int) ((latitude - minLatitude) * scale);
+        return Math.max(0, Math.min(band, bands - 1));
+    }
+
+    /**
+     * Counts the edges that would be stored in a grid, adding every edge once for every band it crosses.
+     * 
+     * @param polygons the polygons
+     * @param bands    the number of bands of the grid
+     * @param scale    the number of bands per degree
+     * @return the number of stored edges
+     */
+    private long countStoredEdges(UllGeoJsonPolygon[] polygons, int bands, double scale) {
+        final long[] count = new long[1];
+        this.forEachEdge(polygons, (x1, y1, x2, y2) -> {
+            final int first = UllGeoJsonPreparedPolygon.band(Math.min(y1, y2), this.minLatitude, scale, bands);
+            final int last = UllGeoJsonPreparedPolygon.band(Math.max(y1, y2), this.minLatitude, scale, bands);
+            count[0] += last - first + 1;
+        });
+        return count[0];
+    }
+
+    /**
+     * Passes every edge of every ring of the polygons to a consumer.
+     * 
+     * @param polygons the polygons
+     * @param consumer the consumer of the edges
+     */
+    private void forEachEdge(UllGeoJsonPolygon[] polygons, UllEdgeConsumer consumer) {
+        for (UllGeoJsonPolygon polygon : polygons) {
+            UllGeoJsonPreparedPolygon.forEachEdge(polygon.getExteriorRing().getPackedPositions(), consumer);
+            for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+                UllGeoJsonPreparedPolygon.forEachEdge(ring.getPackedPositions(), consumer);
+            }
+        }
+    }
+
+    /**
+     * Passes every edge of a ring to a consumer. Horizontal edges are skipped, since they never cross a ray.
+     * 
+     * @param ring     the positions of the ring
+     * @param consumer the consumer of the edges
+     */
+    private static void forEachEdge(UllGeoJsonPackedPositions ring, UllEdgeConsumer consumer) {
+        for (int i = 0; i < ring.size() - 1; i++) {
+            final double y1 = ring.getLatitude(i);
+            final double y2 = ring.getLatitude(i + 1);
+            if (y1 != y2) {
+                consumer.accept(ring.getLongitude(i), y1, ring.getLongitude(i + 1), y2);
+            }
+        }
+    }
+
+    /**
+     * Returns the polygon as an array of polygons.
+     * 
+     * @param polygon the polygon
+     * @return the array with the polygon
+     * @throws IllegalArgumentException if the polygon is null
+     */
+    private static UllGeoJsonPolygon[] toArray(UllGeoJsonPolygon polygon) {
+        if (polygon == null) {
+            throw new IllegalArgumentException(ERROR_POLYGON_UNDEFINED);
+        }
+        return new UllGeoJsonPolygon[] { polygon };
+    }
+
+    /**
+     * Returns the polygons of a MultiPolygon as an array.
+     * 
+     * @param multiPolygon the MultiPolygon
+     * @return the array of polygons
+     * @throws IllegalArgumentException if the MultiPolygon is null
+     */
+    private static UllGeoJsonPolygon[] toArray(UllGeoJsonMultiPolygon multiPolygon) {
+        if (multiPolygon == null) {
+            throw new IllegalArgumentException(ERROR_POLYGON_UNDEFINED);
+        }
+        final List<UllGeoJsonPolygon> polygons = multiPolygon.getPolygons();
+        return polygons.toArray(new UllGeoJsonPolygon[0]);
+    }
+
+    /**
+     * Consumer of the edges of the rings.
+     */
+    @FunctionalInterface
+    private interface UllEdgeConsumer {
+
+        /**
+         * Receives an edge.
+         * 
+         * @param x1 the longitude of the first end
+         * @param y1 the latitude of the first end
+         * @param x2 the longitude of the second end
+         * @param y2 the latitude of the second end
+         */
+        void accept(double x1, double y1, double x2, double y2);
+    }
+}
@@ -0,0 +1,646 @@
+package es.ull.utils.geojson.index;
+
+import java.util.BitSet;
+
+import es.ull.utils.geojson.UllGeoJsonBoundingBox;
+import es.ull.utils.geojson.UllGeoJsonFeature;
+
+/**
+ * Predicate over the features of a {@link UllGeoJsonFeatureIndex}. Queries are built from the static factories and
+ * combined with {@link #and(UllGeoJsonQuery)}, {@link #or(UllGeoJsonQuery)} and {@link #not(UllGeoJsonQuery)}, for
+ * instance {@code equalTo("type", "school").and(greaterThan("capacity", 500)).and(intersects(box))}.
+ * 
+ * A query is answered from the indexes of the feature index when they cover it and by testing the features otherwise.
+ * Range queries compare the numeric values of a property as doubles; values that are not numbers never match them.
+ */
+public abstract class UllGeoJsonQuery {
+
+    public static final String ERROR_KEY_UNDEFINED = "The property key is not defined";
+    public static final String ERROR_VALUE_UNDEFINED = "The property value is not defined";
+    public static final String ERROR_ID_UNDEFINED = "The ID is not defined";
+    public static final String ERROR_BOX_UNDEFINED = "The bounding box is not defined";
+    public static final String ERROR_QUERY_UNDEFINED = "The query is not defined";
+    public static final String ERROR_RANGE_NOT_VALID = "The bounds of the range are not valid";
+
+    /**
+     * Constructor for a query, which can only be extended in this package.
+     */
+    UllGeoJsonQuery() {
+    }
+
+    /**
+     * Returns a query for the features with a property equal to a value.
+     * 
+     * @param key   the key of the property
+     * @param value the value
+     * @return the query
+     * @throws IllegalArgumentException if the key or the value is null
+     */
+    public static UllGeoJsonQuery equalTo(String key, Object value) {
+        UllGeoJsonQuery.validateKey(key);
+        if (value == null) {
+            throw new IllegalArgumentException(ERROR_VALUE_UNDEFINED);
+        }
+        return new UllEqualTo(key, value);
+    }
+
+    /**
+     * Returns a query for the features with a numeric property between two bounds, both included.
+     * 
+     * @param key the key of the property
+     * @param min the lower bound
+     * @param max the upper bound
+     * @return the query
+     * @throws IllegalArgumentException if the key is null or the bounds are not valid
+     */
+    public static UllGeoJsonQuery between(String key, double min, double max) {
+        return UllGeoJsonQuery.range(key, min, true, max, true);
+    }
+
+    /**
+     * Returns a query for the features with a numeric property greater than a bound.
+     * 
+     * @param key the key of the property
+     * @param min the bound, which is not included
+     * @return the query
+     * @throws IllegalArgumentException if the key is null or the bound is not valid
+     */
+    public static UllGeoJsonQuery greaterThan(String key, double min) {
+        return UllGeoJsonQuery.range(key, min, false, Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * Returns a query for the features with a numeric property greater than or equal to a bound.
+     * 
+     * @param key the key of the property
+     * @param min the bound, which is included
+     * @return the query
+     * @throws IllegalArgumentException if the key is null or the bound is not valid
+     */
+    public static UllGeoJsonQuery atLeast(String key, double min) {
+        return UllGeoJsonQuery.range(key, min, true, Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * Returns a query for the features with a numeric property less than a bound.
+     * 
+     * @param key the key of the property
+     * @param max the bound, which is not included
+     * @return the query
+     * @throws IllegalArgumentException if the key is null or the bound is not valid
+     */
+    public static UllGeoJsonQuery lessThan(String key, double max) {
+        return UllGeoJsonQuery.range(key, Double.NEGATIVE_INFINITY, true, max, false);
+    }
+
+    /**
+     * Returns a query for the features with a numeric property less than or equal to a bound.
+     * 
+     * @param key the key of the property
+     * @param max the bound, which is included
+     * @return the query
+     * @throws IllegalArgumentException if the key is null or the bound is not valid
+     */
+    public static UllGeoJsonQuery atMost(String key, double max) {
+        return UllGeoJsonQuery.range(key, Double.NEGATIVE_INFINITY, true, max, true);
+    }
+
+    /**
+     * Returns a query for the features with a numeric property in a range.
+     * 
+     * @param key          the key of the property
+     * @param min          the lower bound
+     * @param minInclusive whether the lower bound is included
+     * @param max          the upper bound
+     * @param maxInclusive whether the upper bound is included
+     * @return the query
+     * @throws IllegalArgumentException if the key is null or the bounds are not valid
+     */
+    private static UllGeoJsonQuery range(String key, double min, boolean minInclusive, double max, boolean maxInclusive) {
+        UllGeoJsonQuery.validateKey(key);
+        if (Double.isNaN(min) || Double.isNaN(max) || min > max) {
+            throw new IllegalArgumentException(ERROR_RANGE_NOT_VALID);
+        }
+        return new UllRange(key, min, minInclusive, max, maxInclusive);
+    }
+
+    /**
+     * Returns a query for the features with an ID.
+     * 
+     * @param id the ID
+     * @return the query
+     * @throws IllegalArgumentException if the ID is null
+     */
+    public static UllGeoJsonQuery hasId(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException(ERROR_ID_UNDEFINED);
+        }
+        return new UllHasId(id);
+    }
+
+    /**
+     * Returns a query for the features whose bounding box intersects a box.
+     * 
+     * @param box the box
+     * @return the query
+     * @throws IllegalArgumentException if the box is null
+     */
+    public static UllGeoJsonQuery intersects(UllGeoJsonBoundingBox box) {
+        if (box == null) {
+            throw new IllegalArgumentException(ERROR_BOX_UNDEFINED);
+        }
+        return new UllIntersects(box);
+    }
+
+    /**
+     * Returns a query for the features that do not satisfy a query.
+     * 
+     * @param query the query
+     * @return the negated query
+     * @throws IllegalArgumentException if the query is null
+     */
+    public static UllGeoJsonQuery not(UllGeoJsonQuery query) {
+        UllGeoJsonQuery.validateQuery(query);
+        return new UllNot(query);
+    }
+
+    /**
+     * Returns a query for the features that satisfy this query and another one.
+     * 
+     * @param other the other query
+     * @return the conjunction
+     * @throws IllegalArgumentException if the other query is null
+     */
+    public UllGeoJsonQuery and(UllGeoJsonQuery other) {
+        UllGeoJsonQuery.validateQuery(other);
+        return new UllAnd(this, other);
+    }
+
+    /**
+     * Returns a query for the features that satisfy this query or another one.
+     * 
+     * @param other the other query
+     * @return the disjunction
+     * @throws IllegalArgumentException if the other query is null
+     */
+    public UllGeoJsonQuery or(UllGeoJsonQuery other) {
+        UllGeoJsonQuery.validateQuery(other);
+        return new UllOr(this, other);
+    }
+
+    /**
+     * Validates the key of a property.
+     * 
+     * @param key the key of the property
+     * @throws IllegalArgumentException if the key is null
+     */
+    private static void validateKey(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException(ERROR_KEY_UNDEFINED);
+        }
+    }
+
+    /**
+     * Validates a query to combine.
+     * 
+     * @param query the query
+     * @throws IllegalArgumentException if the query is null
+     */
+    private static void validateQuery(UllGeoJsonQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException(ERROR_QUERY_UNDEFINED);
+        }
+    }
+
+    /**
+     * Checks if a feature satisfies the query.
+     * 
+     * @param feature the feature
+     * @return true if the feature satisfies the query, false otherwise
+     */
+    abstract boolean test(UllGeoJsonFeature feature);
+
+    /**
+     * Checks if the query is answered by the indexes of a feature index without testing the features.
+     * 
+     * @param index the feature index
+     * @return true if the query is covered by the indexes, false otherwise
+     */
+    abstract boolean isIndexed(UllGeoJsonFeatureIndex index);
+
+    /**
+     * Returns the bitmap of the rows of the features that satisfy the query, from the indexes if they cover it.
+     * 
+     * @param index the feature index
+     * @return the bitmap of rows
+     */
+    abstract BitSet select(UllGeoJsonFeatureIndex index);
+
+    /**
+     * Query for a property equal to a value.
+     */
+    private static final class UllEqualTo extends UllGeoJsonQuery {
+
+        private final String key;
+        private final Object value;
+
+        /**
+         * Constructor for a query for a property equal to a value.
+         * 
+         * @param key   the key of the property
+         * @param value the value
+         */
+        UllEqualTo(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        /**
+         * Checks if the property of a feature is equal to the value.
+         * 
+         * @param feature the feature
+         * @return true if the property is equal to the value, false otherwise
+         */
+        @Override
+        boolean test(UllGeoJsonFeature feature) {
+            return this.value.equals(feature.getProperty(this.key));
+        }
+
+        /**
+         * Checks if the property has a hash index.
+         * 
+         * @param index the feature index
+         * @return true if the property has a hash index, false otherwise
+         */
+        @Override
+        boolean isIndexed(UllGeoJsonFeatureIndex index) {
+            return index.hasHashIndex(this.key);
+        }
+
+        /**
+         * Returns the rows whose property is equal to the value.
+         * 
+         * @param index the feature index
+         * @return the bitmap of rows
+         */
+        @Override
+        BitSet select(UllGeoJsonFeatureIndex index) {
+            return this.isIndexed(index) ? index.selectEqual(this.key, this.value) : index.scan(this);
+        }
+    }
+
+    /**
+     * Query for a numeric property in a range.
+     */
+    private static final class UllRange extends UllGeoJsonQuery {
+
+        private final String key;
+        private final double min;
+        private final boolean minInclusive;
+        private final double max;
+        private final boolean maxInclusive;
+
+        /**
+         * Constructor for a query for a numeric property in a range.
+         * 
+         * @param key          the key of the property
+         * @param min          the lower bound
+         * @param minInclusive whether the lower bound is included
+         * @param max          the upper bound
+         * @param maxInclusive whether the upper bound is included
+         */
+        UllRange(String key, double min, boolean minInclusive, double max, boolean maxInclusive) {
+            this.key = key;
+            this.min = min;
+            this.minInclusive = minInclusive;
+            this.max = max;
+            this.maxInclusive = maxInclusive;
+        }
+
+        /**
+         * Checks if the property of a feature is a number in the range.
+         * 
+         * @param feature the feature
+         * @return true if the property is in the range, false otherwise
+         */
+        @Override
+        boolean test(UllGeoJsonFeature feature) {
+            final Object property = feature.getProperty(this.key);
+            if (!(property instanceof Number)) {
+                return false;
+            }
+            final double value = ((Number) property).doubleValue();
+            return (this.minInclusive ? value >= this.min : value > this.min)
+                    && (this.maxInclusive ? value <= this.max : value < this.max);
+        }
+
+        /**
+         * Checks if the property has a sorted index.
+         * 
+         * @param index the feature index
+         * @return true if the property has a sorted index, false otherwise
+         */
+        @Override
+        boolean isIndexed(UllGeoJsonFeatureIndex index) {
+            return index.hasSortedIndex(this.key);
+        }
+
+        /**
+         * Returns the rows whose property is in the range.
+         * 
+         * @param index the feature index
+         * @return the bitmap of rows
+         */
+        @Override
+        BitSet select(UllGeoJsonFeatureIndex index) {
+            if (!this.isIndexed(index)) {
+                return index.scan(this);
+            }
+            return index.selectRange(this.key, this.min, this.minInclusive, this.max, this.maxInclusive);
+        }
+    }
+
+    /**
+     * Query for an ID.
+     */
+    private static final class UllHasId extends UllGeoJsonQuery {
+
+        private final String id;
+
+        /**
+         * Constructor for a query for an ID.
+         * 
+         * @param id the ID
+         */
+        UllHasId(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Checks if a feature has the ID.
+         * 
+         * @param feature the feature
+         * @return true if the feature has the ID, false otherwise
+         */
+        @Override
+        boolean test(UllGeoJsonFeature feature) {
+            return this.id.equals(feature.getId().orElse(null));
+        }
+
+        /**
+         * Checks if the query is covered by the indexes, which is always the case for the ID index.
+         * 
+         * @param index the feature index
+         * @return true
+         */
+        @Override
+        boolean isIndexed(UllGeoJsonFeatureIndex index) {
+            return true;
+        }
+
+        /**
+         * Returns the rows with the ID.
+         * 
+         * @param index the feature index
+         * @return the bitmap of rows
+         */
+        @Override
+        BitSet select(UllGeoJsonFeatureIndex index) {
+            return index.selectId(this.id);
+        }
+    }
+
+    /**
+     * Query for a bounding box that intersects a box.
+     */
+    private static final class UllIntersects extends UllGeoJsonQuery {
+
+        private final UllGeoJsonBoundingBox box;
+
+        /**
+         * Constructor for a query for a bounding box that intersects a box.
+         * 
+         * @param box the box
+         */
+        UllIntersects(UllGeoJsonBoundingBox box) {
+            this.box = box;
+        }
+
+        /**
+         * Checks if the bounding box of a feature intersects the box.
+         * 
+         * @param feature the feature
+         * @return true if the boxes intersect, false otherwise
+         */
+        @Override
+        boolean test(UllGeoJsonFeature feature) {
+            final UllGeoJsonBoundingBox bounds = feature.getBoundingBox();
+            return !bounds.isEmpty() && bounds.intersects(this.box);
+        }
+
+        /**
+         * Checks if there is a spatial index.
+         * 
+         * @param index the feature index
+         * @return true if there is a spatial index, false otherwise
+         */
+        @Override
+        boolean isIndexed(UllGeoJsonFeatureIndex index) {
+            return index.hasSpatialIndex();
+        }
+
+        /**
+         * Returns the rows whose bounding box intersects the box.
+         * 
+         * @param index the feature index
+         * @return the bitmap of rows
+         */
+        @Override
+        BitSet select(UllGeoJsonFeatureIndex index) {
+            return this.isIndexed(index) ? index.selectIntersecting(this.box) : index.scan(this);
+        }
+    }
+
+    /**
+     * Negation of a query.
+     */
+    private static final class UllNot extends UllGeoJsonQuery {
+
+        private final UllGeoJsonQuery query;
+
+        /**
+         * Constructor for the negation of a query.
+         * 
+         * @param query the query
+         */
+        UllNot(UllGeoJsonQuery query) {
+            this.query = query;
+        }
+
+        /**
+         * Checks if a feature does not satisfy the query.
+         * 
+         * @param feature the feature
+         * @return true if the feature does not satisfy the query, false otherwise
+         */
+        @Override
+        boolean test(UllGeoJsonFeature feature) {
+            return !this.query.test(feature);
+        }
+
+        /**
+         * Checks if the negated query is covered by the indexes.
+         * 
+         * @param index the feature index
+         * @return true if the negated query is covered by the indexes, false otherwise
+         */
+        @Override
+        boolean isIndexed(UllGeoJsonFeatureIndex index) {
+            return this.query.isIndexed(index);
+        }
+
+        /**
+         * Returns the rows that are not selected by the negated query.
+         * 
+         * @param index the feature index
+         * @return the bitmap of rows
+         */
+        @Override
+        BitSet select(UllGeoJsonFeatureIndex index) {
+            final BitSet all = index.all();
+            all.andNot(this.query.select(index));
+            return all;
+        }
+    }
+
+    /**
+     * Conjunction of two queries. The indexed operands are intersected and the other ones are only tested on the
+     * remaining candidates.
+     */
+    private static final class UllAnd extends UllGeoJsonQuery {
+
+        private final UllGeoJsonQuery first;
+        private final UllGeoJsonQuery second;
+
+        /**
+         * Constructor for the conjunction of two queries.
+         * 
+         * @param first  the first query
+         * @param second the second query
+         */
+        UllAnd(UllGeoJsonQuery first, UllGeoJsonQuery second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        /**
+         * Checks if a feature satisfies both queries.
+         * 
+         * @param feature the feature
+         * @return true if the feature satisfies both queries, false otherwise
+         */
+        @Override
+        boolean test(UllGeoJsonFeature feature) {
+            return this.first.test(feature) && this.second.test(feature);
+        }
+
+        /**
+         * Checks if any of the queries is covered by the indexes, which is enough to avoid a scan.
+         * 
+         * @param index the feature index
+         * @return true if any of the queries is covered by the indexes, false otherwise
+         */
+        @Override
+        boolean isIndexed(UllGeoJsonFeatureIndex index) {
+            return this.first.isIndexed(index) || this.second.isIndexed(index);
+        }
+
+        /**
+         * Returns the rows that satisfy both queries.
+         * 
+         * @param index the feature index
+         * @return the bitmap of rows
+         */
+        @Override
+        BitSet select(UllGeoJsonFeatureIndex index) {
+            final boolean firstIndexed = this.first.isIndexed(index);
+            final boolean secondIndexed = this.second.isIndexed(index);
+            if (firstIndexed && secondIndexed) {
+                final BitSet selected = this.first.select(index);
+                if (!selected.isEmpty()) {
+                    selected.and(this.second.select(index));
+                }
+                return selected;
+            }
+            if (!firstIndexed && !secondIndexed) {
+                return index.scan(this);
+            }
+            final BitSet selected = (firstIndexed ? this.first : this.second).select(index);
+            final UllGeoJsonQuery rest = firstIndexed ? this.second : this.first;
+            for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+                if (!rest.test(index.feature(row))) {
+                    selected.clear(row);
+                }
+            }
+            return selected;
+        }
+    }
+
+    /**
+     * Disjunction of two queries.
+     */
+    private static final class UllOr extends UllGeoJsonQuery {
+
+        private final UllGeoJsonQuery first;
+        private final UllGeoJsonQuery second;
+
+        /**
+         * Constructor for the disjunction of two queries.
+         * 
+         * @param first  the first query
+         * @param second the second query
+         */
+        UllOr(UllGeoJsonQuery first, UllGeoJsonQuery second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        /**
+         * Checks if a feature satisfies any of the queries.
+         * 
+         * @param feature the feature
+         * @return true if the feature satisfies any of the queries, false otherwise
+         */
+        @Override
+        boolean test(UllGeoJsonFeature feature) {
+            return this.first.test(feature) || this.second.test(feature);
+        }
+
+        /**
+         * Checks if both queries are covered by the indexes.
+         * 
+         * @param index the feature index
+         * @return true if both queries are covered by the indexes, false otherwise
+         */
+        @Override
+        boolean isIndexed(UllGeoJsonFeatureIndex index) {
+            return this.first.isIndexed(index) && this.second.isIndexed(index);
+        }
+
+        /**
+         * Returns the rows that satisfy any of the queries.
+         * 
+         * @param index the feature index
+         * @return the bitmap of rows
+         */
+        @Override
+        BitSet select(UllGeoJsonFeatureIndex index) {
+            if (!this.isIndexed(index)) {
+                return index.scan(this);
+            }
+            final BitSet selected = this.first.select(index);
+            selected.or(this.second.select(index));
+            return selected;
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package es.ull.utils.geojson.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import es.ull.utils.geojson.UllGeoJsonBoundingBox;
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+
+/**
+ * Packed R-tree over GeoJSON objects, bulk-loaded with the Sort-Tile-Recursive algorithm. The nodes of every level are
+ * stored in flat arrays, the boxes as interleaved {@code minLongitude, minLatitude, maxLongitude, maxLatitude} values,
+ * so a query only touches primitive arrays.
+ * 
+ * Objects inserted after the bulk load are kept in a small buffer that is scanned linearly, and the tree is rebuilt
+ * when the buffer grows beyond a fraction of the tree. Queries are answered against the bounding boxes of the objects;
+ * the tree can be queried from several threads as long as no object is being inserted.
+ * 
+ * @param <T> the type of the indexed objects
+ */
+public class UllGeoJsonRTree<T extends UllGeoJsonGeometry> {
+
+    public static final String ERROR_ITEMS_UNDEFINED = "The items are not defined";
+    public static final String ERROR_ITEM_UNDEFINED = "The item is not defined";
+    public static final String ERROR_BOX_UNDEFINED = "The bounding box is not defined";
+    public static final String ERROR_CONSUMER_UNDEFINED = "The consumer is not defined";
+    /**
+     * Maximum number of children of a node.
+     */
+    public static final int NODE_CAPACITY = 16;
+    /**
+     * Minimum number of buffered inserts before the tree is rebuilt.
+     */
+    private static final int MINIMUM_REBUILD_SIZE = 256;
+    /**
+     * Fraction of the size of the tree that the buffer of inserts can reach before the tree is rebuilt.
+     */
+    private static final int REBUILD_DIVISOR = 8;
+    /**
+     * Indexed objects, in the order of the leaves of the tree.
+     */
+    private Object[] items;
+    /**
+     * Boxes of all the nodes, leaves first and root last, four values per node.
+     */
+    private double[] boxes;
+    /**
+     * For the leaves, the index of the object; for the inner nodes, the index of the first child.
+     */
+    private int[] children;
+    /**
+     * For the inner nodes, the index after the last child. Unused for the leaves.
+     */
+    private int[] childrenEnd;
+    /**
+     * Maximum number of nodes pending in a query.
+     */
+    private int stackCapacity;
+    /**
+     * Objects inserted after the last bulk load.
+     */
+    private final List<T> pending;
+    /**
+     * Boxes of the objects inserted after the last bulk load, four values per object.
+     */
+    private double[] pendingBoxes;
+
+    /**
+     * Constructor for an empty tree.
+     */
+    public UllGeoJsonRTree() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Constructor for a tree bulk-loaded with some objects.
+     * 
+     * @param items the objects to index
+     * @throws IllegalArgumentException if the collection or any object is null
+     */
+    public UllGeoJsonRTree(Collection<? extends T> items) {
+        if (items == null) {
+            throw new IllegalArgumentException(ERROR_ITEMS_UNDEFINED);
+        }
+        this.pending = new ArrayList<>();
+        this.pendingBoxes = new double[4 * MINIMUM_REBUILD_SIZE];
+        final Object[] objects = items.toArray();
+        final double[] objectBoxes = new double[4 * objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            if (objects[i] == null) {
+                throw new IllegalArgumentException(ERROR_ITEM_UNDEFINED);
+            }
+            UllGeoJsonRTree.setBox(objectBoxes, i, UllGeoJsonBoundingBox.of((UllGeoJsonGeometry) objects[i]));
+        }
+        this.build(objects, objectBoxes);
+    }
+
+    /**
+     * Creates a tree over the features of a feature collection.
+     * 
+     * @param featureCollection the feature collection
+     * @return the tree of the features
+     */
+    public static UllGeoJsonRTree<UllGeoJsonFeature> of(UllGeoJsonFeatureCollection featureCollection) {
+        return new UllGeoJsonRTree<>(Arrays.asList(featureCollection.getFeatures()));
+    }
+
+    /**
+     * Inserts an object. It is searchable immediately, and it is moved into the packed tree on the next rebuild.
+     * 
+     * @param item the object to insert
+     * @throws IllegalArgumentException if the object is null
+     */
+    public void insert(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException(ERROR_ITEM_UNDEFINED);
+        }
+        final int index = this.pending.size();
+        if (4 * (index + 1) > this.pendingBoxes.length) {
+            this.pendingBoxes = Arrays.copyOf(this.pendingBoxes, this.pendingBoxes.length * 2);
+        }
+        UllGeoJsonRTree.setBox(this.pendingBoxes, index, UllGeoJsonBoundingBox.of(item));
+        this.pending.add(item);
+        if (this.pending.size() >= Math.max(MINIMUM_REBUILD_SIZE, this.items.length / REBUILD_DIVISOR)) {
+            this.rebuild();
+        }
+    }
+
+    /**
+     * Moves the buffered inserts into the packed tree, rebuilding it.
+     */
+    public void rebuild() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        final int size = this.items.length;
+        final int total = size + this.pending.size();
+        final Object[] objects = Arrays.copyOf(this.items, total);
+        final double[] objectBoxes = new double[4 * total];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(this.boxes, 4 * i, objectBoxes, 4 * i, 4);
+        }
+        for (int i = 0; i < this.pending.size(); i++) {
+            objects[size + i] = this.pending.get(i);
+        }
+        System.arraycopy(this.pendingBoxes, 0, objectBoxes, 4 * size, 4 * this.pending.size());
+        this.pending.clear();
+        this.build(objects, objectBoxes);
+    }
+
+    /**
+     * Returns the number of indexed objects.
+     * 
+     * @return the number of objects
+     */
+    public int size() {
+        return this.items.length + this.pending.size();
+    }
+
+    /**
+     * Checks if the tree has no objects.
+     * 
+     * @return true if the tree is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Returns the objects whose bounding box intersects a box.
+     * 
+     * @param box the box of the query
+     * @return the objects found
+     * @throws IllegalArgumentException if the box is null
+     */
+    public List<T> search(UllGeoJsonBoundingBox box) {
+        if (box == null) {
+            throw new IllegalArgumentException(ERROR_BOX_UNDEFINED);
+        }
+        final List<T> result = new ArrayList<>();
+        this.search(box.getMinLongitude(), box.getMinLatitude(), box.getMaxLongitude(), box.getMaxLatitude(), result::add);
+        return result;
+    }
+
+    /**
+     * Returns the objects whose bounding box contains a point.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @return the objects found
+     */
+    public List<T> search(double longitude, double latitude) {
+        final List<T> result = new ArrayList<>();
+        this.search(longitude, latitude, longitude, latitude, result::add);
+        return result;
+    }
+
+    /**
+     * Passes to a consumer the objects whose bounding box intersects a window, without building a result list.
+     * 
+     * @param minLongitude the minimum longitude of the window
+     * @param minLatitude  the minimum latitude of the window
+     * @param maxLongitude the maximum longitude of the window
+     * @param maxLatitude  the maximum latitude of the window
+     * @param consumer     the consumer of the objects found
+     * @throws IllegalArgumentException if the consumer is null
+     */
+    @SuppressWarnings("unchecked")
+    public void search(double minLongitude, double minLatitude, double maxLongitude, double maxLatitude, Consumer<? super T> consumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException(ERROR_CONSUMER_UNDEFINED);
+        }
+        final int leaves = this.items.length;
+        if (leaves > 0) {
+            final double[] nodeBoxes = this.boxes;
+            final int[] stack = new int[this.stackCapacity];
+            int top = 0;
+            stack[top++] = this.children.length - 1;
+            while (top > 0) {
+                final int node = stack[--top];
+                if (!UllGeoJsonRTree.intersects(nodeBoxes, node, minLongitude, minLatitude, maxLongitude, maxLatitude)) {
+                    continue;
+                }
+                if (node < leaves) {
+                    consumer.accept((T) this.items[this.children[node]]);
+                } else {
+                    for (int child = this.childrenEnd[node] - 1; child >= this.children[node]; child--) {
+                        stack[top++] = child;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < this.pending.size(); i++) {
+            if (UllGeoJsonRTree.intersects(this.pendingBoxes, i, minLongitude, minLatitude, maxLongitude, maxLatitude)) {
+                consumer.accept(this.pending.get(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the bounding box of all the indexed objects.
+     * 
+     * @return the bounding box, or {@link UllGeoJsonBoundingBox#EMPTY} if the tree is empty
+     */
+    public UllGeoJsonBoundingBox getBoundingBox() {
+        UllGeoJsonBoundingBox box = UllGeoJsonBoundingBox.EMPTY;
+        if (this.items.length > 0) {
+            box = UllGeoJsonRTree.getBox(this.boxes, this.children.length - 1);
+        }
+        for (int i = 0; i < this.pending.size(); i++) {
+            box = box.union(UllGeoJsonRTree.getBox(this.pendingBoxes, i));
+        }
+        return box;
+    }
+
+    /**
+     * Bulk-loads the tree with the Sort-Tile-Recursive algorithm. Each level is sorted into vertical slices by the
+     * center longitude and every slice by the center latitude, and runs of {@link #NODE_CAPACITY} consecutive nodes
+     * become the children of a node of the next level.
+     * 
+     * @param objects     the objects to index
+     * @param objectBoxes the boxes of the objects, four values per object
+     */
+    private void build(Object[] objects, double[] objectBoxes) {
+        final int size = objects.length;
+        int total = size;
+        for (int count = size; count > 1; count = (count + NODE_CAPACITY - 1) / NODE_CAPACITY) {
+            total += (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        }
+        this.boxes = new double[4 * total];
+        this.children = new int[total];
+        this.childrenEnd = new int[total];
+        int levels = 1;
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        UllGeoJsonRTree.sortTiles(objectBoxes, order, size);
+        this.items = new Object[size];
+        for (int i = 0; i < size; i++) {
+            this.items[i] = objects[order[i]];
+            System.arraycopy(objectBoxes, 4 * order[i], this.boxes, 4 * i, 4);
+            this.children[i] = i;
+        }
+        int levelStart = 0;
+        int levelEnd = size;
+        while (levelEnd - levelStart > 1) {
+            int parent = levelEnd;
+            for (int first = levelStart; first < levelEnd; first += NODE_CAPACITY) {
+                final int last = Math.min(first + NODE_CAPACITY, levelEnd);
+                this.children[parent] = first;
+                this.childrenEnd[parent] = last;
+                UllGeoJsonRTree.unionBoxes(this.boxes, first, last, parent);
+                parent++;
+            }
+            levels++;
+            final int count = parent - levelEnd;
+            if (count > 1) {
+                this.sortLevel(levelEnd, count);
+            }
+            levelStart = levelEnd;
+            levelEnd = parent;
+        }
+        this.stackCapacity = levels * NODE_CAPACITY + 1;
+    }
+
+    /**
+     * Sorts the nodes of an inner level into tiles, moving their boxes and children ranges accordingly.
+     * 
+     * @param start the index of the first node of the level
+     * @param count the number of nodes of the level
+     */
+    private void sortLevel(int start, int count) {
+        final double[] levelBoxes = Arrays.copyOfRange(this.boxes, 4 * start, 4 * (start + count));
+        final int[] levelChildren = Arrays.copyOfRange(this.children, start, start + count);
+        final int[] levelChildrenEnd = Arrays.copyOfRange(this.childrenEnd, start, start + count);
+        final int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        UllGeoJsonRTree.sortTiles(levelBoxes, order, count);
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(levelBoxes, 4 * order[i], this.boxes, 4 * (start + i), 4);
+            this.children[start + i] = levelChildren[order[i]];
+            this.childrenEnd[start + i] = levelChildrenEnd[order[i]];
+        }
+    }
+
+    /**
+     * Sorts a permutation of boxes into Sort-Tile-Recursive order: by center longitude, and then every vertical slice
+     * by center latitude.
+     * 
+     * @param boxes the boxes, four values per box
+     * @param order the permutation to sort
+     * @param count the number of boxes
+     */
+    private static void sortTiles(double[] boxes, int[] order, int count) {
+        if (count <= NODE_CAPACITY) {
+            return;
+        }
+        final double[] keys = new double[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = UllGeoJsonRTree.center(boxes, order[i], 0);
+        }
+        UllGeoJsonRTree.sort(keys, order, 0, count - 1);
+        final int nodes = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        final int sliceSize = (int) Math.ceil(Math.sqrt(nodes)) * NODE_CAPACITY;
+        for (int i = 0; i < count; i++) {
+            keys[i] = UllGeoJsonRTree.center(boxes, order[i], 1);
+        }
+        for (int from = 0; from < count; from += sliceSize) {
+            UllGeoJsonRTree.sort(keys, order, from, Math.min(from + sliceSize, count) - 1);
+        }
+    }
+
+    /**
+     * Returns the sort key of a box along an axis, twice its center. Empty boxes are sorted last.
+     * 
+     * @param boxes the boxes, four values per box
+     * @param index the index of the box
+     * @param axis  0 for the longitude, 1 for the latitude
+     * @return the sort key of the box
+     */
+    private static double center(double[] boxes, int index, int axis) {
+        final double key = boxes[4 * index + axis] + boxes[4 * index + 2 + axis];
+        return Double.isNaN(key) ? Double.POSITIVE_INFINITY : key;
+    }
+
+    /**
+     * Sorts a range of keys in ascending order with a quicksort, moving the permutation along with the keys.
+     * 
+     * @param keys  the keys
+     * @param order the permutation
+     * @param low   the first index of the range
+     * @param high  the last index of the range
+     */
+    private static void sort(double[] keys, int[] order, int low, int high) {
+        while (high - low > NODE_CAPACITY) {
+            final int middle = (low + high) >>> 1;
+            if (keys[middle] < keys[low]) {
+                UllGeoJsonRTree.swap(keys, order, middle, low);
+            }
+            if (keys[high] < keys[low]) {
+                UllGeoJsonRTree.swap(keys, order, high, low);
+            }
+            if (keys[high] < keys[middle]) {
+                UllGeoJsonRTree.swap(keys, order, high, middle);
+            }
+            final double pivot = keys[middle];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    UllGeoJsonRTree.swap(keys, order, i++, j--);
+                }
+            }
+            if (j - low < high - i) {
+                UllGeoJsonRTree.sort(keys, order, low, j);
+                low = i;
+            } else {
+                UllGeoJsonRTree.sort(keys, order, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && keys[j] < keys[j - 1]; j--) {
+                UllGeoJsonRTree.swap(keys, order, j, j - 1);
+            }
+        }
+    }
+
+    /**
+     * Swaps two keys and their entries of the permutation.
+     * 
+     * @param keys  the keys
+     * @param order the permutation
+     * @param i     the first index
+     * @param j     the second index
+     */
+    private static void swap(double[] keys, int[] order, int i, int j) {
+        final double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        final int index = order[i];
+        order[i] = order[j];
+        order[j] = index;
+    }
+
+    /**
+     * Stores the union of a range of boxes as the box of a node.
+     * 
+     * @param boxes  the boxes, four values per box
+     * @param first  the first box of the range
+     * @param last   the box after the last one of the range
+     * @param target the node whose box is stored
+     */
+    private static void unionBoxes(double[] boxes, int first, int last, int target) {
+        double minLongitude = Double.POSITIVE_INFINITY;
+        double minLatitude = Double.POSITIVE_INFINITY;
+        double maxLongitude = Double.NEGATIVE_INFINITY;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+        for (int i = first; i < last; i++) {
+            minLongitude = Math.min(minLongitude, boxes[4 * i]);
+            minLatitude = Math.min(minLatitude, boxes[4 * i + 1]);
+            maxLongitude = Math.max(maxLongitude, boxes[4 * i + 2]);
+            maxLatitude = Math.max(maxLatitude, boxes[4 * i + 3]);
+        }
+        boxes[4 * target] = minLongitude;
+        boxes[4 * target + 1] = minLatitude;
+        boxes[4 * target + 2] = maxLongitude;
+        boxes[4 * target + 3] = maxLatitude;
+    }
+
+    /**
+     * Checks if a stored box intersects a window.
+     * 
+     * @param boxes        the boxes, four values per box
+     * @param index        the index of the box
+     * @param minLongitude the minimum longitude of the window
+     * @param minLatitude  the minimum latitude of the window
+     * @param maxLongitude the maximum longitude of the window
+     * @param maxLatitude  the maximum latitude of the window
+     * @return true if the box intersects the window, false otherwise
+     */
+    private static boolean intersects(double[] boxes, int index, double minLongitude, double minLatitude, double maxLongitude, double maxLatitude) {
+        final int offset = 4 * index;
+        return boxes[offset] <= maxLongitude && minLongitude <= boxes[offset + 2]
+                && boxes[offset + 1] <= maxLatitude && minLatitude <= boxes[offset + 3];
+    }
+
+    /**
+     * Stores a bounding box in a flat array of boxes.
+     * 
+     * @param boxes the boxes, four values per box
+     * @param index the index of the box
+     * @param box   the bounding box to store
+     */
+    private static void setBox(double[] boxes, int index, UllGeoJsonBoundingBox box) {
+        boxes[4 * index] = box.getMinLongitude();
+        boxes[4 * index + 1] = box.getMinLatitude();
+        boxes[4 * index + 2] = box.getMaxLongitude();
+        boxes[4 * index + 3] = box.getMaxLatitude();
+    }
+
+    /**
+     * Reads a bounding box from a flat array of boxes.
+     * 
+     * @param boxes the boxes, four values per box
+     * @param index the index of the box
+     * @return the bounding box
+     */
+    private static UllGeoJsonBoundingBox getBox(double[] boxes, int index) {
+        final int offset = 4 * index;
+        if (boxes[offset] > boxes[offset + 2]) {
+            return UllGeoJsonBoundingBox.EMPTY;
+        }
+        return new UllGeoJsonBoundingBox(boxes[offset], boxes[offset + 1], boxes[offset + 2], boxes[offset + 3]);
+    }
+}
@@ -0,0 +1,293 @@
+package es.ull.utils.geojson.index;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+
+/**
+ * Point-in-polygon spatial join. The polygon side is indexed once: an R-tree over the bounding boxes of the features
+ * whose geometry is a Polygon or a MultiPolygon, and a prepared polygon for each of them. Every point is then located
+ * by testing only the polygons whose box contains it.
+ * 
+ * When polygons overlap, a point is assigned to the first containing polygon in the order of the polygon side. Point
+ * features whose geometry is not a Point are not joined. The index is immutable and the point side can be processed in
+ * parallel.
+ */
+public class UllGeoJsonSpatialJoin {
+
+    public static final String ERROR_POLYGONS_UNDEFINED = "The polygon features are not defined";
+    public static final String ERROR_POINTS_UNDEFINED = "The point features are not defined";
+    public static final String ERROR_CONSUMER_UNDEFINED = "The consumer is not defined";
+    public static final String ERROR_PREFIX_UNDEFINED = "The prefix is not defined";
+    /**
+     * Minimum number of polygons to prepare them in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 6;
+    /**
+     * Polygon features, in the order of the polygon side.
+     */
+    private final UllGeoJsonFeature[] polygons;
+    /**
+     * Prepared geometry of every polygon feature.
+     */
+    private final UllGeoJsonPreparedPolygon[] prepared;
+    /**
+     * Position of every polygon feature in the arrays.
+     */
+    private final Map<UllGeoJsonFeature, Integer> indexes;
+    /**
+     * Tree over the bounding boxes of the polygon features.
+     */
+    private final UllGeoJsonRTree<UllGeoJsonFeature> tree;
+
+    /**
+     * Constructor for a join against the polygon features of a collection.
+     * 
+     * @param polygons the polygon side
+     * @throws IllegalArgumentException if the collection is null
+     */
+    public UllGeoJsonSpatialJoin(UllGeoJsonFeatureCollection polygons) {
+        this(UllGeoJsonSpatialJoin.validate(polygons).stream().iterator());
+    }
+
+    /**
+     * Constructor for a join against the polygon features of an iterator, such as a
+     * {@link es.ull.utils.geojson.input.UllGeoJsonFeatureIterator}, which is consumed.
+     * 
+     * @param polygons the polygon side
+     * @throws IllegalArgumentException if the iterator is null
+     */
+    public UllGeoJsonSpatialJoin(Iterator<UllGeoJsonFeature> polygons) {
+        if (polygons == null) {
+            throw new IllegalArgumentException(ERROR_POLYGONS_UNDEFINED);
+        }
+        final List<UllGeoJsonFeature> features = new ArrayList<>();
+        while (polygons.hasNext()) {
+            final UllGeoJsonFeature feature = polygons.next();
+            final UllGeoJsonGeometry geometry = feature.getGeometry();
+            if (geometry instanceof UllGeoJsonPolygon || geometry instanceof UllGeoJsonMultiPolygon) {
+                features.add(feature);
+            }
+        }
+        this.polygons = features.toArray(new UllGeoJsonFeature[0]);
+        this.prepared = new UllGeoJsonPreparedPolygon[this.polygons.length];
+        IntStream range = IntStream.range(0, this.polygons.length);
+        if (this.polygons.length >= PARALLEL_THRESHOLD) {
+            range = range.parallel();
+        }
+        range.forEach(i -> this.prepared[i] = UllGeoJsonSpatialJoin.prepare(this.polygons[i].getGeometry()));
+        this.indexes = new IdentityHashMap<>(2 * this.polygons.length);
+        for (int i = 0; i < this.polygons.length; i++) {
+            this.indexes.put(this.polygons[i], i);
+        }
+        this.tree = new UllGeoJsonRTree<>(features);
+    }
+
+    /**
+     * Validates a feature collection of the polygon side.
+     * 
+     * @param polygons the feature collection
+     * @return the feature collection
+     * @throws IllegalArgumentException if the collection is null
+     */
+    private static UllGeoJsonFeatureCollection validate(UllGeoJsonFeatureCollection polygons) {
+        if (polygons == null) {
+            throw new IllegalArgumentException(ERROR_POLYGONS_UNDEFINED);
+        }
+        return polygons;
+    }
+
+    /**
+     * Prepares a Polygon or MultiPolygon for containment tests.
+     * 
+     * @param geometry the geometry
+     * @return the prepared polygon
+     */
+    private static UllGeoJsonPreparedPolygon prepare(UllGeoJsonGeometry geometry) {
+        if (geometry instanceof UllGeoJsonPolygon) {
+            return new UllGeoJsonPreparedPolygon((UllGeoJsonPolygon) geometry);
+        }
+        return new UllGeoJsonPreparedPolygon((UllGeoJsonMultiPolygon) geometry);
+    }
+
+    /**
+     * Returns the number of indexed polygon features.
+     * 
+     * @return the number of polygon features
+     */
+    public int size() {
+        return this.polygons.length;
+    }
+
+    /**
+     * Finds the first polygon feature that contains a position.
+     * 
+     * @param longitude the longitude of the position
+     * @param latitude  the latitude of the position
+     * @return the polygon feature, or an empty optional if no polygon contains the position
+     */
+    public Optional<UllGeoJsonFeature> find(double longitude, double latitude) {
+        final int[] first = { Integer.MAX_VALUE };
+        this.tree.search(longitude, latitude, longitude, latitude, candidate -> {
+            final int index = this.indexes.get(candidate);
+            if (index < first[0] && this.prepared[index].contains(longitude, latitude)) {
+                first[0] = index;
+            }
+        });
+        return first[0] == Integer.MAX_VALUE ? Optional.empty() : Optional.of(this.polygons[first[0]]);
+    }
+
+    /**
+     * Finds all the polygon features that contain a position.
+     * 
+     * @param longitude the longitude of the position
+     * @param latitude  the latitude of the position
+     * @return the polygon features, in no particular order
+     */
+    public List<UllGeoJsonFeature> findAll(double longitude, double latitude) {
+        final List<UllGeoJsonFeature> found = new ArrayList<>();
+        this.tree.search(longitude, latitude, longitude, latitude, candidate -> {
+            if (this.prepared[this.indexes.get(candidate)].contains(longitude, latitude)) {
+                found.add(candidate);
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Finds the first polygon feature that contains a point feature.
+     * 
+     * @param point the point feature
+     * @return the polygon feature, or an empty optional if no polygon contains the point or its geometry is not a
+     *         Point
+     */
+    public Optional<UllGeoJsonFeature> find(UllGeoJsonFeature point) {
+        if (point == null || !(point.getGeometry() instanceof UllGeoJsonPoint)) {
+            return Optional.empty();
+        }
+        final UllGeoJsonPosition position = ((UllGeoJsonPoint) point.getGeometry()).getPosition();
+        return this.find(position.getLongitude(), position.getLatitude());
+    }
+
+    /**
+     * Joins a stream of point features, emitting a pair for every point contained in a polygon. The stream is lazy and
+     * is processed in parallel when the given stream is parallel, for instance
+     * {@link UllGeoJsonFeatureCollection#parallelStream()}.
+     * 
+     * @param points the point side
+     * @return the stream of pairs, with the point feature as key and the polygon feature as value
+     * @throws IllegalArgumentException if the stream is null
+     */
+    public Stream<Map.Entry<UllGeoJsonFeature, UllGeoJsonFeature>> join(Stream<UllGeoJsonFeature> points) {
+        if (points == null) {
+            throw new IllegalArgumentException(ERROR_POINTS_UNDEFINED);
+        }
+        return points.flatMap(point -> this.find(point).stream()
+                .map(polygon -> new AbstractMap.SimpleImmutableEntry<>(point, polygon)));
+    }
+
+    /**
+     * Joins the point features of a collection in parallel, passing every point contained in a polygon to a consumer.
+     * The consumer is called from several threads.
+     * 
+     * @param points   the point side
+     * @param consumer the consumer of the point feature and its polygon feature
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public void join(UllGeoJsonFeatureCollection points, BiConsumer<UllGeoJsonFeature, UllGeoJsonFeature> consumer) {
+        if (points == null) {
+            throw new IllegalArgumentException(ERROR_POINTS_UNDEFINED);
+        }
+        if (consumer == null) {
+            throw new IllegalArgumentException(ERROR_CONSUMER_UNDEFINED);
+        }
+        this.join(points.parallelStream()).forEach(pair -> consumer.accept(pair.getKey(), pair.getValue()));
+    }
+
+    /**
+     * Returns a new collection where every point feature contained in a polygon has the properties of the polygon
+     * feature added. Properties that the point feature already has are kept.
+     * 
+     * @param points the point side
+     * @return the new collection, with the features in the same order
+     * @throws IllegalArgumentException if the collection is null
+     */
+    public UllGeoJsonFeatureCollection attach(UllGeoJsonFeatureCollection points) {
+        return this.attach(points, "");
+    }
+
+    /**
+     * Returns a new collection where every point feature contained in a polygon has the properties of the polygon
+     * feature added, with their keys prefixed. Properties that the point feature already has are kept.
+     * 
+     * @param points the point side
+     * @param prefix the prefix of the keys of the added properties
+     * @return the new collection, with the features in the same order
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public UllGeoJsonFeatureCollection attach(UllGeoJsonFeatureCollection points, String prefix) {
+        if (points == null) {
+            throw new IllegalArgumentException(ERROR_POINTS_UNDEFINED);
+        }
+        if (prefix == null) {
+            throw new IllegalArgumentException(ERROR_PREFIX_UNDEFINED);
+        }
+        return points.map(point -> this.attach(point, prefix));
+    }
+
+    /**
+     * Returns a stream where every point feature contained in a polygon has the properties of the polygon feature
+     * added, with their keys prefixed. It is meant for point sides read with a
+     * {@link es.ull.utils.geojson.input.UllGeoJsonFeatureIterator}.
+     * 
+     * @param points the point side
+     * @param prefix the prefix of the keys of the added properties
+     * @return the stream of point features
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public Stream<UllGeoJsonFeature> attach(Stream<UllGeoJsonFeature> points, String prefix) {
+        if (points == null) {
+            throw new IllegalArgumentException(ERROR_POINTS_UNDEFINED);
+        }
+        if (prefix == null) {
+            throw new IllegalArgumentException(ERROR_PREFIX_UNDEFINED);
+        }
+        return points.map(point -> this.attach(point, prefix));
+    }
+
+    /**
+     * Adds the properties of the polygon that contains a point feature to a copy of the point feature.
+     * 
+     * @param point  the point feature
+     * @param prefix the prefix of the keys of the added properties
+     * @return the copy with the properties added, or the same point feature if no polygon contains it
+     */
+    private UllGeoJsonFeature attach(UllGeoJsonFeature point, String prefix) {
+        final Optional<UllGeoJsonFeature> polygon = this.find(point);
+        if (polygon.isEmpty()) {
+            return point;
+        }
+        final UllGeoJsonFeature joined = point.withGeometry(point.getGeometry());
+        polygon.get().getProperties().forEach((key, value) -> {
+            if (!joined.hasProperty(prefix + key)) {
+                joined.addProperty(prefix + key, value);
+            }
+        });
+        return joined;
+    }
+}
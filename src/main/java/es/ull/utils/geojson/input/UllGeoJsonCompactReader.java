@@ -0,0 +1,247 @@
+package es.ull.utils.geojson.input;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+import es.ull.utils.geojson.output.UllGeoJsonCompactWriter;
+import es.ull.utils.geojson.output.UllGeoJsonWkbWriter;
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Reader of geometries in the compact binary format written by {@link UllGeoJsonCompactWriter}. The coordinates of
+ * every sequence of positions are decoded in a single pass straight into the array that backs the sequence.
+ */
+public class UllGeoJsonCompactReader {
+
+    public static final String ERROR_BUFFER_UNDEFINED = "Buffer is undefined";
+    public static final String ERROR_TYPE_NOT_SUPPORTED = "Compact geometry type is not supported";
+    public static final String ERROR_PRECISION = "The precision of the compact geometry is not valid";
+    public static final String ERROR_COUNT = "The number of elements of a compact geometry is not valid";
+    public static final String ERROR_VARINT = "A variable-length integer of the compact geometry is malformed";
+    public static final String ERROR_TRUNCATED = "The compact geometry is truncated";
+    /**
+     * Powers of ten used as scale for every precision.
+     */
+    private static final double[] SCALES = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9 };
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoJsonCompactReader() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Reads a geometry from its compact form.
+     * 
+     * @param bytes the compact form
+     * @return the geometry
+     * @throws IllegalArgumentException if the compact form is not valid
+     */
+    public static UllGeoJsonGeometry read(byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException(ERROR_BUFFER_UNDEFINED);
+        }
+        return UllGeoJsonCompactReader.read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads a geometry from a buffer, starting at its position, which is advanced past the geometry. Several geometries
+     * written one after another can be read by calling this method repeatedly.
+     * 
+     * @param buffer the buffer
+     * @return the geometry
+     * @throws IllegalArgumentException if the buffer is null or its content is not a valid compact form
+     */
+    public static UllGeoJsonGeometry read(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException(ERROR_BUFFER_UNDEFINED);
+        }
+        try {
+            return new UllDecoder(buffer).readGeometry();
+        } catch (BufferUnderflowException exception) {
+            throw new IllegalArgumentException(ERROR_TRUNCATED, exception);
+        }
+    }
+
+    /**
+     * Decoder of a single geometry, which keeps the last coordinate of every axis.
+     */
+    private static final class UllDecoder {
+
+        private final ByteBuffer buffer;
+        private final long[] previous = new long[UllGeoJsonPackedPositions.DIMENSIONS_3D];
+        private double scale;
+        private int dimensions;
+
+        /**
+         * Constructor for a decoder.
+         * 
+         * @param buffer the buffer
+         */
+        UllDecoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads the header and the body of a geometry.
+         * 
+         * @return the geometry
+         */
+        UllGeoJsonGeometry readGeometry() {
+            final long tag = this.readVarint();
+            final long precision = this.readVarint();
+            if (precision < 0 || precision > UllGeoJsonCompactWriter.MAX_PRECISION) {
+                throw new IllegalArgumentException(ERROR_PRECISION);
+            }
+            this.scale = SCALES[(int) precision];
+            this.dimensions = (tag & 1) != 0 ? UllGeoJsonPackedPositions.DIMENSIONS_3D
+                    : UllGeoJsonPackedPositions.DIMENSIONS_2D;
+            final long type = tag >>> 1;
+            if (type == UllGeoJsonWkbWriter.WKB_POINT) {
+                final double longitude = this.readCoordinate(0);
+                final double latitude = this.readCoordinate(1);
+                if (this.dimensions == UllGeoJsonPackedPositions.DIMENSIONS_3D) {
+                    final double altitude = this.readCoordinate(2);
+                    if (altitude != UllGeoJsonPosition.ALTITUDE_NOT_DEFINED) {
+                        return new UllGeoJsonPoint(longitude, latitude, altitude);
+                    }
+                }
+                return new UllGeoJsonPoint(longitude, latitude);
+            }
+            if (type == UllGeoJsonWkbWriter.WKB_LINE_STRING) {
+                return new UllGeoJsonLineString(this.readPositions(false));
+            }
+            if (type == UllGeoJsonWkbWriter.WKB_MULTI_POINT) {
+                return new UllGeoJsonMultiPoint(this.readPositions(false));
+            }
+            if (type == UllGeoJsonWkbWriter.WKB_POLYGON) {
+                return this.readPolygon();
+            }
+            if (type == UllGeoJsonWkbWriter.WKB_MULTI_LINE_STRING) {
+                final int count = this.readCount();
+                final List<UllGeoJsonLineString> lineStrings = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    lineStrings.add(new UllGeoJsonLineString(this.readPositions(false)));
+                }
+                return new UllGeoJsonMultiLineString(lineStrings);
+            }
+            if (type == UllGeoJsonWkbWriter.WKB_MULTI_POLYGON) {
+                final int count = this.readCount();
+                final List<UllGeoJsonPolygon> polygons = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    polygons.add(this.readPolygon());
+                }
+                return new UllGeoJsonMultiPolygon(polygons);
+            }
+            throw new IllegalArgumentException(ERROR_TYPE_NOT_SUPPORTED);
+        }
+
+        /**
+         * Reads the rings of a polygon.
+         * 
+         * @return the polygon
+         */
+        private UllGeoJsonPolygon readPolygon() {
+            final int count = this.readCount();
+            if (count == 0) {
+                throw new IllegalArgumentException(ERROR_COUNT);
+            }
+            final UllGeoJsonPolygon polygon = new UllGeoJsonPolygon(new UllGeoJsonLinearRing(this.readPositions(true)));
+            for (int i = 1; i < count; i++) {
+                polygon.addInteriorRing(new UllGeoJsonLinearRing(this.readPositions(true)));
+            }
+            return polygon;
+        }
+
+        /**
+         * Reads a sequence of positions, preceded by its count.
+         * 
+         * @param ring whether the sequence is a ring, whose closing position is not stored
+         * @return the positions, in two dimensions if none of them has altitude
+         */
+        private UllGeoJsonPackedPositions readPositions(boolean ring) {
+            final int count = this.readCount();
+            final int stride = this.dimensions;
+            final double[] coordinates = new double[(ring ? count + 1 : count) * stride];
+            boolean anyAltitude = false;
+            for (int offset = 0; offset < count * stride; offset += stride) {
+                coordinates[offset] = this.readCoordinate(0);
+                coordinates[offset + 1] = this.readCoordinate(1);
+                if (stride == UllGeoJsonPackedPositions.DIMENSIONS_3D) {
+                    coordinates[offset + 2] = this.readCoordinate(2);
+                    anyAltitude |= coordinates[offset + 2] != UllGeoJsonPosition.ALTITUDE_NOT_DEFINED;
+                }
+            }
+            if (ring && count > 0) {
+                System.arraycopy(coordinates, 0, coordinates, count * stride, stride);
+            }
+            if (stride == UllGeoJsonPackedPositions.DIMENSIONS_3D && !anyAltitude) {
+                final int size = coordinates.length / stride;
+                final double[] packed = new double[size * UllGeoJsonPackedPositions.DIMENSIONS_2D];
+                for (int i = 0; i < size; i++) {
+                    packed[2 * i] = coordinates[i * stride];
+                    packed[2 * i + 1] = coordinates[i * stride + 1];
+                }
+                return UllGeoJsonPackedPositions.wrap(packed, UllGeoJsonPackedPositions.DIMENSIONS_2D);
+            }
+            return UllGeoJsonPackedPositions.wrap(coordinates, stride);
+        }
+
+        /**
+         * Reads a count and checks that the buffer has at least one byte for every element.
+         * 
+         * @return the count
+         */
+        private int readCount() {
+            final long count = this.readVarint();
+            if (count < 0 || count > this.buffer.remaining()) {
+                throw new IllegalArgumentException(ERROR_COUNT);
+            }
+            return (int) count;
+        }
+
+        /**
+         * Reads a coordinate stored as the zigzag difference with the previous coordinate of the same axis.
+         * 
+         * @param axis the axis
+         * @return the coordinate
+         */
+        private double readCoordinate(int axis) {
+            final long zigzag = this.readVarint();
+            this.previous[axis] += (zigzag >>> 1) ^ -(zigzag & 1);
+            return this.previous[axis] / this.scale;
+        }
+
+        /**
+         * Reads an unsigned variable-length integer.
+         * 
+         * @return the value
+         */
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                final byte b = this.buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException(ERROR_VARINT);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package es.ull.utils.geojson.input;
+
+/**
+ * Exception for a feature of a GeoJSON document that cannot be decoded. It keeps the offset in the document where the
+ * feature starts, so that it can be located in very large files.
+ */
+public class UllGeoJsonFeatureException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+    public static final String ERROR_MALFORMED_FEATURE = "Malformed feature at byte offset %d: %s";
+    /**
+     * Offset of the start of the feature in the document, in bytes, or -1 if it is not known.
+     */
+    private final long byteOffset;
+
+    /**
+     * Constructor for an exception of a feature that cannot be decoded.
+     * 
+     * @param byteOffset the offset of the start of the feature in the document, in bytes
+     * @param cause      the cause of the error
+     */
+    public UllGeoJsonFeatureException(long byteOffset, Throwable cause) {
+        super(String.format(ERROR_MALFORMED_FEATURE, byteOffset, cause.getMessage()), cause);
+        this.byteOffset = byteOffset;
+    }
+
+    /**
+     * Returns the offset of the start of the feature in the document.
+     * 
+     * @return the offset in bytes, or -1 if it is not known
+     */
+    public long getByteOffset() {
+        return this.byteOffset;
+    }
+}
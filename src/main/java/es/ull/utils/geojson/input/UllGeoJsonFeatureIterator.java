@@ -0,0 +1,278 @@
+package es.ull.utils.geojson.input;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import es.ull.utils.collection.UllCollections;
+import es.ull.utils.geojson.UllGeoJsonFeature;
+
+/**
+ * Pull iterator over the features of a GeoJSON FeatureCollection document. Features are decoded one at a time from the
+ * token stream, so the memory used does not depend on the size of the document.
+ * 
+ * Malformed features either abort the iteration with an {@link UllGeoJsonFeatureException} or, if a handler is given,
+ * are reported to the handler and skipped. Syntax errors in the JSON document always abort the iteration.
+ */
+public class UllGeoJsonFeatureIterator implements Iterator<UllGeoJsonFeature>, Closeable {
+
+    /**
+     * Parser positioned inside the features array.
+     */
+    private final JsonParser parser;
+    /**
+     * Handler of the malformed features, or null to abort on the first one.
+     */
+    private final Consumer<UllGeoJsonFeatureException> malformedFeatureHandler;
+    /**
+     * Options of the decoding of the features.
+     */
+    private final UllGeoJsonReadOptions options;
+    /**
+     * Nesting depth of the features array, used to resynchronize after a malformed feature.
+     */
+    private int featuresDepth;
+    /**
+     * Next feature to return, or null if it has not been read yet.
+     */
+    private UllGeoJsonFeature next;
+    /**
+     * Whether the end of the features array has been reached.
+     */
+    private boolean finished;
+
+    /**
+     * Constructor for an iterator over the features read by a parser.
+     * 
+     * @param parser                  the parser of the document
+     * @param options                 the options of the decoding of the features
+     * @param malformedFeatureHandler the handler of the malformed features, or null to abort on the first one
+     * @throws IOException              if the document cannot be read
+     * @throws IllegalArgumentException if the document is not a FeatureCollection or the options are null
+     */
+    private UllGeoJsonFeatureIterator(JsonParser parser, UllGeoJsonReadOptions options, Consumer<UllGeoJsonFeatureException> malformedFeatureHandler) throws IOException {
+        this.parser = parser;
+        this.options = options;
+        this.malformedFeatureHandler = malformedFeatureHandler;
+        try {
+            if (options == null) {
+                throw new IllegalArgumentException(UllGeoJsonReader.ERROR_OPTIONS_UNDEFINED);
+            }
+            this.moveToFeatures();
+        } catch (IOException | RuntimeException exception) {
+            parser.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Creates an iterator over the features of a file that aborts on the first malformed feature.
+     * 
+     * @param path the path of the file
+     * @return the iterator, which must be closed
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the document is not a FeatureCollection
+     */
+    public static UllGeoJsonFeatureIterator of(Path path) throws IOException {
+        return UllGeoJsonFeatureIterator.of(path, null);
+    }
+
+    /**
+     * Creates an iterator over the features of a file that skips the malformed features.
+     * 
+     * @param path                    the path of the file
+     * @param malformedFeatureHandler the handler of the malformed features, or null to abort on the first one
+     * @return the iterator, which must be closed
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the document is not a FeatureCollection
+     */
+    public static UllGeoJsonFeatureIterator of(Path path, Consumer<UllGeoJsonFeatureException> malformedFeatureHandler) throws IOException {
+        return UllGeoJsonFeatureIterator.of(path, UllGeoJsonReadOptions.DEFAULT, malformedFeatureHandler);
+    }
+
+    /**
+     * Creates an iterator over the features of a file that decodes them with the given options and skips the
+     * malformed features. With a lazy geometry, malformed geometries are not reported to the handler, since they are
+     * only decoded when requested.
+     * 
+     * @param path                    the path of the file
+     * @param options                 the options of the decoding of the features
+     * @param malformedFeatureHandler the handler of the malformed features, or null to abort on the first one
+     * @return the iterator, which must be closed
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the document is not a FeatureCollection or the options are null
+     */
+    public static UllGeoJsonFeatureIterator of(Path path, UllGeoJsonReadOptions options, Consumer<UllGeoJsonFeatureException> malformedFeatureHandler) throws IOException {
+        final JsonParser parser = UllGeoJsonReader.getJsonFactory().createParser(Files.newInputStream(path));
+        return new UllGeoJsonFeatureIterator(parser, options, malformedFeatureHandler);
+    }
+
+    /**
+     * Creates an iterator over the features of a stream that aborts on the first malformed feature. Closing the
+     * iterator does not close the stream.
+     * 
+     * @param input the stream with the document
+     * @return the iterator
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the document is not a FeatureCollection
+     */
+    public static UllGeoJsonFeatureIterator of(InputStream input) throws IOException {
+        return UllGeoJsonFeatureIterator.of(input, null);
+    }
+
+    /**
+     * Creates an iterator over the features of a stream that skips the malformed features. Closing the iterator does
+     * not close the stream.
+     * 
+     * @param input                   the stream with the document
+     * @param malformedFeatureHandler the handler of the malformed features, or null to abort on the first one
+     * @return the iterator
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the document is not a FeatureCollection
+     */
+    public static UllGeoJsonFeatureIterator of(InputStream input, Consumer<UllGeoJsonFeatureException> malformedFeatureHandler) throws IOException {
+        return UllGeoJsonFeatureIterator.of(input, UllGeoJsonReadOptions.DEFAULT, malformedFeatureHandler);
+    }
+
+    /**
+     * Creates an iterator over the features of a stream that decodes them with the given options and skips the
+     * malformed features. Closing the iterator does not close the stream.
+     * 
+     * @param input                   the stream with the document
+     * @param options                 the options of the decoding of the features
+     * @param malformedFeatureHandler the handler of the malformed features, or null to abort on the first one
+     * @return the iterator
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the document is not a FeatureCollection or the options are null
+     */
+    public static UllGeoJsonFeatureIterator of(InputStream input, UllGeoJsonReadOptions options, Consumer<UllGeoJsonFeatureException> malformedFeatureHandler) throws IOException {
+        final JsonParser parser = UllGeoJsonReader.getJsonFactory().createParser(input);
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return new UllGeoJsonFeatureIterator(parser, options, malformedFeatureHandler);
+    }
+
+    /**
+     * Advances the parser to the start of the features array, skipping the other members of the document.
+     * 
+     * @throws IOException if the document cannot be read
+     */
+    private void moveToFeatures() throws IOException {
+        UllGeoJsonReader.readToFeatures(this.parser);
+        this.featuresDepth = this.parser.getParsingContext().getNestingDepth();
+    }
+
+    /**
+     * Reads the next valid feature, skipping the malformed ones if there is a handler.
+     * 
+     * @return the next feature, or null at the end of the features array
+     * @throws IOException if the document cannot be read
+     */
+    private UllGeoJsonFeature readNext() throws IOException {
+        while (true) {
+            final JsonToken token = this.parser.nextToken();
+            if (token == JsonToken.END_ARRAY || token == null) {
+                return null;
+            }
+            final long byteOffset = this.parser.currentTokenLocation().getByteOffset();
+            try {
+                return UllGeoJsonReader.readFeature(this.parser, this.options);
+            } catch (JsonProcessingException exception) {
+                throw new UllGeoJsonFeatureException(byteOffset, exception);
+            } catch (IllegalArgumentException exception) {
+                final UllGeoJsonFeatureException malformedFeature = new UllGeoJsonFeatureException(byteOffset, exception);
+                if (this.malformedFeatureHandler == null) {
+                    throw malformedFeature;
+                }
+                this.malformedFeatureHandler.accept(malformedFeature);
+                this.skipToFeaturesArray();
+            }
+        }
+    }
+
+    /**
+     * Skips the rest of a malformed feature, up to the level of the features array.
+     * 
+     * @throws IOException if the document cannot be read
+     */
+    private void skipToFeaturesArray() throws IOException {
+        while (this.parser.getParsingContext().getNestingDepth() > this.featuresDepth) {
+            if (this.parser.nextToken() == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Checks if there are more features.
+     * 
+     * @return true if there are more features, false otherwise
+     * @throws UncheckedIOException        if the document cannot be read
+     * @throws UllGeoJsonFeatureException if a feature cannot be decoded and there is no handler
+     */
+    @Override
+    public boolean hasNext() {
+        if (this.next == null && !this.finished) {
+            try {
+                this.next = this.readNext();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            this.finished = this.next == null;
+        }
+        return this.next != null;
+    }
+
+    /**
+     * Returns the next feature.
+     * 
+     * @return the next feature
+     * @throws NoSuchElementException if there are no more features
+     */
+    @Override
+    public UllGeoJsonFeature next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final UllGeoJsonFeature feature = this.next;
+        this.next = null;
+        return feature;
+    }
+
+    /**
+     * Returns a sequential stream over the remaining features. Closing the stream closes the iterator.
+     * 
+     * @return the stream of features
+     */
+    public Stream<UllGeoJsonFeature> stream() {
+        return UllCollections.asStream(this).onClose(() -> {
+            try {
+                this.close();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+    }
+
+    /**
+     * Closes the parser and, if the iterator was created from a path, the file.
+     * 
+     * @throws IOException if the parser cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.finished = true;
+        this.next = null;
+        this.parser.close();
+    }
+}
@@ -16,6 +16,7 @@ public class UllGeoJsonFields {
     public static final String PROPERTIES = "properties";
     public static final String TYPE = "type";
     public static final String ID = "id";
+    public static final String BBOX = "bbox";
 
     /**
      * Private constructor to prevent instantiation of this utility class.
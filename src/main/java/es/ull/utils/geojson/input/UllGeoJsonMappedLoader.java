@@ -0,0 +1,395 @@
+package es.ull.utils.geojson.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Loader of large GeoJSON FeatureCollection files. The file is memory-mapped, the boundaries of the features are found
+ * with a byte scan of the features array, and the features are decoded in parallel on a fork/join pool. The features
+ * keep the order of the document.
+ */
+public class UllGeoJsonMappedLoader {
+
+    public static final String ERROR_PATH_UNDEFINED = "Path is undefined";
+    public static final String ERROR_FEATURES_NOT_CLOSED = "Features array is not closed";
+    /**
+     * Size in bytes of each mapped segment of the file. A single mapping cannot exceed 2 GB.
+     */
+    private static final int SEGMENT_SIZE = 1 << 30;
+    /**
+     * Number of decoding tasks per worker of the pool, to balance features of very different sizes.
+     */
+    private static final int TASKS_PER_WORKER = 16;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoJsonMappedLoader() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Loads a FeatureCollection file on the common pool, aborting on the first malformed feature.
+     * 
+     * @param path the path of the file
+     * @return the feature collection
+     * @throws IOException                 if the file cannot be read
+     * @throws UllGeoJsonFeatureException if a feature cannot be decoded
+     * @throws IllegalArgumentException    if the document is not a FeatureCollection or it has no features
+     */
+    public static UllGeoJsonFeatureCollection load(Path path) throws IOException {
+        return new UllGeoJsonFeatureCollection(UllGeoJsonMappedLoader.loadFeatures(path, ForkJoinPool.commonPool(), null));
+    }
+
+    /**
+     * Loads the features of a FeatureCollection file on the common pool, aborting on the first malformed feature.
+     * 
+     * @param path the path of the file
+     * @return the features, in document order
+     * @throws IOException                 if the file cannot be read
+     * @throws UllGeoJsonFeatureException if a feature cannot be decoded
+     * @throws IllegalArgumentException    if the document is not a FeatureCollection
+     */
+    public static UllGeoJsonFeature[] loadFeatures(Path path) throws IOException {
+        return UllGeoJsonMappedLoader.loadFeatures(path, ForkJoinPool.commonPool(), null);
+    }
+
+    /**
+     * Loads the features of a FeatureCollection file on a pool. Malformed features are reported to the handler, which
+     * may be called from several threads at once, and skipped.
+     * 
+     * @param path                    the path of the file
+     * @param pool                    the pool where the features are decoded
+     * @param malformedFeatureHandler the thread-safe handler of the malformed features, or null to abort on the first
+     *                                one
+     * @return the valid features, in document order
+     * @throws IOException                 if the file cannot be read
+     * @throws UllGeoJsonFeatureException if a feature cannot be decoded and there is no handler
+     * @throws IllegalArgumentException    if the document is not a FeatureCollection
+     */
+    public static UllGeoJsonFeature[] loadFeatures(Path path, ForkJoinPool pool, Consumer<UllGeoJsonFeatureException> malformedFeatureHandler) throws IOException {
+        return UllGeoJsonMappedLoader.loadFeatures(path, pool, UllGeoJsonReadOptions.DEFAULT, malformedFeatureHandler);
+    }
+
+    /**
+     * Loads the features of a FeatureCollection file on a pool, decoding them with the given options. Malformed
+     * features are reported to the handler, which may be called from several threads at once, and skipped. With a lazy
+     * geometry, malformed geometries are not reported to the handler, since they are only decoded when requested.
+     * 
+     * @param path                    the path of the file
+     * @param pool                    the pool where the features are decoded
+     * @param options                 the options of the decoding of the features
+     * @param malformedFeatureHandler the thread-safe handler of the malformed features, or null to abort on the first
+     *                                one
+     * @return the valid features, in document order
+     * @throws IOException                 if the file cannot be read
+     * @throws UllGeoJsonFeatureException if a feature cannot be decoded and there is no handler
+     * @throws IllegalArgumentException    if the document is not a FeatureCollection or the options are null
+     */
+    public static UllGeoJsonFeature[] loadFeatures(Path path, ForkJoinPool pool, UllGeoJsonReadOptions options, Consumer<UllGeoJsonFeatureException> malformedFeatureHandler) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException(ERROR_PATH_UNDEFINED);
+        }
+        if (options == null) {
+            throw new IllegalArgumentException(UllGeoJsonReader.ERROR_OPTIONS_UNDEFINED);
+        }
+        final MappedByteBuffer[] segments = UllGeoJsonMappedLoader.map(path);
+        final long featuresStart = UllGeoJsonMappedLoader.findFeaturesStart(segments);
+        final long[] boundaries = UllGeoJsonMappedLoader.scanFeatures(segments, featuresStart);
+        final int count = boundaries.length / 2;
+        final UllGeoJsonFeature[] features = new UllGeoJsonFeature[count];
+        if (count == 0) {
+            return features;
+        }
+        final int threshold = Math.max(1, count / (pool.getParallelism() * TASKS_PER_WORKER));
+        pool.invoke(new UllDecodeTask(segments, boundaries, features, 0, count, threshold, options, malformedFeatureHandler));
+        if (malformedFeatureHandler == null) {
+            return features;
+        }
+        int valid = 0;
+        for (UllGeoJsonFeature feature : features) {
+            if (feature != null) {
+                features[valid++] = feature;
+            }
+        }
+        return valid == count ? features : Arrays.copyOf(features, valid);
+    }
+
+    /**
+     * Maps a file into read-only segments of at most {@link #SEGMENT_SIZE} bytes.
+     * 
+     * @param path the path of the file
+     * @return the mapped segments, in file order
+     * @throws IOException if the file cannot be mapped
+     */
+    private static MappedByteBuffer[] map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                final long position = (long) i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+            }
+            return segments;
+        }
+    }
+
+    /**
+     * Finds the offset of the first byte inside the features array, parsing only the members that precede it.
+     * 
+     * @param segments the mapped segments of the file
+     * @return the offset of the byte that follows the start of the features array
+     * @throws IOException if the document cannot be read
+     */
+    private static long findFeaturesStart(MappedByteBuffer[] segments) throws IOException {
+        try (JsonParser parser = UllGeoJsonReader.getJsonFactory().createParser(new UllSegmentsInputStream(segments))) {
+            UllGeoJsonReader.readToFeatures(parser);
+            return parser.currentTokenLocation().getByteOffset() + 1;
+        }
+    }
+
+    /**
+     * Scans the features array and finds the start and end offsets of every element. Strings are tracked so that
+     * brackets inside them are ignored.
+     * 
+     * @param segments the mapped segments of the file
+     * @param start    the offset of the first byte inside the features array
+     * @return the start and end (exclusive) offsets of the elements, interleaved
+     * @throws IllegalArgumentException if the features array is not closed
+     */
+    private static long[] scanFeatures(MappedByteBuffer[] segments, long start) {
+        long[] boundaries = new long[1024];
+        int size = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        boolean inElement = false;
+        long elementStart = 0;
+        for (int segment = (int) (start / SEGMENT_SIZE); segment < segments.length; segment++) {
+            final MappedByteBuffer buffer = segments[segment];
+            final long base = (long) segment * SEGMENT_SIZE;
+            final int limit = buffer.limit();
+            for (int index = segment == start / SEGMENT_SIZE ? (int) (start % SEGMENT_SIZE) : 0; index < limit; index++) {
+                final byte current = buffer.get(index);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (current == '\\') {
+                        escaped = true;
+                    } else if (current == '"') {
+                        inString = false;
+                    }
+                    continue;
+                }
+                switch (current) {
+                    case '"':
+                        inString = true;
+                        break;
+                    case '{':
+                    case '[':
+                        depth++;
+                        break;
+                    case '}':
+                    case ']':
+                        if (depth == 0) {
+                            if (inElement) {
+                                boundaries[size++] = base + index;
+                            }
+                            return Arrays.copyOf(boundaries, size);
+                        }
+                        depth--;
+                        break;
+                    case ',':
+                        if (depth == 0 && inElement) {
+                            boundaries[size++] = base + index;
+                            inElement = false;
+                        }
+                        continue;
+                    case ' ':
+                    case '\t':
+                    case '\n':
+                    case '\r':
+                        continue;
+                    default:
+                        break;
+                }
+                if (!inElement) {
+                    if (size + 2 > boundaries.length) {
+                        boundaries = Arrays.copyOf(boundaries, boundaries.length * 2);
+                    }
+                    elementStart = base + index;
+                    boundaries[size++] = elementStart;
+                    inElement = true;
+                }
+            }
+        }
+        throw new UllGeoJsonFeatureException(inElement ? elementStart : start, new IllegalArgumentException(ERROR_FEATURES_NOT_CLOSED));
+    }
+
+    /**
+     * Copies a range of the mapped file into an array.
+     * 
+     * @param segments    the mapped segments of the file
+     * @param start       the offset of the first byte
+     * @param destination the array where the bytes are copied
+     * @param offset      the first index of the array
+     * @param length      the number of bytes
+     */
+    private static void copy(MappedByteBuffer[] segments, long start, byte[] destination, int offset, int length) {
+        int copied = 0;
+        while (copied < length) {
+            final long position = start + copied;
+            final MappedByteBuffer segment = segments[(int) (position / SEGMENT_SIZE)];
+            final int index = (int) (position % SEGMENT_SIZE);
+            final int chunk = Math.min(length - copied, segment.limit() - index);
+            segment.get(index, destination, offset + copied, chunk);
+            copied += chunk;
+        }
+    }
+
+    /**
+     * Task that decodes a range of features, splitting it while it is larger than a threshold.
+     */
+    private static class UllDecodeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final transient MappedByteBuffer[] segments;
+        private final long[] boundaries;
+        private final UllGeoJsonFeature[] features;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final transient UllGeoJsonReadOptions options;
+        private final transient Consumer<UllGeoJsonFeatureException> malformedFeatureHandler;
+
+        /**
+         * Constructor for a task that decodes the features in a range.
+         * 
+         * @param segments                the mapped segments of the file
+         * @param boundaries              the interleaved start and end offsets of the features
+         * @param features                the array where the features are stored
+         * @param from                    the first feature of the range
+         * @param to                      the feature after the last one of the range
+         * @param threshold               the maximum number of features decoded without splitting
+         * @param options                 the options of the decoding of the features
+         * @param malformedFeatureHandler the handler of the malformed features, or null to abort on the first one
+         */
+        UllDecodeTask(MappedByteBuffer[] segments, long[] boundaries, UllGeoJsonFeature[] features, int from, int to, int threshold, UllGeoJsonReadOptions options, Consumer<UllGeoJsonFeatureException> malformedFeatureHandler) {
+            this.segments = segments;
+            this.boundaries = boundaries;
+            this.features = features;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.options = options;
+            this.malformedFeatureHandler = malformedFeatureHandler;
+        }
+
+        /**
+         * Decodes the features of the range, or splits the range in two halves decoded in parallel.
+         */
+        @Override
+        protected void compute() {
+            if (this.to - this.from > this.threshold) {
+                final int middle = (this.from + this.to) >>> 1;
+                invokeAll(new UllDecodeTask(this.segments, this.boundaries, this.features, this.from, middle, this.threshold, this.options, this.malformedFeatureHandler),
+                        new UllDecodeTask(this.segments, this.boundaries, this.features, middle, this.to, this.threshold, this.options, this.malformedFeatureHandler));
+                return;
+            }
+            byte[] buffer = new byte[0];
+            for (int i = this.from; i < this.to; i++) {
+                final long start = this.boundaries[2 * i];
+                final int length = (int) (this.boundaries[2 * i + 1] - start);
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                UllGeoJsonMappedLoader.copy(this.segments, start, buffer, 0, length);
+                try (JsonParser parser = UllGeoJsonReader.getJsonFactory().createParser(buffer, 0, length)) {
+                    this.features[i] = UllGeoJsonReader.readFeature(parser, this.options, buffer);
+                } catch (JsonProcessingException | IllegalArgumentException exception) {
+                    final UllGeoJsonFeatureException malformedFeature = new UllGeoJsonFeatureException(start, exception);
+                    if (this.malformedFeatureHandler == null) {
+                        throw malformedFeature;
+                    }
+                    this.malformedFeatureHandler.accept(malformedFeature);
+                } catch (IOException exception) {
+                    throw new UllGeoJsonFeatureException(start, exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Input stream over the mapped segments of a file, used to parse the members that precede the features.
+     */
+    private static class UllSegmentsInputStream extends InputStream {
+
+        private final MappedByteBuffer[] segments;
+        private long position;
+        private final long size;
+
+        /**
+         * Constructor for a stream over the mapped segments of a file.
+         * 
+         * @param segments the mapped segments of the file
+         */
+        UllSegmentsInputStream(MappedByteBuffer[] segments) {
+            this.segments = segments;
+            long total = 0;
+            for (MappedByteBuffer segment : segments) {
+                total += segment.limit();
+            }
+            this.size = total;
+        }
+
+        /**
+         * Reads a byte.
+         * 
+         * @return the byte, or -1 at the end of the file
+         */
+        @Override
+        public int read() {
+            if (this.position >= this.size) {
+                return -1;
+            }
+            final long current = this.position++;
+            return this.segments[(int) (current / SEGMENT_SIZE)].get((int) (current % SEGMENT_SIZE)) & 0xFF;
+        }
+
+        /**
+         * Reads bytes into an array.
+         * 
+         * @param destination the array where the bytes are stored
+         * @param offset      the first index of the array
+         * @param length      the maximum number of bytes
+         * @return the number of bytes read, or -1 at the end of the file
+         */
+        @Override
+        public int read(byte[] destination, int offset, int length) {
+            if (this.position >= this.size) {
+                return -1;
+            }
+            final int count = (int) Math.min(length, this.size - this.position);
+            UllGeoJsonMappedLoader.copy(this.segments, this.position, destination, offset, count);
+            this.position += count;
+            return count;
+        }
+    }
+}
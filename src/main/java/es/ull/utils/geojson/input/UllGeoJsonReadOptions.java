@@ -0,0 +1,127 @@
+package es.ull.utils.geojson.input;
+
+import java.util.Set;
+
+/**
+ * Options of the decoding of features. The geometry of a feature can be kept as its raw JSON bytes and decoded only on
+ * the first call to {@link es.ull.utils.geojson.UllGeoJsonFeature#getGeometry()}, and the properties can be restricted
+ * to a set of keys, so the members of the properties object that are not requested are skipped at the token level.
+ * 
+ * With a lazy geometry, a malformed geometry is not detected while reading: it is reported by
+ * {@link es.ull.utils.geojson.UllGeoJsonFeature#getGeometry()} with an {@link IllegalArgumentException}.
+ */
+public class UllGeoJsonReadOptions {
+
+    public static final String ERROR_PROPERTY_KEYS_UNDEFINED = "Property keys are undefined";
+    /**
+     * Options that decode the whole document: geometries are decoded eagerly and all the properties are kept.
+     */
+    public static final UllGeoJsonReadOptions DEFAULT = new UllGeoJsonReadOptions(false, null);
+    /**
+     * Whether the geometries of the features are decoded on first access.
+     */
+    private final boolean lazyGeometry;
+    /**
+     * Keys of the properties to keep, or null to keep all of them.
+     */
+    private final Set<String> propertyKeys;
+
+    /**
+     * Constructor for the options of the decoding of features.
+     * 
+     * @param lazyGeometry whether the geometries of the features are decoded on first access
+     * @param propertyKeys the keys of the properties to keep, or null to keep all of them
+     */
+    private UllGeoJsonReadOptions(boolean lazyGeometry, Set<String> propertyKeys) {
+        this.lazyGeometry = lazyGeometry;
+        this.propertyKeys = propertyKeys;
+    }
+
+    /**
+     * Returns options that keep the geometries of the features encoded until they are requested and keep all the
+     * properties.
+     * 
+     * @return the options
+     */
+    public static UllGeoJsonReadOptions lazyGeometry() {
+        return new UllGeoJsonReadOptions(true, null);
+    }
+
+    /**
+     * Returns options that keep only some properties of the features and decode their geometries eagerly.
+     * 
+     * @param propertyKeys the keys of the properties to keep. It cannot be null.
+     * @return the options
+     * @throws IllegalArgumentException if the keys are null or contain null
+     */
+    public static UllGeoJsonReadOptions properties(Set<String> propertyKeys) {
+        return new UllGeoJsonReadOptions(false, UllGeoJsonReadOptions.copy(propertyKeys));
+    }
+
+    /**
+     * Returns a copy of these options that keeps the geometries of the features encoded until they are requested.
+     * 
+     * @return the options
+     */
+    public UllGeoJsonReadOptions withLazyGeometry() {
+        return new UllGeoJsonReadOptions(true, this.propertyKeys);
+    }
+
+    /**
+     * Returns a copy of these options that keeps only some properties of the features.
+     * 
+     * @param propertyKeys the keys of the properties to keep. It cannot be null.
+     * @return the options
+     * @throws IllegalArgumentException if the keys are null or contain null
+     */
+    public UllGeoJsonReadOptions withProperties(Set<String> propertyKeys) {
+        return new UllGeoJsonReadOptions(this.lazyGeometry, UllGeoJsonReadOptions.copy(propertyKeys));
+    }
+
+    /**
+     * Copies a set of property keys into an immutable set.
+     * 
+     * @param propertyKeys the keys of the properties
+     * @return the immutable copy
+     * @throws IllegalArgumentException if the keys are null or contain null
+     */
+    private static Set<String> copy(Set<String> propertyKeys) {
+        if (propertyKeys == null) {
+            throw new IllegalArgumentException(ERROR_PROPERTY_KEYS_UNDEFINED);
+        }
+        for (String key : propertyKeys) {
+            if (key == null) {
+                throw new IllegalArgumentException(ERROR_PROPERTY_KEYS_UNDEFINED);
+            }
+        }
+        return Set.copyOf(propertyKeys);
+    }
+
+    /**
+     * Checks if the geometries of the features are decoded on first access.
+     * 
+     * @return true if the geometries are decoded on first access, false if they are decoded while reading
+     */
+    public boolean isLazyGeometry() {
+        return this.lazyGeometry;
+    }
+
+    /**
+     * Checks if all the properties of the features are kept.
+     * 
+     * @return true if all the properties are kept, false if only some keys are kept
+     */
+    public boolean isAllProperties() {
+        return this.propertyKeys == null;
+    }
+
+    /**
+     * Checks if a property of the features is kept.
+     * 
+     * @param key the key of the property
+     * @return true if the property is kept, false otherwise
+     */
+    public boolean isPropertyKept(String key) {
+        return this.propertyKeys == null || this.propertyKeys.contains(key);
+    }
+}
@@ -0,0 +1,1022 @@
+package es.ull.utils.geojson.input;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONObject;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+
+import es.ull.utils.geojson.UllGeoJsonBoundingBox;
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+import es.ull.utils.geojson.definition.UllGeoJsonType;
+import es.ull.utils.geojson.utils.UllGeoJsonUtils;
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Reader that decodes GeoJSON documents from a Jackson token stream straight into the GeoJSON model, in a single pass
+ * and without building an intermediate JSON tree. The validation error messages are the ones of the model classes.
+ */
+public class UllGeoJsonReader {
+
+    public static final String ERROR_OBJECT_EXPECTED = "GeoJSON must be a JSON object";
+    public static final String ERROR_TYPE_NOT_SUPPORTED = "GeoJSON type is not supported";
+    public static final String ERROR_BBOX_WRONG_FORMAT = "The bbox member must be an array of 4 or 6 numbers";
+    public static final String ERROR_OPTIONS_UNDEFINED = "Read options are undefined";
+    public static final String ERROR_TRAILING_CONTENT = "GeoJSON must not have content after the root object";
+    /**
+     * Factory shared by all the parsers created by the reader.
+     */
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+            .build();
+    /**
+     * Marker for an empty array of coordinates, whose depth is unknown.
+     */
+    private static final List<Object> EMPTY_COORDINATES = Collections.emptyList();
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoJsonReader() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Returns the factory used to create the parsers of the reader.
+     * 
+     * @return the JSON factory
+     */
+    public static JsonFactory getJsonFactory() {
+        return JSON_FACTORY;
+    }
+
+    /**
+     * Reads a GeoJSON object (geometry, Feature or FeatureCollection) from a string.
+     * 
+     * @param json the GeoJSON string
+     * @return the GeoJSON object
+     * @throws IllegalArgumentException if the string is not valid GeoJSON
+     */
+    public static UllGeoJsonGeometry read(String json) {
+        return UllGeoJsonReader.read(json, UllGeoJsonReadOptions.DEFAULT);
+    }
+
+    /**
+     * Reads a GeoJSON object (geometry, Feature or FeatureCollection) from a string, decoding its features with the
+     * given options.
+     * 
+     * @param json    the GeoJSON string
+     * @param options the options of the decoding of features
+     * @return the GeoJSON object
+     * @throws IllegalArgumentException if the string is not valid GeoJSON
+     */
+    public static UllGeoJsonGeometry read(String json, UllGeoJsonReadOptions options) {
+        if (json == null) {
+            throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_JSON_UNDEFINED);
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return UllGeoJsonReader.readDocument(parser, options, null);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalArgumentException(exception.getOriginalMessage(), exception);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Reads a GeoJSON object (geometry, Feature or FeatureCollection) from UTF-8 encoded bytes.
+     * 
+     * @param json the GeoJSON bytes
+     * @return the GeoJSON object
+     * @throws IllegalArgumentException if the bytes are not valid GeoJSON
+     */
+    public static UllGeoJsonGeometry read(byte[] json) {
+        return UllGeoJsonReader.read(json, UllGeoJsonReadOptions.DEFAULT);
+    }
+
+    /**
+     * Reads a GeoJSON object (geometry, Feature or FeatureCollection) from UTF-8 encoded bytes, decoding its features
+     * with the given options.
+     * 
+     * @param json    the GeoJSON bytes
+     * @param options the options of the decoding of features
+     * @return the GeoJSON object
+     * @throws IllegalArgumentException if the bytes are not valid GeoJSON
+     */
+    public static UllGeoJsonGeometry read(byte[] json, UllGeoJsonReadOptions options) {
+        if (json == null) {
+            throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_JSON_UNDEFINED);
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return UllGeoJsonReader.readDocument(parser, options, json);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalArgumentException(exception.getOriginalMessage(), exception);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Reads the GeoJSON object of a whole document, which must not have any content after the root object.
+     * 
+     * @param parser  the parser, before the root object
+     * @param options the options of the decoding of features
+     * @param source  the bytes being parsed, or null if they are not available
+     * @return the GeoJSON object
+     * @throws IOException              if the document does not contain valid JSON
+     * @throws IllegalArgumentException if the document is not valid GeoJSON or has content after the root object
+     */
+    private static UllGeoJsonGeometry readDocument(JsonParser parser, UllGeoJsonReadOptions options, byte[] source)
+            throws IOException {
+        final UllGeoJsonGeometry geometry = UllGeoJsonReader.read(parser, options, source);
+        if (parser.nextToken() != null) {
+            throw new IllegalArgumentException(ERROR_TRAILING_CONTENT);
+        }
+        return geometry;
+    }
+
+    /**
+     * Reads a GeoJSON object (geometry, Feature or FeatureCollection) from a stream. The stream is not closed.
+     * 
+     * @param input the stream with the GeoJSON document
+     * @return the GeoJSON object
+     * @throws IOException              if the stream cannot be read or does not contain valid JSON
+     * @throws IllegalArgumentException if the document is not valid GeoJSON
+     */
+    public static UllGeoJsonGeometry read(InputStream input) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(input)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return UllGeoJsonReader.read(parser);
+        }
+    }
+
+    /**
+     * Reads a GeoJSON object (geometry, Feature or FeatureCollection) from a character stream. The stream is not
+     * closed.
+     * 
+     * @param reader the character stream with the GeoJSON document
+     * @return the GeoJSON object
+     * @throws IOException              if the stream cannot be read or does not contain valid JSON
+     * @throws IllegalArgumentException if the document is not valid GeoJSON
+     */
+    public static UllGeoJsonGeometry read(Reader reader) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(reader)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return UllGeoJsonReader.read(parser);
+        }
+    }
+
+    /**
+     * Reads a GeoJSON object of the given class from a string.
+     * 
+     * @param <T>  the class of the GeoJSON object
+     * @param json the GeoJSON string
+     * @param type the expected class of the GeoJSON object
+     * @return the GeoJSON object
+     * @throws IllegalArgumentException if the string is not valid GeoJSON or its type is not the expected one
+     */
+    public static <T extends UllGeoJsonGeometry> T read(String json, Class<T> type) {
+        final UllGeoJsonGeometry geometry = UllGeoJsonReader.read(json);
+        if (!type.isInstance(geometry)) {
+            throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_TYPE_NOT_VALID);
+        }
+        return type.cast(geometry);
+    }
+
+    /**
+     * Reads the GeoJSON object at the current position of a parser. If the parser has not started yet, the first token
+     * is read. After the call, the current token of the parser is the end of the object.
+     * 
+     * @param parser the parser
+     * @return the GeoJSON object
+     * @throws IOException              if the parser cannot read the input
+     * @throws IllegalArgumentException if the object is not valid GeoJSON
+     */
+    public static UllGeoJsonGeometry read(JsonParser parser) throws IOException {
+        return UllGeoJsonReader.read(parser, UllGeoJsonReadOptions.DEFAULT);
+    }
+
+    /**
+     * Reads the GeoJSON object at the current position of a parser, decoding its features with the given options. If
+     * the parser has not started yet, the first token is read. After the call, the current token of the parser is the
+     * end of the object.
+     * 
+     * @param parser  the parser
+     * @param options the options of the decoding of features
+     * @return the GeoJSON object
+     * @throws IOException              if the parser cannot read the input
+     * @throws IllegalArgumentException if the object is not valid GeoJSON or the options are null
+     */
+    public static UllGeoJsonGeometry read(JsonParser parser, UllGeoJsonReadOptions options) throws IOException {
+        return UllGeoJsonReader.read(parser, options, null);
+    }
+
+    /**
+     * Reads the GeoJSON object at the current position of a parser, decoding its features with the given options.
+     * 
+     * @param parser  the parser
+     * @param options the options of the decoding of features
+     * @param source  the array read by the parser from its first byte, so lazy geometries are sliced from it, or null
+     *                if it is not known
+     * @return the GeoJSON object
+     * @throws IOException              if the parser cannot read the input
+     * @throws IllegalArgumentException if the object is not valid GeoJSON or the options are null
+     */
+    private static UllGeoJsonGeometry read(JsonParser parser, UllGeoJsonReadOptions options, byte[] source) throws IOException {
+        if (options == null) {
+            throw new IllegalArgumentException(ERROR_OPTIONS_UNDEFINED);
+        }
+        if (!parser.hasCurrentToken()) {
+            parser.nextToken();
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException(ERROR_OBJECT_EXPECTED);
+        }
+        return UllGeoJsonReader.readObject(parser, options, source);
+    }
+
+    /**
+     * Reads the GeoJSON Feature at the current position of a parser.
+     * 
+     * @param parser the parser
+     * @return the Feature
+     * @throws IOException              if the parser cannot read the input
+     * @throws IllegalArgumentException if the object is not a valid GeoJSON Feature
+     */
+    public static UllGeoJsonFeature readFeature(JsonParser parser) throws IOException {
+        return UllGeoJsonReader.readFeature(parser, UllGeoJsonReadOptions.DEFAULT);
+    }
+
+    /**
+     * Reads the GeoJSON Feature at the current position of a parser with the given options. With a lazy geometry, the
+     * geometry member is only copied, token by token and without converting its numbers, and it is decoded when the
+     * feature is asked for it.
+     * 
+     * @param parser  the parser
+     * @param options the options of the decoding of features
+     * @return the Feature
+     * @throws IOException              if the parser cannot read the input
+     * @throws IllegalArgumentException if the object is not a valid GeoJSON Feature or the options are null
+     */
+    public static UllGeoJsonFeature readFeature(JsonParser parser, UllGeoJsonReadOptions options) throws IOException {
+        return UllGeoJsonReader.readFeature(parser, options, null);
+    }
+
+    /**
+     * Reads the GeoJSON Feature at the current position of a parser with the given options. When the array read by the
+     * parser is known, a lazy geometry is sliced from it after skipping its tokens.
+     * 
+     * @param parser  the parser
+     * @param options the options of the decoding of features
+     * @param source  the array read by the parser from its first byte, or null if it is not known
+     * @return the Feature
+     * @throws IOException              if the parser cannot read the input
+     * @throws IllegalArgumentException if the object is not a valid GeoJSON Feature or the options are null
+     */
+    static UllGeoJsonFeature readFeature(JsonParser parser, UllGeoJsonReadOptions options, byte[] source) throws IOException {
+        final UllGeoJsonGeometry feature = UllGeoJsonReader.read(parser, options, source);
+        if (!(feature instanceof UllGeoJsonFeature)) {
+            throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_TYPE_NOT_VALID);
+        }
+        return (UllGeoJsonFeature) feature;
+    }
+
+    /**
+     * Advances a parser that has not started yet to the start of the features array of a FeatureCollection, skipping
+     * the other members of the document.
+     * 
+     * @param parser the parser
+     * @throws IOException              if the parser cannot read the input
+     * @throws IllegalArgumentException if the document is not a FeatureCollection or has no features array
+     */
+    static void readToFeatures(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException(ERROR_OBJECT_EXPECTED);
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            final JsonToken token = parser.nextToken();
+            if (UllGeoJsonFields.TYPE.equals(field)) {
+                if (!UllGeoJsonType.FEATURE_COLLECTION.toString().equals(parser.getValueAsString())) {
+                    throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_TYPE_NOT_VALID);
+                }
+            } else if (UllGeoJsonFields.FEATURES.equals(field) && token == JsonToken.START_ARRAY) {
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw new IllegalArgumentException(UllGeoJsonFeatureCollection.ERROR_FEATURES_UNDEFINED);
+    }
+
+    /**
+     * Reads a GeoJSON object whose start token is the current token of the parser. The members are read in any order.
+     * 
+     * @param parser  the parser
+     * @param options the options of the decoding of features
+     * @param source  the array read by the parser from its first byte, or null if it is not known
+     * @return the GeoJSON object
+     * @throws IOException if the parser cannot read the input
+     */
+    private static UllGeoJsonGeometry readObject(JsonParser parser, UllGeoJsonReadOptions options, byte[] source) throws IOException {
+        final UllGeoJsonObjectMembers members = new UllGeoJsonObjectMembers();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            final JsonToken token = parser.nextToken();
+            switch (field) {
+                case UllGeoJsonFields.TYPE:
+                    members.hasType = true;
+                    members.type = token == JsonToken.VALUE_NULL ? null : parser.getValueAsString("");
+                    parser.skipChildren();
+                    break;
+                case UllGeoJsonFields.COORDINATES:
+                    members.hasCoordinates = true;
+                    if (token == JsonToken.START_ARRAY) {
+                        members.coordinates = UllGeoJsonReader.readCoordinates(parser, parser.nextToken());
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case UllGeoJsonFields.GEOMETRY:
+                    if (token == JsonToken.START_OBJECT && options.isLazyGeometry()) {
+                        members.encodedGeometry = UllGeoJsonReader.copyObject(parser, source);
+                    } else if (token == JsonToken.START_OBJECT) {
+                        members.geometry = UllGeoJsonReader.readObject(parser, UllGeoJsonReadOptions.DEFAULT, null);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case UllGeoJsonFields.PROPERTIES:
+                    if (token == JsonToken.START_OBJECT) {
+                        members.properties = UllGeoJsonReader.readProperties(parser, options);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case UllGeoJsonFields.ID:
+                    if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+                        members.id = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case UllGeoJsonFields.BBOX:
+                    members.boundingBox = UllGeoJsonReader.readBoundingBox(parser, token);
+                    break;
+                case UllGeoJsonFields.FEATURES:
+                    members.hasFeatures = true;
+                    if (token == JsonToken.START_ARRAY) {
+                        members.features = UllGeoJsonReader.readFeatures(parser, options, source);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        final UllGeoJsonGeometry geometry = UllGeoJsonReader.build(members);
+        if (members.boundingBox != null) {
+            geometry.setBoundingBox(members.boundingBox);
+        }
+        return geometry;
+    }
+
+    /**
+     * Reads the bbox member of an object, with 4 values for two dimensions or 6 values for three dimensions, of which
+     * only the longitude and latitude bounds are kept. Boxes crossing the antimeridian are ignored, so the box is
+     * computed from the positions when it is requested.
+     * 
+     * @param parser the parser
+     * @param token  the first token of the member
+     * @return the bounding box, or null if it is ignored
+     * @throws IOException if the parser cannot read the input
+     */
+    private static UllGeoJsonBoundingBox readBoundingBox(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException(ERROR_BBOX_WRONG_FORMAT);
+        }
+        final double[] values = new double[6];
+        int count = 0;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (!token.isNumeric() || count == values.length) {
+                throw new IllegalArgumentException(ERROR_BBOX_WRONG_FORMAT);
+            }
+            values[count++] = parser.getDoubleValue();
+        }
+        if (count != 4 && count != 6) {
+            throw new IllegalArgumentException(ERROR_BBOX_WRONG_FORMAT);
+        }
+        final int maximum = count / 2;
+        if (values[0] > values[maximum] || values[1] > values[maximum + 1]) {
+            return null;
+        }
+        return new UllGeoJsonBoundingBox(values[0], values[1], values[maximum], values[maximum + 1]);
+    }
+
+    /**
+     * Reads the elements of the features array of a FeatureCollection.
+     * 
+     * @param parser  the parser, whose current token is the start of the array
+     * @param options the options of the decoding of features
+     * @param source  the array read by the parser from its first byte, or null if it is not known
+     * @return the features
+     * @throws IOException if the parser cannot read the input
+     */
+    private static List<UllGeoJsonFeature> readFeatures(JsonParser parser, UllGeoJsonReadOptions options, byte[] source) throws IOException {
+        final List<UllGeoJsonFeature> features = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            features.add(UllGeoJsonReader.readFeature(parser, options, source));
+        }
+        return features;
+    }
+
+    /**
+     * Copies the object at the current token to UTF-8 bytes, up to its end. If the array read by the parser is known,
+     * the tokens of the object are skipped and its bytes are sliced from the array. Otherwise, the tokens are written
+     * to a new array, with numbers copied as text, so they are not converted.
+     * 
+     * @param parser the parser, whose current token is the start of the object
+     * @param source the array read by the parser from its first byte, or null if it is not known
+     * @return the UTF-8 JSON of the object
+     * @throws IOException if the parser cannot read the input
+     */
+    private static byte[] copyObject(JsonParser parser, byte[] source) throws IOException {
+        if (source != null) {
+            final long start = parser.currentTokenLocation().getByteOffset();
+            parser.skipChildren();
+            return Arrays.copyOfRange(source, (int) start, (int) parser.currentLocation().getByteOffset());
+        }
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(256);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+            int depth = 0;
+            JsonToken token = parser.currentToken();
+            do {
+                switch (token) {
+                    case START_OBJECT:
+                        generator.writeStartObject();
+                        depth++;
+                        break;
+                    case END_OBJECT:
+                        generator.writeEndObject();
+                        depth--;
+                        break;
+                    case START_ARRAY:
+                        generator.writeStartArray();
+                        depth++;
+                        break;
+                    case END_ARRAY:
+                        generator.writeEndArray();
+                        depth--;
+                        break;
+                    case FIELD_NAME:
+                        generator.writeFieldName(parser.currentName());
+                        break;
+                    case VALUE_STRING:
+                        generator.writeString(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        break;
+                    case VALUE_NUMBER_INT:
+                    case VALUE_NUMBER_FLOAT:
+                        generator.writeNumber(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        break;
+                    case VALUE_TRUE:
+                    case VALUE_FALSE:
+                        generator.writeBoolean(token == JsonToken.VALUE_TRUE);
+                        break;
+                    default:
+                        generator.writeNull();
+                        break;
+                }
+            } while (depth > 0 && (token = parser.nextToken()) != null);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Reads the members of the properties object of a feature that are kept by the options. The other members are
+     * skipped without building their values.
+     * 
+     * @param parser  the parser, whose current token is the start of the object
+     * @param options the options of the decoding of features
+     * @return the kept properties, in document order
+     * @throws IOException if the parser cannot read the input
+     */
+    private static Map<String, Object> readProperties(JsonParser parser, UllGeoJsonReadOptions options) throws IOException {
+        if (options.isAllProperties()) {
+            return UllGeoJsonReader.readProperties(parser);
+        }
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.currentName();
+            parser.nextToken();
+            if (options.isPropertyKept(key)) {
+                properties.put(key, UllGeoJsonReader.readValue(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Reads the members of a properties object.
+     * 
+     * @param parser the parser, whose current token is the start of the object
+     * @return the properties, in document order
+     * @throws IOException if the parser cannot read the input
+     */
+    private static Map<String, Object> readProperties(JsonParser parser) throws IOException {
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = parser.currentName();
+            parser.nextToken();
+            properties.put(key, UllGeoJsonReader.readValue(parser));
+        }
+        return properties;
+    }
+
+    /**
+     * Reads the JSON value at the current token. Objects are read as maps, arrays as lists and null as
+     * {@link JSONObject#NULL}, which is how the model serializes them back.
+     * 
+     * @param parser the parser
+     * @return the value
+     * @throws IOException if the parser cannot read the input
+     */
+    private static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                return UllGeoJsonReader.readProperties(parser);
+            case START_ARRAY:
+                final List<Object> values = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    values.add(UllGeoJsonReader.readValue(parser));
+                }
+                return values;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            default:
+                return JSONObject.NULL;
+        }
+    }
+
+    /**
+     * Reads the content of a coordinates array, whose first token has already been read. The result depends on the
+     * depth of the array: a {@code double[]} for a position, packed positions for an array of positions, a list for
+     * deeper arrays and {@link #EMPTY_COORDINATES} for an empty array.
+     * 
+     * @param parser the parser
+     * @param first  the first token after the start of the array
+     * @return the coordinates
+     * @throws IOException if the parser cannot read the input
+     */
+    private static Object readCoordinates(JsonParser parser, JsonToken first) throws IOException {
+        if (first == JsonToken.END_ARRAY) {
+            return EMPTY_COORDINATES;
+        }
+        if (first != JsonToken.START_ARRAY) {
+            final UllGeoJsonPositionBuffer position = new UllGeoJsonPositionBuffer(1);
+            position.read(parser, first);
+            return position.getPosition(0);
+        }
+        final JsonToken inner = parser.nextToken();
+        if (inner != JsonToken.START_ARRAY && inner != JsonToken.END_ARRAY) {
+            final UllGeoJsonPositionBuffer positions = new UllGeoJsonPositionBuffer(16);
+            positions.read(parser, inner);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new IllegalArgumentException(UllGeoJsonLineString.ERROR_COORDINATES_ELEMENTS_WRONG_FORMAT);
+                }
+                positions.read(parser, parser.nextToken());
+            }
+            return positions.toPackedPositions();
+        }
+        final List<Object> elements = new ArrayList<>();
+        elements.add(UllGeoJsonReader.readCoordinates(parser, inner));
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException(UllGeoJsonLineString.ERROR_COORDINATES_ELEMENTS_WRONG_FORMAT);
+            }
+            elements.add(UllGeoJsonReader.readCoordinates(parser, parser.nextToken()));
+        }
+        return elements;
+    }
+
+    /**
+     * Builds the GeoJSON object from the members read.
+     * 
+     * @param members the members of the object
+     * @return the GeoJSON object
+     */
+    private static UllGeoJsonGeometry build(UllGeoJsonObjectMembers members) {
+        if (!members.hasType) {
+            throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_TYPE_NOT_DEFINED);
+        }
+        if (members.type == null) {
+            throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_TYPE_EMPTY);
+        }
+        if (!UllGeoJsonType.isValid(members.type)) {
+            throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_TYPE_UNKNOWN);
+        }
+        switch (UllGeoJsonType.fromString(members.type)) {
+            case FEATURE:
+                return UllGeoJsonReader.buildFeature(members);
+            case FEATURE_COLLECTION:
+                return UllGeoJsonReader.buildFeatureCollection(members);
+            case POINT:
+                return UllGeoJsonReader.buildPoint(members);
+            case MULTI_POINT:
+                return UllGeoJsonReader.buildMultiPoint(members);
+            case LINE_STRING:
+                return UllGeoJsonReader.buildLineString(members);
+            case MULTI_LINE_STRING:
+                return UllGeoJsonReader.buildMultiLineString(members);
+            case POLYGON:
+                return UllGeoJsonReader.buildPolygon(members);
+            case MULTI_POLYGON:
+                return UllGeoJsonReader.buildMultiPolygon(members);
+            default:
+                throw new IllegalArgumentException(ERROR_TYPE_NOT_SUPPORTED);
+        }
+    }
+
+    /**
+     * Checks that the coordinates member is defined and is an array.
+     * 
+     * @param members          the members of the object
+     * @param errorNotDefined  the error if the coordinates are not defined
+     * @param errorWrongFormat the error if the coordinates are not an array
+     */
+    private static void validateCoordinates(UllGeoJsonObjectMembers members, String errorNotDefined, String errorWrongFormat) {
+        if (!members.hasCoordinates) {
+            throw new IllegalArgumentException(errorNotDefined);
+        }
+        if (members.coordinates == null) {
+            throw new IllegalArgumentException(errorWrongFormat);
+        }
+    }
+
+    /**
+     * Builds a Point from the members read.
+     * 
+     * @param members the members of the object
+     * @return the Point
+     */
+    private static UllGeoJsonPoint buildPoint(UllGeoJsonObjectMembers members) {
+        UllGeoJsonReader.validateCoordinates(members, UllGeoJsonPoint.ERROR_COORDINATES_NOT_DEFINED, UllGeoJsonPoint.ERROR_COORDINATES_WRONG_FORMAT);
+        if (members.coordinates == EMPTY_COORDINATES) {
+            throw new IllegalArgumentException(UllGeoJsonPosition.ERROR_POSITION_MIN_COORDINATES);
+        }
+        if (!(members.coordinates instanceof double[])) {
+            throw new IllegalArgumentException(UllGeoJsonPosition.ERROR_POSITION_COORDINATES_NOT_NUMERIC);
+        }
+        return new UllGeoJsonPoint(UllGeoJsonReader.toPosition((double[]) members.coordinates));
+    }
+
+    /**
+     * Builds a MultiPoint from the members read.
+     * 
+     * @param members the members of the object
+     * @return the MultiPoint
+     */
+    private static UllGeoJsonMultiPoint buildMultiPoint(UllGeoJsonObjectMembers members) {
+        UllGeoJsonReader.validateCoordinates(members, UllGeoJsonMultiPoint.ERROR_COORDINATES_NOT_DEFINED, UllGeoJsonMultiPoint.ERROR_COORDINATES_WRONG_FORMAT);
+        if (members.coordinates == EMPTY_COORDINATES) {
+            throw new IllegalArgumentException(UllGeoJsonMultiPoint.ERROR_COORDINATES_MINIMUM_POSITIONS);
+        }
+        if (members.coordinates instanceof double[]) {
+            throw new IllegalArgumentException(UllGeoJsonMultiPoint.ERROR_COORDINATES_WRONG_POSITIONS);
+        }
+        return new UllGeoJsonMultiPoint(UllGeoJsonReader.toPackedPositions(members.coordinates, UllGeoJsonMultiPoint.ERROR_COORDINATES_WRONG_POSITIONS));
+    }
+
+    /**
+     * Builds a LineString from the members read.
+     * 
+     * @param members the members of the object
+     * @return the LineString
+     */
+    private static UllGeoJsonLineString buildLineString(UllGeoJsonObjectMembers members) {
+        UllGeoJsonReader.validateCoordinates(members, UllGeoJsonLineString.ERROR_COORDINATES_NOT_DEFINED, UllGeoJsonLineString.ERROR_COORDINATES_WRONG_FORMAT);
+        return UllGeoJsonReader.toLineString(members.coordinates);
+    }
+
+    /**
+     * Builds a MultiLineString from the members read.
+     * 
+     * @param members the members of the object
+     * @return the MultiLineString
+     */
+    private static UllGeoJsonMultiLineString buildMultiLineString(UllGeoJsonObjectMembers members) {
+        UllGeoJsonReader.validateCoordinates(members, UllGeoJsonMultiLineString.ERROR_COORDINATES_NOT_DEFINED, UllGeoJsonMultiLineString.ERROR_COORDINATES_WRONG_FORMAT);
+        if (members.coordinates == EMPTY_COORDINATES) {
+            throw new IllegalArgumentException(UllGeoJsonMultiLineString.ERROR_COORDINATES_MINIMUM_POSITIONS);
+        }
+        final List<?> lines = UllGeoJsonReader.toList(members.coordinates, UllGeoJsonMultiLineString.ERROR_COORDINATES_WRONG_POSITIONS);
+        final List<UllGeoJsonLineString> lineStrings = new ArrayList<>(lines.size());
+        for (Object line : lines) {
+            lineStrings.add(UllGeoJsonReader.toLineString(line));
+        }
+        return new UllGeoJsonMultiLineString(lineStrings);
+    }
+
+    /**
+     * Builds a Polygon, including its interior rings, from the members read.
+     * 
+     * @param members the members of the object
+     * @return the Polygon
+     */
+    private static UllGeoJsonPolygon buildPolygon(UllGeoJsonObjectMembers members) {
+        UllGeoJsonReader.validateCoordinates(members, UllGeoJsonPolygon.ERROR_COORDINATES_NOT_DEFINED, UllGeoJsonPolygon.ERROR_COORDINATES_WRONG_FORMAT);
+        return UllGeoJsonReader.toPolygon(members.coordinates, UllGeoJsonPolygon.ERROR_COORDINATES_WRONG_FORMAT);
+    }
+
+    /**
+     * Builds a MultiPolygon from the members read.
+     * 
+     * @param members the members of the object
+     * @return the MultiPolygon
+     */
+    private static UllGeoJsonMultiPolygon buildMultiPolygon(UllGeoJsonObjectMembers members) {
+        UllGeoJsonReader.validateCoordinates(members, UllGeoJsonMultiPolygon.ERROR_COORDINATES_NOT_DEFINED, UllGeoJsonMultiPolygon.ERROR_COORDINATES_WRONG_FORMAT);
+        if (members.coordinates == EMPTY_COORDINATES) {
+            throw new IllegalArgumentException(UllGeoJsonMultiPolygon.ERROR_POLYGONS_EMPTY);
+        }
+        final List<?> elements = UllGeoJsonReader.toList(members.coordinates, UllGeoJsonMultiPolygon.ERROR_COORDINATES_WRONG_POLYGONS);
+        final List<UllGeoJsonPolygon> polygons = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            polygons.add(UllGeoJsonReader.toPolygon(element, UllGeoJsonMultiPolygon.ERROR_COORDINATES_WRONG_POLYGONS));
+        }
+        return new UllGeoJsonMultiPolygon(polygons);
+    }
+
+    /**
+     * Builds a Feature from the members read.
+     * 
+     * @param members the members of the object
+     * @return the Feature
+     */
+    private static UllGeoJsonFeature buildFeature(UllGeoJsonObjectMembers members) {
+        if (members.geometry == null && members.encodedGeometry == null) {
+            throw new IllegalArgumentException(UllGeoJsonFeature.ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (members.geometry instanceof UllGeoJsonFeature || members.geometry instanceof UllGeoJsonFeatureCollection) {
+            throw new IllegalArgumentException(UllGeoJsonUtils.ERROR_TYPE_NOT_VALID);
+        }
+        final UllGeoJsonFeature feature = members.geometry != null ? new UllGeoJsonFeature(members.geometry)
+                : UllGeoJsonFeature.ofEncodedGeometry(members.encodedGeometry);
+        if (members.properties != null) {
+            for (Map.Entry<String, Object> property : members.properties.entrySet()) {
+                feature.addProperty(property.getKey(), property.getValue());
+            }
+        }
+        if (members.id != null && !members.id.isEmpty()) {
+            feature.setId(members.id);
+        }
+        return feature;
+    }
+
+    /**
+     * Builds a FeatureCollection from the members read.
+     * 
+     * @param members the members of the object
+     * @return the FeatureCollection
+     */
+    private static UllGeoJsonFeatureCollection buildFeatureCollection(UllGeoJsonObjectMembers members) {
+        if (!members.hasFeatures || members.features == null) {
+            throw new IllegalArgumentException(UllGeoJsonFeatureCollection.ERROR_FEATURES_UNDEFINED);
+        }
+        return new UllGeoJsonFeatureCollection(members.features.toArray(new UllGeoJsonFeature[0]));
+    }
+
+    /**
+     * Converts the coordinates of a position to a position.
+     * 
+     * @param coordinates the coordinates
+     * @return the position
+     */
+    private static UllGeoJsonPosition toPosition(double[] coordinates) {
+        if (coordinates.length == 3) {
+            return new UllGeoJsonPosition(coordinates[0], coordinates[1], coordinates[2]);
+        }
+        return new UllGeoJsonPosition(coordinates[0], coordinates[1]);
+    }
+
+    /**
+     * Converts coordinates to packed positions.
+     * 
+     * @param coordinates      the coordinates
+     * @param errorWrongFormat the error if the coordinates are not an array of positions
+     * @return the packed positions
+     */
+    private static UllGeoJsonPackedPositions toPackedPositions(Object coordinates, String errorWrongFormat) {
+        if (coordinates == EMPTY_COORDINATES) {
+            return new UllGeoJsonPackedPositions(0);
+        }
+        if (coordinates instanceof double[]) {
+            throw new IllegalArgumentException(errorWrongFormat);
+        }
+        if (!(coordinates instanceof UllGeoJsonPackedPositions)) {
+            throw new IllegalArgumentException(UllGeoJsonPosition.ERROR_POSITION_COORDINATES_NOT_NUMERIC);
+        }
+        return (UllGeoJsonPackedPositions) coordinates;
+    }
+
+    /**
+     * Converts coordinates to a list of elements one level deeper.
+     * 
+     * @param coordinates      the coordinates
+     * @param errorWrongFormat the error if the coordinates are not an array of arrays of positions
+     * @return the list of elements
+     */
+    private static List<?> toList(Object coordinates, String errorWrongFormat) {
+        if (!(coordinates instanceof List)) {
+            throw new IllegalArgumentException(errorWrongFormat);
+        }
+        return (List<?>) coordinates;
+    }
+
+    /**
+     * Converts coordinates to a LineString.
+     * 
+     * @param coordinates the coordinates
+     * @return the LineString
+     */
+    private static UllGeoJsonLineString toLineString(Object coordinates) {
+        if (coordinates == EMPTY_COORDINATES) {
+            throw new IllegalArgumentException(UllGeoJsonLineString.ERROR_MINIMUM_POSITIONS);
+        }
+        return new UllGeoJsonLineString(UllGeoJsonReader.toPackedPositions(coordinates, UllGeoJsonLineString.ERROR_COORDINATES_ELEMENTS_WRONG_FORMAT));
+    }
+
+    /**
+     * Converts coordinates to a LinearRing.
+     * 
+     * @param coordinates the coordinates
+     * @return the LinearRing
+     */
+    private static UllGeoJsonLinearRing toLinearRing(Object coordinates) {
+        final UllGeoJsonPackedPositions positions = UllGeoJsonReader.toPackedPositions(coordinates, UllGeoJsonLineString.ERROR_COORDINATES_ELEMENTS_WRONG_FORMAT);
+        if (positions.size() < UllGeoJsonLinearRing.MINIMUM_NUMBER_OF_POSITIONS) {
+            throw new IllegalArgumentException(UllGeoJsonLinearRing.ERROR_MINIMUM_POSITIONS);
+        }
+        return new UllGeoJsonLinearRing(positions);
+    }
+
+    /**
+     * Converts coordinates to a Polygon, whose first ring is the exterior one.
+     * 
+     * @param coordinates      the coordinates
+     * @param errorWrongFormat the error if the coordinates are not an array of rings
+     * @return the Polygon
+     */
+    private static UllGeoJsonPolygon toPolygon(Object coordinates, String errorWrongFormat) {
+        if (coordinates == EMPTY_COORDINATES) {
+            throw new IllegalArgumentException(String.format(UllGeoJsonPolygon.ERROR_INVALID_COORDINATE, UllGeoJsonFields.COORDINATES, "[]"));
+        }
+        final List<?> rings = UllGeoJsonReader.toList(coordinates, errorWrongFormat);
+        final UllGeoJsonPolygon polygon = new UllGeoJsonPolygon(UllGeoJsonReader.toLinearRing(rings.get(0)));
+        for (int index = 1; index < rings.size(); index++) {
+            polygon.addInteriorRing(UllGeoJsonReader.toLinearRing(rings.get(index)));
+        }
+        return polygon;
+    }
+
+    /**
+     * Members of a GeoJSON object collected while it is read, since they can appear in any order.
+     */
+    private static class UllGeoJsonObjectMembers {
+
+        private boolean hasType;
+        private String type;
+        private boolean hasCoordinates;
+        private Object coordinates;
+        private UllGeoJsonGeometry geometry;
+        private byte[] encodedGeometry;
+        private Map<String, Object> properties;
+        private String id;
+        private boolean hasFeatures;
+        private List<UllGeoJsonFeature> features;
+        private UllGeoJsonBoundingBox boundingBox;
+    }
+
+    /**
+     * Growable buffer of positions read from the token stream, with three slots per position until it is known whether
+     * any of them has altitude.
+     */
+    private static class UllGeoJsonPositionBuffer {
+
+        private double[] values;
+        private int size;
+        private boolean hasAltitude;
+
+        private UllGeoJsonPositionBuffer(int capacity) {
+            this.values = new double[capacity * 3];
+        }
+
+        /**
+         * Reads the numbers of a position, whose first token has already been read, up to the end of the position.
+         * 
+         * @param parser the parser
+         * @param first  the first token of the position
+         * @throws IOException if the parser cannot read the input
+         */
+        private void read(JsonParser parser, JsonToken first) throws IOException {
+            if (this.values.length < (this.size + 1) * 3) {
+                this.values = Arrays.copyOf(this.values, this.values.length * 2);
+            }
+            final int offset = this.size * 3;
+            int count = 0;
+            JsonToken token = first;
+            while (token != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+                    throw new IllegalArgumentException(UllGeoJsonPosition.ERROR_POSITION_COORDINATES_NOT_NUMERIC);
+                }
+                if (count == 3) {
+                    throw new IllegalArgumentException(UllGeoJsonPosition.ERROR_POSITION_MAX_COORDINATES);
+                }
+                this.values[offset + count] = parser.getDoubleValue();
+                count++;
+                token = parser.nextToken();
+            }
+            if (count < 2) {
+                throw new IllegalArgumentException(UllGeoJsonPosition.ERROR_POSITION_MIN_COORDINATES);
+            }
+            if (count == 3) {
+                this.hasAltitude = true;
+            } else {
+                this.values[offset + 2] = UllGeoJsonPosition.ALTITUDE_NOT_DEFINED;
+            }
+            this.size++;
+        }
+
+        /**
+         * Returns the coordinates of a position of the buffer.
+         * 
+         * @param index the index of the position
+         * @return the two or three coordinates of the position
+         */
+        private double[] getPosition(int index) {
+            final int offset = index * 3;
+            if (this.hasAltitude) {
+                return Arrays.copyOfRange(this.values, offset, offset + 3);
+            }
+            return Arrays.copyOfRange(this.values, offset, offset + 2);
+        }
+
+        /**
+         * Returns the positions of the buffer, with two coordinates per position if none of them has altitude.
+         * 
+         * @return the packed positions
+         */
+        private UllGeoJsonPackedPositions toPackedPositions() {
+            if (this.hasAltitude) {
+                return UllGeoJsonPackedPositions.wrap(Arrays.copyOf(this.values, this.size * 3), UllGeoJsonPackedPositions.DIMENSIONS_3D);
+            }
+            final double[] coordinates = new double[this.size * 2];
+            for (int index = 0; index < this.size; index++) {
+                coordinates[index * 2] = this.values[index * 3];
+                coordinates[index * 2 + 1] = this.values[index * 3 + 1];
+            }
+            return UllGeoJsonPackedPositions.wrap(coordinates, UllGeoJsonPackedPositions.DIMENSIONS_2D);
+        }
+    }
+}
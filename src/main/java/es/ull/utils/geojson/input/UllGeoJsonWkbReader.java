@@ -0,0 +1,277 @@
+package es.ull.utils.geojson.input;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+import es.ull.utils.geojson.output.UllGeoJsonWkbWriter;
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Reader of geometries in the Well-Known Binary format. It reads the ISO type codes of the 2D, Z, M and ZM variants and
+ * the extended codes of PostGIS, whose SRID is skipped. Measures are dropped, and a NaN altitude is read as a missing
+ * altitude, so that the WKB written by {@link UllGeoJsonWkbWriter} is read back into an equal geometry.
+ * 
+ * The reader works on a {@link ByteBuffer} starting at its position, so geometries can be read straight from direct or
+ * mapped buffers. The byte order is the one declared by every geometry, and the order of the buffer is left unchanged.
+ */
+public class UllGeoJsonWkbReader {
+
+    public static final String ERROR_BUFFER_UNDEFINED = "Buffer is undefined";
+    public static final String ERROR_BYTE_ORDER = "The byte order of a WKB geometry must be 0 or 1";
+    public static final String ERROR_TYPE_NOT_SUPPORTED = "WKB type is not supported";
+    public static final String ERROR_COUNT = "The number of elements of a WKB geometry is not valid";
+    public static final String ERROR_TRUNCATED = "The WKB geometry is truncated";
+    /**
+     * Extended flag of a geometry with altitude.
+     */
+    private static final int EWKB_Z = 0x80000000;
+    /**
+     * Extended flag of a geometry with measure.
+     */
+    private static final int EWKB_M = 0x40000000;
+    /**
+     * Extended flag of a geometry with SRID.
+     */
+    private static final int EWKB_SRID = 0x20000000;
+    /**
+     * Minimum number of bytes of a geometry with elements: byte order, type code and count.
+     */
+    private static final int MINIMUM_COLLECTION_BYTES = Byte.BYTES + 2 * Integer.BYTES;
+    /**
+     * Minimum number of bytes of a point: byte order, type code and two coordinates.
+     */
+    private static final int MINIMUM_POINT_BYTES = Byte.BYTES + Integer.BYTES + 2 * Double.BYTES;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoJsonWkbReader() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Reads a geometry from its WKB.
+     * 
+     * @param bytes the WKB
+     * @return the geometry
+     * @throws IllegalArgumentException if the WKB is not valid
+     */
+    public static UllGeoJsonGeometry read(byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException(ERROR_BUFFER_UNDEFINED);
+        }
+        return UllGeoJsonWkbReader.read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads a geometry from a buffer, starting at its position, which is advanced past the geometry.
+     * 
+     * @param buffer the buffer
+     * @return the geometry
+     * @throws IllegalArgumentException if the buffer is null or its content is not a valid WKB
+     */
+    public static UllGeoJsonGeometry read(ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException(ERROR_BUFFER_UNDEFINED);
+        }
+        final ByteOrder order = buffer.order();
+        try {
+            return UllGeoJsonWkbReader.readGeometry(buffer, 0);
+        } catch (BufferUnderflowException exception) {
+            throw new IllegalArgumentException(ERROR_TRUNCATED, exception);
+        } finally {
+            buffer.order(order);
+        }
+    }
+
+    /**
+     * Reads a geometry, checking its type when it is an element of a multi-geometry.
+     * 
+     * @param buffer       the buffer
+     * @param expectedType the type code of the expected 2D geometry, or 0 for any type
+     * @return the geometry
+     */
+    private static UllGeoJsonGeometry readGeometry(ByteBuffer buffer, int expectedType) {
+        final byte byteOrder = buffer.get();
+        if (byteOrder == UllGeoJsonWkbWriter.WKB_LITTLE_ENDIAN) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (byteOrder == UllGeoJsonWkbWriter.WKB_BIG_ENDIAN) {
+            buffer.order(ByteOrder.BIG_ENDIAN);
+        } else {
+            throw new IllegalArgumentException(ERROR_BYTE_ORDER);
+        }
+        final int code = buffer.getInt();
+        boolean hasAltitude = (code & EWKB_Z) != 0;
+        boolean hasMeasure = (code & EWKB_M) != 0;
+        if ((code & EWKB_SRID) != 0) {
+            buffer.getInt();
+        }
+        final int isoCode = code & 0x0FFFFFFF;
+        final int variant = isoCode / UllGeoJsonWkbWriter.WKB_Z;
+        final int type = isoCode % UllGeoJsonWkbWriter.WKB_Z;
+        if (variant > 3 || (expectedType != 0 && type != expectedType)) {
+            throw new IllegalArgumentException(ERROR_TYPE_NOT_SUPPORTED);
+        }
+        hasAltitude |= variant == 1 || variant == 3;
+        hasMeasure |= variant == 2 || variant == 3;
+        final int stride = 2 + (hasAltitude ? 1 : 0) + (hasMeasure ? 1 : 0);
+        switch (type) {
+            case UllGeoJsonWkbWriter.WKB_POINT:
+                return UllGeoJsonWkbReader.readPoint(buffer, hasAltitude, stride);
+            case UllGeoJsonWkbWriter.WKB_LINE_STRING:
+                return new UllGeoJsonLineString(UllGeoJsonWkbReader.readPositions(buffer, hasAltitude, stride));
+            case UllGeoJsonWkbWriter.WKB_POLYGON:
+                return UllGeoJsonWkbReader.readPolygon(buffer, hasAltitude, stride);
+            case UllGeoJsonWkbWriter.WKB_MULTI_POINT:
+                return UllGeoJsonWkbReader.readMultiPoint(buffer);
+            case UllGeoJsonWkbWriter.WKB_MULTI_LINE_STRING: {
+                final int count = UllGeoJsonWkbReader.readCount(buffer, MINIMUM_COLLECTION_BYTES);
+                final List<UllGeoJsonLineString> lineStrings = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    lineStrings.add((UllGeoJsonLineString) UllGeoJsonWkbReader.readGeometry(buffer,
+                            UllGeoJsonWkbWriter.WKB_LINE_STRING));
+                }
+                return new UllGeoJsonMultiLineString(lineStrings);
+            }
+            case UllGeoJsonWkbWriter.WKB_MULTI_POLYGON: {
+                final int count = UllGeoJsonWkbReader.readCount(buffer, MINIMUM_COLLECTION_BYTES);
+                final List<UllGeoJsonPolygon> polygons = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    polygons.add((UllGeoJsonPolygon) UllGeoJsonWkbReader.readGeometry(buffer,
+                            UllGeoJsonWkbWriter.WKB_POLYGON));
+                }
+                return new UllGeoJsonMultiPolygon(polygons);
+            }
+            default:
+                throw new IllegalArgumentException(ERROR_TYPE_NOT_SUPPORTED);
+        }
+    }
+
+    /**
+     * Reads a count and checks that the buffer has room for that many elements.
+     * 
+     * @param buffer       the buffer
+     * @param elementBytes the minimum number of bytes of an element
+     * @return the count
+     */
+    private static int readCount(ByteBuffer buffer, int elementBytes) {
+        final int count = buffer.getInt();
+        if (count < 0 || (long) count * elementBytes > buffer.remaining()) {
+            throw new IllegalArgumentException(ERROR_COUNT);
+        }
+        return count;
+    }
+
+    /**
+     * Reads the coordinates of a point.
+     * 
+     * @param buffer      the buffer
+     * @param hasAltitude whether the point has altitude
+     * @param stride      the number of coordinates of the point, measure included
+     * @return the point
+     */
+    private static UllGeoJsonPoint readPoint(ByteBuffer buffer, boolean hasAltitude, int stride) {
+        final double longitude = buffer.getDouble();
+        final double latitude = buffer.getDouble();
+        final double altitude = hasAltitude ? buffer.getDouble() : Double.NaN;
+        if (stride > (hasAltitude ? 3 : 2)) {
+            buffer.getDouble();
+        }
+        if (Double.isNaN(altitude)) {
+            return new UllGeoJsonPoint(longitude, latitude);
+        }
+        return new UllGeoJsonPoint(longitude, latitude, altitude);
+    }
+
+    /**
+     * Reads the rings of a polygon.
+     * 
+     * @param buffer      the buffer
+     * @param hasAltitude whether the positions have altitude
+     * @param stride      the number of coordinates per position, measure included
+     * @return the polygon
+     */
+    private static UllGeoJsonPolygon readPolygon(ByteBuffer buffer, boolean hasAltitude, int stride) {
+        final int count = UllGeoJsonWkbReader.readCount(buffer, Integer.BYTES);
+        if (count == 0) {
+            throw new IllegalArgumentException(ERROR_COUNT);
+        }
+        final UllGeoJsonPolygon polygon = new UllGeoJsonPolygon(
+                new UllGeoJsonLinearRing(UllGeoJsonWkbReader.readPositions(buffer, hasAltitude, stride)));
+        for (int i = 1; i < count; i++) {
+            polygon.addInteriorRing(
+                    new UllGeoJsonLinearRing(UllGeoJsonWkbReader.readPositions(buffer, hasAltitude, stride)));
+        }
+        return polygon;
+    }
+
+    /**
+     * Reads the points of a multi-point into a single sequence of positions.
+     * 
+     * @param buffer the buffer
+     * @return the multi-point
+     */
+    private static UllGeoJsonMultiPoint readMultiPoint(ByteBuffer buffer) {
+        final int count = UllGeoJsonWkbReader.readCount(buffer, MINIMUM_POINT_BYTES);
+        final List<UllGeoJsonPosition> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final UllGeoJsonPoint point = (UllGeoJsonPoint) UllGeoJsonWkbReader.readGeometry(buffer,
+                    UllGeoJsonWkbWriter.WKB_POINT);
+            positions.add(point.getPosition());
+        }
+        return new UllGeoJsonMultiPoint(new UllGeoJsonPackedPositions(positions));
+    }
+
+    /**
+     * Reads a sequence of positions preceded by its count. The coordinates are copied in bulk into a single array that
+     * backs the returned sequence.
+     * 
+     * @param buffer      the buffer
+     * @param hasAltitude whether the positions have altitude
+     * @param stride      the number of coordinates per position, measure included
+     * @return the positions, in two dimensions if none of them has altitude
+     */
+    private static UllGeoJsonPackedPositions readPositions(ByteBuffer buffer, boolean hasAltitude, int stride) {
+        final int count = UllGeoJsonWkbReader.readCount(buffer, stride * Double.BYTES);
+        final double[] coordinates = new double[count * stride];
+        final int bytes = coordinates.length * Double.BYTES;
+        buffer.slice(buffer.position(), bytes).order(buffer.order()).asDoubleBuffer().get(coordinates);
+        buffer.position(buffer.position() + bytes);
+        final int dimensions = hasAltitude ? UllGeoJsonPackedPositions.DIMENSIONS_3D
+                : UllGeoJsonPackedPositions.DIMENSIONS_2D;
+        boolean anyAltitude = false;
+        if (hasAltitude) {
+            for (int i = 2; i < coordinates.length; i += stride) {
+                if (Double.isNaN(coordinates[i])) {
+                    coordinates[i] = UllGeoJsonPosition.ALTITUDE_NOT_DEFINED;
+                } else {
+                    anyAltitude = true;
+                }
+            }
+        }
+        final int packedDimensions = anyAltitude ? dimensions : UllGeoJsonPackedPositions.DIMENSIONS_2D;
+        if (packedDimensions == stride) {
+            return UllGeoJsonPackedPositions.wrap(coordinates, stride);
+        }
+        final double[] packed = new double[count * packedDimensions];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(coordinates, i * stride, packed, i * packedDimensions, packedDimensions);
+        }
+        return UllGeoJsonPackedPositions.wrap(packed, packedDimensions);
+    }
+}
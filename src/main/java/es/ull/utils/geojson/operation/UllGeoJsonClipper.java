@@ -0,0 +1,689 @@
+package es.ull.utils.geojson.operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import es.ull.utils.geojson.UllGeoJsonBoundingBox;
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Clipping of GeoJSON objects to axis-aligned rectangles, for tile generation. Rings are clipped with the
+ * Sutherland-Hodgman algorithm against one side of the rectangle at a time, which takes linear time and keeps every
+ * ring closed; interior rings are clipped like the exterior one and dropped when they fall outside. Lines are split
+ * into several parts when they leave and reenter the rectangle, and points are kept when they are inside it. Altitudes
+ * are interpolated at the new vertices.
+ * 
+ * A whole grid of tiles is clipped in one pass by recursive bisection: the object is split in two halves of the grid,
+ * each half is split again, and so on until single tiles are left. Every vertex is processed once per level, so the
+ * cost grows with the logarithm of the number of tiles instead of with the number of tiles, and halves that do not
+ * touch the object are never visited.
+ */
+public class UllGeoJsonClipper {
+
+    public static final String ERROR_GEOMETRY_UNDEFINED = "The geometry is not defined";
+    public static final String ERROR_BOX_UNDEFINED = "The bounding box is not defined";
+    public static final String ERROR_GRID_SIZE = "The number of columns and rows of the grid must be positive";
+    private static final int LONGITUDE = 0;
+    private static final int LATITUDE = 1;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoJsonClipper() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Clips a geometry to a rectangle. Features keep their ID and properties, and the features of a collection that
+     * fall outside the rectangle are dropped.
+     * 
+     * @param geometry the geometry
+     * @param box      the rectangle
+     * @return the part of the geometry inside the rectangle, or null if there is none
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static UllGeoJsonGeometry clip(UllGeoJsonGeometry geometry, UllGeoJsonBoundingBox box) {
+        final Map<Long, UllGeoJsonGeometry> tiles = UllGeoJsonClipper.clip(geometry, box, 1, 1);
+        return tiles.get(0L);
+    }
+
+    /**
+     * Clips a geometry to every tile of a grid. The grid divides an extent in columns of equal width, numbered from the
+     * minimum longitude, and rows of equal height, numbered from the maximum latitude as in map tiles.
+     * 
+     * @param geometry the geometry
+     * @param extent   the extent of the grid
+     * @param columns  the number of columns
+     * @param rows     the number of rows
+     * @return the part of the geometry inside every tile that it touches, keyed by {@link #tileKey(int, int, int)}
+     * @throws IllegalArgumentException if an argument is null or the grid size is not positive
+     */
+    public static Map<Long, UllGeoJsonGeometry> clip(UllGeoJsonGeometry geometry, UllGeoJsonBoundingBox extent,
+            int columns, int rows) {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (extent == null || extent.isEmpty()) {
+            throw new IllegalArgumentException(ERROR_BOX_UNDEFINED);
+        }
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException(ERROR_GRID_SIZE);
+        }
+        final UllGrid grid = new UllGrid(extent, columns, rows);
+        final Map<Long, UllGeoJsonGeometry> tiles = new HashMap<>();
+        if (geometry instanceof UllGeoJsonFeatureCollection) {
+            final Map<Long, List<UllGeoJsonFeature>> features = new HashMap<>();
+            for (UllGeoJsonFeature feature : ((UllGeoJsonFeatureCollection) geometry).getFeatures()) {
+                final Map<Long, UllGeoJsonGeometry> featureTiles = new HashMap<>();
+                UllGeoJsonClipper.clip(feature, grid, featureTiles);
+                featureTiles.forEach((key, clipped) -> features.computeIfAbsent(key, k -> new ArrayList<>())
+                        .add((UllGeoJsonFeature) clipped));
+            }
+            features.forEach((key, list) -> tiles.put(key,
+                    new UllGeoJsonFeatureCollection(list.toArray(new UllGeoJsonFeature[0]))));
+        } else {
+            UllGeoJsonClipper.clip(geometry, grid, tiles);
+        }
+        return tiles;
+    }
+
+    /**
+     * Returns the key of a tile of a grid.
+     * 
+     * @param column  the column of the tile
+     * @param row     the row of the tile
+     * @param columns the number of columns of the grid
+     * @return the key of the tile
+     */
+    public static long tileKey(int column, int row, int columns) {
+        return (long) row * columns + column;
+    }
+
+    /**
+     * Returns the bounding box of a tile of a grid.
+     * 
+     * @param extent  the extent of the grid
+     * @param columns the number of columns
+     * @param rows    the number of rows
+     * @param column  the column of the tile
+     * @param row     the row of the tile
+     * @return the bounding box of the tile
+     */
+    public static UllGeoJsonBoundingBox tileBox(UllGeoJsonBoundingBox extent, int columns, int rows, int column,
+            int row) {
+        final UllGrid grid = new UllGrid(extent, columns, rows);
+        return new UllGeoJsonBoundingBox(grid.columnLongitude(column), grid.rowLatitude(row + 1),
+                grid.columnLongitude(column + 1), grid.rowLatitude(row));
+    }
+
+    /**
+     * Clips a geometry that is not a collection to a grid.
+     * 
+     * @param geometry the geometry
+     * @param grid     the grid
+     * @param tiles    the map that receives the clipped geometries
+     */
+    private static void clip(UllGeoJsonGeometry geometry, UllGrid grid, Map<Long, UllGeoJsonGeometry> tiles) {
+        if (geometry instanceof UllGeoJsonFeature) {
+            final UllGeoJsonFeature feature = (UllGeoJsonFeature) geometry;
+            final Map<Long, UllGeoJsonGeometry> geometryTiles = new HashMap<>();
+            UllGeoJsonClipper.clip(feature.getGeometry(), grid, geometryTiles);
+            geometryTiles.forEach((key, clipped) -> tiles.put(key, feature.withGeometry(clipped)));
+            return;
+        }
+        final UllShape shape = UllShape.of(geometry);
+        if (shape == null) {
+            return;
+        }
+        final UllShape inside = shape.clip(LONGITUDE, grid.columnLongitude(0), false)
+                .clip(LONGITUDE, grid.columnLongitude(grid.columns), true)
+                .clip(LATITUDE, grid.rowLatitude(grid.rows), false)
+                .clip(LATITUDE, grid.rowLatitude(0), true);
+        UllGeoJsonClipper.split(inside, grid, 0, grid.columns, 0, grid.rows, tiles);
+    }
+
+    /**
+     * Splits a shape already clipped to a range of tiles in two halves of the range, until single tiles are left.
+     * 
+     * @param shape       the shape
+     * @param grid        the grid
+     * @param columnStart the first column of the range
+     * @param columnEnd   the column after the last one of the range
+     * @param rowStart    the first row of the range
+     * @param rowEnd      the row after the last one of the range
+     * @param tiles       the map that receives the clipped geometries
+     */
+    private static void split(UllShape shape, UllGrid grid, int columnStart, int columnEnd, int rowStart, int rowEnd,
+            Map<Long, UllGeoJsonGeometry> tiles) {
+        if (shape.isEmpty()) {
+            return;
+        }
+        if (columnEnd - columnStart == 1 && rowEnd - rowStart == 1) {
+            final UllGeoJsonGeometry geometry = shape.toGeometry();
+            if (geometry != null) {
+                tiles.put(UllGeoJsonClipper.tileKey(columnStart, rowStart, grid.columns), geometry);
+            }
+            return;
+        }
+        final double[] bounds = shape.bounds();
+        if (columnEnd - columnStart >= rowEnd - rowStart) {
+            final int middle = (columnStart + columnEnd) >>> 1;
+            final double longitude = grid.columnLongitude(middle);
+            if (bounds[0] >= longitude) {
+                UllGeoJsonClipper.split(shape, grid, middle, columnEnd, rowStart, rowEnd, tiles);
+            } else if (bounds[2] <= longitude) {
+                UllGeoJsonClipper.split(shape, grid, columnStart, middle, rowStart, rowEnd, tiles);
+            } else {
+                UllGeoJsonClipper.split(shape.clip(LONGITUDE, longitude, true), grid, columnStart, middle, rowStart,
+                        rowEnd, tiles);
+                UllGeoJsonClipper.split(shape.clip(LONGITUDE, longitude, false), grid, middle, columnEnd, rowStart,
+                        rowEnd, tiles);
+            }
+        } else {
+            final int middle = (rowStart + rowEnd) >>> 1;
+            final double latitude = grid.rowLatitude(middle);
+            if (bounds[3] <= latitude) {
+                UllGeoJsonClipper.split(shape, grid, columnStart, columnEnd, middle, rowEnd, tiles);
+            } else if (bounds[1] >= latitude) {
+                UllGeoJsonClipper.split(shape, grid, columnStart, columnEnd, rowStart, middle, tiles);
+            } else {
+                UllGeoJsonClipper.split(shape.clip(LATITUDE, latitude, false), grid, columnStart, columnEnd, rowStart,
+                        middle, tiles);
+                UllGeoJsonClipper.split(shape.clip(LATITUDE, latitude, true), grid, columnStart, columnEnd, middle,
+                        rowEnd, tiles);
+            }
+        }
+    }
+
+    /**
+     * Grid of tiles over an extent.
+     */
+    private static final class UllGrid {
+
+        private final UllGeoJsonBoundingBox extent;
+        private final int columns;
+        private final int rows;
+
+        /**
+         * Constructor for a grid.
+         * 
+         * @param extent  the extent
+         * @param columns the number of columns
+         * @param rows    the number of rows
+         */
+        UllGrid(UllGeoJsonBoundingBox extent, int columns, int rows) {
+            this.extent = extent;
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        /**
+         * Returns the longitude of the left side of a column.
+         * 
+         * @param column the column, or the number of columns for the right side of the last one
+         * @return the longitude
+         */
+        double columnLongitude(int column) {
+            if (column == this.columns) {
+                return this.extent.getMaxLongitude();
+            }
+            final double width = this.extent.getMaxLongitude() - this.extent.getMinLongitude();
+            return this.extent.getMinLongitude() + width * column / this.columns;
+        }
+
+        /**
+         * Returns the latitude of the top side of a row.
+         * 
+         * @param row the row, or the number of rows for the bottom side of the last one
+         * @return the latitude
+         */
+        double rowLatitude(int row) {
+            if (row == this.rows) {
+                return this.extent.getMinLatitude();
+            }
+            final double height = this.extent.getMaxLatitude() - this.extent.getMinLatitude();
+            return this.extent.getMaxLatitude() - height * row / this.rows;
+        }
+    }
+
+    /**
+     * Growable sequence of interleaved coordinates.
+     */
+    private static final class UllPart {
+
+        private final int dimensions;
+        private double[] coordinates;
+        private int size;
+
+        /**
+         * Constructor for an empty part.
+         * 
+         * @param dimensions the number of coordinates per position
+         * @param capacity   the initial number of positions
+         */
+        UllPart(int dimensions, int capacity) {
+            this.dimensions = dimensions;
+            this.coordinates = new double[Math.max(capacity, 4) * dimensions];
+        }
+
+        /**
+         * Constructor for a part with the positions of a packed sequence.
+         * 
+         * @param positions the positions
+         */
+        UllPart(UllGeoJsonPackedPositions positions) {
+            this.dimensions = positions.getDimensions();
+            this.coordinates = positions.toArray();
+            this.size = positions.size();
+        }
+
+        /**
+         * Returns a coordinate of a position.
+         * 
+         * @param index the index of the position
+         * @param axis  the axis of the coordinate
+         * @return the coordinate
+         */
+        double get(int index, int axis) {
+            return this.coordinates[index * this.dimensions + axis];
+        }
+
+        /**
+         * Appends a copy of a position of another part.
+         * 
+         * @param source the other part
+         * @param index  the index of the position
+         */
+        void add(UllPart source, int index) {
+            this.ensureCapacity();
+            System.arraycopy(source.coordinates, index * this.dimensions, this.coordinates, this.size * this.dimensions,
+                    this.dimensions);
+            this.size++;
+        }
+
+        /**
+         * Appends the point where the segment between two positions of another part crosses a line.
+         * 
+         * @param source the other part
+         * @param from   the index of the first position
+         * @param to     the index of the second position
+         * @param axis   the axis of the coordinate that is constant on the line
+         * @param value  the coordinate of the line
+         */
+        void addIntersection(UllPart source, int from, int to, int axis, double value) {
+            this.ensureCapacity();
+            final double start = source.get(from, axis);
+            final double t = (value - start) / (source.get(to, axis) - start);
+            final int offset = this.size * this.dimensions;
+            for (int i = 0; i < this.dimensions; i++) {
+                final double a = source.get(from, i);
+                final double b = source.get(to, i);
+                if (i == 2 && (a == UllGeoJsonPosition.ALTITUDE_NOT_DEFINED || b == UllGeoJsonPosition.ALTITUDE_NOT_DEFINED)) {
+                    this.coordinates[offset + i] = UllGeoJsonPosition.ALTITUDE_NOT_DEFINED;
+                } else {
+                    this.coordinates[offset + i] = a + t * (b - a);
+                }
+            }
+            this.coordinates[offset + axis] = value;
+            this.size++;
+        }
+
+        /**
+         * Appends the first position again if the part does not end with it.
+         */
+        void close() {
+            if (this.size > 0 && !Arrays.equals(this.coordinates, 0, this.dimensions, this.coordinates,
+                    (this.size - 1) * this.dimensions, this.size * this.dimensions)) {
+                this.add(this, 0);
+            }
+        }
+
+        /**
+         * Grows the coordinates to hold one more position.
+         */
+        private void ensureCapacity() {
+            if ((this.size + 1) * this.dimensions > this.coordinates.length) {
+                this.coordinates = Arrays.copyOf(this.coordinates, 2 * this.coordinates.length);
+            }
+        }
+
+        /**
+         * Returns the positions as a packed sequence.
+         * 
+         * @return the packed positions
+         */
+        UllGeoJsonPackedPositions toPositions() {
+            return UllGeoJsonPackedPositions.wrap(Arrays.copyOf(this.coordinates, this.size * this.dimensions),
+                    this.dimensions);
+        }
+    }
+
+    /**
+     * Shape being clipped: the points, the lines or the polygons of a geometry.
+     */
+    private static final class UllShape {
+
+        private final UllPart points;
+        private final List<UllPart> lines;
+        private final List<List<UllPart>> polygons;
+
+        /**
+         * Constructor for a shape.
+         * 
+         * @param points   the points, or null
+         * @param lines    the lines, or null
+         * @param polygons the polygons, as lists of rings with the exterior one first, or null
+         */
+        private UllShape(UllPart points, List<UllPart> lines, List<List<UllPart>> polygons) {
+            this.points = points;
+            this.lines = lines;
+            this.polygons = polygons;
+        }
+
+        /**
+         * Returns the shape of a geometry.
+         * 
+         * @param geometry the geometry
+         * @return the shape, or null if the geometry cannot be clipped
+         */
+        static UllShape of(UllGeoJsonGeometry geometry) {
+            if (geometry instanceof UllGeoJsonPoint) {
+                final UllGeoJsonPosition position = ((UllGeoJsonPoint) geometry).getPosition();
+                final UllGeoJsonPackedPositions positions = new UllGeoJsonPackedPositions(List.of(position));
+                return new UllShape(new UllPart(positions), null, null);
+            }
+            if (geometry instanceof UllGeoJsonMultiPoint) {
+                return new UllShape(new UllPart(((UllGeoJsonMultiPoint) geometry).getPackedPositions()), null, null);
+            }
+            if (geometry instanceof UllGeoJsonPolygon) {
+                return new UllShape(null, null, List.of(UllShape.rings((UllGeoJsonPolygon) geometry)));
+            }
+            if (geometry instanceof UllGeoJsonMultiPolygon) {
+                final List<List<UllPart>> polygons = new ArrayList<>();
+                for (UllGeoJsonPolygon polygon : ((UllGeoJsonMultiPolygon) geometry).getPolygons()) {
+                    polygons.add(UllShape.rings(polygon));
+                }
+                return new UllShape(null, null, polygons);
+            }
+            if (geometry instanceof UllGeoJsonLineString) {
+                return new UllShape(null, List.of(new UllPart(((UllGeoJsonLineString) geometry).getPackedPositions())),
+                        null);
+            }
+            if (geometry instanceof UllGeoJsonMultiLineString) {
+                final List<UllPart> lines = new ArrayList<>();
+                for (UllGeoJsonLineString lineString : ((UllGeoJsonMultiLineString) geometry).getLineStrings()) {
+                    lines.add(new UllPart(lineString.getPackedPositions()));
+                }
+                return new UllShape(null, lines, null);
+            }
+            return null;
+        }
+
+        /**
+         * Returns the rings of a polygon.
+         * 
+         * @param polygon the polygon
+         * @return the rings, the exterior one first
+         */
+        private static List<UllPart> rings(UllGeoJsonPolygon polygon) {
+            final List<UllPart> rings = new ArrayList<>();
+            rings.add(new UllPart(polygon.getExteriorRing().getPackedPositions()));
+            for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+                rings.add(new UllPart(ring.getPackedPositions()));
+            }
+            return rings;
+        }
+
+        /**
+         * Checks if the shape has nothing left.
+         * 
+         * @return true if the shape is empty, false otherwise
+         */
+        boolean isEmpty() {
+            if (this.points != null) {
+                return this.points.size == 0;
+            }
+            return this.lines != null ? this.lines.isEmpty() : this.polygons.isEmpty();
+        }
+
+        /**
+         * Returns the bounds of the shape.
+         * 
+         * @return the bounds as {@code minLongitude, minLatitude, maxLongitude, maxLatitude}
+         */
+        double[] bounds() {
+            final double[] bounds = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY };
+            if (this.points != null) {
+                UllShape.extend(this.points, bounds);
+            } else if (this.lines != null) {
+                this.lines.forEach(line -> UllShape.extend(line, bounds));
+            } else {
+                this.polygons.forEach(rings -> UllShape.extend(rings.get(0), bounds));
+            }
+            return bounds;
+        }
+
+        /**
+         * Extends some bounds with the positions of a part.
+         * 
+         * @param part   the part
+         * @param bounds the bounds
+         */
+        private static void extend(UllPart part, double[] bounds) {
+            for (int i = 0; i < part.size; i++) {
+                bounds[0] = Math.min(bounds[0], part.get(i, LONGITUDE));
+                bounds[1] = Math.min(bounds[1], part.get(i, LATITUDE));
+                bounds[2] = Math.max(bounds[2], part.get(i, LONGITUDE));
+                bounds[3] = Math.max(bounds[3], part.get(i, LATITUDE));
+            }
+        }
+
+        /**
+         * Clips the shape to a half-plane.
+         * 
+         * @param axis  the axis of the coordinate that bounds the half-plane
+         * @param value the bound
+         * @param below whether the half-plane is below the bound instead of above it
+         * @return the clipped shape
+         */
+        UllShape clip(int axis, double value, boolean below) {
+            if (this.points != null) {
+                final UllPart kept = new UllPart(this.points.dimensions, this.points.size);
+                for (int i = 0; i < this.points.size; i++) {
+                    if (UllShape.inside(this.points.get(i, axis), value, below)) {
+                        kept.add(this.points, i);
+                    }
+                }
+                return new UllShape(kept, null, null);
+            }
+            if (this.lines != null) {
+                final List<UllPart> clipped = new ArrayList<>();
+                for (UllPart line : this.lines) {
+                    UllShape.clipLine(line, axis, value, below, clipped);
+                }
+                return new UllShape(null, clipped, null);
+            }
+            final List<List<UllPart>> clipped = new ArrayList<>();
+            for (List<UllPart> rings : this.polygons) {
+                final UllPart exterior = UllShape.clipRing(rings.get(0), axis, value, below);
+                if (exterior != null) {
+                    final List<UllPart> clippedRings = new ArrayList<>();
+                    clippedRings.add(exterior);
+                    for (int i = 1; i < rings.size(); i++) {
+                        final UllPart ring = UllShape.clipRing(rings.get(i), axis, value, below);
+                        if (ring != null) {
+                            clippedRings.add(ring);
+                        }
+                    }
+                    clipped.add(clippedRings);
+                }
+            }
+            return new UllShape(null, null, clipped);
+        }
+
+        /**
+         * Checks if a coordinate is inside a half-plane, bound included.
+         * 
+         * @param coordinate the coordinate
+         * @param value      the bound
+         * @param below      whether the half-plane is below the bound
+         * @return true if the coordinate is inside, false otherwise
+         */
+        private static boolean inside(double coordinate, double value, boolean below) {
+            return below ? coordinate <= value : coordinate >= value;
+        }
+
+        /**
+         * Clips a closed ring to a half-plane with one step of the Sutherland-Hodgman algorithm.
+         * 
+         * @param ring  the ring
+         * @param axis  the axis of the bound
+         * @param value the bound
+         * @param below whether the half-plane is below the bound
+         * @return the clipped ring, or null if less than three distinct positions are left
+         */
+        private static UllPart clipRing(UllPart ring, int axis, double value, boolean below) {
+            final UllPart clipped = new UllPart(ring.dimensions, ring.size + 4);
+            for (int i = 0; i < ring.size - 1; i++) {
+                final boolean fromInside = UllShape.inside(ring.get(i, axis), value, below);
+                final boolean toInside = UllShape.inside(ring.get(i + 1, axis), value, below);
+                if (fromInside) {
+                    clipped.add(ring, i);
+                }
+                if (fromInside != toInside && ring.get(i, axis) != value && ring.get(i + 1, axis) != value) {
+                    clipped.addIntersection(ring, i, i + 1, axis, value);
+                }
+            }
+            clipped.close();
+            if (clipped.size < UllGeoJsonLinearRing.MINIMUM_NUMBER_OF_POSITIONS || UllShape.area(clipped) == 0) {
+                return null;
+            }
+            return clipped;
+        }
+
+        /**
+         * Computes the absolute planar area of a closed ring with the shoelace formula.
+         * 
+         * @param ring the ring
+         * @return the area, in squared degrees
+         */
+        private static double area(UllPart ring) {
+            double sum = 0;
+            for (int i = 0; i < ring.size - 1; i++) {
+                sum += ring.get(i, LONGITUDE) * ring.get(i + 1, LATITUDE)
+                        - ring.get(i + 1, LONGITUDE) * ring.get(i, LATITUDE);
+            }
+            return Math.abs(sum) / 2;
+        }
+
+        /**
+         * Clips a line to a half-plane, splitting it where it leaves the half-plane.
+         * 
+         * @param line    the line
+         * @param axis    the axis of the bound
+         * @param value   the bound
+         * @param below   whether the half-plane is below the bound
+         * @param clipped the list that receives the parts with at least two positions
+         */
+        private static void clipLine(UllPart line, int axis, double value, boolean below, List<UllPart> clipped) {
+            UllPart part = null;
+            for (int i = 0; i < line.size; i++) {
+                final boolean toInside = UllShape.inside(line.get(i, axis), value, below);
+                if (i > 0) {
+                    final boolean fromInside = UllShape.inside(line.get(i - 1, axis), value, below);
+                    if (fromInside && !toInside) {
+                        if (line.get(i - 1, axis) != value) {
+                            part.addIntersection(line, i - 1, i, axis, value);
+                        }
+                        UllShape.addLine(part, clipped);
+                        part = null;
+                    } else if (!fromInside && toInside && line.get(i, axis) != value) {
+                        part = new UllPart(line.dimensions, line.size - i + 1);
+                        part.addIntersection(line, i - 1, i, axis, value);
+                    }
+                }
+                if (toInside) {
+                    if (part == null) {
+                        part = new UllPart(line.dimensions, line.size - i);
+                    }
+                    part.add(line, i);
+                }
+            }
+            UllShape.addLine(part, clipped);
+        }
+
+        /**
+         * Adds a part of a line to a list if it has at least two positions.
+         * 
+         * @param part    the part, or null
+         * @param clipped the list of parts
+         */
+        private static void addLine(UllPart part, List<UllPart> clipped) {
+            if (part != null && part.size >= 2) {
+                clipped.add(part);
+            }
+        }
+
+        /**
+         * Returns the shape as a geometry of the simplest type that holds it. Polygons whose holes cover the whole
+         * exterior ring, as happens in a tile that lies inside a hole, are dropped.
+         * 
+         * @return the geometry, or null if nothing is left
+         */
+        UllGeoJsonGeometry toGeometry() {
+            if (this.points != null) {
+                if (this.points.size == 1) {
+                    return new UllGeoJsonPoint(this.points.toPositions().get(0));
+                }
+                return new UllGeoJsonMultiPoint(this.points.toPositions());
+            }
+            if (this.lines != null) {
+                if (this.lines.size() == 1) {
+                    return new UllGeoJsonLineString(this.lines.get(0).toPositions());
+                }
+                final List<UllGeoJsonLineString> lineStrings = new ArrayList<>(this.lines.size());
+                for (UllPart line : this.lines) {
+                    lineStrings.add(new UllGeoJsonLineString(line.toPositions()));
+                }
+                return new UllGeoJsonMultiLineString(lineStrings);
+            }
+            final List<UllGeoJsonPolygon> result = new ArrayList<>(this.polygons.size());
+            for (List<UllPart> rings : this.polygons) {
+                double area = UllShape.area(rings.get(0));
+                for (int i = 1; i < rings.size(); i++) {
+                    area -= UllShape.area(rings.get(i));
+                }
+                if (area <= 0) {
+                    continue;
+                }
+                final UllGeoJsonPolygon polygon = new UllGeoJsonPolygon(new UllGeoJsonLinearRing(rings.get(0).toPositions()));
+                for (int i = 1; i < rings.size(); i++) {
+                    polygon.addInteriorRing(new UllGeoJsonLinearRing(rings.get(i).toPositions()));
+                }
+                result.add(polygon);
+            }
+            if (result.isEmpty()) {
+                return null;
+            }
+            return result.size() == 1 ? result.get(0) : new UllGeoJsonMultiPolygon(result);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package es.ull.utils.geojson.operation;
+
+/**
+ * Transformation of the coordinates of a sequence of positions, such as a change of datum. It works on whole
+ * sequences so that implementations can process them in batches.
+ */
+@FunctionalInterface
+public interface UllGeoJsonCoordinateTransform {
+
+    /**
+     * Transforms in place a sequence of interleaved coordinates. The transformed longitudes and latitudes must be
+     * valid degrees, and altitudes equal to {@link es.ull.utils.geojson.UllGeoJsonPosition#ALTITUDE_NOT_DEFINED} mean
+     * that the position has no altitude.
+     * 
+     * @param coordinates the interleaved coordinates, which are overwritten with the transformed ones
+     * @param dimensions  the number of coordinates per position (2 or 3)
+     */
+    void transform(double[] coordinates, int dimensions);
+}
@@ -0,0 +1,711 @@
+package es.ull.utils.geojson.operation;
+
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+import es.ull.utils.geolocation.UllHaversine;
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Geometric measures of GeoJSON objects, computed directly over their packed positions without building lists or
+ * position objects. Sums use Neumaier compensated summation, so long lines and large rings do not accumulate rounding
+ * errors.
+ * 
+ * Geodesic measures are computed on a sphere of the mean Earth radius: lengths and perimeters in meters with the
+ * haversine formula, and areas in square meters with the spherical excess of every ring. Planar measures work on the
+ * raw coordinates, so they are in degrees and square degrees. Areas of polygons subtract the areas of their interior
+ * rings, regardless of the winding order of the rings.
+ */
+public class UllGeoJsonMeasures {
+
+    public static final String ERROR_GEOMETRY_UNDEFINED = "The geometry is not defined";
+    public static final String ERROR_MEASURE_UNDEFINED = "The measure is not defined";
+    public static final String ERROR_GEOMETRY_EMPTY = "The geometry has no positions";
+    public static final String ERROR_TYPE_NOT_SUPPORTED = "The centroid of a FeatureCollection is not defined";
+    /**
+     * Minimum number of features of a collection to measure them in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 10;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoJsonMeasures() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Returns the geodesic length of a LineString.
+     * 
+     * @param lineString the LineString
+     * @return the length in meters
+     * @throws IllegalArgumentException if the LineString is null
+     */
+    public static double length(UllGeoJsonLineString lineString) {
+        UllGeoJsonMeasures.validate(lineString);
+        final UllSum sum = new UllSum();
+        UllGeoJsonMeasures.addLength(lineString.getPackedPositions(), sum);
+        return sum.value();
+    }
+
+    /**
+     * Returns the geodesic length of a MultiLineString, the sum of the lengths of its LineStrings.
+     * 
+     * @param multiLineString the MultiLineString
+     * @return the length in meters
+     * @throws IllegalArgumentException if the MultiLineString is null
+     */
+    public static double length(UllGeoJsonMultiLineString multiLineString) {
+        UllGeoJsonMeasures.validate(multiLineString);
+        final UllSum sum = new UllSum();
+        for (UllGeoJsonLineString lineString : multiLineString.getLineStrings()) {
+            UllGeoJsonMeasures.addLength(lineString.getPackedPositions(), sum);
+        }
+        return sum.value();
+    }
+
+    /**
+     * Returns the geodesic length of any geometry: the length of its lines, or 0 if it has none. The length of a
+     * polygon is its perimeter, and the one of a feature is the one of its geometry.
+     * 
+     * @param geometry the geometry
+     * @return the length in meters
+     * @throws IllegalArgumentException if the geometry is null
+     */
+    public static double length(UllGeoJsonGeometry geometry) {
+        return UllGeoJsonMeasures.measure(geometry, false, true);
+    }
+
+    /**
+     * Returns the planar length of a LineString.
+     * 
+     * @param lineString the LineString
+     * @return the length in degrees
+     * @throws IllegalArgumentException if the LineString is null
+     */
+    public static double planarLength(UllGeoJsonLineString lineString) {
+        UllGeoJsonMeasures.validate(lineString);
+        final UllSum sum = new UllSum();
+        UllGeoJsonMeasures.addPlanarLength(lineString.getPackedPositions(), sum);
+        return sum.value();
+    }
+
+    /**
+     * Returns the planar length of any geometry: the length of its lines, or 0 if it has none.
+     * 
+     * @param geometry the geometry
+     * @return the length in degrees
+     * @throws IllegalArgumentException if the geometry is null
+     */
+    public static double planarLength(UllGeoJsonGeometry geometry) {
+        return UllGeoJsonMeasures.measure(geometry, false, false);
+    }
+
+    /**
+     * Returns the geodesic perimeter of a polygon, the length of all its rings.
+     * 
+     * @param polygon the polygon
+     * @return the perimeter in meters
+     * @throws IllegalArgumentException if the polygon is null
+     */
+    public static double perimeter(UllGeoJsonPolygon polygon) {
+        UllGeoJsonMeasures.validate(polygon);
+        final UllSum sum = new UllSum();
+        UllGeoJsonMeasures.addPerimeter(polygon, sum);
+        return sum.value();
+    }
+
+    /**
+     * Returns the geodesic perimeter of a MultiPolygon, the length of all the rings of its polygons.
+     * 
+     * @param multiPolygon the MultiPolygon
+     * @return the perimeter in meters
+     * @throws IllegalArgumentException if the MultiPolygon is null
+     */
+    public static double perimeter(UllGeoJsonMultiPolygon multiPolygon) {
+        UllGeoJsonMeasures.validate(multiPolygon);
+        final UllSum sum = new UllSum();
+        for (UllGeoJsonPolygon polygon : multiPolygon.getPolygons()) {
+            UllGeoJsonMeasures.addPerimeter(polygon, sum);
+        }
+        return sum.value();
+    }
+
+    /**
+     * Returns the geodesic area of a polygon: the area of its exterior ring minus the areas of its interior rings.
+     * 
+     * @param polygon the polygon
+     * @return the area in square meters
+     * @throws IllegalArgumentException if the polygon is null
+     */
+    public static double area(UllGeoJsonPolygon polygon) {
+        UllGeoJsonMeasures.validate(polygon);
+        final UllSum sum = new UllSum();
+        UllGeoJsonMeasures.addArea(polygon, true, sum);
+        return sum.value();
+    }
+
+    /**
+     * Returns the geodesic area of a MultiPolygon, the sum of the areas of its polygons.
+     * 
+     * @param multiPolygon the MultiPolygon
+     * @return the area in square meters
+     * @throws IllegalArgumentException if the MultiPolygon is null
+     */
+    public static double area(UllGeoJsonMultiPolygon multiPolygon) {
+        UllGeoJsonMeasures.validate(multiPolygon);
+        final UllSum sum = new UllSum();
+        for (UllGeoJsonPolygon polygon : multiPolygon.getPolygons()) {
+            UllGeoJsonMeasures.addArea(polygon, true, sum);
+        }
+        return sum.value();
+    }
+
+    /**
+     * Returns the geodesic area of any geometry: the area of its polygons, or 0 if it has none.
+     * 
+     * @param geometry the geometry
+     * @return the area in square meters
+     * @throws IllegalArgumentException if the geometry is null
+     */
+    public static double area(UllGeoJsonGeometry geometry) {
+        return UllGeoJsonMeasures.measure(geometry, true, true);
+    }
+
+    /**
+     * Returns the planar area of a polygon, with the shoelace formula.
+     * 
+     * @param polygon the polygon
+     * @return the area in square degrees
+     * @throws IllegalArgumentException if the polygon is null
+     */
+    public static double planarArea(UllGeoJsonPolygon polygon) {
+        UllGeoJsonMeasures.validate(polygon);
+        final UllSum sum = new UllSum();
+        UllGeoJsonMeasures.addArea(polygon, false, sum);
+        return sum.value();
+    }
+
+    /**
+     * Returns the planar area of any geometry: the area of its polygons, or 0 if it has none.
+     * 
+     * @param geometry the geometry
+     * @return the area in square degrees
+     * @throws IllegalArgumentException if the geometry is null
+     */
+    public static double planarArea(UllGeoJsonGeometry geometry) {
+        return UllGeoJsonMeasures.measure(geometry, true, false);
+    }
+
+    /**
+     * Returns the planar centroid of a polygon, the center of mass of its surface with the holes removed. If the
+     * polygon has no area, the centroid of its exterior ring as a line is returned.
+     * 
+     * @param polygon the polygon
+     * @return the centroid
+     * @throws IllegalArgumentException if the polygon is null
+     */
+    public static UllGeoJsonPosition centroid(UllGeoJsonPolygon polygon) {
+        UllGeoJsonMeasures.validate(polygon);
+        final UllCentroid centroid = new UllCentroid(polygon.getExteriorRing().getPackedPositions());
+        centroid.addPolygon(polygon);
+        return centroid.surfaceCentroid(polygon.getExteriorRing());
+    }
+
+    /**
+     * Returns the planar centroid of a MultiPolygon, the center of mass of the surfaces of all its polygons.
+     * 
+     * @param multiPolygon the MultiPolygon
+     * @return the centroid
+     * @throws IllegalArgumentException if the MultiPolygon is null
+     */
+    public static UllGeoJsonPosition centroid(UllGeoJsonMultiPolygon multiPolygon) {
+        UllGeoJsonMeasures.validate(multiPolygon);
+        final UllGeoJsonLinearRing first = multiPolygon.getPolygons().get(0).getExteriorRing();
+        final UllCentroid centroid = new UllCentroid(first.getPackedPositions());
+        for (UllGeoJsonPolygon polygon : multiPolygon.getPolygons()) {
+            centroid.addPolygon(polygon);
+        }
+        return centroid.surfaceCentroid(first);
+    }
+
+    /**
+     * Returns the planar centroid of a LineString, the mean of the midpoints of its segments weighted by their
+     * lengths. If the LineString has no length, its first position is returned.
+     * 
+     * @param lineString the LineString
+     * @return the centroid
+     * @throws IllegalArgumentException if the LineString is null or it has no positions
+     */
+    public static UllGeoJsonPosition centroid(UllGeoJsonLineString lineString) {
+        UllGeoJsonMeasures.validate(lineString);
+        final UllGeoJsonPackedPositions positions = lineString.getPackedPositions();
+        if (positions.isEmpty()) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_EMPTY);
+        }
+        final UllCentroid centroid = new UllCentroid(positions);
+        centroid.addLine(positions);
+        return centroid.lineCentroid();
+    }
+
+    /**
+     * Returns the planar centroid of any geometry: the centroid of its surface for polygons, of its lines for
+     * LineStrings, and the mean of its positions for points.
+     * 
+     * @param geometry the geometry
+     * @return the centroid
+     * @throws IllegalArgumentException if the geometry is null, it has no positions or it is a FeatureCollection
+     */
+    public static UllGeoJsonPosition centroid(UllGeoJsonGeometry geometry) {
+        UllGeoJsonMeasures.validate(geometry);
+        if (geometry instanceof UllGeoJsonPolygon) {
+            return UllGeoJsonMeasures.centroid((UllGeoJsonPolygon) geometry);
+        }
+        if (geometry instanceof UllGeoJsonMultiPolygon) {
+            return UllGeoJsonMeasures.centroid((UllGeoJsonMultiPolygon) geometry);
+        }
+        if (geometry instanceof UllGeoJsonLineString) {
+            return UllGeoJsonMeasures.centroid((UllGeoJsonLineString) geometry);
+        }
+        if (geometry instanceof UllGeoJsonMultiLineString) {
+            final UllGeoJsonMultiLineString multiLineString = (UllGeoJsonMultiLineString) geometry;
+            final UllGeoJsonLineString first = multiLineString.getLineStrings().stream()
+                    .filter(lineString -> !lineString.getPackedPositions().isEmpty()).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(ERROR_GEOMETRY_EMPTY));
+            final UllCentroid centroid = new UllCentroid(first.getPackedPositions());
+            for (UllGeoJsonLineString lineString : multiLineString.getLineStrings()) {
+                centroid.addLine(lineString.getPackedPositions());
+            }
+            return centroid.lineCentroid();
+        }
+        if (geometry instanceof UllGeoJsonPoint) {
+            final UllGeoJsonPosition position = ((UllGeoJsonPoint) geometry).getPosition();
+            return new UllGeoJsonPosition(position.getLongitude(), position.getLatitude());
+        }
+        if (geometry instanceof UllGeoJsonMultiPoint) {
+            final UllGeoJsonPackedPositions positions = ((UllGeoJsonMultiPoint) geometry).getPackedPositions();
+            if (positions.isEmpty()) {
+                throw new IllegalArgumentException(ERROR_GEOMETRY_EMPTY);
+            }
+            final UllSum longitude = new UllSum();
+            final UllSum latitude = new UllSum();
+            for (int i = 0; i < positions.size(); i++) {
+                longitude.add(positions.getLongitude(i));
+                latitude.add(positions.getLatitude(i));
+            }
+            return new UllGeoJsonPosition(longitude.value() / positions.size(), latitude.value() / positions.size());
+        }
+        if (geometry instanceof UllGeoJsonFeature) {
+            return UllGeoJsonMeasures.centroid(((UllGeoJsonFeature) geometry).getGeometry());
+        }
+        throw new IllegalArgumentException(ERROR_TYPE_NOT_SUPPORTED);
+    }
+
+    /**
+     * Measures every feature of a collection, in parallel for large collections.
+     * 
+     * @param featureCollection the collection
+     * @param measure           the measure of a feature, such as {@code UllGeoJsonMeasures::area}
+     * @return the measure of every feature, in the order of the features
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static double[] measure(UllGeoJsonFeatureCollection featureCollection,
+            ToDoubleFunction<UllGeoJsonGeometry> measure) {
+        UllGeoJsonMeasures.validate(featureCollection);
+        if (measure == null) {
+            throw new IllegalArgumentException(ERROR_MEASURE_UNDEFINED);
+        }
+        final UllGeoJsonFeature[] features = featureCollection.getFeatures();
+        final double[] measures = new double[features.length];
+        IntStream indexes = IntStream.range(0, features.length);
+        if (features.length >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> measures[i] = measure.applyAsDouble(features[i]));
+        return measures;
+    }
+
+    /**
+     * Returns the geodesic areas of all the features of a collection, computed in parallel for large collections.
+     * 
+     * @param featureCollection the collection
+     * @return the area of every feature in square meters
+     * @throws IllegalArgumentException if the collection is null
+     */
+    public static double[] areas(UllGeoJsonFeatureCollection featureCollection) {
+        return UllGeoJsonMeasures.measure(featureCollection, UllGeoJsonMeasures::area);
+    }
+
+    /**
+     * Returns the geodesic lengths of all the features of a collection, computed in parallel for large collections.
+     * 
+     * @param featureCollection the collection
+     * @return the length of every feature in meters
+     * @throws IllegalArgumentException if the collection is null
+     */
+    public static double[] lengths(UllGeoJsonFeatureCollection featureCollection) {
+        return UllGeoJsonMeasures.measure(featureCollection, UllGeoJsonMeasures::length);
+    }
+
+    /**
+     * Measures the area or the length of any geometry.
+     * 
+     * @param geometry the geometry
+     * @param area     whether to measure the area instead of the length
+     * @param geodesic whether to measure on the sphere instead of on the plane
+     * @return the measure
+     * @throws IllegalArgumentException if the geometry is null
+     */
+    private static double measure(UllGeoJsonGeometry geometry, boolean area, boolean geodesic) {
+        UllGeoJsonMeasures.validate(geometry);
+        final UllSum sum = new UllSum();
+        UllGeoJsonMeasures.addMeasure(geometry, area, geodesic, sum);
+        return sum.value();
+    }
+
+    /**
+     * Adds the area or the length of any geometry to a sum.
+     * 
+     * @param geometry the geometry
+     * @param area     whether to measure the area instead of the length
+     * @param geodesic whether to measure on the sphere instead of on the plane
+     * @param sum      the sum
+     */
+    private static void addMeasure(UllGeoJsonGeometry geometry, boolean area, boolean geodesic, UllSum sum) {
+        if (geometry instanceof UllGeoJsonPolygon) {
+            UllGeoJsonMeasures.addPolygonMeasure((UllGeoJsonPolygon) geometry, area, geodesic, sum);
+        } else if (geometry instanceof UllGeoJsonMultiPolygon) {
+            for (UllGeoJsonPolygon polygon : ((UllGeoJsonMultiPolygon) geometry).getPolygons()) {
+                UllGeoJsonMeasures.addPolygonMeasure(polygon, area, geodesic, sum);
+            }
+        } else if (!area && geometry instanceof UllGeoJsonLineString) {
+            UllGeoJsonMeasures.addLineMeasure(((UllGeoJsonLineString) geometry).getPackedPositions(), geodesic, sum);
+        } else if (!area && geometry instanceof UllGeoJsonMultiLineString) {
+            for (UllGeoJsonLineString lineString : ((UllGeoJsonMultiLineString) geometry).getLineStrings()) {
+                UllGeoJsonMeasures.addLineMeasure(lineString.getPackedPositions(), geodesic, sum);
+            }
+        } else if (geometry instanceof UllGeoJsonFeature) {
+            UllGeoJsonMeasures.addMeasure(((UllGeoJsonFeature) geometry).getGeometry(), area, geodesic, sum);
+        } else if (geometry instanceof UllGeoJsonFeatureCollection) {
+            for (UllGeoJsonFeature feature : ((UllGeoJsonFeatureCollection) geometry).getFeatures()) {
+                UllGeoJsonMeasures.addMeasure(feature, area, geodesic, sum);
+            }
+        }
+    }
+
+    /**
+     * Adds the area or the perimeter of a polygon to a sum.
+     * 
+     * @param polygon  the polygon
+     * @param area     whether to measure the area instead of the perimeter
+     * @param geodesic whether to measure on the sphere instead of on the plane
+     * @param sum      the sum
+     */
+    private static void addPolygonMeasure(UllGeoJsonPolygon polygon, boolean area, boolean geodesic, UllSum sum) {
+        if (area) {
+            UllGeoJsonMeasures.addArea(polygon, geodesic, sum);
+        } else {
+            UllGeoJsonMeasures.addLineMeasure(polygon.getExteriorRing().getPackedPositions(), geodesic, sum);
+            for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+                UllGeoJsonMeasures.addLineMeasure(ring.getPackedPositions(), geodesic, sum);
+            }
+        }
+    }
+
+    /**
+     * Adds the length of a line to a sum.
+     * 
+     * @param positions the positions of the line
+     * @param geodesic  whether to measure on the sphere instead of on the plane
+     * @param sum       the sum
+     */
+    private static void addLineMeasure(UllGeoJsonPackedPositions positions, boolean geodesic, UllSum sum) {
+        if (geodesic) {
+            UllGeoJsonMeasures.addLength(positions, sum);
+        } else {
+            UllGeoJsonMeasures.addPlanarLength(positions, sum);
+        }
+    }
+
+    /**
+     * Adds the perimeter of a polygon to a sum.
+     * 
+     * @param polygon the polygon
+     * @param sum     the sum
+     */
+    private static void addPerimeter(UllGeoJsonPolygon polygon, UllSum sum) {
+        UllGeoJsonMeasures.addPolygonMeasure(polygon, false, true, sum);
+    }
+
+    /**
+     * Adds the area of a polygon to a sum, subtracting the areas of its interior rings.
+     * 
+     * @param polygon  the polygon
+     * @param geodesic whether to measure on the sphere instead of on the plane
+     * @param sum      the sum
+     */
+    private static void addArea(UllGeoJsonPolygon polygon, boolean geodesic, UllSum sum) {
+        sum.add(UllGeoJsonMeasures.ringArea(polygon.getExteriorRing().getPackedPositions(), geodesic));
+        for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+            sum.add(-UllGeoJsonMeasures.ringArea(ring.getPackedPositions(), geodesic));
+        }
+    }
+
+    /**
+     * Adds the geodesic length of a line to a sum.
+     * 
+     * @param positions the positions of the line
+     * @param sum       the sum
+     */
+    private static void addLength(UllGeoJsonPackedPositions positions, UllSum sum) {
+        for (int i = 1; i < positions.size(); i++) {
+            sum.add(UllHaversine.distance(positions.getLongitude(i - 1), positions.getLatitude(i - 1),
+                    positions.getLongitude(i), positions.getLatitude(i)));
+        }
+    }
+
+    /**
+     * Adds the planar length of a line to a sum.
+     * 
+     * @param positions the positions of the line
+     * @param sum       the sum
+     */
+    private static void addPlanarLength(UllGeoJsonPackedPositions positions, UllSum sum) {
+        for (int i = 1; i < positions.size(); i++) {
+            sum.add(Math.hypot(positions.getLongitude(i) - positions.getLongitude(i - 1),
+                    positions.getLatitude(i) - positions.getLatitude(i - 1)));
+        }
+    }
+
+    /**
+     * Returns the unsigned area of a closed ring.
+     * 
+     * @param positions the positions of the ring
+     * @param geodesic  whether to measure on the sphere instead of on the plane
+     * @return the area in square meters or square degrees
+     */
+    private static double ringArea(UllGeoJsonPackedPositions positions, boolean geodesic) {
+        return Math.abs(geodesic ? UllGeoJsonMeasures.sphericalArea(positions) : UllGeoJsonMeasures.shoelace(positions));
+    }
+
+    /**
+     * Returns the signed area of a closed ring on the sphere, as the sum of the spherical excesses of the triangles
+     * formed by every edge and the pole. Longitude differences are wrapped, so rings can cross the antimeridian.
+     * 
+     * @param positions the positions of the ring
+     * @return the signed area in square meters
+     */
+    private static double sphericalArea(UllGeoJsonPackedPositions positions) {
+        final UllSum sum = new UllSum();
+        for (int i = 1; i < positions.size(); i++) {
+            double deltaLambda = Math.toRadians(positions.getLongitude(i) - positions.getLongitude(i - 1));
+            if (deltaLambda > Math.PI) {
+                deltaLambda -= 2 * Math.PI;
+            } else if (deltaLambda < -Math.PI) {
+                deltaLambda += 2 * Math.PI;
+            }
+            final double tan1 = Math.tan(Math.toRadians(positions.getLatitude(i - 1)) / 2);
+            final double tan2 = Math.tan(Math.toRadians(positions.getLatitude(i)) / 2);
+            sum.add(2 * Math.atan2(Math.tan(deltaLambda / 2) * (tan1 + tan2), 1 + tan1 * tan2));
+        }
+        return sum.value() * UllHaversine.EARTH_RADIUS * UllHaversine.EARTH_RADIUS;
+    }
+
+    /**
+     * Returns the signed planar area of a closed ring with the shoelace formula, relative to its first position to
+     * keep the products small.
+     * 
+     * @param positions the positions of the ring
+     * @return the signed area in square degrees, positive for counterclockwise rings
+     */
+    private static double shoelace(UllGeoJsonPackedPositions positions) {
+        if (positions.size() < 3) {
+            return 0;
+        }
+        final double originX = positions.getLongitude(0);
+        final double originY = positions.getLatitude(0);
+        final UllSum sum = new UllSum();
+        for (int i = 1; i < positions.size() - 1; i++) {
+            final double x1 = positions.getLongitude(i) - originX;
+            final double y1 = positions.getLatitude(i) - originY;
+            final double x2 = positions.getLongitude(i + 1) - originX;
+            final double y2 = positions.getLatitude(i + 1) - originY;
+            sum.add(x1 * y2 - x2 * y1);
+        }
+        return sum.value() / 2;
+    }
+
+    /**
+     * Checks that a geometry is defined.
+     * 
+     * @param geometry the geometry
+     * @throws IllegalArgumentException if the geometry is null
+     */
+    private static void validate(UllGeoJsonGeometry geometry) {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+    }
+
+    /**
+     * Sum with Neumaier compensation, which keeps the low-order bits lost by every addition.
+     */
+    private static final class UllSum {
+
+        private double sum;
+        private double compensation;
+
+        /**
+         * Adds a value.
+         * 
+         * @param value the value
+         */
+        void add(double value) {
+            final double total = this.sum + value;
+            if (Math.abs(this.sum) >= Math.abs(value)) {
+                this.compensation += (this.sum - total) + value;
+            } else {
+                this.compensation += (value - total) + this.sum;
+            }
+            this.sum = total;
+        }
+
+        /**
+         * Returns the compensated value of the sum.
+         * 
+         * @return the sum
+         */
+        double value() {
+            return this.sum + this.compensation;
+        }
+    }
+
+    /**
+     * Accumulator of planar centroids, with coordinates relative to an origin to keep the products small. Surfaces
+     * and lines are accumulated separately, so a polygon with no area falls back to the centroid of its ring.
+     */
+    private static final class UllCentroid {
+
+        private final double originX;
+        private final double originY;
+        private final UllSum area = new UllSum();
+        private final UllSum areaX = new UllSum();
+        private final UllSum areaY = new UllSum();
+        private final UllSum length = new UllSum();
+        private final UllSum lengthX = new UllSum();
+        private final UllSum lengthY = new UllSum();
+
+        /**
+         * Constructor for an empty accumulator.
+         * 
+         * @param origin the positions whose first one is the origin
+         */
+        UllCentroid(UllGeoJsonPackedPositions origin) {
+            this.originX = origin.isEmpty() ? 0 : origin.getLongitude(0);
+            this.originY = origin.isEmpty() ? 0 : origin.getLatitude(0);
+        }
+
+        /**
+         * Adds the surface of a polygon, subtracting its interior rings.
+         * 
+         * @param polygon the polygon
+         */
+        void addPolygon(UllGeoJsonPolygon polygon) {
+            this.addRing(polygon.getExteriorRing().getPackedPositions(), 1);
+            for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+                this.addRing(ring.getPackedPositions(), -1);
+            }
+        }
+
+        /**
+         * Adds or subtracts the surface of a ring, with its orientation normalized.
+         * 
+         * @param positions the positions of the ring
+         * @param sign      1 to add the ring, -1 to subtract it
+         */
+        private void addRing(UllGeoJsonPackedPositions positions, int sign) {
+            final UllSum cross = new UllSum();
+            final UllSum crossX = new UllSum();
+            final UllSum crossY = new UllSum();
+            for (int i = 1; i < positions.size(); i++) {
+                final double x1 = positions.getLongitude(i - 1) - this.originX;
+                final double y1 = positions.getLatitude(i - 1) - this.originY;
+                final double x2 = positions.getLongitude(i) - this.originX;
+                final double y2 = positions.getLatitude(i) - this.originY;
+                final double product = x1 * y2 - x2 * y1;
+                cross.add(product);
+                crossX.add((x1 + x2) * product);
+                crossY.add((y1 + y2) * product);
+            }
+            final double ringArea = cross.value() / 2;
+            final double ringX = crossX.value() / 6;
+            final double ringY = crossY.value() / 6;
+            final double orientation = ringArea < 0 ? -sign : sign;
+            this.area.add(orientation * ringArea);
+            this.areaX.add(orientation * ringX);
+            this.areaY.add(orientation * ringY);
+        }
+
+        /**
+         * Adds the segments of a line.
+         * 
+         * @param positions the positions of the line
+         */
+        void addLine(UllGeoJsonPackedPositions positions) {
+            for (int i = 1; i < positions.size(); i++) {
+                final double x1 = positions.getLongitude(i - 1) - this.originX;
+                final double y1 = positions.getLatitude(i - 1) - this.originY;
+                final double x2 = positions.getLongitude(i) - this.originX;
+                final double y2 = positions.getLatitude(i) - this.originY;
+                final double segment = Math.hypot(x2 - x1, y2 - y1);
+                this.length.add(segment);
+                this.lengthX.add(segment * (x1 + x2) / 2);
+                this.lengthY.add(segment * (y1 + y2) / 2);
+            }
+        }
+
+        /**
+         * Returns the centroid of the surfaces, or of a ring as a line if they have no area.
+         * 
+         * @param ring the ring to use if the surfaces have no area
+         * @return the centroid
+         */
+        UllGeoJsonPosition surfaceCentroid(UllGeoJsonLinearRing ring) {
+            final double totalArea = this.area.value();
+            if (totalArea == 0) {
+                this.addLine(ring.getPackedPositions());
+                return this.lineCentroid();
+            }
+            return new UllGeoJsonPosition(this.originX + this.areaX.value() / totalArea,
+                    this.originY + this.areaY.value() / totalArea);
+        }
+
+        /**
+         * Returns the centroid of the lines, or the origin if they have no length.
+         * 
+         * @return the centroid
+         */
+        UllGeoJsonPosition lineCentroid() {
+            final double totalLength = this.length.value();
+            if (totalLength == 0) {
+                return new UllGeoJsonPosition(this.originX, this.originY);
+            }
+            return new UllGeoJsonPosition(this.originX + this.lengthX.value() / totalLength,
+                    this.originY + this.lengthY.value() / totalLength);
+        }
+    }
+}
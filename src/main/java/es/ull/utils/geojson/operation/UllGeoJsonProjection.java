@@ -0,0 +1,655 @@
+package es.ull.utils.geojson.operation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+
+/**
+ * Map projection between the WGS84 longitudes and latitudes of the GeoJSON model and planar coordinates in meters:
+ * Web Mercator (EPSG:3857) and the zones of the Universal Transverse Mercator (EPSG:326xx and EPSG:327xx).
+ * 
+ * Projections work on interleaved coordinates, with 2 or 3 values per position, in tight loops over the primitive
+ * arrays; altitudes are left unchanged. Projected coordinates cannot be stored in the GeoJSON model, whose positions
+ * are always in degrees, so GeoJSON objects are projected into new arrays, and projected arrays are turned back into
+ * positions with {@link #toPositions(double[], int)}. Large arrays and collections can be processed in parallel.
+ */
+public abstract class UllGeoJsonProjection {
+
+    public static final String ERROR_GEOMETRY_UNDEFINED = "The geometry is not defined";
+    public static final String ERROR_ZONE_NOT_VALID = "The UTM zone must be between 1 and 60";
+    public static final String ERROR_POSITION_NOT_VALID = "The longitude or latitude is out of range";
+    /**
+     * Web Mercator projection, EPSG:3857. Latitudes beyond ±85.0511 degrees are clamped.
+     */
+    public static final UllGeoJsonProjection WEB_MERCATOR = new UllWebMercator();
+    /**
+     * Number of UTM zones.
+     */
+    private static final int UTM_ZONES = 60;
+    /**
+     * Minimum number of positions of an array to project it in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+    /**
+     * Number of positions projected by every parallel task.
+     */
+    private static final int PARALLEL_CHUNK = 1 << 12;
+    /**
+     * Minimum number of features of a collection to project them in parallel.
+     */
+    private static final int PARALLEL_FEATURES_THRESHOLD = 1 << 10;
+    /**
+     * Largest excess over the range of longitudes and latitudes that is attributed to rounding, in degrees.
+     */
+    private static final double ROUNDING_TOLERANCE = 1e-9;
+
+    /**
+     * Returns the projection of a UTM zone.
+     * 
+     * @param zone  the zone, between 1 and 60
+     * @param north true for the northern hemisphere, false for the southern one
+     * @return the projection
+     * @throws IllegalArgumentException if the zone is not valid
+     */
+    public static UllGeoJsonProjection utm(int zone, boolean north) {
+        if (zone < 1 || zone > UTM_ZONES) {
+            throw new IllegalArgumentException(ERROR_ZONE_NOT_VALID);
+        }
+        return new UllTransverseMercator(zone, north);
+    }
+
+    /**
+     * Returns the projection of the UTM zone that contains a position.
+     * 
+     * @param longitude the longitude of the position
+     * @param latitude  the latitude of the position
+     * @return the projection
+     * @throws IllegalArgumentException if the position is out of range
+     * @see #utmZone(double, double)
+     */
+    public static UllGeoJsonProjection utm(double longitude, double latitude) {
+        return new UllTransverseMercator(UllGeoJsonProjection.utmZone(longitude, latitude), latitude >= 0);
+    }
+
+    /**
+     * Returns the UTM zone that contains a position, including the exceptions of southern Norway and Svalbard.
+     * 
+     * @param longitude the longitude of the position
+     * @param latitude  the latitude of the position
+     * @return the zone, between 1 and 60
+     * @throws IllegalArgumentException if the position is out of range
+     */
+    public static int utmZone(double longitude, double latitude) {
+        if (!(longitude >= -180 && longitude <= 180 && latitude >= -90 && latitude <= 90)) {
+            throw new IllegalArgumentException(ERROR_POSITION_NOT_VALID);
+        }
+        if (latitude >= 56 && latitude < 64 && longitude >= 3 && longitude < 12) {
+            return 32;
+        }
+        if (latitude >= 72 && latitude < 84 && longitude >= 0 && longitude < 42) {
+            if (longitude < 9) {
+                return 31;
+            }
+            if (longitude < 21) {
+                return 33;
+            }
+            return longitude < 33 ? 35 : 37;
+        }
+        return Math.min((int) Math.floor((longitude + 180) / 6) + 1, UTM_ZONES);
+    }
+
+    /**
+     * Returns the EPSG code of the projection.
+     * 
+     * @return the code, such as EPSG:3857
+     */
+    public abstract String getCode();
+
+    /**
+     * Projects a range of interleaved longitudes and latitudes in place.
+     * 
+     * @param coordinates the interleaved coordinates
+     * @param from        the offset of the first position
+     * @param to          the offset after the last position
+     * @param dimensions  the number of coordinates per position
+     */
+    protected abstract void forward(double[] coordinates, int from, int to, int dimensions);
+
+    /**
+     * Turns a range of interleaved projected coordinates back into longitudes and latitudes, in place.
+     * 
+     * @param coordinates the interleaved coordinates
+     * @param from        the offset of the first position
+     * @param to          the offset after the last position
+     * @param dimensions  the number of coordinates per position
+     */
+    protected abstract void inverse(double[] coordinates, int from, int to, int dimensions);
+
+    /**
+     * Projects interleaved longitudes and latitudes in place.
+     * 
+     * @param coordinates the interleaved coordinates, which are overwritten with the projected ones
+     * @param dimensions  the number of coordinates per position (2 or 3)
+     * @throws IllegalArgumentException if the coordinates are null or do not match the dimensions
+     */
+    public void project(double[] coordinates, int dimensions) {
+        this.project(coordinates, dimensions, false);
+    }
+
+    /**
+     * Projects interleaved longitudes and latitudes in place, optionally splitting large arrays across cores.
+     * 
+     * @param coordinates the interleaved coordinates, which are overwritten with the projected ones
+     * @param dimensions  the number of coordinates per position (2 or 3)
+     * @param parallel    true to project large arrays in parallel, false otherwise
+     * @throws IllegalArgumentException if the coordinates are null or do not match the dimensions
+     */
+    public void project(double[] coordinates, int dimensions, boolean parallel) {
+        this.apply(coordinates, dimensions, parallel, false);
+    }
+
+    /**
+     * Turns interleaved projected coordinates back into longitudes and latitudes, in place.
+     * 
+     * @param coordinates the interleaved coordinates, which are overwritten with the longitudes and latitudes
+     * @param dimensions  the number of coordinates per position (2 or 3)
+     * @throws IllegalArgumentException if the coordinates are null or do not match the dimensions
+     */
+    public void unproject(double[] coordinates, int dimensions) {
+        this.unproject(coordinates, dimensions, false);
+    }
+
+    /**
+     * Turns interleaved projected coordinates back into longitudes and latitudes, in place, optionally splitting
+     * large arrays across cores.
+     * 
+     * @param coordinates the interleaved coordinates, which are overwritten with the longitudes and latitudes
+     * @param dimensions  the number of coordinates per position (2 or 3)
+     * @param parallel    true to process large arrays in parallel, false otherwise
+     * @throws IllegalArgumentException if the coordinates are null or do not match the dimensions
+     */
+    public void unproject(double[] coordinates, int dimensions, boolean parallel) {
+        this.apply(coordinates, dimensions, parallel, true);
+    }
+
+    /**
+     * Projects or unprojects interleaved coordinates in place.
+     * 
+     * @param coordinates the interleaved coordinates
+     * @param dimensions  the number of coordinates per position (2 or 3)
+     * @param parallel    true to process large arrays in parallel, false otherwise
+     * @param inverse     true to unproject, false to project
+     * @throws IllegalArgumentException if the coordinates are null or do not match the dimensions
+     */
+    private void apply(double[] coordinates, int dimensions, boolean parallel, boolean inverse) {
+        if (coordinates == null) {
+            throw new IllegalArgumentException(UllGeoJsonPackedPositions.ERROR_COORDINATES_NOT_DEFINED);
+        }
+        if (dimensions != 2 && dimensions != 3) {
+            throw new IllegalArgumentException(UllGeoJsonPackedPositions.ERROR_DIMENSIONS);
+        }
+        if (coordinates.length % dimensions != 0) {
+            throw new IllegalArgumentException(UllGeoJsonPackedPositions.ERROR_COORDINATES_LENGTH);
+        }
+        final int positions = coordinates.length / dimensions;
+        if (!parallel || positions < PARALLEL_THRESHOLD) {
+            this.apply(coordinates, 0, coordinates.length, dimensions, inverse);
+            return;
+        }
+        final int chunk = PARALLEL_CHUNK * dimensions;
+        IntStream.range(0, (coordinates.length + chunk - 1) / chunk).parallel().forEach(task -> {
+            final int from = task * chunk;
+            this.apply(coordinates, from, Math.min(coordinates.length, from + chunk), dimensions, inverse);
+        });
+    }
+
+    /**
+     * Projects or unprojects a range of interleaved coordinates in place.
+     * 
+     * @param coordinates the interleaved coordinates
+     * @param from        the offset of the first position
+     * @param to          the offset after the last position
+     * @param dimensions  the number of coordinates per position
+     * @param inverse     true to unproject, false to project
+     */
+    private void apply(double[] coordinates, int from, int to, int dimensions, boolean inverse) {
+        if (inverse) {
+            this.inverse(coordinates, from, to, dimensions);
+        } else {
+            this.forward(coordinates, from, to, dimensions);
+        }
+    }
+
+    /**
+     * Projects a sequence of positions into a new array.
+     * 
+     * @param positions the positions
+     * @return the interleaved projected coordinates, with {@link UllGeoJsonPackedPositions#getDimensions()} values per
+     *         position
+     * @throws IllegalArgumentException if the positions are null
+     */
+    public double[] project(UllGeoJsonPackedPositions positions) {
+        if (positions == null) {
+            throw new IllegalArgumentException(UllGeoJsonPackedPositions.ERROR_POSITIONS_NOT_DEFINED);
+        }
+        final double[] coordinates = positions.toArray();
+        this.forward(coordinates, 0, coordinates.length, positions.getDimensions());
+        return coordinates;
+    }
+
+    /**
+     * Projects every sequence of positions of a GeoJSON object into new arrays, in the order of its GeoJSON encoding: a
+     * Point, LineString or MultiPoint has a single sequence, a Polygon has one per ring, the sequences of
+     * MultiLineStrings and MultiPolygons follow the order of their members, a Feature has the sequences of its
+     * geometry and a FeatureCollection those of its features, one after another.
+     * 
+     * Every array has 3 values per position if its sequence has altitudes, and 2 otherwise.
+     * 
+     * @param geometry the GeoJSON object
+     * @return the interleaved projected coordinates of every sequence
+     * @throws IllegalArgumentException if the object is null
+     */
+    public double[][] project(UllGeoJsonGeometry geometry) {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        final UllGeoJsonPackedPositions[] sequences = UllGeoJsonProjection.sequences(geometry);
+        final double[][] projected = new double[sequences.length][];
+        for (int i = 0; i < sequences.length; i++) {
+            projected[i] = this.project(sequences[i]);
+        }
+        return projected;
+    }
+
+    /**
+     * Projects the sequences of positions of every feature of a collection, as {@link #project(UllGeoJsonGeometry)}
+     * does, optionally processing the features of large collections in parallel.
+     * 
+     * @param featureCollection the feature collection
+     * @param parallel          true to project the features of large collections in parallel, false otherwise
+     * @return the projected sequences of every feature, in the order of the features
+     * @throws IllegalArgumentException if the collection is null
+     */
+    public double[][][] project(UllGeoJsonFeatureCollection featureCollection, boolean parallel) {
+        if (featureCollection == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        final UllGeoJsonFeature[] features = featureCollection.getFeatures();
+        final double[][][] projected = new double[features.length][][];
+        IntStream range = IntStream.range(0, features.length);
+        if (parallel && features.length >= PARALLEL_FEATURES_THRESHOLD) {
+            range = range.parallel();
+        }
+        range.forEach(i -> projected[i] = this.project(features[i]));
+        return projected;
+    }
+
+    /**
+     * Turns interleaved projected coordinates into a new sequence of positions, leaving the array unchanged.
+     * 
+     * @param coordinates the interleaved projected coordinates
+     * @param dimensions  the number of coordinates per position (2 or 3)
+     * @return the positions
+     * @throws IllegalArgumentException if the coordinates are null, do not match the dimensions, or are out of the
+     *                                  range of longitudes and latitudes once unprojected
+     */
+    public UllGeoJsonPackedPositions toPositions(double[] coordinates, int dimensions) {
+        if (coordinates == null) {
+            throw new IllegalArgumentException(UllGeoJsonPackedPositions.ERROR_COORDINATES_NOT_DEFINED);
+        }
+        final double[] unprojected = coordinates.clone();
+        this.unproject(unprojected, dimensions);
+        for (int i = 0; i < unprojected.length; i += dimensions) {
+            unprojected[i] = UllGeoJsonProjection.snap(unprojected[i], 180);
+            unprojected[i + 1] = UllGeoJsonProjection.snap(unprojected[i + 1], 90);
+        }
+        return UllGeoJsonPackedPositions.wrap(unprojected, dimensions);
+    }
+
+    /**
+     * Snaps a coordinate that exceeds its limit only by a rounding error back to the limit.
+     * 
+     * @param value the coordinate, in degrees
+     * @param limit the largest absolute value of the coordinate, in degrees
+     * @return the snapped coordinate
+     */
+    private static double snap(double value, double limit) {
+        if (Math.abs(value) > limit && Math.abs(value) <= limit + ROUNDING_TOLERANCE) {
+            return Math.copySign(limit, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the sequences of positions of a GeoJSON object, in the order of its GeoJSON encoding.
+     * 
+     * @param geometry the GeoJSON object
+     * @return the sequences of positions
+     */
+    private static UllGeoJsonPackedPositions[] sequences(UllGeoJsonGeometry geometry) {
+        if (geometry instanceof UllGeoJsonPoint) {
+            final UllGeoJsonPosition position = ((UllGeoJsonPoint) geometry).getPosition();
+            return new UllGeoJsonPackedPositions[] { new UllGeoJsonPackedPositions(List.of(position)) };
+        }
+        if (geometry instanceof UllGeoJsonLineString) {
+            return new UllGeoJsonPackedPositions[] { ((UllGeoJsonLineString) geometry).getPackedPositions() };
+        }
+        if (geometry instanceof UllGeoJsonMultiPoint) {
+            return new UllGeoJsonPackedPositions[] { ((UllGeoJsonMultiPoint) geometry).getPackedPositions() };
+        }
+        if (geometry instanceof UllGeoJsonPolygon) {
+            final UllGeoJsonPolygon polygon = (UllGeoJsonPolygon) geometry;
+            final UllGeoJsonPackedPositions[] rings = new UllGeoJsonPackedPositions[1
+                    + polygon.getInteriorRings().size()];
+            rings[0] = polygon.getExteriorRing().getPackedPositions();
+            int i = 1;
+            for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+                rings[i++] = ring.getPackedPositions();
+            }
+            return rings;
+        }
+        if (geometry instanceof UllGeoJsonMultiLineString) {
+            return ((UllGeoJsonMultiLineString) geometry).getLineStrings().stream()
+                    .map(UllGeoJsonLineString::getPackedPositions).toArray(UllGeoJsonPackedPositions[]::new);
+        }
+        if (geometry instanceof UllGeoJsonMultiPolygon) {
+            return ((UllGeoJsonMultiPolygon) geometry).getPolygons().stream()
+                    .flatMap(polygon -> Arrays.stream(UllGeoJsonProjection.sequences(polygon)))
+                    .toArray(UllGeoJsonPackedPositions[]::new);
+        }
+        if (geometry instanceof UllGeoJsonFeature) {
+            return UllGeoJsonProjection.sequences(((UllGeoJsonFeature) geometry).getGeometry());
+        }
+        if (geometry instanceof UllGeoJsonFeatureCollection) {
+            return ((UllGeoJsonFeatureCollection) geometry).stream()
+                    .flatMap(feature -> Arrays.stream(UllGeoJsonProjection.sequences(feature)))
+                    .toArray(UllGeoJsonPackedPositions[]::new);
+        }
+        throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+    }
+
+    /**
+     * Returns the EPSG code of the projection.
+     * 
+     * @return the EPSG code
+     */
+    @Override
+    public String toString() {
+        return this.getCode();
+    }
+
+    /**
+     * Spherical Web Mercator projection, EPSG:3857.
+     */
+    private static class UllWebMercator extends UllGeoJsonProjection {
+
+        /**
+         * Radius of the sphere, the semi-major axis of WGS84, in meters.
+         */
+        private static final double RADIUS = 6378137.0;
+        /**
+         * Latitude that makes the projected world a square, in degrees.
+         */
+        private static final double MAX_LATITUDE = 85.05112877980659;
+
+        /**
+         * Returns the EPSG code of the projection.
+         * 
+         * @return EPSG:3857
+         */
+        @Override
+        public String getCode() {
+            return "EPSG:3857";
+        }
+
+        /**
+         * Projects a range of interleaved longitudes and latitudes in place.
+         * 
+         * @param coordinates the interleaved coordinates
+         * @param from        the offset of the first position
+         * @param to          the offset after the last position
+         * @param dimensions  the number of coordinates per position
+         */
+        @Override
+        protected void forward(double[] coordinates, int from, int to, int dimensions) {
+            for (int i = from; i < to; i += dimensions) {
+                final double latitude = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, coordinates[i + 1]));
+                final double sinPhi = Math.sin(Math.toRadians(latitude));
+                coordinates[i] = RADIUS * Math.toRadians(coordinates[i]);
+                coordinates[i + 1] = RADIUS / 2 * Math.log((1 + sinPhi) / (1 - sinPhi));
+            }
+        }
+
+        /**
+         * Turns a range of interleaved projected coordinates back into longitudes and latitudes, in place.
+         * 
+         * @param coordinates the interleaved coordinates
+         * @param from        the offset of the first position
+         * @param to          the offset after the last position
+         * @param dimensions  the number of coordinates per position
+         */
+        @Override
+        protected void inverse(double[] coordinates, int from, int to, int dimensions) {
+            for (int i = from; i < to; i += dimensions) {
+                coordinates[i] = Math.toDegrees(coordinates[i] / RADIUS);
+                coordinates[i + 1] = Math.toDegrees(2 * Math.atan(Math.exp(coordinates[i + 1] / RADIUS)) - Math.PI / 2);
+            }
+        }
+    }
+
+    /**
+     * Transverse Mercator projection of a UTM zone on the WGS84 ellipsoid, computed with the Krüger series to the
+     * third order of the third flattening, which is accurate to less than a millimeter within the zone.
+     */
+    private static class UllTransverseMercator extends UllGeoJsonProjection {
+
+        /**
+         * Semi-major axis of WGS84, in meters.
+         */
+        private static final double SEMI_MAJOR_AXIS = 6378137.0;
+        /**
+         * Flattening of WGS84.
+         */
+        private static final double FLATTENING = 1 / 298.257223563;
+        /**
+         * Scale factor on the central meridian.
+         */
+        private static final double SCALE = 0.9996;
+        /**
+         * False easting, in meters.
+         */
+        private static final double FALSE_EASTING = 500000.0;
+        /**
+         * False northing of the southern hemisphere, in meters.
+         */
+        private static final double FALSE_NORTHING_SOUTH = 10000000.0;
+        /**
+         * Third flattening.
+         */
+        private static final double N = FLATTENING / (2 - FLATTENING);
+        /**
+         * First eccentricity.
+         */
+        private static final double ECCENTRICITY = Math.sqrt(FLATTENING * (2 - FLATTENING));
+        /**
+         * Rectifying radius scaled by the scale factor, in meters.
+         */
+        private static final double SCALED_RADIUS = SCALE * SEMI_MAJOR_AXIS / (1 + N)
+                * (1 + N * N / 4 + N * N * N * N / 64);
+        /**
+         * Coefficients of the forward series.
+         */
+        private static final double[] ALPHA = { N / 2 - 2 * N * N / 3 + 5 * N * N * N / 16,
+                13 * N * N / 48 - 3 * N * N * N / 5, 61 * N * N * N / 240 };
+        /**
+         * Coefficients of the inverse series.
+         */
+        private static final double[] BETA = { N / 2 - 2 * N * N / 3 + 37 * N * N * N / 96,
+                N * N / 48 + N * N * N / 15, 17 * N * N * N / 480 };
+        /**
+         * Coefficients of the series from the conformal latitude to the latitude.
+         */
+        private static final double[] DELTA = { 2 * N - 2 * N * N / 3 - 2 * N * N * N,
+                7 * N * N / 3 - 8 * N * N * N / 5, 56 * N * N * N / 15 };
+        /**
+         * Zone of the projection.
+         */
+        private final int zone;
+        /**
+         * Whether the projection is for the northern hemisphere.
+         */
+        private final boolean north;
+        /**
+         * Longitude of the central meridian, in radians.
+         */
+        private final double centralMeridian;
+        /**
+         * False northing of the hemisphere, in meters.
+         */
+        private final double falseNorthing;
+
+        /**
+         * Constructor for the projection of a UTM zone.
+         * 
+         * @param zone  the zone, between 1 and 60
+         * @param north true for the northern hemisphere, false for the southern one
+         */
+        private UllTransverseMercator(int zone, boolean north) {
+            this.zone = zone;
+            this.north = north;
+            this.centralMeridian = Math.toRadians(6 * zone - 183);
+            this.falseNorthing = north ? 0 : FALSE_NORTHING_SOUTH;
+        }
+
+        /**
+         * Returns the EPSG code of the projection.
+         * 
+         * @return EPSG:326xx for the northern hemisphere or EPSG:327xx for the southern one
+         */
+        @Override
+        public String getCode() {
+            return String.format("EPSG:32%d%02d", this.north ? 6 : 7, this.zone);
+        }
+
+        /**
+         * Projects a range of interleaved longitudes and latitudes in place.
+         * 
+         * @param coordinates the interleaved coordinates
+         * @param from        the offset of the first position
+         * @param to          the offset after the last position
+         * @param dimensions  the number of coordinates per position
+         */
+        @Override
+        protected void forward(double[] coordinates, int from, int to, int dimensions) {
+            for (int i = from; i < to; i += dimensions) {
+                final double lambda = Math.toRadians(coordinates[i]) - this.centralMeridian;
+                final double sinLambda = Math.sin(lambda);
+                final double cosLambda = Math.cos(lambda);
+                final double sinPhi = Math.sin(Math.toRadians(coordinates[i + 1]));
+                final double q = atanh(sinPhi) - ECCENTRICITY * atanh(ECCENTRICITY * sinPhi);
+                final double expQ = Math.exp(q);
+                final double t = (expQ - 1 / expQ) / 2;
+                final double norm = Math.sqrt(t * t + cosLambda * cosLambda);
+                final double sinXi = t / norm;
+                final double cosXi = cosLambda / norm;
+                final double ratio = sinLambda / Math.sqrt(1 + t * t);
+                final double exp2 = (1 + ratio) / (1 - ratio);
+                final double sin2 = 2 * sinXi * cosXi;
+                final double cos2 = cosXi * cosXi - sinXi * sinXi;
+                double sin = sin2;
+                double cos = cos2;
+                double exp = exp2;
+                double northing = Math.atan2(t, cosLambda);
+                double easting = Math.log(exp2) / 2;
+                for (int j = 0; j < ALPHA.length; j++) {
+                    final double cosh = (exp + 1 / exp) / 2;
+                    final double sinh = (exp - 1 / exp) / 2;
+                    northing += ALPHA[j] * sin * cosh;
+                    easting += ALPHA[j] * cos * sinh;
+                    final double nextSin = sin * cos2 + cos * sin2;
+                    cos = cos * cos2 - sin * sin2;
+                    sin = nextSin;
+                    exp *= exp2;
+                }
+                coordinates[i] = FALSE_EASTING + SCALED_RADIUS * easting;
+                coordinates[i + 1] = this.falseNorthing + SCALED_RADIUS * northing;
+            }
+        }
+
+        /**
+         * Turns a range of interleaved projected coordinates back into longitudes and latitudes, in place.
+         * 
+         * @param coordinates the interleaved coordinates
+         * @param from        the offset of the first position
+         * @param to          the offset after the last position
+         * @param dimensions  the number of coordinates per position
+         */
+        @Override
+        protected void inverse(double[] coordinates, int from, int to, int dimensions) {
+            for (int i = from; i < to; i += dimensions) {
+                final double xi = (coordinates[i + 1] - this.falseNorthing) / SCALED_RADIUS;
+                final double eta = (coordinates[i] - FALSE_EASTING) / SCALED_RADIUS;
+                final double sin2 = Math.sin(2 * xi);
+                final double cos2 = Math.cos(2 * xi);
+                final double exp2 = Math.exp(2 * eta);
+                double sin = sin2;
+                double cos = cos2;
+                double exp = exp2;
+                double xiPrime = xi;
+                double etaPrime = eta;
+                for (int j = 0; j < BETA.length; j++) {
+                    final double cosh = (exp + 1 / exp) / 2;
+                    final double sinh = (exp - 1 / exp) / 2;
+                    xiPrime -= BETA[j] * sin * cosh;
+                    etaPrime -= BETA[j] * cos * sinh;
+                    final double nextSin = sin * cos2 + cos * sin2;
+                    cos = cos * cos2 - sin * sin2;
+                    sin = nextSin;
+                    exp *= exp2;
+                }
+                final double expEta = Math.exp(etaPrime);
+                final double sinhEta = (expEta - 1 / expEta) / 2;
+                final double coshEta = (expEta + 1 / expEta) / 2;
+                final double cosXi = Math.cos(xiPrime);
+                final double sinChi = Math.sin(xiPrime) / coshEta;
+                final double cosChi = Math.sqrt(1 - sinChi * sinChi);
+                final double sinChi2 = 2 * sinChi * cosChi;
+                final double cosChi2 = cosChi * cosChi - sinChi * sinChi;
+                sin = sinChi2;
+                cos = cosChi2;
+                double phi = Math.atan2(sinChi, cosChi);
+                for (int j = 0; j < DELTA.length; j++) {
+                    phi += DELTA[j] * sin;
+                    final double nextSin = sin * cosChi2 + cos * sinChi2;
+                    cos = cos * cosChi2 - sin * sinChi2;
+                    sin = nextSin;
+                }
+                coordinates[i] = Math.toDegrees(this.centralMeridian + Math.atan2(sinhEta, cosXi));
+                coordinates[i + 1] = Math.toDegrees(phi);
+            }
+        }
+
+        /**
+         * Returns the inverse hyperbolic tangent of a value.
+         * 
+         * @param value the value
+         * @return the inverse hyperbolic tangent
+         */
+        private static double atanh(double value) {
+            return 0.5 * Math.log((1 + value) / (1 - value));
+        }
+    }
+}
@@ -0,0 +1,630 @@
+package es.ull.utils.geojson.operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import es.ull.utils.geojson.UllGeoJsonBoundingBox;
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geolocation.UllHaversine;
+
+/**
+ * Line simplification with the Douglas-Peucker or the Visvalingam-Whyatt algorithm. Both run iteratively over the
+ * packed positions of a line, with a few primitive arrays per line and no allocation per vertex, and return new
+ * geometries without modifying the original ones.
+ * 
+ * With Douglas-Peucker, a vertex is kept when it is farther than the tolerance from the simplified line. With
+ * Visvalingam-Whyatt, the vertex that forms the smallest triangle with its neighbors is removed while that triangle is
+ * smaller than the square of the tolerance. Tolerances in meters are applied on an equirectangular projection centered
+ * on the latitude of every line, which is accurate for lines that do not span large latitude ranges.
+ * 
+ * The first and last positions of every line are always kept, so rings stay closed, and rings keep at least four
+ * positions. Simplifiers are immutable and can be shared between threads.
+ */
+public class UllGeoJsonSimplifier {
+
+    public static final String ERROR_ALGORITHM_UNDEFINED = "The algorithm is not defined";
+    public static final String ERROR_UNIT_UNDEFINED = "The unit is not defined";
+    public static final String ERROR_TOLERANCE = "The tolerance must be a non-negative number";
+    public static final String ERROR_GEOMETRY_UNDEFINED = "The geometry is not defined";
+    /**
+     * Meters of an arc of one degree on the mean Earth radius.
+     */
+    private static final double METERS_PER_DEGREE = UllHaversine.EARTH_RADIUS * Math.PI / 180;
+
+    /**
+     * Simplification algorithms.
+     */
+    public enum UllAlgorithm {
+        DOUGLAS_PEUCKER,
+        VISVALINGAM_WHYATT
+    }
+
+    /**
+     * Units of the tolerance.
+     */
+    public enum UllUnit {
+        DEGREES,
+        METERS
+    }
+
+    private final UllAlgorithm algorithm;
+    private final double tolerance;
+    private final UllUnit unit;
+
+    /**
+     * Constructor for a simplifier.
+     * 
+     * @param algorithm the algorithm
+     * @param tolerance the tolerance, in the given unit
+     * @param unit      the unit of the tolerance
+     * @throws IllegalArgumentException if an argument is null or the tolerance is negative
+     */
+    public UllGeoJsonSimplifier(UllAlgorithm algorithm, double tolerance, UllUnit unit) {
+        if (algorithm == null) {
+            throw new IllegalArgumentException(ERROR_ALGORITHM_UNDEFINED);
+        }
+        if (!(tolerance >= 0) || Double.isInfinite(tolerance)) {
+            throw new IllegalArgumentException(ERROR_TOLERANCE);
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException(ERROR_UNIT_UNDEFINED);
+        }
+        this.algorithm = algorithm;
+        this.tolerance = tolerance;
+        this.unit = unit;
+    }
+
+    /**
+     * Returns the algorithm.
+     * 
+     * @return the algorithm
+     */
+    public UllAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * Returns the tolerance.
+     * 
+     * @return the tolerance, in the unit of the simplifier
+     */
+    public double getTolerance() {
+        return this.tolerance;
+    }
+
+    /**
+     * Returns the unit of the tolerance.
+     * 
+     * @return the unit
+     */
+    public UllUnit getUnit() {
+        return this.unit;
+    }
+
+    /**
+     * Simplifies any geometry. Features keep their ID and properties, and geometries without lines, such as points,
+     * are returned unchanged.
+     * 
+     * @param geometry the geometry
+     * @return the simplified geometry
+     * @throws IllegalArgumentException if the geometry is null
+     */
+    public UllGeoJsonGeometry simplify(UllGeoJsonGeometry geometry) {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (geometry instanceof UllGeoJsonLineString) {
+            return this.simplify((UllGeoJsonLineString) geometry);
+        }
+        if (geometry instanceof UllGeoJsonPolygon) {
+            return this.simplify((UllGeoJsonPolygon) geometry);
+        }
+        if (geometry instanceof UllGeoJsonMultiLineString) {
+            return this.simplify((UllGeoJsonMultiLineString) geometry);
+        }
+        if (geometry instanceof UllGeoJsonMultiPolygon) {
+            return this.simplify((UllGeoJsonMultiPolygon) geometry);
+        }
+        if (geometry instanceof UllGeoJsonFeature) {
+            final UllGeoJsonFeature feature = (UllGeoJsonFeature) geometry;
+            return feature.withGeometry(this.simplify(feature.getGeometry()));
+        }
+        if (geometry instanceof UllGeoJsonFeatureCollection) {
+            return ((UllGeoJsonFeatureCollection) geometry).simplify(this);
+        }
+        return geometry;
+    }
+
+    /**
+     * Simplifies a LineString. LinearRings are simplified as rings.
+     * 
+     * @param lineString the LineString
+     * @return the simplified LineString, with at least its first and last positions
+     * @throws IllegalArgumentException if the LineString is null
+     */
+    public UllGeoJsonLineString simplify(UllGeoJsonLineString lineString) {
+        if (lineString == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (lineString instanceof UllGeoJsonLinearRing) {
+            return this.simplify((UllGeoJsonLinearRing) lineString);
+        }
+        return new UllGeoJsonLineString(this.simplify(lineString.getPackedPositions(), false));
+    }
+
+    /**
+     * Simplifies a LinearRing.
+     * 
+     * @param ring the LinearRing
+     * @return the simplified LinearRing, closed and with at least four positions
+     * @throws IllegalArgumentException if the LinearRing is null
+     */
+    public UllGeoJsonLinearRing simplify(UllGeoJsonLinearRing ring) {
+        if (ring == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        return new UllGeoJsonLinearRing(this.simplify(ring.getPackedPositions(), true));
+    }
+
+    /**
+     * Simplifies a polygon, its exterior ring and every interior ring independently.
+     * 
+     * @param polygon the polygon
+     * @return the simplified polygon
+     * @throws IllegalArgumentException if the polygon is null
+     */
+    public UllGeoJsonPolygon simplify(UllGeoJsonPolygon polygon) {
+        if (polygon == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        final UllGeoJsonPolygon simplified = new UllGeoJsonPolygon(this.simplify(polygon.getExteriorRing()));
+        for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+            simplified.addInteriorRing(this.simplify(ring));
+        }
+        return simplified;
+    }
+
+    /**
+     * Simplifies every LineString of a MultiLineString.
+     * 
+     * @param multiLineString the MultiLineString
+     * @return the simplified MultiLineString
+     * @throws IllegalArgumentException if the MultiLineString is null
+     */
+    public UllGeoJsonMultiLineString simplify(UllGeoJsonMultiLineString multiLineString) {
+        if (multiLineString == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        final List<UllGeoJsonLineString> lineStrings = new ArrayList<>(multiLineString.getNumberOfLineStrings());
+        for (UllGeoJsonLineString lineString : multiLineString.getLineStrings()) {
+            lineStrings.add(this.simplify(lineString));
+        }
+        return new UllGeoJsonMultiLineString(lineStrings);
+    }
+
+    /**
+     * Simplifies every polygon of a MultiPolygon.
+     * 
+     * @param multiPolygon the MultiPolygon
+     * @return the simplified MultiPolygon
+     * @throws IllegalArgumentException if the MultiPolygon is null
+     */
+    public UllGeoJsonMultiPolygon simplify(UllGeoJsonMultiPolygon multiPolygon) {
+        if (multiPolygon == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        final List<UllGeoJsonPolygon> polygons = new ArrayList<>(multiPolygon.getNumberOfPolygons());
+        for (UllGeoJsonPolygon polygon : multiPolygon.getPolygons()) {
+            polygons.add(this.simplify(polygon));
+        }
+        return new UllGeoJsonMultiPolygon(polygons);
+    }
+
+    /**
+     * Simplifies a sequence of positions.
+     * 
+     * @param positions the positions
+     * @param ring      whether the positions form a closed ring, which must keep at least four positions
+     * @return the kept positions, or the same sequence if no position is removed
+     * @throws IllegalArgumentException if the positions are null
+     */
+    public UllGeoJsonPackedPositions simplify(UllGeoJsonPackedPositions positions, boolean ring) {
+        if (positions == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        final int size = positions.size();
+        final int minimum = ring ? UllGeoJsonLinearRing.MINIMUM_NUMBER_OF_POSITIONS : 2;
+        if (size <= minimum) {
+            return positions;
+        }
+        final double scaleY = this.unit == UllUnit.METERS ? METERS_PER_DEGREE : 1;
+        double scaleX = scaleY;
+        if (this.unit == UllUnit.METERS) {
+            final UllGeoJsonBoundingBox box = UllGeoJsonBoundingBox.of(positions);
+            scaleX *= Math.cos(Math.toRadians((box.getMinLatitude() + box.getMaxLatitude()) / 2));
+        }
+        final UllLine line = new UllLine(positions, scaleX, scaleY);
+        final boolean[] kept = this.algorithm == UllAlgorithm.DOUGLAS_PEUCKER
+                ? this.douglasPeucker(line, ring)
+                : this.visvalingamWhyatt(line, minimum);
+        return UllGeoJsonSimplifier.keep(positions, kept);
+    }
+
+    /**
+     * Marks the vertices kept by the Douglas-Peucker algorithm, with an explicit stack of ranges instead of recursion.
+     * A ring is first split at the vertex farthest from its first vertex, since its first and last vertices coincide.
+     * 
+     * @param line the line
+     * @param ring whether the line is a closed ring
+     * @return the kept vertices
+     */
+    private boolean[] douglasPeucker(UllLine line, boolean ring) {
+        final int size = line.size;
+        final boolean[] kept = new boolean[size];
+        final int[] stack = new int[2 * size];
+        int top = 0;
+        kept[0] = true;
+        kept[size - 1] = true;
+        int split = size - 1;
+        if (ring) {
+            double farthest = -1;
+            for (int i = 1; i < size - 1; i++) {
+                final double distance = line.squaredDistance(0, i);
+                if (distance > farthest) {
+                    farthest = distance;
+                    split = i;
+                }
+            }
+            kept[split] = true;
+            stack[top++] = split;
+            stack[top++] = size - 1;
+        }
+        stack[top++] = 0;
+        stack[top++] = split;
+        final double limit = this.tolerance * this.tolerance;
+        while (top > 0) {
+            final int last = stack[--top];
+            final int first = stack[--top];
+            int index = -1;
+            double farthest = limit;
+            for (int i = first + 1; i < last; i++) {
+                final double distance = line.squaredSegmentDistance(i, first, last);
+                if (distance > farthest) {
+                    farthest = distance;
+                    index = i;
+                }
+            }
+            if (index >= 0) {
+                kept[index] = true;
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+        if (ring && UllGeoJsonSimplifier.count(kept) < UllGeoJsonLinearRing.MINIMUM_NUMBER_OF_POSITIONS) {
+            int index = -1;
+            double farthest = -1;
+            for (int i = 1; i < size - 1; i++) {
+                if (!kept[i]) {
+                    final double distance = line.squaredSegmentDistance(i, 0, split);
+                    if (distance > farthest) {
+                        farthest = distance;
+                        index = i;
+                    }
+                }
+            }
+            kept[index] = true;
+        }
+        return kept;
+    }
+
+    /**
+     * Marks the vertices kept by the Visvalingam-Whyatt algorithm. The vertices are linked in a doubly-linked list over
+     * arrays, and a binary heap over the same arrays gives the vertex with the smallest effective area. The area of a
+     * vertex never drops below the one of a vertex removed before it, so removals follow the order of significance.
+     * 
+     * @param line    the line
+     * @param minimum the minimum number of vertices to keep
+     * @return the kept vertices
+     */
+    private boolean[] visvalingamWhyatt(UllLine line, int minimum) {
+        final int size = line.size;
+        final int[] previous = new int[size];
+        final int[] next = new int[size];
+        final double[] areas = new double[size];
+        final UllAreaHeap heap = new UllAreaHeap(areas, size);
+        for (int i = 0; i < size; i++) {
+            previous[i] = i - 1;
+            next[i] = i + 1;
+        }
+        for (int i = 1; i < size - 1; i++) {
+            areas[i] = line.area(i - 1, i, i + 1);
+            heap.add(i);
+        }
+        final double limit = this.tolerance * this.tolerance;
+        final boolean[] kept = new boolean[size];
+        Arrays.fill(kept, true);
+        int remaining = size;
+        while (remaining > minimum && !heap.isEmpty() && areas[heap.peek()] < limit) {
+            final int vertex = heap.poll();
+            final double area = areas[vertex];
+            final int before = previous[vertex];
+            final int after = next[vertex];
+            next[before] = after;
+            previous[after] = before;
+            kept[vertex] = false;
+            remaining--;
+            if (before > 0) {
+                areas[before] = Math.max(area, line.area(previous[before], before, after));
+                heap.update(before);
+            }
+            if (after < size - 1) {
+                areas[after] = Math.max(area, line.area(before, after, next[after]));
+                heap.update(after);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Copies the kept positions of a sequence.
+     * 
+     * @param positions the positions
+     * @param kept      the kept vertices
+     * @return the kept positions, or the same sequence if all are kept
+     */
+    private static UllGeoJsonPackedPositions keep(UllGeoJsonPackedPositions positions, boolean[] kept) {
+        final int count = UllGeoJsonSimplifier.count(kept);
+        if (count == positions.size()) {
+            return positions;
+        }
+        final int dimensions = positions.getDimensions();
+        final double[] coordinates = new double[count * dimensions];
+        int offset = 0;
+        for (int i = 0; i < kept.length; i++) {
+            if (kept[i]) {
+                coordinates[offset] = positions.getLongitude(i);
+                coordinates[offset + 1] = positions.getLatitude(i);
+                if (dimensions == UllGeoJsonPackedPositions.DIMENSIONS_3D) {
+                    coordinates[offset + 2] = positions.getAltitude(i);
+                }
+                offset += dimensions;
+            }
+        }
+        return UllGeoJsonPackedPositions.wrap(coordinates, dimensions);
+    }
+
+    /**
+     * Counts the kept vertices.
+     * 
+     * @param kept the kept vertices
+     * @return the number of kept vertices
+     */
+    private static int count(boolean[] kept) {
+        int count = 0;
+        for (boolean value : kept) {
+            if (value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Line projected on a plane, read from the packed positions on demand.
+     */
+    private static final class UllLine {
+
+        private final UllGeoJsonPackedPositions positions;
+        private final double scaleX;
+        private final double scaleY;
+        private final int size;
+
+        /**
+         * Constructor for a projected line.
+         * 
+         * @param positions the positions
+         * @param scaleX    the factor of the longitudes
+         * @param scaleY    the factor of the latitudes
+         */
+        UllLine(UllGeoJsonPackedPositions positions, double scaleX, double scaleY) {
+            this.positions = positions;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.size = positions.size();
+        }
+
+        /**
+         * Returns the squared distance between two vertices.
+         * 
+         * @param i the first vertex
+         * @param j the second vertex
+         * @return the squared distance
+         */
+        double squaredDistance(int i, int j) {
+            final double dx = (this.positions.getLongitude(j) - this.positions.getLongitude(i)) * this.scaleX;
+            final double dy = (this.positions.getLatitude(j) - this.positions.getLatitude(i)) * this.scaleY;
+            return dx * dx + dy * dy;
+        }
+
+        /**
+         * Returns the squared distance from a vertex to the segment between two others.
+         * 
+         * @param i     the vertex
+         * @param first the start of the segment
+         * @param last  the end of the segment
+         * @return the squared distance
+         */
+        double squaredSegmentDistance(int i, int first, int last) {
+            final double x0 = this.positions.getLongitude(first);
+            final double y0 = this.positions.getLatitude(first);
+            final double dx = (this.positions.getLongitude(last) - x0) * this.scaleX;
+            final double dy = (this.positions.getLatitude(last) - y0) * this.scaleY;
+            final double px = (this.positions.getLongitude(i) - x0) * this.scaleX;
+            final double py = (this.positions.getLatitude(i) - y0) * this.scaleY;
+            final double length = dx * dx + dy * dy;
+            double t = length > 0 ? (px * dx + py * dy) / length : 0;
+            t = Math.max(0, Math.min(1, t));
+            final double ex = px - t * dx;
+            final double ey = py - t * dy;
+            return ex * ex + ey * ey;
+        }
+
+        /**
+         * Returns the area of the triangle formed by three vertices.
+         * 
+         * @param a the first vertex
+         * @param b the second vertex
+         * @param c the third vertex
+         * @return the area
+         */
+        double area(int a, int b, int c) {
+            final double ax = this.positions.getLongitude(a);
+            final double ay = this.positions.getLatitude(a);
+            final double bx = (this.positions.getLongitude(b) - ax) * this.scaleX;
+            final double by = (this.positions.getLatitude(b) - ay) * this.scaleY;
+            final double cx = (this.positions.getLongitude(c) - ax) * this.scaleX;
+            final double cy = (this.positions.getLatitude(c) - ay) * this.scaleY;
+            return Math.abs(bx * cy - by * cx) / 2;
+        }
+    }
+
+    /**
+     * Binary min-heap of vertices keyed by their areas, which tracks the position of every vertex to update it.
+     */
+    private static final class UllAreaHeap {
+
+        private final double[] areas;
+        private final int[] heap;
+        private final int[] positions;
+        private int size;
+
+        /**
+         * Constructor for an empty heap.
+         * 
+         * @param areas    the areas of the vertices
+         * @param capacity the number of vertices
+         */
+        UllAreaHeap(double[] areas, int capacity) {
+            this.areas = areas;
+            this.heap = new int[capacity];
+            this.positions = new int[capacity];
+        }
+
+        /**
+         * Checks if the heap is empty.
+         * 
+         * @return true if the heap is empty, false otherwise
+         */
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        /**
+         * Returns the vertex with the smallest area.
+         * 
+         * @return the vertex
+         */
+        int peek() {
+            return this.heap[0];
+        }
+
+        /**
+         * Adds a vertex.
+         * 
+         * @param vertex the vertex
+         */
+        void add(int vertex) {
+            this.heap[this.size] = vertex;
+            this.positions[vertex] = this.size;
+            this.siftUp(this.size++);
+        }
+
+        /**
+         * Removes the vertex with the smallest area.
+         * 
+         * @return the vertex
+         */
+        int poll() {
+            final int vertex = this.heap[0];
+            this.size--;
+            if (this.size > 0) {
+                this.heap[0] = this.heap[this.size];
+                this.positions[this.heap[0]] = 0;
+                this.siftDown(0);
+            }
+            return vertex;
+        }
+
+        /**
+         * Restores the order of the heap after the area of a vertex has changed.
+         * 
+         * @param vertex the vertex
+         */
+        void update(int vertex) {
+            this.siftDown(this.siftUp(this.positions[vertex]));
+        }
+
+        /**
+         * Moves up the vertex at a position while it is smaller than its parent.
+         * 
+         * @param position the position
+         * @return the final position of the vertex
+         */
+        private int siftUp(int position) {
+            final int vertex = this.heap[position];
+            while (position > 0) {
+                final int parent = (position - 1) >>> 1;
+                if (this.areas[this.heap[parent]] <= this.areas[vertex]) {
+                    break;
+                }
+                this.place(this.heap[parent], position);
+                position = parent;
+            }
+            this.place(vertex, position);
+            return position;
+        }
+
+        /**
+         * Moves down the vertex at a position while it is larger than its smallest child.
+         * 
+         * @param position the position
+         */
+        private void siftDown(int position) {
+            final int vertex = this.heap[position];
+            while (2 * position + 1 < this.size) {
+                int child = 2 * position + 1;
+                if (child + 1 < this.size && this.areas[this.heap[child + 1]] < this.areas[this.heap[child]]) {
+                    child++;
+                }
+                if (this.areas[this.heap[child]] >= this.areas[vertex]) {
+                    break;
+                }
+                this.place(this.heap[child], position);
+                position = child;
+            }
+            this.place(vertex, position);
+        }
+
+        /**
+         * Places a vertex at a position.
+         * 
+         * @param vertex   the vertex
+         * @param position the position
+         */
+        private void place(int vertex, int position) {
+            this.heap[position] = vertex;
+            this.positions[vertex] = position;
+        }
+    }
+}
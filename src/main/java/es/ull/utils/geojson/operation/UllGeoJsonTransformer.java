@@ -0,0 +1,141 @@
+package es.ull.utils.geojson.operation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Applies a {@link UllGeoJsonCoordinateTransform} to GeoJSON objects. Every sequence of positions is copied once into
+ * an interleaved array, transformed in place and wrapped by the new geometry, so no position objects are created.
+ */
+public class UllGeoJsonTransformer {
+
+    public static final String ERROR_GEOMETRY_UNDEFINED = "The geometry is not defined";
+    public static final String ERROR_TRANSFORM_UNDEFINED = "The transform is not defined";
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoJsonTransformer() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Transforms the coordinates of any GeoJSON object. Features keep their ID and properties, and the features of a
+     * collection are transformed in parallel for large collections.
+     * 
+     * @param geometry  the GeoJSON object
+     * @param transform the transform
+     * @return a new object with the transformed coordinates
+     * @throws IllegalArgumentException if an argument is null or a transformed coordinate is not valid
+     */
+    public static UllGeoJsonGeometry transform(UllGeoJsonGeometry geometry, UllGeoJsonCoordinateTransform transform) {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (transform == null) {
+            throw new IllegalArgumentException(ERROR_TRANSFORM_UNDEFINED);
+        }
+        if (geometry instanceof UllGeoJsonPoint) {
+            final UllGeoJsonPosition position = ((UllGeoJsonPoint) geometry).getPosition();
+            final double[] coordinates = position.hasAltitude()
+                    ? new double[] { position.getLongitude(), position.getLatitude(), position.getAltitude() }
+                    : new double[] { position.getLongitude(), position.getLatitude() };
+            transform.transform(coordinates, coordinates.length);
+            return new UllGeoJsonPoint(UllGeoJsonPackedPositions.wrap(coordinates, coordinates.length).get(0));
+        }
+        if (geometry instanceof UllGeoJsonLinearRing) {
+            return new UllGeoJsonLinearRing(
+                    UllGeoJsonTransformer.transform(((UllGeoJsonLinearRing) geometry).getPackedPositions(), transform));
+        }
+        if (geometry instanceof UllGeoJsonLineString) {
+            return new UllGeoJsonLineString(
+                    UllGeoJsonTransformer.transform(((UllGeoJsonLineString) geometry).getPackedPositions(), transform));
+        }
+        if (geometry instanceof UllGeoJsonMultiPoint) {
+            return new UllGeoJsonMultiPoint(
+                    UllGeoJsonTransformer.transform(((UllGeoJsonMultiPoint) geometry).getPackedPositions(), transform));
+        }
+        if (geometry instanceof UllGeoJsonPolygon) {
+            return UllGeoJsonTransformer.transform((UllGeoJsonPolygon) geometry, transform);
+        }
+        if (geometry instanceof UllGeoJsonMultiLineString) {
+            final List<UllGeoJsonLineString> lineStrings = ((UllGeoJsonMultiLineString) geometry).getLineStrings();
+            final List<UllGeoJsonLineString> transformed = new ArrayList<>(lineStrings.size());
+            for (UllGeoJsonLineString lineString : lineStrings) {
+                transformed.add(new UllGeoJsonLineString(
+                        UllGeoJsonTransformer.transform(lineString.getPackedPositions(), transform)));
+            }
+            return new UllGeoJsonMultiLineString(transformed);
+        }
+        if (geometry instanceof UllGeoJsonMultiPolygon) {
+            final List<UllGeoJsonPolygon> polygons = ((UllGeoJsonMultiPolygon) geometry).getPolygons();
+            final List<UllGeoJsonPolygon> transformed = new ArrayList<>(polygons.size());
+            for (UllGeoJsonPolygon polygon : polygons) {
+                transformed.add(UllGeoJsonTransformer.transform(polygon, transform));
+            }
+            return new UllGeoJsonMultiPolygon(transformed);
+        }
+        if (geometry instanceof UllGeoJsonFeature) {
+            final UllGeoJsonFeature feature = (UllGeoJsonFeature) geometry;
+            return feature.withGeometry(UllGeoJsonTransformer.transform(feature.getGeometry(), transform));
+        }
+        if (geometry instanceof UllGeoJsonFeatureCollection) {
+            return ((UllGeoJsonFeatureCollection) geometry).reproject(transform);
+        }
+        throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+    }
+
+    /**
+     * Transforms the rings of a polygon.
+     * 
+     * @param polygon   the polygon
+     * @param transform the transform
+     * @return the transformed polygon
+     */
+    private static UllGeoJsonPolygon transform(UllGeoJsonPolygon polygon, UllGeoJsonCoordinateTransform transform) {
+        final UllGeoJsonPolygon transformed = new UllGeoJsonPolygon(new UllGeoJsonLinearRing(
+                UllGeoJsonTransformer.transform(polygon.getExteriorRing().getPackedPositions(), transform)));
+        for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+            transformed.addInteriorRing(
+                    new UllGeoJsonLinearRing(UllGeoJsonTransformer.transform(ring.getPackedPositions(), transform)));
+        }
+        return transformed;
+    }
+
+    /**
+     * Transforms a sequence of positions.
+     * 
+     * @param positions the positions
+     * @param transform the transform
+     * @return the transformed positions, backed by a new array
+     * @throws IllegalArgumentException if an argument is null or a transformed coordinate is not valid
+     */
+    public static UllGeoJsonPackedPositions transform(UllGeoJsonPackedPositions positions,
+            UllGeoJsonCoordinateTransform transform) {
+        if (positions == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (transform == null) {
+            throw new IllegalArgumentException(ERROR_TRANSFORM_UNDEFINED);
+        }
+        final double[] coordinates = positions.toArray();
+        transform.transform(coordinates, positions.getDimensions());
+        return UllGeoJsonPackedPositions.wrap(coordinates, positions.getDimensions());
+    }
+}
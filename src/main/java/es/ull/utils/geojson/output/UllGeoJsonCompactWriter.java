@@ -0,0 +1,371 @@
+package es.ull.utils.geojson.output;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Writer of geometries in a compact binary format in the style of geobuf and encoded polylines. Coordinates are
+ * quantized to a number of decimal digits, every coordinate is written as the difference with the same coordinate of
+ * the previous position, and the differences are written as zigzag variable-length integers, so that nearby positions
+ * take one or two bytes per coordinate. The closing position of a ring is not written.
+ * 
+ * A geometry starts with its tag, which holds the WKB type code and whether it has altitude, and the precision, so
+ * that {@link es.ull.utils.geojson.input.UllGeoJsonCompactReader} needs no configuration. A missing altitude is written
+ * as {@link UllGeoJsonPosition#ALTITUDE_NOT_DEFINED}, which is read back as a missing altitude.
+ */
+public class UllGeoJsonCompactWriter {
+
+    public static final String ERROR_GEOMETRY_UNDEFINED = "Geometry is undefined";
+    public static final String ERROR_BUFFER_UNDEFINED = "Buffer is undefined";
+    public static final String ERROR_PRECISION = "The precision must be between 0 and " + UllGeoJsonCompactWriter.MAX_PRECISION + " decimal digits";
+    public static final String ERROR_COORDINATE_RANGE = "The coordinate cannot be quantized with the given precision";
+    public static final String ERROR_TYPE_NOT_SUPPORTED = "Only Point, LineString, Polygon, MultiPoint, MultiLineString and MultiPolygon have a compact form";
+    /**
+     * Default number of decimal digits, about 0.1 m in longitude and latitude.
+     */
+    public static final int DEFAULT_PRECISION = 6;
+    public static final int MAX_PRECISION = 9;
+    /**
+     * Largest quantized coordinate, so that quantized values and their differences are exact.
+     */
+    private static final double MAX_QUANTIZED = 1L << 53;
+    /**
+     * Maximum number of bytes of a variable-length long.
+     */
+    private static final int MAX_VARINT_BYTES = 10;
+    /**
+     * Powers of ten used as scale for every precision.
+     */
+    private static final double[] SCALES = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9 };
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoJsonCompactWriter() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Returns the compact form of a geometry with the default precision.
+     * 
+     * @param geometry the geometry
+     * @return the compact form
+     * @throws IllegalArgumentException if the geometry is null or has no compact form
+     */
+    public static byte[] toBytes(UllGeoJsonGeometry geometry) {
+        return UllGeoJsonCompactWriter.toBytes(geometry, DEFAULT_PRECISION);
+    }
+
+    /**
+     * Returns the compact form of a geometry.
+     * 
+     * @param geometry  the geometry
+     * @param precision the number of decimal digits kept of every coordinate
+     * @return the compact form
+     * @throws IllegalArgumentException if the geometry is null or has no compact form, or the precision is not valid
+     */
+    public static byte[] toBytes(UllGeoJsonGeometry geometry, int precision) {
+        final ByteBuffer buffer = ByteBuffer.allocate(UllGeoJsonCompactWriter.maxSize(geometry));
+        UllGeoJsonCompactWriter.write(geometry, precision, buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Returns an upper bound of the number of bytes of the compact form of a geometry, so that a buffer large enough
+     * can be allocated.
+     * 
+     * @param geometry the geometry
+     * @return the maximum number of bytes
+     * @throws IllegalArgumentException if the geometry is null or has no compact form
+     */
+    public static int maxSize(UllGeoJsonGeometry geometry) {
+        final UllCounter counter = new UllCounter();
+        UllGeoJsonCompactWriter.write(geometry, counter);
+        return counter.varints * MAX_VARINT_BYTES;
+    }
+
+    /**
+     * Writes the compact form of a geometry to a buffer, starting at its position, which is advanced past the
+     * geometry.
+     * 
+     * @param geometry  the geometry
+     * @param precision the number of decimal digits kept of every coordinate
+     * @param buffer    the buffer
+     * @return the buffer
+     * @throws IllegalArgumentException         if an argument is null, the geometry has no compact form, or the
+     *                                          precision is not valid
+     * @throws java.nio.BufferOverflowException if the buffer has not enough bytes remaining, which never happens with
+     *                                          {@link #maxSize(UllGeoJsonGeometry)} bytes
+     */
+    public static ByteBuffer write(UllGeoJsonGeometry geometry, int precision, ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException(ERROR_BUFFER_UNDEFINED);
+        }
+        if (precision < 0 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(ERROR_PRECISION);
+        }
+        UllGeoJsonCompactWriter.write(geometry, new UllEncoder(buffer, precision));
+        return buffer;
+    }
+
+    /**
+     * Writes a geometry to a sink of variable-length integers.
+     * 
+     * @param geometry the geometry
+     * @param sink     the sink
+     */
+    private static void write(UllGeoJsonGeometry geometry, UllSink sink) {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (geometry instanceof UllGeoJsonPoint) {
+            final UllGeoJsonPosition position = ((UllGeoJsonPoint) geometry).getPosition();
+            final int dimensions = position.hasAltitude() ? UllGeoJsonPackedPositions.DIMENSIONS_3D
+                    : UllGeoJsonPackedPositions.DIMENSIONS_2D;
+            sink.header(UllGeoJsonWkbWriter.WKB_POINT, dimensions);
+            sink.coordinate(0, position.getLongitude());
+            sink.coordinate(1, position.getLatitude());
+            if (dimensions == UllGeoJsonPackedPositions.DIMENSIONS_3D) {
+                sink.coordinate(2, position.getAltitude());
+            }
+        } else if (geometry instanceof UllGeoJsonLineString) {
+            final UllGeoJsonPackedPositions positions = ((UllGeoJsonLineString) geometry).getPackedPositions();
+            sink.header(UllGeoJsonWkbWriter.WKB_LINE_STRING, positions.getDimensions());
+            UllGeoJsonCompactWriter.writePositions(positions, positions.getDimensions(), false, sink);
+        } else if (geometry instanceof UllGeoJsonMultiPoint) {
+            final UllGeoJsonPackedPositions positions = ((UllGeoJsonMultiPoint) geometry).getPackedPositions();
+            sink.header(UllGeoJsonWkbWriter.WKB_MULTI_POINT, positions.getDimensions());
+            UllGeoJsonCompactWriter.writePositions(positions, positions.getDimensions(), false, sink);
+        } else if (geometry instanceof UllGeoJsonPolygon) {
+            final UllGeoJsonPolygon polygon = (UllGeoJsonPolygon) geometry;
+            final int dimensions = UllGeoJsonCompactWriter.dimensions(polygon);
+            sink.header(UllGeoJsonWkbWriter.WKB_POLYGON, dimensions);
+            UllGeoJsonCompactWriter.writePolygon(polygon, dimensions, sink);
+        } else if (geometry instanceof UllGeoJsonMultiLineString) {
+            final List<UllGeoJsonLineString> lineStrings = ((UllGeoJsonMultiLineString) geometry).getLineStrings();
+            int dimensions = UllGeoJsonPackedPositions.DIMENSIONS_2D;
+            for (UllGeoJsonLineString lineString : lineStrings) {
+                dimensions = Math.max(dimensions, lineString.getPackedPositions().getDimensions());
+            }
+            sink.header(UllGeoJsonWkbWriter.WKB_MULTI_LINE_STRING, dimensions);
+            sink.count(lineStrings.size());
+            for (UllGeoJsonLineString lineString : lineStrings) {
+                UllGeoJsonCompactWriter.writePositions(lineString.getPackedPositions(), dimensions, false, sink);
+            }
+        } else if (geometry instanceof UllGeoJsonMultiPolygon) {
+            final List<UllGeoJsonPolygon> polygons = ((UllGeoJsonMultiPolygon) geometry).getPolygons();
+            int dimensions = UllGeoJsonPackedPositions.DIMENSIONS_2D;
+            for (UllGeoJsonPolygon polygon : polygons) {
+                dimensions = Math.max(dimensions, UllGeoJsonCompactWriter.dimensions(polygon));
+            }
+            sink.header(UllGeoJsonWkbWriter.WKB_MULTI_POLYGON, dimensions);
+            sink.count(polygons.size());
+            for (UllGeoJsonPolygon polygon : polygons) {
+                UllGeoJsonCompactWriter.writePolygon(polygon, dimensions, sink);
+            }
+        } else {
+            throw new IllegalArgumentException(ERROR_TYPE_NOT_SUPPORTED);
+        }
+    }
+
+    /**
+     * Returns the number of coordinates per position of a polygon: three if any of its rings has altitude, two
+     * otherwise.
+     * 
+     * @param polygon the polygon
+     * @return the number of coordinates per position
+     */
+    private static int dimensions(UllGeoJsonPolygon polygon) {
+        int dimensions = polygon.getExteriorRing().getPackedPositions().getDimensions();
+        for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+            dimensions = Math.max(dimensions, ring.getPackedPositions().getDimensions());
+        }
+        return dimensions;
+    }
+
+    /**
+     * Writes the rings of a polygon, preceded by their count.
+     * 
+     * @param polygon    the polygon
+     * @param dimensions the number of coordinates per position
+     * @param sink       the sink
+     */
+    private static void writePolygon(UllGeoJsonPolygon polygon, int dimensions, UllSink sink) {
+        final List<UllGeoJsonLinearRing> interiorRings = polygon.getInteriorRings();
+        sink.count(1 + interiorRings.size());
+        UllGeoJsonCompactWriter.writePositions(polygon.getExteriorRing().getPackedPositions(), dimensions, true, sink);
+        for (UllGeoJsonLinearRing ring : interiorRings) {
+            UllGeoJsonCompactWriter.writePositions(ring.getPackedPositions(), dimensions, true, sink);
+        }
+    }
+
+    /**
+     * Writes a sequence of positions, preceded by its count.
+     * 
+     * @param positions  the positions
+     * @param dimensions the number of coordinates per position
+     * @param ring       whether the sequence is a ring, whose closing position is not written
+     * @param sink       the sink
+     */
+    private static void writePositions(UllGeoJsonPackedPositions positions, int dimensions, boolean ring, UllSink sink) {
+        final int count = ring ? positions.size() - 1 : positions.size();
+        sink.count(count);
+        for (int i = 0; i < count; i++) {
+            sink.coordinate(0, positions.getLongitude(i));
+            sink.coordinate(1, positions.getLatitude(i));
+            if (dimensions == UllGeoJsonPackedPositions.DIMENSIONS_3D) {
+                sink.coordinate(2, positions.getAltitude(i));
+            }
+        }
+    }
+
+    /**
+     * Destination of the values of the compact form.
+     */
+    private interface UllSink {
+
+        /**
+         * Writes the tag and the precision of a geometry.
+         * 
+         * @param type       the WKB type code of the geometry
+         * @param dimensions the number of coordinates per position
+         */
+        void header(int type, int dimensions);
+
+        /**
+         * Writes a count.
+         * 
+         * @param count the count
+         */
+        void count(int count);
+
+        /**
+         * Writes a coordinate as the difference with the previous coordinate of the same axis.
+         * 
+         * @param axis  the axis
+         * @param value the coordinate
+         */
+        void coordinate(int axis, double value);
+    }
+
+    /**
+     * Sink that only counts the values, to bound the size of the compact form.
+     */
+    private static final class UllCounter implements UllSink {
+
+        private int varints;
+
+        /**
+         * Counts the tag and the precision.
+         */
+        @Override
+        public void header(int type, int dimensions) {
+            this.varints += 2;
+        }
+
+        /**
+         * Counts the count.
+         */
+        @Override
+        public void count(int count) {
+            this.varints++;
+        }
+
+        /**
+         * Counts the coordinate.
+         */
+        @Override
+        public void coordinate(int axis, double value) {
+            this.varints++;
+        }
+    }
+
+    /**
+     * Sink that encodes the values to a buffer.
+     */
+    private static final class UllEncoder implements UllSink {
+
+        private final ByteBuffer buffer;
+        private final int precision;
+        private final double scale;
+        /**
+         * Last quantized coordinate of every axis.
+         */
+        private final long[] previous = new long[UllGeoJsonPackedPositions.DIMENSIONS_3D];
+
+        /**
+         * Constructor for an encoder.
+         * 
+         * @param buffer    the buffer
+         * @param precision the number of decimal digits
+         */
+        UllEncoder(ByteBuffer buffer, int precision) {
+            this.buffer = buffer;
+            this.precision = precision;
+            this.scale = SCALES[precision];
+        }
+
+        /**
+         * Writes the tag and the precision.
+         */
+        @Override
+        public void header(int type, int dimensions) {
+            final int altitude = dimensions == UllGeoJsonPackedPositions.DIMENSIONS_3D ? 1 : 0;
+            UllGeoJsonCompactWriter.writeVarint(this.buffer, (type << 1) | altitude);
+            UllGeoJsonCompactWriter.writeVarint(this.buffer, this.precision);
+        }
+
+        /**
+         * Writes the count.
+         */
+        @Override
+        public void count(int count) {
+            UllGeoJsonCompactWriter.writeVarint(this.buffer, count);
+        }
+
+        /**
+         * Writes the quantized difference with the previous coordinate of the axis as a zigzag variable-length integer.
+         */
+        @Override
+        public void coordinate(int axis, double value) {
+            final double scaled = Math.rint(value * this.scale);
+            if (Math.abs(scaled) > MAX_QUANTIZED) {
+                throw new IllegalArgumentException(ERROR_COORDINATE_RANGE);
+            }
+            final long quantized = (long) scaled;
+            final long delta = quantized - this.previous[axis];
+            this.previous[axis] = quantized;
+            UllGeoJsonCompactWriter.writeVarint(this.buffer, (delta << 1) ^ (delta >> 63));
+        }
+    }
+
+    /**
+     * Writes an unsigned variable-length integer: seven bits per byte, least significant first, with the high bit set
+     * on every byte but the last one.
+     * 
+     * @param buffer the buffer
+     * @param value  the value, read as unsigned
+     */
+    private static void writeVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
@@ -0,0 +1,313 @@
+package es.ull.utils.geojson.output;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Writer of geometries in the Well-Known Binary format. Geometries with altitude are written with the ISO type codes of
+ * the Z variants (1001 to 1006), and a position without altitude in such a geometry is written with a NaN altitude,
+ * which {@link es.ull.utils.geojson.input.UllGeoJsonWkbReader} reads back as a missing altitude.
+ * 
+ * The writer works on a {@link ByteBuffer} in its own byte order, starting at its position, so geometries can be written
+ * straight to direct or mapped buffers. Features and feature collections have no WKB form and are not supported.
+ */
+public class UllGeoJsonWkbWriter {
+
+    public static final String ERROR_GEOMETRY_UNDEFINED = "Geometry is undefined";
+    public static final String ERROR_BUFFER_UNDEFINED = "Buffer is undefined";
+    public static final String ERROR_TYPE_NOT_SUPPORTED = "Only Point, LineString, Polygon, MultiPoint, MultiLineString and MultiPolygon have a WKB form";
+    public static final int WKB_POINT = 1;
+    public static final int WKB_LINE_STRING = 2;
+    public static final int WKB_POLYGON = 3;
+    public static final int WKB_MULTI_POINT = 4;
+    public static final int WKB_MULTI_LINE_STRING = 5;
+    public static final int WKB_MULTI_POLYGON = 6;
+    /**
+     * Offset added to the type code of a geometry with altitude.
+     */
+    public static final int WKB_Z = 1000;
+    public static final byte WKB_BIG_ENDIAN = 0;
+    public static final byte WKB_LITTLE_ENDIAN = 1;
+    /**
+     * Bytes of the header of every geometry: byte order and type code.
+     */
+    private static final int HEADER_BYTES = Byte.BYTES + Integer.BYTES;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoJsonWkbWriter() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Returns the little-endian WKB of a geometry.
+     * 
+     * @param geometry the geometry
+     * @return the WKB
+     * @throws IllegalArgumentException if the geometry is null or has no WKB form
+     */
+    public static byte[] toBytes(UllGeoJsonGeometry geometry) {
+        final ByteBuffer buffer = ByteBuffer.allocate(UllGeoJsonWkbWriter.size(geometry)).order(ByteOrder.LITTLE_ENDIAN);
+        UllGeoJsonWkbWriter.write(geometry, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Returns the number of bytes of the WKB of a geometry, so that a buffer of the right size can be allocated.
+     * 
+     * @param geometry the geometry
+     * @return the number of bytes
+     * @throws IllegalArgumentException if the geometry is null or has no WKB form
+     */
+    public static int size(UllGeoJsonGeometry geometry) {
+        final int dimensions = UllGeoJsonWkbWriter.dimensions(geometry);
+        if (geometry instanceof UllGeoJsonPoint) {
+            return HEADER_BYTES + dimensions * Double.BYTES;
+        }
+        if (geometry instanceof UllGeoJsonLineString) {
+            return HEADER_BYTES + UllGeoJsonWkbWriter.size(((UllGeoJsonLineString) geometry).getPackedPositions(), dimensions);
+        }
+        if (geometry instanceof UllGeoJsonPolygon) {
+            return HEADER_BYTES + UllGeoJsonWkbWriter.rings((UllGeoJsonPolygon) geometry, dimensions);
+        }
+        if (geometry instanceof UllGeoJsonMultiPoint) {
+            final UllGeoJsonPackedPositions positions = ((UllGeoJsonMultiPoint) geometry).getPackedPositions();
+            return HEADER_BYTES + Integer.BYTES + positions.size() * (HEADER_BYTES + dimensions * Double.BYTES);
+        }
+        int size = HEADER_BYTES + Integer.BYTES;
+        if (geometry instanceof UllGeoJsonMultiLineString) {
+            for (UllGeoJsonLineString lineString : ((UllGeoJsonMultiLineString) geometry).getLineStrings()) {
+                size += HEADER_BYTES + UllGeoJsonWkbWriter.size(lineString.getPackedPositions(), dimensions);
+            }
+        } else {
+            for (UllGeoJsonPolygon polygon : ((UllGeoJsonMultiPolygon) geometry).getPolygons()) {
+                size += HEADER_BYTES + UllGeoJsonWkbWriter.rings(polygon, dimensions);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of the rings of a polygon, without header.
+     * 
+     * @param polygon    the polygon
+     * @param dimensions the number of coordinates per position
+     * @return the number of bytes
+     */
+    private static int rings(UllGeoJsonPolygon polygon, int dimensions) {
+        int size = Integer.BYTES + UllGeoJsonWkbWriter.size(polygon.getExteriorRing().getPackedPositions(), dimensions);
+        for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+            size += UllGeoJsonWkbWriter.size(ring.getPackedPositions(), dimensions);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of a sequence of positions: its count and its coordinates.
+     * 
+     * @param positions  the positions
+     * @param dimensions the number of coordinates per position
+     * @return the number of bytes
+     */
+    private static int size(UllGeoJsonPackedPositions positions, int dimensions) {
+        return Integer.BYTES + positions.size() * dimensions * Double.BYTES;
+    }
+
+    /**
+     * Writes the WKB of a geometry to a buffer, in the byte order of the buffer and starting at its position, which is
+     * advanced past the geometry.
+     * 
+     * @param geometry the geometry
+     * @param buffer   the buffer
+     * @return the buffer
+     * @throws IllegalArgumentException          if an argument is null or the geometry has no WKB form
+     * @throws java.nio.BufferOverflowException  if the buffer has less than {@link #size(UllGeoJsonGeometry)} bytes
+     *                                           remaining
+     * @throws java.nio.ReadOnlyBufferException  if the buffer is read-only
+     */
+    public static ByteBuffer write(UllGeoJsonGeometry geometry, ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException(ERROR_BUFFER_UNDEFINED);
+        }
+        final int dimensions = UllGeoJsonWkbWriter.dimensions(geometry);
+        if (geometry instanceof UllGeoJsonPoint) {
+            UllGeoJsonWkbWriter.writePoint(((UllGeoJsonPoint) geometry).getPosition(), dimensions, buffer);
+        } else if (geometry instanceof UllGeoJsonLineString) {
+            UllGeoJsonWkbWriter.writeHeader(WKB_LINE_STRING, dimensions, buffer);
+            UllGeoJsonWkbWriter.writePositions(((UllGeoJsonLineString) geometry).getPackedPositions(), dimensions, buffer);
+        } else if (geometry instanceof UllGeoJsonPolygon) {
+            UllGeoJsonWkbWriter.writePolygon((UllGeoJsonPolygon) geometry, dimensions, buffer);
+        } else if (geometry instanceof UllGeoJsonMultiPoint) {
+            final UllGeoJsonPackedPositions positions = ((UllGeoJsonMultiPoint) geometry).getPackedPositions();
+            UllGeoJsonWkbWriter.writeHeader(WKB_MULTI_POINT, dimensions, buffer);
+            buffer.putInt(positions.size());
+            for (int i = 0; i < positions.size(); i++) {
+                UllGeoJsonWkbWriter.writeHeader(WKB_POINT, dimensions, buffer);
+                UllGeoJsonWkbWriter.writePosition(positions, i, dimensions, buffer);
+            }
+        } else if (geometry instanceof UllGeoJsonMultiLineString) {
+            final List<UllGeoJsonLineString> lineStrings = ((UllGeoJsonMultiLineString) geometry).getLineStrings();
+            UllGeoJsonWkbWriter.writeHeader(WKB_MULTI_LINE_STRING, dimensions, buffer);
+            buffer.putInt(lineStrings.size());
+            for (UllGeoJsonLineString lineString : lineStrings) {
+                UllGeoJsonWkbWriter.writeHeader(WKB_LINE_STRING, dimensions, buffer);
+                UllGeoJsonWkbWriter.writePositions(lineString.getPackedPositions(), dimensions, buffer);
+            }
+        } else {
+            final List<UllGeoJsonPolygon> polygons = ((UllGeoJsonMultiPolygon) geometry).getPolygons();
+            UllGeoJsonWkbWriter.writeHeader(WKB_MULTI_POLYGON, dimensions, buffer);
+            buffer.putInt(polygons.size());
+            for (UllGeoJsonPolygon polygon : polygons) {
+                UllGeoJsonWkbWriter.writePolygon(polygon, dimensions, buffer);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the number of coordinates per position of the WKB of a geometry: three if any of its positions has
+     * altitude, two otherwise.
+     * 
+     * @param geometry the geometry
+     * @return the number of coordinates per position
+     * @throws IllegalArgumentException if the geometry is null or has no WKB form
+     */
+    private static int dimensions(UllGeoJsonGeometry geometry) {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (geometry instanceof UllGeoJsonPoint) {
+            return ((UllGeoJsonPoint) geometry).getPosition().hasAltitude() ? UllGeoJsonPackedPositions.DIMENSIONS_3D
+                    : UllGeoJsonPackedPositions.DIMENSIONS_2D;
+        }
+        if (geometry instanceof UllGeoJsonLineString) {
+            return ((UllGeoJsonLineString) geometry).getPackedPositions().getDimensions();
+        }
+        if (geometry instanceof UllGeoJsonMultiPoint) {
+            return ((UllGeoJsonMultiPoint) geometry).getPackedPositions().getDimensions();
+        }
+        if (geometry instanceof UllGeoJsonPolygon) {
+            return UllGeoJsonWkbWriter.dimensions((UllGeoJsonPolygon) geometry);
+        }
+        if (geometry instanceof UllGeoJsonMultiLineString) {
+            int dimensions = UllGeoJsonPackedPositions.DIMENSIONS_2D;
+            for (UllGeoJsonLineString lineString : ((UllGeoJsonMultiLineString) geometry).getLineStrings()) {
+                dimensions = Math.max(dimensions, lineString.getPackedPositions().getDimensions());
+            }
+            return dimensions;
+        }
+        if (geometry instanceof UllGeoJsonMultiPolygon) {
+            int dimensions = UllGeoJsonPackedPositions.DIMENSIONS_2D;
+            for (UllGeoJsonPolygon polygon : ((UllGeoJsonMultiPolygon) geometry).getPolygons()) {
+                dimensions = Math.max(dimensions, UllGeoJsonWkbWriter.dimensions(polygon));
+            }
+            return dimensions;
+        }
+        throw new IllegalArgumentException(ERROR_TYPE_NOT_SUPPORTED);
+    }
+
+    /**
+     * Returns the number of coordinates per position of the WKB of a polygon.
+     * 
+     * @param polygon the polygon
+     * @return the number of coordinates per position
+     */
+    private static int dimensions(UllGeoJsonPolygon polygon) {
+        int dimensions = polygon.getExteriorRing().getPackedPositions().getDimensions();
+        for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+            dimensions = Math.max(dimensions, ring.getPackedPositions().getDimensions());
+        }
+        return dimensions;
+    }
+
+    /**
+     * Writes the byte order and the type code of a geometry.
+     * 
+     * @param type       the type code of the 2D geometry
+     * @param dimensions the number of coordinates per position
+     * @param buffer     the buffer
+     */
+    private static void writeHeader(int type, int dimensions, ByteBuffer buffer) {
+        buffer.put(buffer.order() == ByteOrder.LITTLE_ENDIAN ? WKB_LITTLE_ENDIAN : WKB_BIG_ENDIAN);
+        buffer.putInt(dimensions == UllGeoJsonPackedPositions.DIMENSIONS_3D ? type + WKB_Z : type);
+    }
+
+    /**
+     * Writes a point.
+     * 
+     * @param position   the position of the point
+     * @param dimensions the number of coordinates per position
+     * @param buffer     the buffer
+     */
+    private static void writePoint(UllGeoJsonPosition position, int dimensions, ByteBuffer buffer) {
+        UllGeoJsonWkbWriter.writeHeader(WKB_POINT, dimensions, buffer);
+        buffer.putDouble(position.getLongitude());
+        buffer.putDouble(position.getLatitude());
+        if (dimensions == UllGeoJsonPackedPositions.DIMENSIONS_3D) {
+            buffer.putDouble(position.hasAltitude() ? position.getAltitude() : Double.NaN);
+        }
+    }
+
+    /**
+     * Writes a polygon.
+     * 
+     * @param polygon    the polygon
+     * @param dimensions the number of coordinates per position
+     * @param buffer     the buffer
+     */
+    private static void writePolygon(UllGeoJsonPolygon polygon, int dimensions, ByteBuffer buffer) {
+        final List<UllGeoJsonLinearRing> interiorRings = polygon.getInteriorRings();
+        UllGeoJsonWkbWriter.writeHeader(WKB_POLYGON, dimensions, buffer);
+        buffer.putInt(1 + interiorRings.size());
+        UllGeoJsonWkbWriter.writePositions(polygon.getExteriorRing().getPackedPositions(), dimensions, buffer);
+        for (UllGeoJsonLinearRing ring : interiorRings) {
+            UllGeoJsonWkbWriter.writePositions(ring.getPackedPositions(), dimensions, buffer);
+        }
+    }
+
+    /**
+     * Writes a sequence of positions preceded by its count.
+     * 
+     * @param positions  the positions
+     * @param dimensions the number of coordinates per position
+     * @param buffer     the buffer
+     */
+    private static void writePositions(UllGeoJsonPackedPositions positions, int dimensions, ByteBuffer buffer) {
+        buffer.putInt(positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            UllGeoJsonWkbWriter.writePosition(positions, i, dimensions, buffer);
+        }
+    }
+
+    /**
+     * Writes the coordinates of a position.
+     * 
+     * @param positions  the positions
+     * @param index      the index of the position
+     * @param dimensions the number of coordinates per position
+     * @param buffer     the buffer
+     */
+    private static void writePosition(UllGeoJsonPackedPositions positions, int index, int dimensions, ByteBuffer buffer) {
+        buffer.putDouble(positions.getLongitude(index));
+        buffer.putDouble(positions.getLatitude(index));
+        if (dimensions == UllGeoJsonPackedPositions.DIMENSIONS_3D) {
+            buffer.putDouble(positions.hasAltitude(index) ? positions.getAltitude(index) : Double.NaN);
+        }
+    }
+}
@@ -0,0 +1,611 @@
+package es.ull.utils.geojson.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import es.ull.utils.geojson.UllGeoJsonBoundingBox;
+import es.ull.utils.geojson.UllGeoJsonFeature;
+import es.ull.utils.geojson.UllGeoJsonFeatureCollection;
+import es.ull.utils.geojson.UllGeoJsonGeometry;
+import es.ull.utils.geojson.UllGeoJsonLineString;
+import es.ull.utils.geojson.UllGeoJsonLinearRing;
+import es.ull.utils.geojson.UllGeoJsonMultiLineString;
+import es.ull.utils.geojson.UllGeoJsonMultiPoint;
+import es.ull.utils.geojson.UllGeoJsonMultiPolygon;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
+import es.ull.utils.geojson.UllGeoJsonPoint;
+import es.ull.utils.geojson.UllGeoJsonPolygon;
+import es.ull.utils.geojson.UllGeoJsonPosition;
+import es.ull.utils.geojson.definition.UllGeoJsonGeometryType;
+import es.ull.utils.geojson.definition.UllGeoJsonType;
+import es.ull.utils.geojson.input.UllGeoJsonFields;
+import es.ull.utils.geojson.input.UllGeoJsonReader;
+
+/**
+ * Writer that encodes the GeoJSON model straight to a Jackson generator, without building an intermediate JSON tree.
+ * Besides whole objects, feature collections can be written incrementally, one feature at a time, so that large
+ * collections can be streamed with a constant amount of memory.
+ * 
+ * Frozen objects, see {@link UllGeoJsonGeometry#freeze()}, are written by copying their cached encoding, unless the
+ * generator has a pretty printer or every bbox member is requested with {@link #setWriteBoundingBoxes(boolean)}.
+ * 
+ * The writer does not close the stream or writer it was created for.
+ */
+public class UllGeoJsonWriter implements Closeable, Flushable {
+
+    public static final String ERROR_GEOMETRY_UNDEFINED = "GeoJSON object is undefined";
+    public static final String ERROR_OUTPUT_UNDEFINED = "Output is undefined";
+    public static final String ERROR_FEATURE_COLLECTION_STARTED = "Feature collection has already been started";
+    public static final String ERROR_FEATURE_COLLECTION_NOT_STARTED = "Feature collection has not been started";
+    /**
+     * Factory shared by all the generators created by the writer.
+     */
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    /**
+     * Generator where the GeoJSON is written.
+     */
+    private final JsonGenerator generator;
+    /**
+     * Whether the generator was created by the writer, so that it is closed with it.
+     */
+    private final boolean ownsGenerator;
+    /**
+     * Whether a feature collection is being written incrementally.
+     */
+    private boolean featureCollectionStarted;
+    /**
+     * Whether the bbox member is written for every object, and not only for the ones with a declared bounding box.
+     */
+    private boolean writeBoundingBoxes;
+
+    /**
+     * Constructor for a writer over a generator.
+     * 
+     * @param generator     the generator where the GeoJSON is written
+     * @param ownsGenerator whether the generator was created by the writer and is closed with it
+     */
+    private UllGeoJsonWriter(JsonGenerator generator, boolean ownsGenerator) {
+        this.generator = generator;
+        this.ownsGenerator = ownsGenerator;
+    }
+
+    /**
+     * Creates a writer that writes UTF-8 encoded GeoJSON to a stream.
+     * 
+     * @param output the stream where the GeoJSON is written
+     * @return the writer
+     * @throws IOException              if the generator cannot be created
+     * @throws IllegalArgumentException if the stream is null
+     */
+    public static UllGeoJsonWriter of(OutputStream output) throws IOException {
+        if (output == null) {
+            throw new IllegalArgumentException(ERROR_OUTPUT_UNDEFINED);
+        }
+        return new UllGeoJsonWriter(JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8), true);
+    }
+
+    /**
+     * Creates a writer that writes GeoJSON to a character writer.
+     * 
+     * @param writer the writer where the GeoJSON is written
+     * @return the writer
+     * @throws IOException              if the generator cannot be created
+     * @throws IllegalArgumentException if the writer is null
+     */
+    public static UllGeoJsonWriter of(Writer writer) throws IOException {
+        if (writer == null) {
+            throw new IllegalArgumentException(ERROR_OUTPUT_UNDEFINED);
+        }
+        return new UllGeoJsonWriter(JSON_FACTORY.createGenerator(writer), true);
+    }
+
+    /**
+     * Creates a writer over an existing generator, so that GeoJSON can be embedded in a larger JSON document. The
+     * generator still belongs to the caller: closing the writer only flushes it.
+     * 
+     * @param generator the generator where the GeoJSON is written
+     * @return the writer
+     * @throws IllegalArgumentException if the generator is null
+     */
+    public static UllGeoJsonWriter of(JsonGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException(ERROR_OUTPUT_UNDEFINED);
+        }
+        return new UllGeoJsonWriter(generator, false);
+    }
+
+    /**
+     * Returns the factory used to create the generators of the writer.
+     * 
+     * @return the JSON factory
+     */
+    public static JsonFactory getJsonFactory() {
+        return JSON_FACTORY;
+    }
+
+    /**
+     * Sets whether the bbox member is written for every object. By default it is only written for the objects whose
+     * bounding box was declared, such as the ones read from a document with bbox members.
+     * 
+     * @param writeBoundingBoxes true to write the bbox member of every object, false otherwise
+     * @return this writer
+     */
+    public UllGeoJsonWriter setWriteBoundingBoxes(boolean writeBoundingBoxes) {
+        this.writeBoundingBoxes = writeBoundingBoxes;
+        return this;
+    }
+
+    /**
+     * Returns the GeoJSON string of a geometry, Feature or FeatureCollection.
+     * 
+     * @param geometry the GeoJSON object to write
+     * @return the GeoJSON string
+     * @throws IllegalArgumentException if the object is null
+     */
+    public static String toString(UllGeoJsonGeometry geometry) {
+        if (geometry != null && geometry.isFrozen()) {
+            return geometry.getSerializedForm().getValue();
+        }
+        final StringWriter output = new StringWriter();
+        try (UllGeoJsonWriter writer = UllGeoJsonWriter.of(output)) {
+            writer.write(geometry);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Returns the UTF-8 encoded GeoJSON of a geometry, Feature or FeatureCollection.
+     * 
+     * @param geometry the GeoJSON object to write
+     * @return the UTF-8 encoded GeoJSON
+     * @throws IllegalArgumentException if the object is null
+     */
+    public static byte[] toBytes(UllGeoJsonGeometry geometry) {
+        if (geometry != null && geometry.isFrozen()) {
+            return geometry.getSerializedForm().asUnquotedUTF8().clone();
+        }
+        return UllGeoJsonWriter.serialize(geometry);
+    }
+
+    /**
+     * Returns the UTF-8 encoded GeoJSON of a geometry, Feature or FeatureCollection, encoding the object even if it is
+     * frozen. It is used to compute the encoding cached by {@link UllGeoJsonGeometry#getSerializedForm()}; the frozen
+     * objects it contains are still copied from their cache.
+     * 
+     * @param geometry the GeoJSON object to write
+     * @return the UTF-8 encoded GeoJSON
+     * @throws IllegalArgumentException if the object is null
+     */
+    public static byte[] serialize(UllGeoJsonGeometry geometry) {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (UllGeoJsonWriter writer = UllGeoJsonWriter.of(output)) {
+            writer.writeObject(geometry);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Writes a geometry, Feature or FeatureCollection.
+     * 
+     * @param geometry the GeoJSON object to write
+     * @throws IOException              if the GeoJSON cannot be written
+     * @throws IllegalArgumentException if the object is null or its type is not supported
+     */
+    public void write(UllGeoJsonGeometry geometry) throws IOException {
+        if (geometry == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (!this.writeSerializedForm(geometry)) {
+            this.writeObject(geometry);
+        }
+    }
+
+    /**
+     * Writes the cached encoding of a frozen object, if it can be copied as is.
+     * 
+     * @param geometry the GeoJSON object to write
+     * @return true if the encoding was written, false if the object must be encoded
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private boolean writeSerializedForm(UllGeoJsonGeometry geometry) throws IOException {
+        if (!geometry.isFrozen() || this.writeBoundingBoxes || this.generator.getPrettyPrinter() != null) {
+            return false;
+        }
+        final SerializableString serializedForm = geometry.getSerializedForm();
+        this.generator.writeRawValue(serializedForm);
+        return true;
+    }
+
+    /**
+     * Encodes a geometry, Feature or FeatureCollection.
+     * 
+     * @param geometry the GeoJSON object to write
+     * @throws IOException              if the GeoJSON cannot be written
+     * @throws IllegalArgumentException if the type of the object is not supported
+     */
+    private void writeObject(UllGeoJsonGeometry geometry) throws IOException {
+        if (geometry instanceof UllGeoJsonPoint) {
+            this.writePoint((UllGeoJsonPoint) geometry);
+        } else if (geometry instanceof UllGeoJsonLineString) {
+            this.writeLineString((UllGeoJsonLineString) geometry);
+        } else if (geometry instanceof UllGeoJsonMultiPoint) {
+            this.writeMultiPoint((UllGeoJsonMultiPoint) geometry);
+        } else if (geometry instanceof UllGeoJsonMultiLineString) {
+            this.writeMultiLineString((UllGeoJsonMultiLineString) geometry);
+        } else if (geometry instanceof UllGeoJsonPolygon) {
+            this.writePolygon((UllGeoJsonPolygon) geometry);
+        } else if (geometry instanceof UllGeoJsonMultiPolygon) {
+            this.writeMultiPolygon((UllGeoJsonMultiPolygon) geometry);
+        } else if (geometry instanceof UllGeoJsonFeature) {
+            this.writeFeatureObject((UllGeoJsonFeature) geometry);
+        } else if (geometry instanceof UllGeoJsonFeatureCollection) {
+            this.writeFeatureCollection((UllGeoJsonFeatureCollection) geometry);
+        } else {
+            throw new IllegalArgumentException(UllGeoJsonReader.ERROR_TYPE_NOT_SUPPORTED);
+        }
+    }
+
+    /**
+     * Writes a whole feature collection from an iterator of features, consuming the iterator.
+     * 
+     * @param features the iterator of features
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    public void writeFeatureCollection(Iterator<UllGeoJsonFeature> features) throws IOException {
+        this.writeStartFeatureCollection();
+        while (features.hasNext()) {
+            this.writeFeature(features.next());
+        }
+        this.writeEndFeatureCollection();
+    }
+
+    /**
+     * Starts writing a feature collection incrementally. The features are written with
+     * {@link #writeFeature(UllGeoJsonFeature)} and the collection is finished with {@link #writeEndFeatureCollection()}.
+     * 
+     * @throws IOException           if the GeoJSON cannot be written
+     * @throws IllegalStateException if a feature collection has already been started
+     */
+    public void writeStartFeatureCollection() throws IOException {
+        if (this.featureCollectionStarted) {
+            throw new IllegalStateException(ERROR_FEATURE_COLLECTION_STARTED);
+        }
+        this.featureCollectionStarted = true;
+        this.generator.writeStartObject();
+        this.generator.writeStringField(UllGeoJsonFields.TYPE, UllGeoJsonType.FEATURE_COLLECTION.toString());
+        this.generator.writeArrayFieldStart(UllGeoJsonFields.FEATURES);
+    }
+
+    /**
+     * Writes a feature of the feature collection being written incrementally.
+     * 
+     * @param feature the feature to write
+     * @throws IOException              if the GeoJSON cannot be written
+     * @throws IllegalArgumentException if the feature is null
+     * @throws IllegalStateException    if no feature collection has been started
+     */
+    public void writeFeature(UllGeoJsonFeature feature) throws IOException {
+        if (!this.featureCollectionStarted) {
+            throw new IllegalStateException(ERROR_FEATURE_COLLECTION_NOT_STARTED);
+        }
+        if (feature == null) {
+            throw new IllegalArgumentException(ERROR_GEOMETRY_UNDEFINED);
+        }
+        if (!this.writeSerializedForm(feature)) {
+            this.writeFeatureObject(feature);
+        }
+    }
+
+    /**
+     * Finishes the feature collection being written incrementally.
+     * 
+     * @throws IOException           if the GeoJSON cannot be written
+     * @throws IllegalStateException if no feature collection has been started
+     */
+    public void writeEndFeatureCollection() throws IOException {
+        if (!this.featureCollectionStarted) {
+            throw new IllegalStateException(ERROR_FEATURE_COLLECTION_NOT_STARTED);
+        }
+        this.featureCollectionStarted = false;
+        this.generator.writeEndArray();
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Writes a point.
+     * 
+     * @param point the point to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writePoint(UllGeoJsonPoint point) throws IOException {
+        this.writeStartGeometry(point, UllGeoJsonGeometryType.POINT);
+        final UllGeoJsonPosition position = point.getPosition();
+        this.generator.writeStartArray();
+        this.generator.writeNumber(position.getLongitude());
+        this.generator.writeNumber(position.getLatitude());
+        if (position.hasAltitude()) {
+            this.generator.writeNumber(position.getAltitude());
+        }
+        this.generator.writeEndArray();
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Writes a line string. Linear rings are written as line strings.
+     * 
+     * @param lineString the line string to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeLineString(UllGeoJsonLineString lineString) throws IOException {
+        this.writeStartGeometry(lineString, UllGeoJsonGeometryType.LINE_STRING);
+        this.writePositions(lineString.getPackedPositions());
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Writes a multi point.
+     * 
+     * @param multiPoint the multi point to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeMultiPoint(UllGeoJsonMultiPoint multiPoint) throws IOException {
+        this.writeStartGeometry(multiPoint, UllGeoJsonGeometryType.MULTI_POINT);
+        this.writePositions(multiPoint.getPackedPositions());
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Writes a multi line string.
+     * 
+     * @param multiLineString the multi line string to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeMultiLineString(UllGeoJsonMultiLineString multiLineString) throws IOException {
+        this.writeStartGeometry(multiLineString, UllGeoJsonGeometryType.MULTI_LINE_STRING);
+        this.generator.writeStartArray();
+        for (UllGeoJsonLineString lineString : multiLineString.getLineStrings()) {
+            this.writePositions(lineString.getPackedPositions());
+        }
+        this.generator.writeEndArray();
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Writes a polygon.
+     * 
+     * @param polygon the polygon to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writePolygon(UllGeoJsonPolygon polygon) throws IOException {
+        this.writeStartGeometry(polygon, UllGeoJsonGeometryType.POLYGON);
+        this.writeRings(polygon);
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Writes a multi polygon.
+     * 
+     * @param multiPolygon the multi polygon to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeMultiPolygon(UllGeoJsonMultiPolygon multiPolygon) throws IOException {
+        this.writeStartGeometry(multiPolygon, UllGeoJsonGeometryType.MULTI_POLYGON);
+        this.generator.writeStartArray();
+        for (UllGeoJsonPolygon polygon : multiPolygon.getPolygons()) {
+            this.writeRings(polygon);
+        }
+        this.generator.writeEndArray();
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Writes a feature.
+     * 
+     * @param feature the feature to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeFeatureObject(UllGeoJsonFeature feature) throws IOException {
+        this.generator.writeStartObject();
+        this.generator.writeStringField(UllGeoJsonFields.TYPE, UllGeoJsonType.FEATURE.toString());
+        this.writeBoundingBox(feature);
+        if (feature.hasId()) {
+            this.generator.writeStringField(UllGeoJsonFields.ID, feature.getId().get());
+        }
+        this.generator.writeFieldName(UllGeoJsonFields.GEOMETRY);
+        this.write(feature.getGeometry());
+        this.generator.writeFieldName(UllGeoJsonFields.PROPERTIES);
+        this.writeValue(feature.getProperties());
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Writes a whole feature collection.
+     * 
+     * @param featureCollection the feature collection to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeFeatureCollection(UllGeoJsonFeatureCollection featureCollection) throws IOException {
+        this.generator.writeStartObject();
+        this.generator.writeStringField(UllGeoJsonFields.TYPE, UllGeoJsonType.FEATURE_COLLECTION.toString());
+        this.writeBoundingBox(featureCollection);
+        this.generator.writeArrayFieldStart(UllGeoJsonFields.FEATURES);
+        for (UllGeoJsonFeature feature : featureCollection.getFeatures()) {
+            if (!this.writeSerializedForm(feature)) {
+                this.writeFeatureObject(feature);
+            }
+        }
+        this.generator.writeEndArray();
+        this.generator.writeEndObject();
+    }
+
+    /**
+     * Writes the start of a geometry object, up to the name of its coordinates.
+     * 
+     * @param geometry the geometry
+     * @param type     the type of the geometry
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeStartGeometry(UllGeoJsonGeometry geometry, UllGeoJsonGeometryType type) throws IOException {
+        this.generator.writeStartObject();
+        this.generator.writeStringField(UllGeoJsonFields.TYPE, type.toString());
+        this.writeBoundingBox(geometry);
+        this.generator.writeFieldName(UllGeoJsonFields.COORDINATES);
+    }
+
+    /**
+     * Writes the bbox member of an object if it is enabled for all the objects or the object has a declared bounding
+     * box. Objects without positions have no bbox member.
+     * 
+     * @param geometry the GeoJSON object
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeBoundingBox(UllGeoJsonGeometry geometry) throws IOException {
+        if (!this.writeBoundingBoxes && !geometry.hasDeclaredBoundingBox()) {
+            return;
+        }
+        final UllGeoJsonBoundingBox box = geometry.getBoundingBox();
+        if (box.isEmpty()) {
+            return;
+        }
+        this.generator.writeArrayFieldStart(UllGeoJsonFields.BBOX);
+        this.generator.writeNumber(box.getMinLongitude());
+        this.generator.writeNumber(box.getMinLatitude());
+        this.generator.writeNumber(box.getMaxLongitude());
+        this.generator.writeNumber(box.getMaxLatitude());
+        this.generator.writeEndArray();
+    }
+
+    /**
+     * Writes the rings of a polygon, exterior ring first.
+     * 
+     * @param polygon the polygon whose rings are written
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeRings(UllGeoJsonPolygon polygon) throws IOException {
+        this.generator.writeStartArray();
+        this.writePositions(polygon.getExteriorRing().getPackedPositions());
+        for (UllGeoJsonLinearRing ring : polygon.getInteriorRings()) {
+            this.writePositions(ring.getPackedPositions());
+        }
+        this.generator.writeEndArray();
+    }
+
+    /**
+     * Writes packed positions as an array of positions, without creating position objects.
+     * 
+     * @param positions the positions to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writePositions(UllGeoJsonPackedPositions positions) throws IOException {
+        this.generator.writeStartArray();
+        for (int index = 0; index < positions.size(); index++) {
+            this.generator.writeStartArray();
+            this.generator.writeNumber(positions.getLongitude(index));
+            this.generator.writeNumber(positions.getLatitude(index));
+            if (positions.hasAltitude(index)) {
+                this.generator.writeNumber(positions.getAltitude(index));
+            }
+            this.generator.writeEndArray();
+        }
+        this.generator.writeEndArray();
+    }
+
+    /**
+     * Writes a property value. Maps are written as objects, iterables as arrays and {@link JSONObject#NULL} as null;
+     * values of other types are written as their string representation.
+     * 
+     * @param value the value to write
+     * @throws IOException if the GeoJSON cannot be written
+     */
+    private void writeValue(Object value) throws IOException {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            this.generator.writeNull();
+        } else if (value instanceof String) {
+            this.generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            this.generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            this.generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            this.generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof BigInteger) {
+            this.generator.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            this.generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Map) {
+            this.generator.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                this.generator.writeFieldName(String.valueOf(entry.getKey()));
+                this.writeValue(entry.getValue());
+            }
+            this.generator.writeEndObject();
+        } else if (value instanceof JSONObject) {
+            this.writeValue(((JSONObject) value).toMap());
+        } else if (value instanceof JSONArray) {
+            this.writeValue(((JSONArray) value).toList());
+        } else if (value instanceof Iterable) {
+            this.generator.writeStartArray();
+            for (Object element : (Iterable<?>) value) {
+                this.writeValue(element);
+            }
+            this.generator.writeEndArray();
+        } else {
+            this.generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * Flushes the generator and the underlying output.
+     * 
+     * @throws IOException if the output cannot be flushed
+     */
+    @Override
+    public void flush() throws IOException {
+        this.generator.flush();
+    }
+
+    /**
+     * Closes the generator created by the writer, flushing the pending content. The underlying output is not closed. A
+     * generator given to {@link #of(JsonGenerator)} belongs to the caller, so it is only flushed and can keep writing
+     * the enclosing document.
+     * 
+     * @throws IOException if the generator cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.ownsGenerator) {
+            this.generator.close();
+        } else {
+            this.generator.flush();
+        }
+    }
+}
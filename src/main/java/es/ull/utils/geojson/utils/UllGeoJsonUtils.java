@@ -6,6 +6,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import es.ull.utils.geojson.UllGeoJsonPackedPositions;
 import es.ull.utils.geojson.UllGeoJsonPosition;
 import es.ull.utils.geojson.definition.UllGeoJsonGeometryType;
 import es.ull.utils.geojson.input.UllGeoJsonFields;
@@ -46,6 +47,26 @@ public class UllGeoJsonUtils {
         return json;
     }
 
+    /**
+     * Converts packed positions to a JSON array, without creating position objects.
+     * 
+     * @param coordinates the packed positions to convert
+     * @return the JSON array representation of the coordinates
+     */
+    public static JSONArray toJson(UllGeoJsonPackedPositions coordinates) {
+        final JSONArray json = new JSONArray();
+        for (int index = 0; index < coordinates.size(); index++) {
+            final JSONArray position = new JSONArray();
+            position.put(coordinates.getLongitude(index));
+            position.put(coordinates.getLatitude(index));
+            if (coordinates.hasAltitude(index)) {
+                position.put(coordinates.getAltitude(index));
+            }
+            json.put(position);
+        }
+        return json;
+    }
+
     /**
      * Validates the type of a GeoJSON object.
      * 
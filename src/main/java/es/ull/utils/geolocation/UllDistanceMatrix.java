@@ -0,0 +1,706 @@
+package es.ull.utils.geolocation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Matrix of the great-circle distances between all the pairs of a set of points, in meters. The matrix is computed in
+ * square tiles, so the coordinates of a tile stay in cache while its distances are computed, and the tiles are spread
+ * over the threads of a {@link ForkJoinPool}.
+ * 
+ * The distances are stored in flat storage, as doubles or floats, either in full row-major order or, since the matrix
+ * is symmetric, as its upper triangle only, which halves the memory. Large matrices can be stored in a memory-mapped
+ * file instead of the heap, which keeps them out of the garbage-collected memory and lets later runs reopen them with
+ * {@link #open(Path)} instead of computing them again. Matrices are read-only once computed and can be read from
+ * several threads.
+ */
+public class UllDistanceMatrix {
+
+    public static final String ERROR_POINTS_UNDEFINED = "The points are not defined";
+    public static final String ERROR_COORDINATES_LENGTH = "The longitudes and latitudes must have the same length";
+    public static final String ERROR_LAYOUT_UNDEFINED = "The layout is not defined";
+    public static final String ERROR_PRECISION_UNDEFINED = "The precision is not defined";
+    public static final String ERROR_POOL_UNDEFINED = "The pool is not defined";
+    public static final String ERROR_PATH_UNDEFINED = "Path is undefined";
+    public static final String ERROR_INDEX = "The index of the point is out of range";
+    public static final String ERROR_ROW_LENGTH = "The row array is too short";
+    public static final String ERROR_FILE_NOT_VALID = "The file is not a distance matrix";
+    /**
+     * Number of points of the side of a tile.
+     */
+    public static final int TILE_SIZE = 256;
+    /**
+     * Identifier at the start of the files of distance matrices.
+     */
+    private static final int MAGIC = 0x554C4C44;
+    private static final int VERSION = 1;
+    /**
+     * Number of tasks per thread of the pool in which the tiles are split, so that the threads stay balanced while
+     * every task reuses a single buffer across its tiles.
+     */
+    private static final int TASKS_PER_THREAD = 8;
+    /**
+     * Size of the header of the files: magic, version, layout, precision and number of points.
+     */
+    private static final int HEADER_BYTES = 20;
+    /**
+     * Number of bytes of a mapped segment of a file.
+     */
+    private static final int SEGMENT_BYTES = 1 << 30;
+    /**
+     * Number of values of a segment of heap storage.
+     */
+    private static final int SEGMENT_VALUES = 1 << 27;
+
+    /**
+     * Storage layouts of a matrix.
+     */
+    public enum UllLayout {
+        /**
+         * All the distances, in row-major order.
+         */
+        FULL,
+        /**
+         * The distances above the diagonal only, row by row.
+         */
+        SYMMETRIC
+    }
+
+    /**
+     * Precisions of the stored distances.
+     */
+    public enum UllPrecision {
+        /**
+         * 8-byte doubles, which keep the distances exactly as computed.
+         */
+        DOUBLE(Double.BYTES),
+        /**
+         * 4-byte floats, which halve the memory and keep the distances to about a part in ten million.
+         */
+        FLOAT(Float.BYTES);
+
+        private final int bytes;
+
+        private UllPrecision(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private final int size;
+    private final UllLayout layout;
+    private final UllPrecision precision;
+    private final UllStore store;
+
+    /**
+     * Constructor for a matrix over some storage.
+     * 
+     * @param size      the number of points
+     * @param layout    the layout
+     * @param precision the precision
+     * @param store     the storage of the distances
+     */
+    private UllDistanceMatrix(int size, UllLayout layout, UllPrecision precision, UllStore store) {
+        this.size = size;
+        this.layout = layout;
+        this.precision = precision;
+        this.store = store;
+    }
+
+    /**
+     * Computes the matrix of a list of points in the heap, with the threads of the common pool.
+     * 
+     * @param points    the points
+     * @param layout    the storage layout
+     * @param precision the precision of the stored distances
+     * @return the matrix
+     * @throws IllegalArgumentException if an argument is null
+     */
+    public static UllDistanceMatrix compute(List<UllGeolocationPoint> points, UllLayout layout, UllPrecision precision) {
+        if (points == null) {
+            throw new IllegalArgumentException(ERROR_POINTS_UNDEFINED);
+        }
+        final double[] longitudes = points.stream().mapToDouble(UllGeolocationPoint::getLongitude).toArray();
+        final double[] latitudes = points.stream().mapToDouble(UllGeolocationPoint::getLatitude).toArray();
+        return UllDistanceMatrix.compute(longitudes, latitudes, layout, precision, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the matrix of packed coordinates in the heap.
+     * 
+     * @param longitudes the longitudes of the points, in degrees
+     * @param latitudes  the latitudes of the points, in degrees
+     * @param layout     the storage layout
+     * @param precision  the precision of the stored distances
+     * @param pool       the pool that computes the tiles
+     * @return the matrix
+     * @throws IllegalArgumentException if an argument is null or the arrays have different lengths
+     */
+    public static UllDistanceMatrix compute(double[] longitudes, double[] latitudes, UllLayout layout,
+            UllPrecision precision, ForkJoinPool pool) {
+        UllDistanceMatrix.validate(longitudes, latitudes, layout, precision, pool);
+        final long count = UllDistanceMatrix.count(longitudes.length, layout);
+        final UllStore store = precision == UllPrecision.DOUBLE ? new UllDoubleStore(count) : new UllFloatStore(count);
+        final UllDistanceMatrix matrix = new UllDistanceMatrix(longitudes.length, layout, precision, store);
+        matrix.fill(longitudes, latitudes, pool);
+        return matrix;
+    }
+
+    /**
+     * Computes the matrix of packed coordinates into a memory-mapped file, which is created or overwritten. The file
+     * can be reopened later with {@link #open(Path)}. The magic number of the header is only written once all the
+     * distances have been computed and written to the storage device, so the file of a failed or interrupted run is
+     * rejected by {@link #open(Path)}.
+     * 
+     * @param longitudes the longitudes of the points, in degrees
+     * @param latitudes  the latitudes of the points, in degrees
+     * @param layout     the storage layout
+     * @param precision  the precision of the stored distances
+     * @param pool       the pool that computes the tiles
+     * @param path       the path of the file
+     * @return the matrix
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if an argument is null or the arrays have different lengths
+     */
+    public static UllDistanceMatrix compute(double[] longitudes, double[] latitudes, UllLayout layout,
+            UllPrecision precision, ForkJoinPool pool, Path path) throws IOException {
+        UllDistanceMatrix.validate(longitudes, latitudes, layout, precision, pool);
+        if (path == null) {
+            throw new IllegalArgumentException(ERROR_PATH_UNDEFINED);
+        }
+        final long count = UllDistanceMatrix.count(longitudes.length, layout);
+        final UllMappedStore store;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0).putInt(VERSION).putInt(layout.ordinal()).putInt(precision.ordinal())
+                    .putInt(longitudes.length).flip();
+            UllDistanceMatrix.write(channel, header);
+            store = new UllMappedStore(channel, FileChannel.MapMode.READ_WRITE, count, precision);
+        }
+        final UllDistanceMatrix matrix = new UllDistanceMatrix(longitudes.length, layout, precision, store);
+        matrix.fill(longitudes, latitudes, pool);
+        store.force();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            UllDistanceMatrix.write(channel, ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC).flip());
+            channel.force(false);
+        }
+        return matrix;
+    }
+
+    /**
+     * Writes a buffer at the start of a file.
+     * 
+     * @param channel the channel of the file
+     * @param buffer  the buffer to write
+     * @throws IOException if the buffer cannot be written
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+    }
+
+    /**
+     * Opens a matrix stored in a file by {@link #compute(double[], double[], UllLayout, UllPrecision, ForkJoinPool, Path)}.
+     * The file is mapped read-only and its distances are loaded on demand by the operating system.
+     * 
+     * @param path the path of the file
+     * @return the matrix
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the path is null or the file is not a distance matrix
+     */
+    public static UllDistanceMatrix open(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException(ERROR_PATH_UNDEFINED);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int read = 0;
+            while (header.hasRemaining() && read >= 0) {
+                read = channel.read(header, header.position());
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IllegalArgumentException(ERROR_FILE_NOT_VALID);
+            }
+            final int layoutOrdinal = header.getInt();
+            final int precisionOrdinal = header.getInt();
+            final int size = header.getInt();
+            if (layoutOrdinal < 0 || layoutOrdinal >= UllLayout.values().length || precisionOrdinal < 0
+                    || precisionOrdinal >= UllPrecision.values().length || size < 0) {
+                throw new IllegalArgumentException(ERROR_FILE_NOT_VALID);
+            }
+            final UllLayout layout = UllLayout.values()[layoutOrdinal];
+            final UllPrecision precision = UllPrecision.values()[precisionOrdinal];
+            final long count = UllDistanceMatrix.count(size, layout);
+            if (channel.size() < HEADER_BYTES + count * precision.bytes) {
+                throw new IllegalArgumentException(ERROR_FILE_NOT_VALID);
+            }
+            final UllStore store = new UllMappedStore(channel, FileChannel.MapMode.READ_ONLY, count, precision);
+            return new UllDistanceMatrix(size, layout, precision, store);
+        }
+    }
+
+    /**
+     * Returns the number of points.
+     * 
+     * @return the number of points
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the storage layout.
+     * 
+     * @return the layout
+     */
+    public UllLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Returns the precision of the stored distances.
+     * 
+     * @return the precision
+     */
+    public UllPrecision getPrecision() {
+        return this.precision;
+    }
+
+    /**
+     * Returns the distance between two points.
+     * 
+     * @param from the index of the first point
+     * @param to   the index of the second point
+     * @return the distance in meters
+     * @throws IllegalArgumentException if an index is out of range
+     */
+    public double get(int from, int to) {
+        this.validateIndex(from);
+        this.validateIndex(to);
+        if (this.layout == UllLayout.FULL) {
+            return this.store.get((long) from * this.size + to);
+        }
+        if (from == to) {
+            return 0;
+        }
+        return this.store.get(from < to ? this.triangleIndex(from, to) : this.triangleIndex(to, from));
+    }
+
+    /**
+     * Copies the distances from a point to all the points into an array.
+     * 
+     * @param from the index of the point
+     * @param row  the array that receives the distances in meters, at least as long as the number of points
+     * @return the array of distances
+     * @throws IllegalArgumentException if the index is out of range or the array is too short
+     */
+    public double[] getRow(int from, double[] row) {
+        this.validateIndex(from);
+        if (row == null || row.length < this.size) {
+            throw new IllegalArgumentException(ERROR_ROW_LENGTH);
+        }
+        if (this.layout == UllLayout.FULL) {
+            this.store.get((long) from * this.size, row, 0, this.size);
+            return row;
+        }
+        for (int to = 0; to < from; to++) {
+            row[to] = this.store.get(this.triangleIndex(to, from));
+        }
+        row[from] = 0;
+        if (from + 1 < this.size) {
+            this.store.get(this.triangleIndex(from, from + 1), row, from + 1, this.size - from - 1);
+        }
+        return row;
+    }
+
+    /**
+     * Returns the distances from a point to all the points.
+     * 
+     * @param from the index of the point
+     * @return the distances in meters
+     * @throws IllegalArgumentException if the index is out of range
+     */
+    public double[] getRow(int from) {
+        this.validateIndex(from);
+        return this.getRow(from, new double[this.size]);
+    }
+
+    /**
+     * Computes all the tiles of the matrix.
+     * 
+     * @param longitudes the longitudes of the points
+     * @param latitudes  the latitudes of the points
+     * @param pool       the pool that computes the tiles
+     */
+    private void fill(double[] longitudes, double[] latitudes, ForkJoinPool pool) {
+        final int tiles = (this.size + TILE_SIZE - 1) / TILE_SIZE;
+        final UllHaversine.UllRadians[] columns = new UllHaversine.UllRadians[tiles];
+        for (int tile = 0; tile < tiles; tile++) {
+            final int start = tile * TILE_SIZE;
+            columns[tile] = new UllHaversine.UllRadians(longitudes, latitudes, start, Math.min(start + TILE_SIZE, this.size));
+        }
+        final long tileCount = this.layout == UllLayout.FULL ? (long) tiles * tiles : (long) tiles * (tiles + 1) / 2;
+        final long leafTiles = Math.max(1, tileCount / ((long) pool.getParallelism() * TASKS_PER_THREAD));
+        pool.invoke(new UllTileTask(this, longitudes, latitudes, columns, 0, tileCount, leafTiles));
+    }
+
+    /**
+     * Computes a tile of the matrix and stores it.
+     * 
+     * @param longitudes the longitudes of the points
+     * @param latitudes  the latitudes of the points
+     * @param columns    the points of the tiles of columns, converted to radians
+     * @param rowTile    the index of the tile of rows
+     * @param columnTile the index of the tile of columns
+     * @param buffer     the buffer of the distances of the tile
+     */
+    private void fillTile(double[] longitudes, double[] latitudes, UllHaversine.UllRadians[] columns, int rowTile,
+            int columnTile, double[] buffer) {
+        final int rowStart = rowTile * TILE_SIZE;
+        final int rowEnd = Math.min(rowStart + TILE_SIZE, this.size);
+        final int columnStart = columnTile * TILE_SIZE;
+        final int width = columns[columnTile].size();
+        UllHaversine.distances(longitudes, latitudes, rowStart, rowEnd, columns[columnTile], buffer, 0, width);
+        for (int row = rowStart; row < rowEnd; row++) {
+            final int offset = (row - rowStart) * width;
+            if (this.layout == UllLayout.FULL) {
+                this.store.set((long) row * this.size + columnStart, buffer, offset, width);
+            } else {
+                final int first = Math.max(columnStart, row + 1);
+                if (first < columnStart + width) {
+                    this.store.set(this.triangleIndex(row, first), buffer, offset + first - columnStart,
+                            columnStart + width - first);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index in the upper triangle of the distance between two points.
+     * 
+     * @param from the index of the first point
+     * @param to   the index of the second point, greater than the first one
+     * @return the index of the distance
+     */
+    private long triangleIndex(int from, int to) {
+        return (long) from * (2L * this.size - from - 1) / 2 + (to - from - 1);
+    }
+
+    /**
+     * Checks that an index is in range.
+     * 
+     * @param index the index of a point
+     * @throws IllegalArgumentException if the index is out of range
+     */
+    private void validateIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IllegalArgumentException(ERROR_INDEX);
+        }
+    }
+
+    /**
+     * Returns the number of stored distances of a matrix.
+     * 
+     * @param size   the number of points
+     * @param layout the layout
+     * @return the number of distances
+     */
+    private static long count(int size, UllLayout layout) {
+        return layout == UllLayout.FULL ? (long) size * size : (long) size * (size - 1) / 2;
+    }
+
+    /**
+     * Checks the arguments of a computation.
+     * 
+     * @param longitudes the longitudes
+     * @param latitudes  the latitudes
+     * @param layout     the layout
+     * @param precision  the precision
+     * @param pool       the pool
+     * @throws IllegalArgumentException if an argument is null or the arrays have different lengths
+     */
+    private static void validate(double[] longitudes, double[] latitudes, UllLayout layout, UllPrecision precision,
+            ForkJoinPool pool) {
+        if (longitudes == null || latitudes == null) {
+            throw new IllegalArgumentException(ERROR_POINTS_UNDEFINED);
+        }
+        if (longitudes.length != latitudes.length) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_LENGTH);
+        }
+        if (layout == null) {
+            throw new IllegalArgumentException(ERROR_LAYOUT_UNDEFINED);
+        }
+        if (precision == null) {
+            throw new IllegalArgumentException(ERROR_PRECISION_UNDEFINED);
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException(ERROR_POOL_UNDEFINED);
+        }
+    }
+
+    /**
+     * Task that computes a range of tiles, splitting it in halves until at most a given number of tiles is left, which
+     * are computed one after another with a single buffer. For the symmetric layout the tiles are enumerated over the
+     * upper triangle of tiles, row by row.
+     */
+    private static final class UllTileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final transient UllDistanceMatrix matrix;
+        private final double[] longitudes;
+        private final double[] latitudes;
+        private final transient UllHaversine.UllRadians[] columns;
+        private final long start;
+        private final long end;
+        private final long leafTiles;
+
+        /**
+         * Constructor for a task.
+         * 
+         * @param matrix     the matrix
+         * @param longitudes the longitudes of the points
+         * @param latitudes  the latitudes of the points
+         * @param columns    the points of the tiles of columns, converted to radians
+         * @param start      the index of the first tile
+         * @param end        the index after the last tile
+         * @param leafTiles  the maximum number of tiles computed by a task without splitting it
+         */
+        UllTileTask(UllDistanceMatrix matrix, double[] longitudes, double[] latitudes,
+                UllHaversine.UllRadians[] columns, long start, long end, long leafTiles) {
+            this.matrix = matrix;
+            this.longitudes = longitudes;
+            this.latitudes = latitudes;
+            this.columns = columns;
+            this.start = start;
+            this.end = end;
+            this.leafTiles = leafTiles;
+        }
+
+        /**
+         * Computes the tiles of the range.
+         */
+        @Override
+        protected void compute() {
+            if (this.end - this.start > this.leafTiles) {
+                final long middle = (this.start + this.end) >>> 1;
+                RecursiveAction.invokeAll(
+                        new UllTileTask(this.matrix, this.longitudes, this.latitudes, this.columns, this.start, middle,
+                                this.leafTiles),
+                        new UllTileTask(this.matrix, this.longitudes, this.latitudes, this.columns, middle, this.end,
+                                this.leafTiles));
+                return;
+            }
+            if (this.end == this.start) {
+                return;
+            }
+            final int tiles = this.columns.length;
+            int rowTile;
+            int columnTile;
+            if (this.matrix.layout == UllLayout.FULL) {
+                rowTile = (int) (this.start / tiles);
+                columnTile = (int) (this.start % tiles);
+            } else {
+                rowTile = 0;
+                long remaining = this.start;
+                while (remaining >= tiles - rowTile) {
+                    remaining -= tiles - rowTile;
+                    rowTile++;
+                }
+                columnTile = rowTile + (int) remaining;
+            }
+            final double[] buffer = new double[TILE_SIZE * TILE_SIZE];
+            for (long tile = this.start; tile < this.end; tile++) {
+                this.matrix.fillTile(this.longitudes, this.latitudes, this.columns, rowTile, columnTile, buffer);
+                columnTile++;
+                if (columnTile == tiles) {
+                    rowTile++;
+                    columnTile = this.matrix.layout == UllLayout.FULL ? 0 : rowTile;
+                }
+            }
+        }
+    }
+
+    /**
+     * Flat storage of the distances, addressed by a long index.
+     */
+    private abstract static class UllStore {
+
+        /**
+         * Returns a distance.
+         * 
+         * @param index the index of the distance
+         * @return the distance
+         */
+        abstract double get(long index);
+
+        /**
+         * Copies consecutive distances into an array.
+         * 
+         * @param index  the index of the first distance
+         * @param values the array that receives the distances
+         * @param offset the position of the first distance in the array
+         * @param length the number of distances
+         */
+        void get(long index, double[] values, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                values[offset + i] = this.get(index + i);
+            }
+        }
+
+        /**
+         * Stores consecutive distances.
+         * 
+         * @param index  the index of the first distance
+         * @param values the array of the distances
+         * @param offset the position of the first distance in the array
+         * @param length the number of distances
+         */
+        abstract void set(long index, double[] values, int offset, int length);
+    }
+
+    /**
+     * Heap storage of doubles in segments, since the matrices of more than 46341 points exceed the length of an array.
+     */
+    private static final class UllDoubleStore extends UllStore {
+
+        private final double[][] segments;
+
+        /**
+         * Constructor for a zeroed storage.
+         * 
+         * @param count the number of distances
+         */
+        UllDoubleStore(long count) {
+            this.segments = new double[(int) ((count + SEGMENT_VALUES - 1) / SEGMENT_VALUES)][];
+            for (int i = 0; i < this.segments.length; i++) {
+                this.segments[i] = new double[(int) Math.min(SEGMENT_VALUES, count - (long) i * SEGMENT_VALUES)];
+            }
+        }
+
+        @Override
+        double get(long index) {
+            return this.segments[(int) (index / SEGMENT_VALUES)][(int) (index % SEGMENT_VALUES)];
+        }
+
+        @Override
+        void set(long index, double[] values, int offset, int length) {
+            while (length > 0) {
+                final double[] segment = this.segments[(int) (index / SEGMENT_VALUES)];
+                final int position = (int) (index % SEGMENT_VALUES);
+                final int chunk = Math.min(length, segment.length - position);
+                System.arraycopy(values, offset, segment, position, chunk);
+                index += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+    }
+
+    /**
+     * Heap storage of floats in segments.
+     */
+    private static final class UllFloatStore extends UllStore {
+
+        private final float[][] segments;
+
+        /**
+         * Constructor for a zeroed storage.
+         * 
+         * @param count the number of distances
+         */
+        UllFloatStore(long count) {
+            this.segments = new float[(int) ((count + SEGMENT_VALUES - 1) / SEGMENT_VALUES)][];
+            for (int i = 0; i < this.segments.length; i++) {
+                this.segments[i] = new float[(int) Math.min(SEGMENT_VALUES, count - (long) i * SEGMENT_VALUES)];
+            }
+        }
+
+        @Override
+        double get(long index) {
+            return this.segments[(int) (index / SEGMENT_VALUES)][(int) (index % SEGMENT_VALUES)];
+        }
+
+        @Override
+        void set(long index, double[] values, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                final long position = index + i;
+                this.segments[(int) (position / SEGMENT_VALUES)][(int) (position % SEGMENT_VALUES)] = (float) values[offset + i];
+            }
+        }
+    }
+
+    /**
+     * Storage in a memory-mapped file, in little-endian segments of at most {@link #SEGMENT_BYTES} bytes after the
+     * header. Every segment holds a whole number of distances.
+     */
+    private static final class UllMappedStore extends UllStore {
+
+        private final MappedByteBuffer[] segments;
+        private final UllPrecision precision;
+        private final int segmentValues;
+
+        /**
+         * Constructor that maps the distances of a file. The mapping stays valid after the channel is closed.
+         * 
+         * @param channel   the channel of the file
+         * @param mode      the mapping mode
+         * @param count     the number of distances
+         * @param precision the precision of the distances
+         * @throws IOException if the file cannot be mapped
+         */
+        UllMappedStore(FileChannel channel, FileChannel.MapMode mode, long count, UllPrecision precision)
+                throws IOException {
+            this.precision = precision;
+            this.segmentValues = SEGMENT_BYTES / precision.bytes;
+            final long bytes = count * precision.bytes;
+            this.segments = new MappedByteBuffer[(int) ((count + this.segmentValues - 1) / this.segmentValues)];
+            for (int i = 0; i < this.segments.length; i++) {
+                final long position = (long) i * SEGMENT_BYTES;
+                final long length = Math.min(SEGMENT_BYTES, bytes - position);
+                this.segments[i] = channel.map(mode, HEADER_BYTES + position, length);
+                this.segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        @Override
+        double get(long index) {
+            final MappedByteBuffer segment = this.segments[(int) (index / this.segmentValues)];
+            final int position = (int) (index % this.segmentValues) * this.precision.bytes;
+            return this.precision == UllPrecision.DOUBLE ? segment.getDouble(position) : segment.getFloat(position);
+        }
+
+        @Override
+        void set(long index, double[] values, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                final long value = index + i;
+                final MappedByteBuffer segment = this.segments[(int) (value / this.segmentValues)];
+                final int position = (int) (value % this.segmentValues) * this.precision.bytes;
+                if (this.precision == UllPrecision.DOUBLE) {
+                    segment.putDouble(position, values[offset + i]);
+                } else {
+                    segment.putFloat(position, (float) values[offset + i]);
+                }
+            }
+        }
+
+        /**
+         * Writes the modified distances to the file.
+         */
+        void force() {
+            for (MappedByteBuffer segment : this.segments) {
+                segment.force();
+            }
+        }
+    }
+}
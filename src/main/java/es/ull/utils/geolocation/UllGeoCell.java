@@ -0,0 +1,346 @@
+package es.ull.utils.geolocation;
+
+import java.util.Arrays;
+
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Hierarchical cell encoding of longitude and latitude. A point is quantized to 31 bits per axis and the bits are
+ * interleaved into a 62-bit Morton (Z-order) code, longitude first, so codes are non-negative and sort along the Z-order
+ * curve. The cell of a point at a level of {@code bits} bits is the prefix of that length of its Morton code, and the
+ * geohash of precision {@code p} is the cell of {@code 5 * p} bits written in base 32, so geohashes and Morton codes
+ * share the same cell hierarchy.
+ */
+public class UllGeoCell {
+
+    public static final String ERROR_BITS = "The number of bits must be between 1 and " + UllGeoCell.MORTON_BITS;
+    public static final String ERROR_PRECISION = "The geohash precision must be between 1 and " + UllGeoCell.MAX_PRECISION;
+    public static final String ERROR_GEOHASH_NOT_VALID = "The geohash is not valid";
+    /**
+     * Number of bits of each axis in a Morton code.
+     */
+    public static final int AXIS_BITS = 31;
+    /**
+     * Number of bits of a Morton code.
+     */
+    public static final int MORTON_BITS = 2 * AXIS_BITS;
+    /**
+     * Maximum precision of a geohash, in characters.
+     */
+    public static final int MAX_PRECISION = 12;
+    private static final int BITS_PER_CHARACTER = 5;
+    private static final double AXIS_CELLS = 1L << AXIS_BITS;
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] BASE32_VALUES = new int['z' + 1];
+
+    static {
+        Arrays.fill(BASE32_VALUES, -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            BASE32_VALUES[BASE32[i]] = i;
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllGeoCell() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Returns the Morton code of a point at full resolution.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @return the 62-bit Morton code
+     */
+    public static long encode(double longitude, double latitude) {
+        final long x = UllGeoCell.quantize(longitude, UllGeolocationPoint.LONGITUDE_MIN, UllGeolocationPoint.LONGITUDE_MAX);
+        final long y = UllGeoCell.quantize(latitude, UllGeolocationPoint.LATITUDE_MIN, UllGeolocationPoint.LATITUDE_MAX);
+        return (UllGeoCell.spread(x) << 1) | UllGeoCell.spread(y);
+    }
+
+    /**
+     * Returns the Morton code of a point at full resolution.
+     * 
+     * @param point the point
+     * @return the 62-bit Morton code
+     */
+    public static long encode(UllGeolocationPoint point) {
+        return UllGeoCell.encode(point.getLongitude(), point.getLatitude());
+    }
+
+    /**
+     * Returns the cell that contains a point at a level.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @param bits      the number of bits of the cell, between 1 and {@link #MORTON_BITS}
+     * @return the key of the cell
+     * @throws IllegalArgumentException if the number of bits is not valid
+     */
+    public static long cell(double longitude, double latitude, int bits) {
+        UllGeoCell.validateBits(bits);
+        return UllGeoCell.encode(longitude, latitude) >>> (MORTON_BITS - bits);
+    }
+
+    /**
+     * Returns the cell of a level that contains a finer cell or a Morton code.
+     * 
+     * @param cell     the key of the finer cell
+     * @param cellBits the number of bits of the finer cell
+     * @param bits     the number of bits of the coarser cell, not greater than the ones of the finer cell
+     * @return the key of the coarser cell
+     * @throws IllegalArgumentException if the number of bits is not valid
+     */
+    public static long parent(long cell, int cellBits, int bits) {
+        UllGeoCell.validateBits(cellBits);
+        if (bits < 1 || bits > cellBits) {
+            throw new IllegalArgumentException(ERROR_BITS);
+        }
+        return cell >>> (cellBits - bits);
+    }
+
+    /**
+     * Returns the geohash of a point.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @param precision the number of characters, between 1 and {@link #MAX_PRECISION}
+     * @return the geohash
+     * @throws IllegalArgumentException if the precision is not valid
+     */
+    public static String geohash(double longitude, double latitude, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(ERROR_PRECISION);
+        }
+        return UllGeoCell.toGeohash(UllGeoCell.cell(longitude, latitude, BITS_PER_CHARACTER * precision), precision);
+    }
+
+    /**
+     * Returns the geohash of a point.
+     * 
+     * @param point     the point
+     * @param precision the number of characters, between 1 and {@link #MAX_PRECISION}
+     * @return the geohash
+     * @throws IllegalArgumentException if the precision is not valid
+     */
+    public static String geohash(UllGeolocationPoint point, int precision) {
+        return UllGeoCell.geohash(point.getLongitude(), point.getLatitude(), precision);
+    }
+
+    /**
+     * Writes the key of a cell of {@code 5 * precision} bits as a geohash.
+     * 
+     * @param cell      the key of the cell
+     * @param precision the number of characters
+     * @return the geohash
+     */
+    public static String toGeohash(long cell, int precision) {
+        final char[] characters = new char[precision];
+        for (int i = precision - 1; i >= 0; i--) {
+            characters[i] = BASE32[(int) (cell & 0x1F)];
+            cell >>>= BITS_PER_CHARACTER;
+        }
+        return new String(characters);
+    }
+
+    /**
+     * Reads a geohash as the key of a cell of {@code 5 * length} bits.
+     * 
+     * @param geohash the geohash
+     * @return the key of the cell
+     * @throws IllegalArgumentException if the geohash is not valid
+     */
+    public static long fromGeohash(String geohash) {
+        if (geohash == null || geohash.isEmpty() || geohash.length() > MAX_PRECISION) {
+            throw new IllegalArgumentException(ERROR_GEOHASH_NOT_VALID);
+        }
+        long cell = 0L;
+        for (int i = 0; i < geohash.length(); i++) {
+            final char character = Character.toLowerCase(geohash.charAt(i));
+            final int value = character < BASE32_VALUES.length ? BASE32_VALUES[character] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException(ERROR_GEOHASH_NOT_VALID);
+            }
+            cell = (cell << BITS_PER_CHARACTER) | value;
+        }
+        return cell;
+    }
+
+    /**
+     * Returns the bounds of a cell.
+     * 
+     * @param cell the key of the cell
+     * @param bits the number of bits of the cell
+     * @return the bounds as {@code minLongitude, minLatitude, maxLongitude, maxLatitude}
+     * @throws IllegalArgumentException if the number of bits is not valid
+     */
+    public static double[] bounds(long cell, int bits) {
+        UllGeoCell.validateBits(bits);
+        final int longitudeBits = (bits + 1) / 2;
+        final int latitudeBits = bits / 2;
+        final long x = UllGeoCell.compact(bits % 2 == 0 ? cell >>> 1 : cell);
+        final long y = UllGeoCell.compact(bits % 2 == 0 ? cell : cell >>> 1);
+        final double width = (UllGeolocationPoint.LONGITUDE_MAX - UllGeolocationPoint.LONGITUDE_MIN) / (1L << longitudeBits);
+        final double height = (UllGeolocationPoint.LATITUDE_MAX - UllGeolocationPoint.LATITUDE_MIN) / (1L << latitudeBits);
+        final double minLongitude = UllGeolocationPoint.LONGITUDE_MIN + x * width;
+        final double minLatitude = UllGeolocationPoint.LATITUDE_MIN + y * height;
+        return new double[] { minLongitude, minLatitude, minLongitude + width, minLatitude + height };
+    }
+
+    /**
+     * Returns the bounds of the cell of a geohash.
+     * 
+     * @param geohash the geohash
+     * @return the bounds as {@code minLongitude, minLatitude, maxLongitude, maxLatitude}
+     * @throws IllegalArgumentException if the geohash is not valid
+     */
+    public static double[] bounds(String geohash) {
+        return UllGeoCell.bounds(UllGeoCell.fromGeohash(geohash), BITS_PER_CHARACTER * geohash.length());
+    }
+
+    /**
+     * Returns the center of a cell.
+     * 
+     * @param cell the key of the cell
+     * @param bits the number of bits of the cell
+     * @return the center of the cell
+     * @throws IllegalArgumentException if the number of bits is not valid
+     */
+    public static UllGeolocationPoint decode(long cell, int bits) {
+        final double[] bounds = UllGeoCell.bounds(cell, bits);
+        return new UllGeolocationPoint((bounds[0] + bounds[2]) / 2, (bounds[1] + bounds[3]) / 2);
+    }
+
+    /**
+     * Returns the center of the cell of a geohash.
+     * 
+     * @param geohash the geohash
+     * @return the center of the cell
+     * @throws IllegalArgumentException if the geohash is not valid
+     */
+    public static UllGeolocationPoint decode(String geohash) {
+        return UllGeoCell.decode(UllGeoCell.fromGeohash(geohash), BITS_PER_CHARACTER * geohash.length());
+    }
+
+    /**
+     * Returns the cell at an offset of a given number of cells from another one, at the same level. Longitude wraps
+     * around the antimeridian.
+     * 
+     * @param cell            the key of the cell
+     * @param bits            the number of bits of the cell
+     * @param longitudeOffset the offset in cells along the longitude
+     * @param latitudeOffset  the offset in cells along the latitude
+     * @return the key of the cell, or -1 if it is beyond a pole
+     * @throws IllegalArgumentException if the number of bits is not valid
+     */
+    public static long neighbor(long cell, int bits, int longitudeOffset, int latitudeOffset) {
+        UllGeoCell.validateBits(bits);
+        final boolean even = bits % 2 == 0;
+        final long longitudeCells = 1L << ((bits + 1) / 2);
+        final long latitudeCells = 1L << (bits / 2);
+        final long x = Math.floorMod(UllGeoCell.compact(even ? cell >>> 1 : cell) + longitudeOffset, longitudeCells);
+        final long y = UllGeoCell.compact(even ? cell : cell >>> 1) + latitudeOffset;
+        if (y < 0 || y >= latitudeCells) {
+            return -1L;
+        }
+        return even ? (UllGeoCell.spread(x) << 1) | UllGeoCell.spread(y) : (UllGeoCell.spread(y) << 1) | UllGeoCell.spread(x);
+    }
+
+    /**
+     * Returns the 8 cells around a cell, clockwise from the north. Cells beyond a pole are -1.
+     * 
+     * @param cell the key of the cell
+     * @param bits the number of bits of the cell
+     * @return the keys of the neighbors: north, north-east, east, south-east, south, south-west, west and north-west
+     * @throws IllegalArgumentException if the number of bits is not valid
+     */
+    public static long[] neighbors(long cell, int bits) {
+        return new long[] {
+                UllGeoCell.neighbor(cell, bits, 0, 1),
+                UllGeoCell.neighbor(cell, bits, 1, 1),
+                UllGeoCell.neighbor(cell, bits, 1, 0),
+                UllGeoCell.neighbor(cell, bits, 1, -1),
+                UllGeoCell.neighbor(cell, bits, 0, -1),
+                UllGeoCell.neighbor(cell, bits, -1, -1),
+                UllGeoCell.neighbor(cell, bits, -1, 0),
+                UllGeoCell.neighbor(cell, bits, -1, 1) };
+    }
+
+    /**
+     * Returns the geohashes of the 8 cells around the cell of a geohash, clockwise from the north. Cells beyond a pole
+     * are null.
+     * 
+     * @param geohash the geohash
+     * @return the geohashes of the neighbors
+     * @throws IllegalArgumentException if the geohash is not valid
+     */
+    public static String[] neighbors(String geohash) {
+        final long[] cells = UllGeoCell.neighbors(UllGeoCell.fromGeohash(geohash), BITS_PER_CHARACTER * geohash.length());
+        final String[] geohashes = new String[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            geohashes[i] = cells[i] < 0 ? null : UllGeoCell.toGeohash(cells[i], geohash.length());
+        }
+        return geohashes;
+    }
+
+    /**
+     * Checks the number of bits of a cell.
+     * 
+     * @param bits the number of bits
+     * @throws IllegalArgumentException if the number of bits is not between 1 and {@link #MORTON_BITS}
+     */
+    private static void validateBits(int bits) {
+        if (bits < 1 || bits > MORTON_BITS) {
+            throw new IllegalArgumentException(ERROR_BITS);
+        }
+    }
+
+    /**
+     * Quantizes a coordinate to {@link #AXIS_BITS} bits.
+     * 
+     * @param value   the coordinate
+     * @param minimum the minimum of the coordinate
+     * @param maximum the maximum of the coordinate
+     * @return the index of the coordinate among the cells of the axis
+     */
+    private static long quantize(double value, double minimum, double maximum) {
+        final long index = (long) ((value - minimum) / (maximum - minimum) * AXIS_CELLS);
+        return Math.max(0L, Math.min(index, (1L << AXIS_BITS) - 1));
+    }
+
+    /**
+     * Spreads the lower 32 bits of a value into the even bits of a long.
+     * 
+     * @param value the value
+     * @return the spread bits
+     */
+    private static long spread(long value) {
+        long bits = value & 0xFFFFFFFFL;
+        bits = (bits | (bits << 16)) & 0x0000FFFF0000FFFFL;
+        bits = (bits | (bits << 8)) & 0x00FF00FF00FF00FFL;
+        bits = (bits | (bits << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        bits = (bits | (bits << 2)) & 0x3333333333333333L;
+        bits = (bits | (bits << 1)) & 0x5555555555555555L;
+        return bits;
+    }
+
+    /**
+     * Gathers the even bits of a long into its lower 32 bits, reversing {@link #spread(long)}.
+     * 
+     * @param value the value
+     * @return the gathered bits
+     */
+    private static long compact(long value) {
+        long bits = value & 0x5555555555555555L;
+        bits = (bits | (bits >>> 1)) & 0x3333333333333333L;
+        bits = (bits | (bits >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+        bits = (bits | (bits >>> 4)) & 0x00FF00FF00FF00FFL;
+        bits = (bits | (bits >>> 8)) & 0x0000FFFF0000FFFFL;
+        bits = (bits | (bits >>> 16)) & 0x00000000FFFFFFFFL;
+        return bits;
+    }
+}
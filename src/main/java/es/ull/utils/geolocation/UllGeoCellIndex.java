@@ -0,0 +1,284 @@
+package es.ull.utils.geolocation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hash index of values bucketed by the cell of their position at a fixed level of {@link UllGeoCell}. Cell keys are
+ * stored in an open-addressing table of primitive longs, so finding the bucket of a position takes constant time and
+ * does not box the key. Proximity queries look at the cell of the position and its 8 neighbors.
+ * 
+ * @param <T> the type of the indexed values
+ */
+public class UllGeoCellIndex<T> {
+
+    public static final String ERROR_VALUE_UNDEFINED = "The value is not defined";
+    public static final String ERROR_CONSUMER_UNDEFINED = "The consumer is not defined";
+    /**
+     * Marker of the free slots of the table. Cell keys are never negative.
+     */
+    private static final long FREE = -1L;
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Number of bits of the cells of the index.
+     */
+    private final int bits;
+    /**
+     * Cell keys of the table, or {@link #FREE}.
+     */
+    private long[] keys;
+    /**
+     * Buckets of the table, at the same slots as their keys.
+     */
+    private Object[] buckets;
+    /**
+     * Number of cells with values.
+     */
+    private int cells;
+    /**
+     * Number of values.
+     */
+    private int size;
+
+    /**
+     * Constructor for an empty index.
+     * 
+     * @param bits the number of bits of the cells, between 1 and {@link UllGeoCell#MORTON_BITS}
+     * @throws IllegalArgumentException if the number of bits is not valid
+     */
+    public UllGeoCellIndex(int bits) {
+        if (bits < 1 || bits > UllGeoCell.MORTON_BITS) {
+            throw new IllegalArgumentException(UllGeoCell.ERROR_BITS);
+        }
+        this.bits = bits;
+        this.keys = new long[INITIAL_CAPACITY];
+        this.buckets = new Object[INITIAL_CAPACITY];
+        Arrays.fill(this.keys, FREE);
+    }
+
+    /**
+     * Returns the number of bits of the cells of the index.
+     * 
+     * @return the number of bits
+     */
+    public int getBits() {
+        return this.bits;
+    }
+
+    /**
+     * Returns the number of values.
+     * 
+     * @return the number of values
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of cells with values.
+     * 
+     * @return the number of cells
+     */
+    public int getNumberOfCells() {
+        return this.cells;
+    }
+
+    /**
+     * Returns the cell of the index that contains a point.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @return the key of the cell
+     */
+    public long cellOf(double longitude, double latitude) {
+        return UllGeoCell.cell(longitude, latitude, this.bits);
+    }
+
+    /**
+     * Adds a value at a point.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @param value     the value
+     * @throws IllegalArgumentException if the value is null
+     */
+    public void add(double longitude, double latitude, T value) {
+        if (value == null) {
+            throw new IllegalArgumentException(ERROR_VALUE_UNDEFINED);
+        }
+        final long cell = this.cellOf(longitude, latitude);
+        int slot = this.slot(cell);
+        if (this.keys[slot] == FREE) {
+            if (2 * (this.cells + 1) > this.keys.length) {
+                this.resize();
+                slot = this.slot(cell);
+            }
+            this.keys[slot] = cell;
+            this.buckets[slot] = new ArrayList<T>(2);
+            this.cells++;
+        }
+        this.bucket(slot).add(value);
+        this.size++;
+    }
+
+    /**
+     * Adds a value at a point.
+     * 
+     * @param point the point
+     * @param value the value
+     * @throws IllegalArgumentException if the value is null
+     */
+    public void add(UllGeolocationPoint point, T value) {
+        this.add(point.getLongitude(), point.getLatitude(), value);
+    }
+
+    /**
+     * Returns the values of a cell.
+     * 
+     * @param cell the key of the cell
+     * @return the unmodifiable list of values, empty if the cell has none
+     */
+    public List<T> get(long cell) {
+        final int slot = this.slot(cell);
+        if (this.keys[slot] == FREE) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(this.bucket(slot));
+    }
+
+    /**
+     * Returns the values in the same cell as a point.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @return the unmodifiable list of values, empty if the cell has none
+     */
+    public List<T> get(double longitude, double latitude) {
+        return this.get(this.cellOf(longitude, latitude));
+    }
+
+    /**
+     * Passes to a consumer the values in the cell of a point and in its 8 neighbors, which include all the values
+     * closer to the point than the size of a cell.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @param consumer  the consumer of the values
+     * @throws IllegalArgumentException if the consumer is null
+     */
+    public void near(double longitude, double latitude, Consumer<? super T> consumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException(ERROR_CONSUMER_UNDEFINED);
+        }
+        final long cell = this.cellOf(longitude, latitude);
+        this.forEach(cell, consumer);
+        final long[] neighbors = UllGeoCell.neighbors(cell, this.bits);
+        for (int i = 0; i < neighbors.length; i++) {
+            if (neighbors[i] >= 0 && neighbors[i] != cell && !UllGeoCellIndex.contains(neighbors, i, neighbors[i])) {
+                this.forEach(neighbors[i], consumer);
+            }
+        }
+    }
+
+    /**
+     * Returns the values in the cell of a point and in its 8 neighbors.
+     * 
+     * @param longitude the longitude of the point
+     * @param latitude  the latitude of the point
+     * @return the values found
+     */
+    public List<T> near(double longitude, double latitude) {
+        final List<T> result = new ArrayList<>();
+        this.near(longitude, latitude, result::add);
+        return result;
+    }
+
+    /**
+     * Passes the values of a cell to a consumer.
+     * 
+     * @param cell     the key of the cell
+     * @param consumer the consumer of the values
+     */
+    private void forEach(long cell, Consumer<? super T> consumer) {
+        final int slot = this.slot(cell);
+        if (this.keys[slot] != FREE) {
+            this.bucket(slot).forEach(consumer);
+        }
+    }
+
+    /**
+     * Checks if a cell appears before a position of an array, to skip repeated neighbors of very coarse levels.
+     * 
+     * @param cells the cells
+     * @param end   the position after the last cell to check
+     * @param cell  the cell to find
+     * @return true if the cell appears before the position, false otherwise
+     */
+    private static boolean contains(long[] cells, int end, long cell) {
+        for (int i = 0; i < end; i++) {
+            if (cells[i] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the bucket stored at a slot.
+     * 
+     * @param slot the slot
+     * @return the bucket
+     */
+    @SuppressWarnings("unchecked")
+    private List<T> bucket(int slot) {
+        return (List<T>) this.buckets[slot];
+    }
+
+    /**
+     * Finds the slot of a cell with linear probing: the slot that holds it, or the free slot where it would be stored.
+     * 
+     * @param cell the key of the cell
+     * @return the slot
+     */
+    private int slot(long cell) {
+        final int mask = this.keys.length - 1;
+        int slot = UllGeoCellIndex.hash(cell) & mask;
+        while (this.keys[slot] != FREE && this.keys[slot] != cell) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     */
+    private void resize() {
+        final long[] oldKeys = this.keys;
+        final Object[] oldBuckets = this.buckets;
+        this.keys = new long[oldKeys.length * 2];
+        this.buckets = new Object[oldKeys.length * 2];
+        Arrays.fill(this.keys, FREE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                final int slot = this.slot(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.buckets[slot] = oldBuckets[i];
+            }
+        }
+    }
+
+    /**
+     * Mixes the bits of a cell key, since neighboring cells share most of their bits.
+     * 
+     * @param cell the key of the cell
+     * @return the hash of the key
+     */
+    private static int hash(long cell) {
+        long hash = cell * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        return (int) (hash ^ (hash >>> 16));
+    }
+}
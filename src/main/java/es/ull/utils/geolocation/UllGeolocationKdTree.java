@@ -0,0 +1,681 @@
+package es.ull.utils.geolocation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable KD-tree for nearest-neighbor and radius queries over a set of points. Every point is stored as a unit
+ * vector in three dimensions, whose Euclidean (chord) distance grows with the great-circle distance, so the tree finds
+ * the true great-circle neighbors with no special handling of the antimeridian or the poles.
+ * 
+ * The tree is implicit: the vectors are reordered in flat arrays so that the median of every range, on the axis of
+ * widest spread, is the middle element of the range. It is built in O(n log n) expected time and queries only touch
+ * primitive arrays. Results are the indexes of the points in the order in which they were given to the constructor.
+ * The tree can be queried from several threads.
+ */
+public class UllGeolocationKdTree {
+
+    public static final String ERROR_POINTS_UNDEFINED = "The points are not defined";
+    public static final String ERROR_COORDINATES_LENGTH = "The longitudes and latitudes must have the same length";
+    public static final String ERROR_NEIGHBORS = "The number of neighbors must be positive";
+    public static final String ERROR_RADIUS = "The radius must not be negative";
+    public static final String ERROR_CONSUMER_UNDEFINED = "The consumer is not defined";
+    public static final String ERROR_OUTPUT_LENGTH = "The output arrays are too short";
+    /**
+     * Index returned when there is no neighbor, because the tree is empty or has less points than requested.
+     */
+    public static final int NO_NEIGHBOR = -1;
+    /**
+     * Maximum number of points of a range that is scanned linearly instead of split.
+     */
+    private static final int LEAF_SIZE = 8;
+    /**
+     * Number of queries of a batch handled by the same task.
+     */
+    private static final int BATCH_BLOCK = 1024;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    /**
+     * Index of every stored vector in the original points.
+     */
+    private final int[] ids;
+    /**
+     * Split axis of the range whose median is at each position: 0, 1 or 2.
+     */
+    private final byte[] axes;
+
+    /**
+     * Constructor for a tree over a list of points.
+     * 
+     * @param points the points
+     * @throws IllegalArgumentException if the points are null
+     */
+    public UllGeolocationKdTree(List<UllGeolocationPoint> points) {
+        this(UllGeolocationKdTree.longitudes(points), UllGeolocationKdTree.latitudes(points));
+    }
+
+    /**
+     * Constructor for a tree over packed arrays of coordinates.
+     * 
+     * @param longitudes the longitudes of the points, in degrees
+     * @param latitudes  the latitudes of the points, in degrees
+     * @throws IllegalArgumentException if the arrays are null or have different lengths
+     */
+    public UllGeolocationKdTree(double[] longitudes, double[] latitudes) {
+        UllGeolocationKdTree.validate(longitudes, latitudes);
+        final int size = longitudes.length;
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.zs = new double[size];
+        this.ids = new int[size];
+        this.axes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            final double lambda = Math.toRadians(longitudes[i]);
+            final double phi = Math.toRadians(latitudes[i]);
+            final double cosPhi = Math.cos(phi);
+            this.xs[i] = cosPhi * Math.cos(lambda);
+            this.ys[i] = cosPhi * Math.sin(lambda);
+            this.zs[i] = Math.sin(phi);
+            this.ids[i] = i;
+        }
+        this.build(0, size);
+    }
+
+    /**
+     * Returns the number of points.
+     * 
+     * @return the number of points
+     */
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * Returns the nearest point to a location.
+     * 
+     * @param longitude the longitude of the location, in degrees
+     * @param latitude  the latitude of the location, in degrees
+     * @return the index of the nearest point, or {@link #NO_NEIGHBOR} if the tree is empty
+     */
+    public int nearest(double longitude, double latitude) {
+        final UllNeighbors neighbors = new UllNeighbors(1);
+        this.nearest(longitude, latitude, neighbors);
+        return neighbors.size == 0 ? NO_NEIGHBOR : neighbors.ids[0];
+    }
+
+    /**
+     * Returns the nearest point to a location.
+     * 
+     * @param point the location
+     * @return the index of the nearest point, or {@link #NO_NEIGHBOR} if the tree is empty
+     */
+    public int nearest(UllGeolocationPoint point) {
+        return this.nearest(point.getLongitude(), point.getLatitude());
+    }
+
+    /**
+     * Returns the nearest points to a location.
+     * 
+     * @param longitude the longitude of the location, in degrees
+     * @param latitude  the latitude of the location, in degrees
+     * @param k         the number of neighbors
+     * @return the indexes of at most {@code k} points, from the nearest to the farthest
+     * @throws IllegalArgumentException if the number of neighbors is not positive
+     */
+    public int[] nearest(double longitude, double latitude, int k) {
+        final UllNeighbors neighbors = new UllNeighbors(UllGeolocationKdTree.validateNeighbors(k));
+        this.nearest(longitude, latitude, neighbors);
+        final int count = neighbors.sort();
+        return Arrays.copyOf(neighbors.ids, count);
+    }
+
+    /**
+     * Finds the nearest points to a location and writes them, with their distances, to arrays given by the caller.
+     * 
+     * @param longitude the longitude of the location, in degrees
+     * @param latitude  the latitude of the location, in degrees
+     * @param indexes   the array that receives the indexes of the points, from the nearest to the farthest; its length
+     *                  is the number of neighbors
+     * @param distances the array that receives the distances in meters, or null; at least as long as the indexes
+     * @return the number of neighbors found, less than the length of the indexes if the tree has less points
+     * @throws IllegalArgumentException if the arrays are not valid
+     */
+    public int nearest(double longitude, double latitude, int[] indexes, double[] distances) {
+        if (indexes == null || indexes.length == 0 || (distances != null && distances.length < indexes.length)) {
+            throw new IllegalArgumentException(ERROR_OUTPUT_LENGTH);
+        }
+        final UllNeighbors neighbors = new UllNeighbors(indexes.length);
+        this.nearest(longitude, latitude, neighbors);
+        return neighbors.copyTo(indexes, distances, 0);
+    }
+
+    /**
+     * Returns the nearest point to every location of a batch. The batch is split among the threads of the common pool.
+     * 
+     * @param longitudes the longitudes of the locations, in degrees
+     * @param latitudes  the latitudes of the locations, in degrees
+     * @return the index of the nearest point to every location, or {@link #NO_NEIGHBOR} if the tree is empty
+     * @throws IllegalArgumentException if the arrays are null or have different lengths
+     */
+    public int[] nearest(double[] longitudes, double[] latitudes) {
+        return this.nearest(longitudes, latitudes, 1);
+    }
+
+    /**
+     * Returns the nearest points to every location of a batch. The batch is split among the threads of the common
+     * pool.
+     * 
+     * @param longitudes the longitudes of the locations, in degrees
+     * @param latitudes  the latitudes of the locations, in degrees
+     * @param k          the number of neighbors
+     * @return the indexes of the neighbors, {@code k} per location from the nearest to the farthest: the neighbors of
+     *         location {@code i} are at {@code i * k} to {@code i * k + k - 1}, padded with {@link #NO_NEIGHBOR} if the
+     *         tree has less than {@code k} points
+     * @throws IllegalArgumentException if the arrays are not valid or the number of neighbors is not positive
+     */
+    public int[] nearest(double[] longitudes, double[] latitudes, int k) {
+        UllGeolocationKdTree.validate(longitudes, latitudes);
+        UllGeolocationKdTree.validateNeighbors(k);
+        final int[] result = new int[Math.multiplyExact(longitudes.length, k)];
+        Arrays.fill(result, NO_NEIGHBOR);
+        final int blocks = (longitudes.length + BATCH_BLOCK - 1) / BATCH_BLOCK;
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            final UllNeighbors neighbors = new UllNeighbors(k);
+            for (int i = block * BATCH_BLOCK, end = Math.min(i + BATCH_BLOCK, longitudes.length); i < end; i++) {
+                neighbors.clear();
+                this.nearest(longitudes[i], latitudes[i], neighbors);
+                neighbors.copyTo(result, null, i * k);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the nearest points to every location of a batch. The batch is split among the threads of the common
+     * pool.
+     * 
+     * @param points the locations
+     * @param k      the number of neighbors
+     * @return the indexes of the neighbors, laid out as in {@link #nearest(double[], double[], int)}
+     * @throws IllegalArgumentException if the points are null or the number of neighbors is not positive
+     */
+    public int[] nearest(List<UllGeolocationPoint> points, int k) {
+        return this.nearest(UllGeolocationKdTree.longitudes(points), UllGeolocationKdTree.latitudes(points), k);
+    }
+
+    /**
+     * Passes to a consumer the points within a great-circle distance of a location, in no particular order.
+     * 
+     * @param longitude the longitude of the location, in degrees
+     * @param latitude  the latitude of the location, in degrees
+     * @param radius    the distance in meters
+     * @param consumer  the consumer of the indexes of the points
+     * @throws IllegalArgumentException if the radius is negative or the consumer is null
+     */
+    public void withinRadius(double longitude, double latitude, double radius, IntConsumer consumer) {
+        if (!(radius >= 0)) {
+            throw new IllegalArgumentException(ERROR_RADIUS);
+        }
+        if (consumer == null) {
+            throw new IllegalArgumentException(ERROR_CONSUMER_UNDEFINED);
+        }
+        final double chord = 2 * Math.sin(Math.min(radius / UllHaversine.EARTH_RADIUS, Math.PI) / 2);
+        final double[] query = UllGeolocationKdTree.toVector(longitude, latitude);
+        this.withinRadius(0, this.ids.length, query[0], query[1], query[2], chord * chord, consumer);
+    }
+
+    /**
+     * Returns the points within a great-circle distance of a location, in no particular order.
+     * 
+     * @param longitude the longitude of the location, in degrees
+     * @param latitude  the latitude of the location, in degrees
+     * @param radius    the distance in meters
+     * @return the indexes of the points
+     * @throws IllegalArgumentException if the radius is negative
+     */
+    public int[] withinRadius(double longitude, double latitude, double radius) {
+        final int[][] found = { new int[16] };
+        final int[] count = { 0 };
+        this.withinRadius(longitude, latitude, radius, index -> {
+            if (count[0] == found[0].length) {
+                found[0] = Arrays.copyOf(found[0], 2 * count[0]);
+            }
+            found[0][count[0]++] = index;
+        });
+        return Arrays.copyOf(found[0], count[0]);
+    }
+
+    /**
+     * Returns the points within a great-circle distance of a location, in no particular order.
+     * 
+     * @param point  the location
+     * @param radius the distance in meters
+     * @return the indexes of the points
+     * @throws IllegalArgumentException if the radius is negative
+     */
+    public int[] withinRadius(UllGeolocationPoint point, double radius) {
+        return this.withinRadius(point.getLongitude(), point.getLatitude(), radius);
+    }
+
+    /**
+     * Finds the nearest points to a location.
+     * 
+     * @param longitude the longitude of the location, in degrees
+     * @param latitude  the latitude of the location, in degrees
+     * @param neighbors the neighbors found so far
+     */
+    private void nearest(double longitude, double latitude, UllNeighbors neighbors) {
+        final double[] query = UllGeolocationKdTree.toVector(longitude, latitude);
+        this.nearest(0, this.ids.length, query[0], query[1], query[2], neighbors);
+    }
+
+    /**
+     * Searches the nearest points in a range of the tree, visiting first the half that contains the query.
+     * 
+     * @param start     the start of the range
+     * @param end       the end of the range
+     * @param x         the first coordinate of the query
+     * @param y         the second coordinate of the query
+     * @param z         the third coordinate of the query
+     * @param neighbors the neighbors found so far
+     */
+    private void nearest(int start, int end, double x, double y, double z, UllNeighbors neighbors) {
+        if (end - start <= LEAF_SIZE) {
+            for (int i = start; i < end; i++) {
+                neighbors.offer(this.squaredDistance(i, x, y, z), this.ids[i]);
+            }
+            return;
+        }
+        final int median = (start + end) >>> 1;
+        final double difference = this.difference(median, x, y, z);
+        neighbors.offer(this.squaredDistance(median, x, y, z), this.ids[median]);
+        if (difference < 0) {
+            this.nearest(start, median, x, y, z, neighbors);
+            if (difference * difference < neighbors.worst()) {
+                this.nearest(median + 1, end, x, y, z, neighbors);
+            }
+        } else {
+            this.nearest(median + 1, end, x, y, z, neighbors);
+            if (difference * difference < neighbors.worst()) {
+                this.nearest(start, median, x, y, z, neighbors);
+            }
+        }
+    }
+
+    /**
+     * Searches the points of a range of the tree within a squared chord distance of the query.
+     * 
+     * @param start    the start of the range
+     * @param end      the end of the range
+     * @param x        the first coordinate of the query
+     * @param y        the second coordinate of the query
+     * @param z        the third coordinate of the query
+     * @param limit    the squared chord distance
+     * @param consumer the consumer of the indexes of the points
+     */
+    private void withinRadius(int start, int end, double x, double y, double z, double limit, IntConsumer consumer) {
+        if (end - start <= LEAF_SIZE) {
+            for (int i = start; i < end; i++) {
+                if (this.squaredDistance(i, x, y, z) <= limit) {
+                    consumer.accept(this.ids[i]);
+                }
+            }
+            return;
+        }
+        final int median = (start + end) >>> 1;
+        final double difference = this.difference(median, x, y, z);
+        if (this.squaredDistance(median, x, y, z) <= limit) {
+            consumer.accept(this.ids[median]);
+        }
+        if (difference <= 0 || difference * difference <= limit) {
+            this.withinRadius(start, median, x, y, z, limit, consumer);
+        }
+        if (difference >= 0 || difference * difference <= limit) {
+            this.withinRadius(median + 1, end, x, y, z, limit, consumer);
+        }
+    }
+
+    /**
+     * Returns the signed distance from the split plane of a median to the query.
+     * 
+     * @param median the position of the median
+     * @param x      the first coordinate of the query
+     * @param y      the second coordinate of the query
+     * @param z      the third coordinate of the query
+     * @return the difference between the coordinate of the query and the one of the median on the split axis
+     */
+    private double difference(int median, double x, double y, double z) {
+        switch (this.axes[median]) {
+        case 0:
+            return x - this.xs[median];
+        case 1:
+            return y - this.ys[median];
+        default:
+            return z - this.zs[median];
+        }
+    }
+
+    /**
+     * Returns the squared chord distance from a stored vector to the query.
+     * 
+     * @param i the position of the vector
+     * @param x the first coordinate of the query
+     * @param y the second coordinate of the query
+     * @param z the third coordinate of the query
+     * @return the squared chord distance
+     */
+    private double squaredDistance(int i, double x, double y, double z) {
+        final double dx = this.xs[i] - x;
+        final double dy = this.ys[i] - y;
+        final double dz = this.zs[i] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Arranges a range of vectors as a subtree: the median on the axis of widest spread is moved to the middle of the
+     * range, with the smaller vectors before it and the larger ones after it, and both halves are arranged in turn.
+     * 
+     * @param start the start of the range
+     * @param end   the end of the range
+     */
+    private void build(int start, int end) {
+        if (end - start <= LEAF_SIZE) {
+            return;
+        }
+        final int axis = this.widestAxis(start, end);
+        final double[] values = this.values(axis);
+        final int median = (start + end) >>> 1;
+        int low = start;
+        int high = end - 1;
+        while (low < high) {
+            final double pivot = values[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    this.swap(i++, j--);
+                }
+            }
+            if (median <= j) {
+                high = j;
+            } else if (median >= i) {
+                low = i;
+            } else {
+                break;
+            }
+        }
+        this.axes[median] = (byte) axis;
+        this.build(start, median);
+        this.build(median + 1, end);
+    }
+
+    /**
+     * Returns the axis along which a range of vectors has the widest spread.
+     * 
+     * @param start the start of the range
+     * @param end   the end of the range
+     * @return the axis: 0, 1 or 2
+     */
+    private int widestAxis(int start, int end) {
+        int axis = 0;
+        double widest = -1;
+        for (int candidate = 0; candidate < 3; candidate++) {
+            final double[] values = this.values(candidate);
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                axis = candidate;
+            }
+        }
+        return axis;
+    }
+
+    /**
+     * Returns the array of the coordinates of an axis.
+     * 
+     * @param axis the axis
+     * @return the coordinates
+     */
+    private double[] values(int axis) {
+        return axis == 0 ? this.xs : axis == 1 ? this.ys : this.zs;
+    }
+
+    /**
+     * Swaps two stored vectors.
+     * 
+     * @param i the position of the first vector
+     * @param j the position of the second vector
+     */
+    private void swap(int i, int j) {
+        double value = this.xs[i];
+        this.xs[i] = this.xs[j];
+        this.xs[j] = value;
+        value = this.ys[i];
+        this.ys[i] = this.ys[j];
+        this.ys[j] = value;
+        value = this.zs[i];
+        this.zs[i] = this.zs[j];
+        this.zs[j] = value;
+        final int id = this.ids[i];
+        this.ids[i] = this.ids[j];
+        this.ids[j] = id;
+    }
+
+    /**
+     * Returns the unit vector of a location.
+     * 
+     * @param longitude the longitude, in degrees
+     * @param latitude  the latitude, in degrees
+     * @return the three coordinates of the vector
+     */
+    private static double[] toVector(double longitude, double latitude) {
+        final double lambda = Math.toRadians(longitude);
+        final double phi = Math.toRadians(latitude);
+        final double cosPhi = Math.cos(phi);
+        return new double[] { cosPhi * Math.cos(lambda), cosPhi * Math.sin(lambda), Math.sin(phi) };
+    }
+
+    /**
+     * Returns the great-circle distance of a squared chord distance between unit vectors.
+     * 
+     * @param squaredChord the squared chord distance
+     * @return the distance in meters
+     */
+    private static double toMeters(double squaredChord) {
+        return 2 * UllHaversine.EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(squaredChord) / 2));
+    }
+
+    /**
+     * Checks that the arrays of longitudes and latitudes are defined and have the same length.
+     * 
+     * @param longitudes the longitudes
+     * @param latitudes  the latitudes
+     * @throws IllegalArgumentException if the arrays are null or have different lengths
+     */
+    private static void validate(double[] longitudes, double[] latitudes) {
+        if (longitudes == null || latitudes == null) {
+            throw new IllegalArgumentException(ERROR_POINTS_UNDEFINED);
+        }
+        if (longitudes.length != latitudes.length) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_LENGTH);
+        }
+    }
+
+    /**
+     * Checks that a number of neighbors is positive.
+     * 
+     * @param k the number of neighbors
+     * @return the number of neighbors
+     * @throws IllegalArgumentException if the number of neighbors is not positive
+     */
+    private static int validateNeighbors(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException(ERROR_NEIGHBORS);
+        }
+        return k;
+    }
+
+    /**
+     * Returns the longitudes of a list of points.
+     * 
+     * @param points the points
+     * @return the longitudes
+     * @throws IllegalArgumentException if the points are null
+     */
+    private static double[] longitudes(List<UllGeolocationPoint> points) {
+        if (points == null) {
+            throw new IllegalArgumentException(ERROR_POINTS_UNDEFINED);
+        }
+        return points.stream().mapToDouble(UllGeolocationPoint::getLongitude).toArray();
+    }
+
+    /**
+     * Returns the latitudes of a list of points.
+     * 
+     * @param points the points
+     * @return the latitudes
+     * @throws IllegalArgumentException if the points are null
+     */
+    private static double[] latitudes(List<UllGeolocationPoint> points) {
+        if (points == null) {
+            throw new IllegalArgumentException(ERROR_POINTS_UNDEFINED);
+        }
+        return points.stream().mapToDouble(UllGeolocationPoint::getLatitude).toArray();
+    }
+
+    /**
+     * Bounded max-heap of the nearest points found by a query, keyed by squared chord distance.
+     */
+    private static final class UllNeighbors {
+
+        private final double[] distances;
+        private final int[] ids;
+        private int size;
+
+        /**
+         * Constructor for an empty heap.
+         * 
+         * @param capacity the number of neighbors to keep
+         */
+        UllNeighbors(int capacity) {
+            this.distances = new double[capacity];
+            this.ids = new int[capacity];
+        }
+
+        /**
+         * Empties the heap.
+         */
+        void clear() {
+            this.size = 0;
+        }
+
+        /**
+         * Returns the squared chord distance that a point must beat to enter the heap.
+         * 
+         * @return the distance of the farthest neighbor if the heap is full, infinity otherwise
+         */
+        double worst() {
+            return this.size < this.ids.length ? Double.POSITIVE_INFINITY : this.distances[0];
+        }
+
+        /**
+         * Offers a point to the heap.
+         * 
+         * @param distance the squared chord distance of the point
+         * @param id       the index of the point
+         */
+        void offer(double distance, int id) {
+            if (this.size < this.ids.length) {
+                int child = this.size++;
+                while (child > 0) {
+                    final int parent = (child - 1) >>> 1;
+                    if (this.distances[parent] >= distance) {
+                        break;
+                    }
+                    this.distances[child] = this.distances[parent];
+                    this.ids[child] = this.ids[parent];
+                    child = parent;
+                }
+                this.distances[child] = distance;
+                this.ids[child] = id;
+            } else if (distance < this.distances[0]) {
+                this.siftDown(distance, id, this.size);
+            }
+        }
+
+        /**
+         * Places a point at the root and moves it down to its place in the first elements of the heap.
+         * 
+         * @param distance the squared chord distance of the point
+         * @param id       the index of the point
+         * @param size     the number of elements of the heap
+         */
+        private void siftDown(double distance, int id, int size) {
+            int parent = 0;
+            int child = 1;
+            while (child < size) {
+                if (child + 1 < size && this.distances[child + 1] > this.distances[child]) {
+                    child++;
+                }
+                if (this.distances[child] <= distance) {
+                    break;
+                }
+                this.distances[parent] = this.distances[child];
+                this.ids[parent] = this.ids[child];
+                parent = child;
+                child = 2 * parent + 1;
+            }
+            this.distances[parent] = distance;
+            this.ids[parent] = id;
+        }
+
+        /**
+         * Sorts the neighbors from the nearest to the farthest, destroying the heap.
+         * 
+         * @return the number of neighbors
+         */
+        int sort() {
+            for (int end = this.size - 1; end > 0; end--) {
+                final double distance = this.distances[end];
+                final int id = this.ids[end];
+                this.distances[end] = this.distances[0];
+                this.ids[end] = this.ids[0];
+                this.siftDown(distance, id, end);
+            }
+            return this.size;
+        }
+
+        /**
+         * Sorts the neighbors and copies them to arrays.
+         * 
+         * @param indexes   the array that receives the indexes
+         * @param distances the array that receives the distances in meters, or null
+         * @param offset    the position of the first neighbor in the arrays
+         * @return the number of neighbors
+         */
+        int copyTo(int[] indexes, double[] distances, int offset) {
+            final int count = this.sort();
+            System.arraycopy(this.ids, 0, indexes, offset, count);
+            if (distances != null) {
+                for (int i = 0; i < count; i++) {
+                    distances[offset + i] = UllGeolocationKdTree.toMeters(this.distances[i]);
+                }
+            }
+            return count;
+        }
+    }
+}
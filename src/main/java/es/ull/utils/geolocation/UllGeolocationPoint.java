@@ -188,6 +188,45 @@ public class UllGeolocationPoint {
         return new UllGeolocationPoint(this.longitude, latitude);
     }
 
+    /**
+     * Returns the great-circle distance to another point.
+     * 
+     * @param other The other point.
+     * @return The distance in meters.
+     */
+    public double distanceTo(UllGeolocationPoint other) {
+        return UllHaversine.distance(this.longitude, this.latitude, other.longitude, other.latitude);
+    }
+
+    /**
+     * Returns the Morton code of the point at full resolution.
+     * 
+     * @return The 62-bit Morton code of the point.
+     */
+    public long toMortonCode() {
+        return UllGeoCell.encode(this.longitude, this.latitude);
+    }
+
+    /**
+     * Returns the geohash of the point.
+     * 
+     * @param precision The number of characters, between 1 and {@link UllGeoCell#MAX_PRECISION}.
+     * @return The geohash of the point.
+     */
+    public String toGeohash(int precision) {
+        return UllGeoCell.geohash(this.longitude, this.latitude, precision);
+    }
+
+    /**
+     * Returns the center of the cell of a geohash.
+     * 
+     * @param geohash The geohash.
+     * @return The center of the cell.
+     */
+    public static UllGeolocationPoint fromGeohash(String geohash) {
+        return UllGeoCell.decode(geohash);
+    }
+
     /**
      * Hash code of the point.
      * 
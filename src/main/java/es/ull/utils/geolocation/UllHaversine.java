@@ -0,0 +1,291 @@
+package es.ull.utils.geolocation;
+
+import es.ull.utils.lang.UllClass;
+
+/**
+ * Great-circle distances with the haversine formula on a sphere of the mean Earth radius. The batch kernels work on
+ * packed arrays of longitudes and latitudes in degrees, convert every coordinate to radians and compute the cosine of
+ * every latitude only once, and evaluate exactly the same expression as {@link #distance(double, double, double, double)},
+ * so their results are bit-for-bit equal to the ones of the single-pair method.
+ */
+public class UllHaversine {
+
+    public static final String ERROR_COORDINATES_UNDEFINED = "The coordinates are not defined";
+    public static final String ERROR_COORDINATES_LENGTH = "The longitudes and latitudes must have the same length";
+    public static final String ERROR_OUTPUT_LENGTH = "The output array is too short";
+    public static final String ERROR_DIMENSIONS = "The dimensions must be 2 or 3";
+    public static final String ERROR_COUNT = "The number of vertices does not fit in the coordinates";
+    /**
+     * Mean radius of the Earth in meters, as defined by the IUGG.
+     */
+    public static final double EARTH_RADIUS = 6_371_008.8;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     * 
+     * @throws UnsupportedOperationException if an attempt is made to instantiate this class.
+     */
+    private UllHaversine() {
+        throw new UnsupportedOperationException(UllClass.ERROR_UTILITY_CLASS);
+    }
+
+    /**
+     * Returns the distance between two points.
+     * 
+     * @param longitude1 the longitude of the first point, in degrees
+     * @param latitude1  the latitude of the first point, in degrees
+     * @param longitude2 the longitude of the second point, in degrees
+     * @param latitude2  the latitude of the second point, in degrees
+     * @return the distance in meters
+     */
+    public static double distance(double longitude1, double latitude1, double longitude2, double latitude2) {
+        final double phi1 = Math.toRadians(latitude1);
+        final double phi2 = Math.toRadians(latitude2);
+        return UllHaversine.distance(Math.toRadians(longitude1), phi1, Math.cos(phi1), Math.toRadians(longitude2), phi2,
+                Math.cos(phi2));
+    }
+
+    /**
+     * Returns the distance between two points.
+     * 
+     * @param point1 the first point
+     * @param point2 the second point
+     * @return the distance in meters
+     */
+    public static double distance(UllGeolocationPoint point1, UllGeolocationPoint point2) {
+        return UllHaversine.distance(point1.getLongitude(), point1.getLatitude(), point2.getLongitude(),
+                point2.getLatitude());
+    }
+
+    /**
+     * Computes the distances from a point to many points.
+     * 
+     * @param longitude  the longitude of the origin, in degrees
+     * @param latitude   the latitude of the origin, in degrees
+     * @param longitudes the longitudes of the destinations, in degrees
+     * @param latitudes  the latitudes of the destinations, in degrees
+     * @param distances  the array that receives the distances in meters, at least as long as the destinations
+     * @return the array of distances
+     * @throws IllegalArgumentException if the arrays are null or have wrong lengths
+     */
+    public static double[] distances(double longitude, double latitude, double[] longitudes, double[] latitudes,
+            double[] distances) {
+        UllHaversine.validate(longitudes, latitudes);
+        if (distances == null || distances.length < longitudes.length) {
+            throw new IllegalArgumentException(ERROR_OUTPUT_LENGTH);
+        }
+        final double lambda = Math.toRadians(longitude);
+        final double phi = Math.toRadians(latitude);
+        final double cosPhi = Math.cos(phi);
+        for (int i = 0; i < longitudes.length; i++) {
+            final double phi2 = Math.toRadians(latitudes[i]);
+            distances[i] = UllHaversine.distance(lambda, phi, cosPhi, Math.toRadians(longitudes[i]), phi2, Math.cos(phi2));
+        }
+        return distances;
+    }
+
+    /**
+     * Computes the distances from a point to many points.
+     * 
+     * @param longitude  the longitude of the origin, in degrees
+     * @param latitude   the latitude of the origin, in degrees
+     * @param longitudes the longitudes of the destinations, in degrees
+     * @param latitudes  the latitudes of the destinations, in degrees
+     * @return the distances in meters
+     * @throws IllegalArgumentException if the arrays are null or have different lengths
+     */
+    public static double[] distances(double longitude, double latitude, double[] longitudes, double[] latitudes) {
+        UllHaversine.validate(longitudes, latitudes);
+        return UllHaversine.distances(longitude, latitude, longitudes, latitudes, new double[longitudes.length]);
+    }
+
+    /**
+     * Computes the distances from every origin to every destination.
+     * 
+     * @param fromLongitudes the longitudes of the origins, in degrees
+     * @param fromLatitudes  the latitudes of the origins, in degrees
+     * @param toLongitudes   the longitudes of the destinations, in degrees
+     * @param toLatitudes    the latitudes of the destinations, in degrees
+     * @return the distances in meters in row-major order: the distance from origin {@code i} to destination {@code j}
+     *         is at {@code i * toLongitudes.length + j}
+     * @throws IllegalArgumentException if the arrays are null or have different lengths
+     */
+    public static double[] distances(double[] fromLongitudes, double[] fromLatitudes, double[] toLongitudes,
+            double[] toLatitudes) {
+        UllHaversine.validate(fromLongitudes, fromLatitudes);
+        UllHaversine.validate(toLongitudes, toLatitudes);
+        final UllRadians to = new UllRadians(toLongitudes, toLatitudes, 0, toLongitudes.length);
+        final double[] distances = new double[Math.multiplyExact(fromLongitudes.length, toLongitudes.length)];
+        UllHaversine.distances(fromLongitudes, fromLatitudes, 0, fromLongitudes.length, to, distances, 0,
+                toLongitudes.length);
+        return distances;
+    }
+
+    /**
+     * Computes the distances from a range of origins to destinations already converted to radians.
+     * 
+     * @param fromLongitudes the longitudes of the origins, in degrees
+     * @param fromLatitudes  the latitudes of the origins, in degrees
+     * @param fromStart      the index of the first origin
+     * @param fromEnd        the index after the last origin
+     * @param to             the destinations
+     * @param distances      the array that receives the distances in meters
+     * @param offset         the index of the distance from the first origin to the first destination
+     * @param stride         the distance between the indexes of consecutive origins
+     */
+    static void distances(double[] fromLongitudes, double[] fromLatitudes, int fromStart, int fromEnd, UllRadians to,
+            double[] distances, int offset, int stride) {
+        final double[] lambdas = to.lambdas;
+        final double[] phis = to.phis;
+        final double[] cosPhis = to.cosPhis;
+        for (int i = fromStart; i < fromEnd; i++) {
+            final double lambda = Math.toRadians(fromLongitudes[i]);
+            final double phi = Math.toRadians(fromLatitudes[i]);
+            final double cosPhi = Math.cos(phi);
+            final int row = offset + (i - fromStart) * stride;
+            for (int j = 0; j < lambdas.length; j++) {
+                distances[row + j] = UllHaversine.distance(lambda, phi, cosPhi, lambdas[j], phis[j], cosPhis[j]);
+            }
+        }
+    }
+
+    /**
+     * Returns the length of a polyline.
+     * 
+     * @param longitudes the longitudes of the vertices, in degrees
+     * @param latitudes  the latitudes of the vertices, in degrees
+     * @return the length in meters, 0 if the polyline has less than two vertices
+     * @throws IllegalArgumentException if the arrays are null or have different lengths
+     */
+    public static double length(double[] longitudes, double[] latitudes) {
+        UllHaversine.validate(longitudes, latitudes);
+        return UllHaversine.length(longitudes, latitudes, 0, 1, longitudes.length);
+    }
+
+    /**
+     * Returns the length of a polyline stored as interleaved coordinates, as in a packed sequence of positions.
+     * 
+     * @param coordinates the coordinates of the vertices: longitude and latitude in degrees, and optionally altitude
+     * @param dimensions  the number of coordinates of every vertex, 2 or 3
+     * @param count       the number of vertices
+     * @return the length in meters, 0 if the polyline has less than two vertices
+     * @throws IllegalArgumentException if the coordinates are null or the number of vertices is not valid
+     */
+    public static double length(double[] coordinates, int dimensions, int count) {
+        if (coordinates == null) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_UNDEFINED);
+        }
+        if (dimensions != 2 && dimensions != 3) {
+            throw new IllegalArgumentException(ERROR_DIMENSIONS);
+        }
+        if (count < 0 || (long) count * dimensions > coordinates.length) {
+            throw new IllegalArgumentException(ERROR_COUNT);
+        }
+        return UllHaversine.length(coordinates, coordinates, 1, dimensions, count);
+    }
+
+    /**
+     * Returns the length of a polyline whose coordinates are read with a stride, so that separate and interleaved
+     * arrays share the same loop. The trigonometric values of every vertex are computed once and reused for the next
+     * segment.
+     * 
+     * @param longitudes      the array of the longitudes
+     * @param latitudes       the array of the latitudes
+     * @param latitudeOffset  the index of the first latitude
+     * @param stride          the distance between the indexes of consecutive vertices
+     * @param count           the number of vertices
+     * @return the length in meters
+     */
+    private static double length(double[] longitudes, double[] latitudes, int latitudeOffset, int stride, int count) {
+        if (count < 2) {
+            return 0;
+        }
+        double lambda = Math.toRadians(longitudes[0]);
+        double phi = Math.toRadians(latitudes[latitudeOffset]);
+        double cosPhi = Math.cos(phi);
+        double length = 0;
+        for (int i = 1, index = stride; i < count; i++, index += stride) {
+            final double lambda2 = Math.toRadians(longitudes[index]);
+            final double phi2 = Math.toRadians(latitudes[index + latitudeOffset]);
+            final double cosPhi2 = Math.cos(phi2);
+            length += UllHaversine.distance(lambda, phi, cosPhi, lambda2, phi2, cosPhi2);
+            lambda = lambda2;
+            phi = phi2;
+            cosPhi = cosPhi2;
+        }
+        return length;
+    }
+
+    /**
+     * Haversine kernel shared by all the methods.
+     * 
+     * @param lambda1 the longitude of the first point, in radians
+     * @param phi1    the latitude of the first point, in radians
+     * @param cosPhi1 the cosine of the latitude of the first point
+     * @param lambda2 the longitude of the second point, in radians
+     * @param phi2    the latitude of the second point, in radians
+     * @param cosPhi2 the cosine of the latitude of the second point
+     * @return the distance in meters
+     */
+    private static double distance(double lambda1, double phi1, double cosPhi1, double lambda2, double phi2,
+            double cosPhi2) {
+        final double sinHalfPhi = Math.sin((phi2 - phi1) * 0.5);
+        final double sinHalfLambda = Math.sin((lambda2 - lambda1) * 0.5);
+        final double h = sinHalfPhi * sinHalfPhi + cosPhi1 * cosPhi2 * sinHalfLambda * sinHalfLambda;
+        return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1.0, h)));
+    }
+
+    /**
+     * Checks that the arrays of longitudes and latitudes are defined and have the same length.
+     * 
+     * @param longitudes the longitudes
+     * @param latitudes  the latitudes
+     * @throws IllegalArgumentException if the arrays are null or have different lengths
+     */
+    private static void validate(double[] longitudes, double[] latitudes) {
+        if (longitudes == null || latitudes == null) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_UNDEFINED);
+        }
+        if (longitudes.length != latitudes.length) {
+            throw new IllegalArgumentException(ERROR_COORDINATES_LENGTH);
+        }
+    }
+
+    /**
+     * Points converted to radians, with the cosines of their latitudes, to be reused by every row of a matrix.
+     */
+    static final class UllRadians {
+
+        private final double[] lambdas;
+        private final double[] phis;
+        private final double[] cosPhis;
+
+        /**
+         * Constructor that converts a range of points.
+         * 
+         * @param longitudes the longitudes, in degrees
+         * @param latitudes  the latitudes, in degrees
+         * @param start      the index of the first point
+         * @param end        the index after the last point
+         */
+        UllRadians(double[] longitudes, double[] latitudes, int start, int end) {
+            this.lambdas = new double[end - start];
+            this.phis = new double[end - start];
+            this.cosPhis = new double[end - start];
+            for (int i = start; i < end; i++) {
+                this.lambdas[i - start] = Math.toRadians(longitudes[i]);
+                this.phis[i - start] = Math.toRadians(latitudes[i]);
+                this.cosPhis[i - start] = Math.cos(this.phis[i - start]);
+            }
+        }
+
+        /**
+         * Returns the number of points.
+         * 
+         * @return the number of points
+         */
+        int size() {
+            return this.lambdas.length;
+        }
+    }
+}